@@ -551,6 +551,38 @@ public class GDXRenderer implements SGL {
 	public void setGlobalAlphaScale(float alphaScale) {
 	}
 
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#getGlobalAlphaScale()
+	 */
+	public float getGlobalAlphaScale() {
+		return 1;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#drawQuads(java.nio.FloatBuffer, int, int)
+	 */
+	public void drawQuads(FloatBuffer data, int first, int count) {
+		if (count == 0) {
+			return;
+		}
+		
+		float r = color[0];
+		float g = color[1];
+		float b = color[2];
+		float a = color[3];
+		
+		glBegin(SGL.GL_QUADS);
+		for (int i=first;i<first+count;i++) {
+			int index = i*8;
+			glColor4f(data.get(index+4), data.get(index+5), data.get(index+6), data.get(index+7));
+			glTexCoord2f(data.get(index+2), data.get(index+3));
+			glVertex2f(data.get(index), data.get(index+1));
+		}
+		glEnd();
+		
+		glColor4f(r, g, b, a);
+	}
+
 	/**
 	 * Log a failure message
 	 * 
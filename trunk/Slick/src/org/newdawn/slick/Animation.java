@@ -359,10 +359,44 @@ public class Animation implements Renderable {
 	 * @param col The colour filter to use
 	 */
 	public void draw(float x,float y,float width,float height, Color col) {
-		if (frames.size() == 0) {
+		Image image = prepareDraw();
+		if (image == null) {
 			return;
 		}
 		
+		image.draw(x,y,width,height, col);
+	}
+	
+	/**
+	 * Draw the animation
+	 * 
+	 * @param x The x position to draw the animation at
+	 * @param y The y position to draw the animation at
+	 * @param width The width to draw the animation at
+	 * @param height The height to draw the animation at
+	 * @param argb The colour filter to use packed 0xAARRGGBB
+	 */
+	public void draw(float x,float y,float width,float height, int argb) {
+		Image image = prepareDraw();
+		if (image == null) {
+			return;
+		}
+		
+		image.draw(x,y,width,height, argb);
+	}
+	
+	/**
+	 * Update the animation as if it were being drawn and get the image of 
+	 * the frame to draw. Used by anything that renders the animation's frames 
+	 * itself, such as the SpriteBatch.
+	 * 
+	 * @return The image of the frame to draw or null if there are no frames
+	 */
+	Image prepareDraw() {
+		if (frames.size() == 0) {
+			return null;
+		}
+		
 		if (autoUpdate) {
 			long now = getTime();
 			long delta = now - lastUpdate;
@@ -375,7 +409,7 @@ public class Animation implements Renderable {
 		}
 		
 		Frame frame = (Frame) frames.get(currentFrame);
-		frame.image.draw(x,y,width,height, col);
+		return frame.image;
 	}
 
 	/**
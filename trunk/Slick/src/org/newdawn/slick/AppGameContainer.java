@@ -23,6 +23,7 @@ import org.newdawn.slick.opengl.InternalTextureLoader;
 import org.newdawn.slick.opengl.LoadableImageData;
 import org.newdawn.slick.opengl.TGAImageData;
 import org.newdawn.slick.util.Log;
+import org.newdawn.slick.util.Profiler;
 import org.newdawn.slick.util.ResourceLoader;
 
 /**
@@ -403,9 +404,12 @@ public class AppGameContainer extends GameContainer {
 	 * @throws SlickException Indicates a game failure
 	 */
 	protected void gameLoop() throws SlickException {
+		profiler.startFrame();
 		int delta = getDelta();
 		if (!Display.isVisible() && updateOnlyOnVisible) {
+			profiler.start(Profiler.SLEEP);
 			try { Thread.sleep(100); } catch (Exception e) {}
+			profiler.end();
 		} else {
 			try {
 				updateAndRender(delta);
@@ -418,7 +422,10 @@ public class AppGameContainer extends GameContainer {
 
 		updateFPS();
 
+		profiler.start(Profiler.SWAP);
 		Display.update();
+		profiler.end();
+		profiler.endFrame();
 		
 		if (Display.isCloseRequested()) {
 			if (game.closeRequested()) {
@@ -25,6 +25,7 @@ import org.newdawn.slick.opengl.CursorLoader;
 import org.newdawn.slick.opengl.ImageData;
 import org.newdawn.slick.opengl.InternalTextureLoader;
 import org.newdawn.slick.util.Log;
+import org.newdawn.slick.util.Profiler;
 
 /**
  * A game container that displays the game as an applet. Note however that the
@@ -513,12 +514,16 @@ public class AppletGameContainer extends Applet {
        */
       public void runloop() throws Exception {
          while (running) {
+            profiler.startFrame();
             int delta = getDelta();
 
             updateAndRender(delta);
 
             updateFPS();
+            profiler.start(Profiler.SWAP);
             Display.update();
+            profiler.end();
+            profiler.endFrame();
          }
 
          Display.destroy();
@@ -335,6 +335,38 @@ public class BigImage extends Image {
 		GL.glTranslatef(-x,-y,0);
 	}
 
+	/**
+	 * @see org.newdawn.slick.Image#draw(float, float, float, float, int)
+	 */
+	public void draw(float x, float y, float width, float height, int filter) {
+		float sx = width / realWidth;
+		float sy = height / realHeight;
+		
+		GL.glTranslatef(x,y,0);
+		GL.glScalef(sx,sy,1);
+
+		float xp = 0;
+		float yp = 0;
+		
+		for (int tx=0;tx<xcount;tx++) {
+			yp = 0;
+			for (int ty=0;ty<ycount;ty++) {
+				Image image = images[tx][ty];
+
+				image.draw(xp,yp,image.getWidth(), image.getHeight(), filter);
+			
+				yp += image.getHeight();
+				if (ty == ycount - 1) {
+					xp += image.getWidth();
+				}
+			}
+			
+		}
+		
+		GL.glScalef(1.0f/sx,1.0f/sy,1);
+		GL.glTranslatef(-x,-y,0);
+	}
+
 	/**
 	 * @see org.newdawn.slick.Image#draw(float, float, float, float, float, float, float, float)
 	 */
@@ -729,6 +761,22 @@ public class BigImage extends Image {
 		subImage.draw(x,y,width,height,filter);
 	}
 
+	/**
+	 * @see org.newdawn.slick.Image#draw(float, float, float, float, float, float, float, float, int)
+	 */
+	public void draw(float x, float y, float x2, float y2, float srcx,
+			float srcy, float srcx2, float srcy2, int filter) {	
+		int srcwidth = (int) (srcx2 - srcx);
+		int srcheight = (int) (srcy2 - srcy);
+
+		Image subImage = getSubImage((int) srcx,(int) srcy,srcwidth,srcheight);
+
+		int width = (int) (x2 - x);
+		int height = (int) (y2 - y);
+
+		subImage.draw(x,y,width,height,filter);
+	}
+
 	/**
 	 * @see org.newdawn.slick.Image#drawCentered(float, float)
 	 */
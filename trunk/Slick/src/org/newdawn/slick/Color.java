@@ -47,6 +47,9 @@ public class Color implements Serializable {
 	/** The fixed colour dark magenta */
     public final static Color magenta	= new Color(255, 0, 255, 255);
     
+	/** The scale from a byte value of a component to the range 0 to 1 */
+	private static final float BYTE_SCALE = 1 / 255.0f;
+
 	/** The red component of the colour */
 	public float r;
 	/** The green component of the colour */
@@ -181,6 +184,80 @@ public class Color implements Serializable {
 	public void bind() {
 		GL.glColor4f(r,g,b,a);
 	}
+
+	/**
+	 * Bind a colour packed 0xAARRGGBB to the GL context. Unlike the Color(int)
+	 * constructor an alpha of zero is taken as fully transparent.
+	 * 
+	 * @param argb The colour to bind packed 0xAARRGGBB
+	 */
+	public static void bindARGB(int argb) {
+		Renderer.get().glColor4f(((argb >> 16) & 0xff) * BYTE_SCALE, ((argb >> 8) & 0xff) * BYTE_SCALE,
+								 (argb & 0xff) * BYTE_SCALE, ((argb >> 24) & 0xff) * BYTE_SCALE);
+	}
+
+	/**
+	 * Bind a colour packed 0xAARRGGBB to the GL context with its alpha scaled
+	 * 
+	 * @param argb The colour to bind packed 0xAARRGGBB
+	 * @param alpha The value to multiply the colour's alpha by
+	 */
+	public static void bindARGB(int argb, float alpha) {
+		Renderer.get().glColor4f(((argb >> 16) & 0xff) * BYTE_SCALE, ((argb >> 8) & 0xff) * BYTE_SCALE,
+								 (argb & 0xff) * BYTE_SCALE, ((argb >> 24) & 0xff) * BYTE_SCALE * alpha);
+	}
+
+	/**
+	 * Pack a colour into an int 0xAARRGGBB. Components outside of 0 to 1 are
+	 * clamped.
+	 * 
+	 * @param r The red component of the colour (0.0 -> 1.0)
+	 * @param g The green component of the colour (0.0 -> 1.0)
+	 * @param b The blue component of the colour (0.0 -> 1.0)
+	 * @param a The alpha component of the colour (0.0 -> 1.0)
+	 * @return The colour packed 0xAARRGGBB
+	 */
+	public static int pack(float r, float g, float b, float a) {
+		return (toByte(a) << 24) | (toByte(r) << 16) | (toByte(g) << 8) | toByte(b);
+	}
+
+	/**
+	 * Convert a component of a colour to a byte value
+	 * 
+	 * @param value The component (0.0 -> 1.0)
+	 * @return The component as a byte value (0 -> 255)
+	 */
+	private static int toByte(float value) {
+		if (value <= 0) {
+			return 0;
+		}
+		if (value >= 1) {
+			return 255;
+		}
+		return (int) ((value * 255) + 0.5f);
+	}
+
+	/**
+	 * Get this colour packed into an int 0xAARRGGBB
+	 * 
+	 * @return The colour packed 0xAARRGGBB
+	 */
+	public int getARGB() {
+		return pack(r, g, b, a);
+	}
+
+	/**
+	 * Set this colour from an int packed 0xAARRGGBB. Unlike the Color(int)
+	 * constructor an alpha of zero is taken as fully transparent.
+	 * 
+	 * @param argb The colour packed 0xAARRGGBB
+	 */
+	public void setARGB(int argb) {
+		r = ((argb >> 16) & 0xff) * BYTE_SCALE;
+		g = ((argb >> 8) & 0xff) * BYTE_SCALE;
+		b = (argb & 0xff) * BYTE_SCALE;
+		a = ((argb >> 24) & 0xff) * BYTE_SCALE;
+	}
 	
 	/**
 	 * @see java.lang.Object#hashCode()
@@ -14,9 +14,11 @@ import org.newdawn.slick.gui.GUIContext;
 import org.newdawn.slick.openal.SoundStore;
 import org.newdawn.slick.opengl.CursorLoader;
 import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.renderer.PipelinedRenderer;
 import org.newdawn.slick.opengl.renderer.Renderer;
 import org.newdawn.slick.opengl.renderer.SGL;
 import org.newdawn.slick.util.Log;
+import org.newdawn.slick.util.Profiler;
 import org.newdawn.slick.util.ResourceLoader;
 
 /**
@@ -60,12 +62,30 @@ public abstract class GameContainer implements GUIContext {
 	protected int targetFPS = -1;
 	/** True if we should show the fps */
 	private boolean showFPS = true;
+	/** The profiler recording the time taken by each part of the frame */
+	protected Profiler profiler = new Profiler();
+	/** True if we should show the profiler's times */
+	private boolean showProfiler;
 	/** The minimum logic update interval */
 	protected long minimumLogicInterval = 1;
 	/** The stored delta */
 	protected long storedDelta;
 	/** The maximum logic update interval */
 	protected long maximumLogicInterval = 0;
+	/** The length of each logic update in milliseconds when using a fixed timestep, 0 if not */
+	protected int fixedTimestep;
+	/** The most logic updates made in a single frame when using a fixed timestep */
+	protected int maximumStepsPerFrame = 5;
+	/** The time in microseconds not yet consumed by fixed logic updates */
+	protected long stepAccumulator;
+	/** The time in microseconds of the last fixed timestep update, -1 if there hasn't been one */
+	protected long lastStepTime = -1;
+	/** The fraction of a fixed logic update that's passed since the last update */
+	protected float interpolation;
+	/** True if the game should be updated and rendered while the last frame is drawn */
+	protected boolean pipelined;
+	/** The worker updating and rendering the game when pipelined, null if not started */
+	private GamePipeline pipeline;
 	/** The last game started */
 	protected Game lastGame;
 	/** True if we should clear the screen each frame */
@@ -170,6 +190,105 @@ public abstract class GameContainer implements GUIContext {
 		this.smoothDeltas = smoothDeltas;
 	}
 	
+	/**
+	 * Indicate that the game should be updated with a fixed timestep. Every
+	 * call to update() is then given exactly the interval specified, as many
+	 * times each frame as needed to keep up with real time, making the logic
+	 * deterministic regardless of frame rate. The minimum and maximum logic 
+	 * update intervals and smoothed deltas don't apply to fixed timestep updates.
+	 * 
+	 * Rendering will generally fall between two updates, the fraction of an update
+	 * that's passed is given by getInterpolation() so the game can interpolate
+	 * what it renders.
+	 * 
+	 * @param interval The length of each update in milliseconds, or 0 to return to
+	 * updating with the time that's passed each frame
+	 */
+	public void setFixedTimestep(int interval) {
+		fixedTimestep = interval;
+		stepAccumulator = 0;
+		lastStepTime = -1;
+		interpolation = 0;
+	}
+	
+	/**
+	 * Get the length of each update when using a fixed timestep
+	 * 
+	 * @return The length of each update in milliseconds, or 0 if a fixed
+	 * timestep isn't being used
+	 */
+	public int getFixedTimestep() {
+		return fixedTimestep;
+	}
+	
+	/**
+	 * Set the most updates that will be made in a single frame when using a fixed 
+	 * timestep. If the game falls further behind than this, e.g. after loading or
+	 * a long pause, the time that can't be caught up is dropped rather than the 
+	 * game spending ever longer catching up.
+	 * 
+	 * @param steps The most updates to make in a single frame (default 5)
+	 */
+	public void setMaximumStepsPerFrame(int steps) {
+		maximumStepsPerFrame = Math.max(1, steps);
+	}
+	
+	/**
+	 * Get the most updates that will be made in a single frame when using a
+	 * fixed timestep
+	 * 
+	 * @return The most updates that will be made in a single frame
+	 */
+	public int getMaximumStepsPerFrame() {
+		return maximumStepsPerFrame;
+	}
+	
+	/**
+	 * Get the fraction of a fixed timestep update that passed between the last
+	 * update and the current render. A game would render its state as 
+	 * previous + ((current - previous) * interpolation) to move smoothly.
+	 * 
+	 * @return The fraction of an update that's passed, from 0 up to but not 
+	 * including 1. Always 0 if a fixed timestep isn't being used.
+	 */
+	public float getInterpolation() {
+		return interpolation;
+	}
+	
+	/**
+	 * Indicate whether the game should be pipelined. When pipelined the game is
+	 * updated and its rendering recorded on a separate thread, while the frame
+	 * recorded before is drawn on the GL thread. On machines with more than one
+	 * core this hides most of the cost of updating, in exchange for the display
+	 * being a frame behind.
+	 * 
+	 * While pipelined the game belongs to the update thread except between
+	 * frames, when input and sound are polled on the GL thread. Listeners are
+	 * notified there, never while the game is updating. The game must not read
+	 * back from the screen or change the display while pipelined.
+	 * 
+	 * Renderer.enablePipelining() must have been called before the container
+	 * was created.
+	 * 
+	 * @param pipelined True if the game should be pipelined
+	 */
+	public void setPipelined(boolean pipelined) {
+		if (pipelined && !(GL instanceof PipelinedRenderer)) {
+			throw new RuntimeException("Renderer.enablePipelining() must be called before the container is created");
+		}
+		
+		this.pipelined = pipelined;
+	}
+	
+	/**
+	 * Check if the game is pipelined
+	 * 
+	 * @return True if the game is updated and rendered while the last frame is drawn
+	 */
+	public boolean isPipelined() {
+		return pipelined;
+	}
+	
 	/**
 	 * Check if the display is in fullscreen mode
 	 * 
@@ -453,6 +572,19 @@ public abstract class GameContainer implements GUIContext {
 		return (Sys.getTime() * 1000) / Sys.getTimerResolution();
 	}
 
+	/**
+	 * Get the accurate system time in microseconds
+	 * 
+	 * @return The system time in microseconds
+	 */
+	protected long getMicroTime() {
+		long time = Sys.getTime();
+		long resolution = Sys.getTimerResolution();
+		
+		// split to avoid overflowing with fine grained timers
+		return ((time / resolution) * 1000000) + (((time % resolution) * 1000000) / resolution);
+	}
+
 	/**
 	 * Sleep for a given period
 	 * 
@@ -638,10 +770,90 @@ public abstract class GameContainer implements GUIContext {
 			}
 		}
 		
+		if (pipelined) {
+			updateAndRenderPipelined(delta);
+		} else {
+			if (pipeline != null) {
+				pipeline.stop();
+				pipeline = null;
+				profiler.collectWorkerFrame();
+			}
+			
+			pollInputAndSound(delta);
+			
+			profiler.start(Profiler.UPDATE);
+			updateGame(delta);
+			profiler.end();
+			
+			if (hasFocus() || getAlwaysRender()) {
+				profiler.start(Profiler.RENDER);
+				renderGame();
+				profiler.end();
+			}
+		}
+		
+		if (targetFPS != -1) {
+			profiler.start(Profiler.SYNC);
+			Display.sync(targetFPS);
+			profiler.end();
+		}
+	}
+	
+	/**
+	 * Run a frame of the game pipelined. The frame handed to the update thread
+	 * last time is collected, then the next is handed over and the one collected
+	 * is drawn while it runs.
+	 * 
+	 * @param delta The amount of time thats passed since last update in milliseconds
+	 * @throws SlickException Indicates an internal fault to the game.
+	 */
+	private void updateAndRenderPipelined(int delta) throws SlickException {
+		PipelinedRenderer renderer = (PipelinedRenderer) GL;
+		if (pipeline == null) {
+			pipeline = new GamePipeline(this, renderer);
+		}
+		
+		profiler.start(Profiler.WAIT);
+		pipeline.waitForFrame();
+		profiler.end();
+		profiler.collectWorkerFrame();
+		renderer.swap();
+		
+		// the update thread is idle so the game can be notified of input here
+		pollInputAndSound(delta);
+		
+		pipeline.start(delta, hasFocus() || getAlwaysRender());
+		
+		profiler.start(Profiler.RENDER);
+		renderer.replay();
+		profiler.end();
+	}
+	
+	/**
+	 * Poll the input and the music playing
+	 * 
+	 * @param delta The amount of time thats passed since last update in milliseconds
+	 */
+	private void pollInputAndSound(int delta) {
+		profiler.start(Profiler.INPUT);
 		input.poll(width, height);
+		profiler.end();
 	
+		profiler.start(Profiler.SOUND);
 		Music.poll(delta);
-		if (!paused) {
+		profiler.end();
+	}
+	
+	/**
+	 * Update the game logic for a frame
+	 * 
+	 * @param delta The amount of time thats passed since last update in milliseconds
+	 * @throws SlickException Indicates an internal fault to the game.
+	 */
+	void updateGame(int delta) throws SlickException {
+		if (fixedTimestep != 0) {
+			updateFixedTimestep();
+		} else if (!paused) {
 			storedDelta += delta;
 			
 			if (storedDelta >= minimumLogicInterval) {
@@ -672,36 +884,79 @@ public abstract class GameContainer implements GUIContext {
 		} else {
 			game.update(this, 0);
 		}
+	}
+	
+	/**
+	 * Render the game for a frame, along with the FPS and profiler overlays
+	 * 
+	 * @throws SlickException Indicates an internal fault to the game.
+	 */
+	void renderGame() throws SlickException {
+		if (clearEachFrame) {
+			GL.glClear(SGL.GL_COLOR_BUFFER_BIT | SGL.GL_DEPTH_BUFFER_BIT);
+		} 
 		
-		if (hasFocus() || getAlwaysRender()) {
-			if (clearEachFrame) {
-				GL.glClear(SGL.GL_COLOR_BUFFER_BIT | SGL.GL_DEPTH_BUFFER_BIT);
-			} 
-			
-			GL.glLoadIdentity();
-			
-			graphics.resetTransform();
-			graphics.resetFont();
-			graphics.resetLineWidth();
-			graphics.setAntiAlias(false);
-			try {
-				game.render(this, graphics);
-			} catch (Throwable e) {
-				Log.error(e);
-				throw new SlickException("Game.render() failure - check the game code.");
-			}
-			graphics.resetTransform();
-			
-			if (showFPS) {
-				defaultFont.drawString(10, 10, "FPS: "+recordedFPS);
-			}
-			
-			GL.flush();
+		GL.glLoadIdentity();
+		
+		graphics.resetTransform();
+		graphics.resetFont();
+		graphics.resetLineWidth();
+		graphics.setAntiAlias(false);
+		try {
+			game.render(this, graphics);
+		} catch (Throwable e) {
+			Log.error(e);
+			throw new SlickException("Game.render() failure - check the game code.");
 		}
+		graphics.resetTransform();
 		
-		if (targetFPS != -1) {
-			Display.sync(targetFPS);
+		if (showFPS) {
+			defaultFont.drawString(10, 10, "FPS: "+recordedFPS);
 		}
+		if (showProfiler) {
+			profiler.render(defaultFont, 10, 30);
+		}
+		
+		GL.flush();
+	}
+	
+	/**
+	 * Update the game with fixed timesteps to consume the time that's passed
+	 * 
+	 * @throws SlickException Indicates an internal fault to the game.
+	 */
+	private void updateFixedTimestep() throws SlickException {
+		long now = getMicroTime();
+		if (lastStepTime >= 0) {
+			stepAccumulator += now - lastStepTime;
+		}
+		lastStepTime = now;
+		
+		long step = fixedTimestep * 1000L;
+		try {
+			if (paused) {
+				stepAccumulator = 0;
+				game.update(this, 0);
+			} else {
+				int steps = 0;
+				while (stepAccumulator >= step) {
+					if (steps == maximumStepsPerFrame) {
+						// too far behind to catch up, drop the whole steps left
+						stepAccumulator %= step;
+						break;
+					}
+					
+					game.update(this, fixedTimestep);
+					stepAccumulator -= step;
+					steps++;
+				}
+			}
+		} catch (Throwable e) {
+			Log.error(e);
+			throw new SlickException("Game.update() failure - check the game code.");
+		}
+		
+		interpolation = (float) stepAccumulator / step;
 	}
 	
 	/**
@@ -785,6 +1040,39 @@ public abstract class GameContainer implements GUIContext {
 		return showFPS;
 	}
 	
+	/**
+	 * Get the profiler recording the time taken by each part of the frame. Games
+	 * may record their own scopes through it. It's disabled until enabled 
+	 * through the profiler itself or by showing it.
+	 * 
+	 * @return The profiler for this container
+	 */
+	public Profiler getProfiler() {
+		return profiler;
+	}
+	
+	/**
+	 * Indicate whether the container should show the times recorded by the 
+	 * profiler. Showing the profiler enables it.
+	 * 
+	 * @param show True if the container should show the profiler's times
+	 */
+	public void setShowProfiler(boolean show) {
+		showProfiler = show;
+		if (show) {
+			profiler.setEnabled(true);
+		}
+	}
+	
+	/**
+	 * Check if the profiler's times are currently showing
+	 * 
+	 * @return True if the profiler's times are showing
+	 */
+	public boolean isShowingProfiler() {
+		return showProfiler;
+	}
+	
 	/**
 	 * Set the target fps we're hoping to get
 	 * 
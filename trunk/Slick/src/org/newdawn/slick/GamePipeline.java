@@ -0,0 +1,156 @@
+package org.newdawn.slick;
+
+import org.newdawn.slick.opengl.renderer.PipelinedRenderer;
+import org.newdawn.slick.util.Log;
+import org.newdawn.slick.util.Profiler;
+
+/**
+ * The worker thread of a pipelined game container. Each frame the GL thread
+ * hands over a delta, the worker updates the game and records its rendering,
+ * while the GL thread draws the frame recorded before.
+ *
+ * The game is owned by whichever thread is running it - the worker between
+ * start() and waitForFrame(), the GL thread at all other times. Input and
+ * sound are polled on the GL thread while the worker is idle, so listeners
+ * are never notified while the game is updating.
+ *
+ * @author agent
+ */
+class GamePipeline implements Runnable {
+	/** The container whose game is being run */
+	private GameContainer container;
+	/** The renderer recording the game's rendering */
+	private PipelinedRenderer renderer;
+	/** The worker thread */
+	private Thread thread;
+	/** True if the worker is running a frame */
+	private boolean busy;
+	/** True if the worker should keep running */
+	private boolean running;
+	/** The delta to update the game by in the frame handed over */
+	private int delta;
+	/** True if the frame handed over should be rendered */
+	private boolean render;
+	/** The failure thrown by the game in the last frame, if any */
+	private Throwable failure;
+
+	/**
+	 * Create a new pipeline
+	 *
+	 * @param container The container whose game should be run
+	 * @param renderer The renderer to record the game's rendering with
+	 */
+	public GamePipeline(GameContainer container, PipelinedRenderer renderer) {
+		this.container = container;
+		this.renderer = renderer;
+	}
+
+	/**
+	 * Hand a frame over to the worker, starting it if this is the first
+	 *
+	 * @param delta The amount of time thats passed since the last update in milliseconds
+	 * @param render True if the game should be rendered as well as updated
+	 */
+	public synchronized void start(int delta, boolean render) {
+		if (thread == null) {
+			thread = new Thread(this, "Slick Game Update");
+			thread.setDaemon(true);
+			renderer.setRecordingThread(thread);
+			running = true;
+			thread.start();
+		}
+
+		this.delta = delta;
+		this.render = render;
+		busy = true;
+		notifyAll();
+	}
+
+	/**
+	 * Wait for the frame handed over to be complete, if any
+	 *
+	 * @throws SlickException Indicates a failure in the game while running the frame
+	 */
+	public synchronized void waitForFrame() throws SlickException {
+		while (busy) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				// keep waiting, the game can't be touched until the frame is done
+			}
+		}
+
+		if (failure != null) {
+			Throwable e = failure;
+			failure = null;
+			if (e instanceof SlickException) {
+				throw (SlickException) e;
+			}
+			Log.error(e);
+			throw new SlickException("Game failure on the update thread - check the game code.");
+		}
+	}
+
+	/**
+	 * Finish the frame handed over, drawing it, and stop the worker. The game's
+	 * rendering is no longer recorded once stopped.
+	 *
+	 * @throws SlickException Indicates a failure in the game while running the frame
+	 */
+	public void stop() throws SlickException {
+		try {
+			waitForFrame();
+		} finally {
+			renderer.swap();
+			renderer.replay();
+
+			synchronized (this) {
+				running = false;
+				notifyAll();
+			}
+			renderer.setRecordingThread(null);
+		}
+	}
+
+	/**
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		while (true) {
+			synchronized (this) {
+				while (running && !busy) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// check if there's anything to do
+					}
+				}
+				if (!running) {
+					return;
+				}
+			}
+
+			// the time spent here is handed back to the GL thread's profiler with the frame
+			Profiler profiler = container.getProfiler();
+			profiler.startWorkerFrame();
+			try {
+				profiler.start(Profiler.UPDATE);
+				container.updateGame(delta);
+				profiler.end();
+				if (render) {
+					profiler.start(Profiler.RECORD);
+					container.renderGame();
+					profiler.end();
+				}
+			} catch (Throwable e) {
+				failure = e;
+			}
+			profiler.endWorkerFrame();
+
+			synchronized (this) {
+				busy = false;
+				notifyAll();
+			}
+		}
+	}
+}
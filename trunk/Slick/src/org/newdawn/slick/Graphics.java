@@ -81,7 +81,7 @@ public class Graphics {
 	private Font font;
 
 	/** The current color */
-	private Color currentColor = Color.white;
+	private Color currentColor = new Color(Color.white);
 
 	/** The width of the screen */
 	protected int screenWidth;
@@ -210,6 +210,15 @@ public class Graphics {
 		postdraw();
 	}
 
+	/**
+	 * Get the drawing mode in use by this graphics context
+	 * 
+	 * @return The drawing mode in use by this graphics context
+	 */
+	public int getDrawMode() {
+		return currentDrawingMode;
+	}
+
 	/**
 	 * Clear the state of the alpha map across the entire screen. This sets
 	 * alpha to 0 everywhere, meaning in {@link Graphics#MODE_ALPHA_BLEND}
@@ -220,10 +229,11 @@ public class Graphics {
 		GL.glLoadIdentity();
 		
 		int originalMode = currentDrawingMode;
+		Color originalColor = getColor();
 		setDrawMode(MODE_ALPHA_MAP);
-		setColor(new Color(0,0,0,0));
+		setColor(Color.transparent);
 		fillRect(0, 0, screenWidth, screenHeight);
-		setColor(currentColor);
+		setColor(originalColor);
 		setDrawMode(originalMode);
 		
 		popTransform();
@@ -422,7 +432,24 @@ public class Graphics {
 			return;
 		}
 		
-		currentColor = new Color(color);
+		currentColor.r = color.r;
+		currentColor.g = color.g;
+		currentColor.b = color.b;
+		currentColor.a = color.a;
+		predraw();
+		currentColor.bind();
+		postdraw();
+	}
+
+	/**
+	 * Set the color to use when rendering to this context
+	 * 
+	 * @param argb
+	 *            The color to use packed 0xAARRGGBB, an alpha of zero is fully
+	 *            transparent
+	 */
+	public void setColorARGB(int argb) {
+		currentColor.setARGB(argb);
 		predraw();
 		currentColor.bind();
 		postdraw();
@@ -437,6 +464,15 @@ public class Graphics {
 		return new Color(currentColor);
 	}
 
+	/**
+	 * Get the color in use by this graphics context without creating a copy
+	 * 
+	 * @return The color in use packed 0xAARRGGBB
+	 */
+	public int getColorARGB() {
+		return currentColor.getARGB();
+	}
+
 	/**
 	 * Draw a line on the canvas in the current colour
 	 * 
@@ -683,7 +719,23 @@ public class Graphics {
 	 *            The height of the rectangle to draw
 	 */
 	public void drawRect(float x1, float y1, float width, float height) {
-		float lineWidth = getLineWidth();
+		if (!LSR.applyGLLineFixes()) {
+			// a single closed strip so the corners are joined
+			predraw();
+			currentColor.bind();
+			TextureImpl.bindNone();
+			
+			LSR.start();
+			LSR.vertex(x1,y1);
+			LSR.vertex(x1+width,y1);
+			LSR.vertex(x1+width,y1+height);
+			LSR.vertex(x1,y1+height);
+			LSR.vertex(x1,y1);
+			LSR.end();
+			
+			postdraw();
+			return;
+		}
 		
 		drawLine(x1,y1,x1+width,y1);
 		drawLine(x1+width,y1,x1+width,y1+height);
@@ -1317,6 +1369,7 @@ public class Graphics {
 	public void resetLineWidth() {
 		predraw();
 		
+		lineWidth = 1.0f;
 		Renderer.getLineStripRenderer().setWidth(1.0f);
 		GL.glLineWidth(1.0f);
 		GL.glPointSize(1.0f);
@@ -1386,6 +1439,25 @@ public class Graphics {
 		postdraw();
 	}
 
+	/**
+	 * Draw an image to the screen
+	 * 
+	 * @param image
+	 *            The image to draw to the screen
+	 * @param x
+	 *            The x location at which to draw the image
+	 * @param y
+	 *            The y location at which to draw the image
+	 * @param argb
+	 *            The color to apply to the image as a filter packed 0xAARRGGBB
+	 */
+	public void drawImage(Image image, float x, float y, int argb) {
+		predraw();
+		image.draw(x, y, image.getWidth(), image.getHeight(), argb);
+		currentColor.bind();
+		postdraw();
+	}
+
 	/**
 	 * Draw an animation to this graphics context
 	 * 
@@ -1419,6 +1491,25 @@ public class Graphics {
 		postdraw();
 	}
 
+	/**
+	 * Draw an animation to this graphics context
+	 * 
+	 * @param anim
+	 *            The animation to be drawn
+	 * @param x
+	 *            The x position to draw the animation at
+	 * @param y
+	 *            The y position to draw the animation at
+	 * @param argb
+	 *            The color to apply to the animation as a filter packed 0xAARRGGBB
+	 */
+	public void drawAnimation(Animation anim, float x, float y, int argb) {
+		predraw();
+		anim.draw(x, y, anim.getWidth(), anim.getHeight(), argb);
+		currentColor.bind();
+		postdraw();
+	}
+
 	/**
 	 * Draw an image to the screen
 	 * 
@@ -362,6 +362,21 @@ public class Image implements Renderable {
 		setColor(BOTTOM_RIGHT, r, g, b);
 	}
 	
+	/**
+	 * Get the color of the given corner when this image is rendered
+	 * 
+	 * @param corner The corner identifier for the corner to get
+	 * @return The color of the corner or null if the corner colors haven't been set,
+	 * in which case the image is drawn in the current color
+	 */
+	public Color getColor(int corner) {
+		if (corners == null) {
+			return null;
+		}
+		
+		return corners[corner];
+	}
+
 	/** 
 	 * Set the color of the given corner when this image is rendered. This is 
 	 * useful lots of visual effect but especially light maps
@@ -704,17 +719,7 @@ public class Image implements Renderable {
 	 * @param filter The colour filter to apply
 	 */
     public void drawSheared(float x,float y, float hshear, float vshear, Color filter) { 
-    	if (alpha != 1) {
-    		if (filter == null) {
-    			filter = Color.white;
-    		}
-    		
-    		filter = new Color(filter);
-    		filter.a *= alpha;
-    	}
-        if (filter != null) { 
-            filter.bind(); 
-        } 
+    	bindFilter(filter);
         
         texture.bind(); 
         
@@ -757,18 +762,51 @@ public class Image implements Renderable {
 	 * @param filter The color to filter with while drawing
 	 */
     public void draw(float x,float y,float width,float height,Color filter) { 
-    	if (alpha != 1) {
-    		if (filter == null) {
-    			filter = Color.white;
-    		}
-    		
-    		filter = new Color(filter);
-    		filter.a *= alpha;
-    	}
-        if (filter != null) { 
-            filter.bind(); 
-        } 
-       
+    	bindFilter(filter);
+    	drawQuad(x,y,width,height);
+    }
+
+	/**
+	 * Draw this image at a specified location and size
+	 * 
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 * @param width The width to render the image at
+	 * @param height The height to render the image at
+	 * @param filter The color to filter with while drawing packed 0xAARRGGBB
+	 */
+    public void draw(float x,float y,float width,float height,int filter) { 
+    	Color.bindARGB(filter, alpha);
+    	drawQuad(x,y,width,height);
+    }
+
+	/**
+	 * Bind the colour to filter with, combined with the alpha of the image
+	 * 
+	 * @param filter The colour to filter with or null to leave the current colour
+	 */
+	private void bindFilter(Color filter) {
+		if (alpha != 1) {
+			if (filter == null) {
+				filter = Color.white;
+			}
+			
+			GL.glColor4f(filter.r, filter.g, filter.b, filter.a * alpha);
+		} else if (filter != null) {
+			filter.bind();
+		}
+	}
+
+	/**
+	 * Draw this image at a specified location and size with the filter
+	 * colour already bound
+	 * 
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 * @param width The width to render the image at
+	 * @param height The height to render the image at
+	 */
+    private void drawQuad(float x,float y,float width,float height) { 
         texture.bind(); 
         
         GL.glTranslatef(x, y, 0);
@@ -1021,16 +1059,42 @@ public class Image implements Renderable {
 	 */
 	public void draw(float x, float y, float x2, float y2, float srcx, float srcy, float srcx2, float srcy2, Color filter) {
 		init();
+		bindFilter(filter);
+		drawSection(x,y,x2,y2,srcx,srcy,srcx2,srcy2);
+	}
 
-    	if (alpha != 1) {
-    		if (filter == null) {
-    			filter = Color.white;
-    		}
-    		
-    		filter = new Color(filter);
-    		filter.a *= alpha;
-    	}
-		filter.bind();
+	/**
+	 * Draw a section of this image at a particular location and scale on the screen
+	 * 
+	 * @param x The x position to draw the image
+	 * @param y The y position to draw the image
+	 * @param x2 The x position of the bottom right corner of the drawn image
+	 * @param y2 The y position of the bottom right corner of the drawn image
+	 * @param srcx The x position of the rectangle to draw from this image (i.e. relative to this image)
+	 * @param srcy The y position of the rectangle to draw from this image (i.e. relative to this image)
+	 * @param srcx2 The x position of the bottom right cornder of rectangle to draw from this image (i.e. relative to this image)
+	 * @param srcy2 The t position of the bottom right cornder of rectangle to draw from this image (i.e. relative to this image)
+	 * @param filter The colour filter to apply when drawing packed 0xAARRGGBB
+	 */
+	public void draw(float x, float y, float x2, float y2, float srcx, float srcy, float srcx2, float srcy2, int filter) {
+		init();
+		Color.bindARGB(filter, alpha);
+		drawSection(x,y,x2,y2,srcx,srcy,srcx2,srcy2);
+	}
+
+	/**
+	 * Draw a section of this image with the filter colour already bound
+	 * 
+	 * @param x The x position to draw the image
+	 * @param y The y position to draw the image
+	 * @param x2 The x position of the bottom right corner of the drawn image
+	 * @param y2 The y position of the bottom right corner of the drawn image
+	 * @param srcx The x position of the rectangle to draw from this image (i.e. relative to this image)
+	 * @param srcy The y position of the rectangle to draw from this image (i.e. relative to this image)
+	 * @param srcx2 The x position of the bottom right cornder of rectangle to draw from this image (i.e. relative to this image)
+	 * @param srcy2 The t position of the bottom right cornder of rectangle to draw from this image (i.e. relative to this image)
+	 */
+	private void drawSection(float x, float y, float x2, float y2, float srcx, float srcy, float srcx2, float srcy2) {
 		texture.bind();
 		
         GL.glTranslatef(x, y, 0);
@@ -0,0 +1,612 @@
+package org.newdawn.slick;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.lwjgl.BufferUtils;
+import org.newdawn.slick.opengl.Texture;
+import org.newdawn.slick.opengl.renderer.Renderer;
+import org.newdawn.slick.opengl.renderer.SGL;
+
+/**
+ * A batch that collects the drawing of many images and renders them together.
+ * Each image drawn is transformed on the CPU into a quad in a single interleaved
+ * buffer and nothing is sent to the card until the batch is flushed. At that
+ * point the quads are grouped by texture and drawing mode and each group is
+ * drawn with a single call, rather than the translate, rotate, begin and end
+ * that drawing each image directly costs.
+ *
+ * The order in which sprites are drawn is defined as follows:
+ * <ul>
+ * <li>Sprites are drawn in ascending order of layer (see setLayer()). Anything on
+ * a lower layer is always drawn before anything on a higher layer.</li>
+ * <li>With sorting enabled (the default) sprites within a layer are grouped by
+ * drawing mode and then by texture, so their order within a layer is only kept
+ * between sprites that share both. Use this when sprites on the same layer
+ * don't overlap or the order they overlap in doesn't matter.</li>
+ * <li>With sorting disabled sprites within a layer are drawn in exactly the order
+ * they were submitted. Consecutive sprites that share a texture and drawing mode
+ * are still drawn together.</li>
+ * </ul>
+ *
+ * Sprites drawn with MODE_NORMAL are rendered with the drawing mode current on
+ * the graphics context, as images drawn directly are, and the context's mode is
+ * restored once any MODE_ADD sprites have been drawn.
+ *
+ * All the sprites drawn between flushes are rendered with the transform and
+ * clip current when the batch is flushed, so the batch should be flushed before
+ * changing either. If more than MAX_SPRITES sprites or MAX_TEXTURES textures
+ * are drawn between flushes the batch is flushed early, in which case the order
+ * is only kept between sprites drawn within each flush.
+ *
+ * @author agent
+ */
+public class SpriteBatch {
+	/** The renderer to use for all GL operations */
+	protected static SGL GL = Renderer.get();
+
+	/** The most sprites that will be drawn in a single flush */
+	public static final int MAX_SPRITES = 1 << 21;
+	/** The most textures that will be drawn in a single flush */
+	public static final int MAX_TEXTURES = 1 << 10;
+
+	/** The number of floats for each vertex - x, y, u, v, r, g, b, a */
+	private static final int VERTEX_SIZE = 8;
+	/** The number of floats for each sprite */
+	private static final int SPRITE_SIZE = VERTEX_SIZE * 4;
+	/** The number of sprites space is initially allocated for */
+	private static final int DEFAULT_CAPACITY = 1024;
+	/** The index of the image's corner colour for each vertex of a sprite */
+	private static final int[] CORNERS = new int[] {Image.TOP_LEFT, Image.BOTTOM_LEFT,
+													Image.BOTTOM_RIGHT, Image.TOP_RIGHT};
+
+	/** The bits of a sort key holding the sprite's index */
+	private static final long INDEX_MASK = MAX_SPRITES - 1;
+	/** The shift to the bits of a sort key holding the sprite's texture */
+	private static final int TEXTURE_SHIFT = 21;
+	/** The bit of a sprite's state set if it's drawn with MODE_ADD */
+	private static final int ADDITIVE = MAX_TEXTURES;
+	/** The shift to the bits of a sort key holding the sprite's layer */
+	private static final int LAYER_SHIFT = 32;
+
+	/** The vertex data of each sprite in the order submitted */
+	private float[] vertices;
+	/** The state of each sprite in the order submitted, the additive bit and texture slot */
+	private int[] states;
+	/** The key each sprite is sorted by */
+	private long[] keys;
+	/** The number of sprites drawn since the last flush */
+	private int count;
+	/** True if the keys are already in order, so there's no need to sort them */
+	private boolean ordered = true;
+	/** The buffer the sorted vertex data is passed to the card in */
+	private FloatBuffer buffer;
+
+	/** The textures used since the last flush, indexed by the slot in the sort key */
+	private Texture[] textures = new Texture[MAX_TEXTURES];
+	/** The slot of each texture used since the last flush (Texture to Integer) */
+	private HashMap textureSlots = new HashMap();
+	/** The number of textures used since the last flush */
+	private int textureCount;
+	/** The texture last given a slot */
+	private Texture lastTexture;
+	/** The slot of the texture last given a slot */
+	private int lastSlot;
+
+	/** The layer sprites are currently drawn on */
+	private int layer;
+	/** The drawing mode sprites are currently drawn with */
+	private int mode = Graphics.MODE_NORMAL;
+	/** True if sprites in the same layer should be grouped by texture */
+	private boolean sorting = true;
+	/** True if we're between a begin() and end() */
+	private boolean drawing;
+
+	/** The corner colours of the sprite being added, top left, bottom left, bottom right, top right */
+	private float[] colors = new float[16];
+
+	/**
+	 * Create a new sprite batch
+	 */
+	public SpriteBatch() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new sprite batch
+	 *
+	 * @param capacity The number of sprites to allocate space for initially, the
+	 * batch will grow as required
+	 */
+	public SpriteBatch(int capacity) {
+		capacity = Math.max(1, Math.min(capacity, MAX_SPRITES));
+
+		vertices = new float[capacity * SPRITE_SIZE];
+		states = new int[capacity];
+		keys = new long[capacity];
+	}
+
+	/**
+	 * Start drawing sprites to the batch. The layer is reset to zero and the
+	 * drawing mode to normal.
+	 */
+	public void begin() {
+		if (drawing) {
+			throw new RuntimeException("SpriteBatch.begin() called while already drawing");
+		}
+
+		drawing = true;
+		layer = 0;
+		mode = Graphics.MODE_NORMAL;
+	}
+
+	/**
+	 * Flush any sprites remaining and stop drawing to the batch
+	 */
+	public void end() {
+		if (!drawing) {
+			throw new RuntimeException("SpriteBatch.end() called without begin()");
+		}
+
+		flush();
+		drawing = false;
+	}
+
+	/**
+	 * Check if the batch is between a begin() and end()
+	 *
+	 * @return True if sprites can be drawn to the batch
+	 */
+	public boolean isDrawing() {
+		return drawing;
+	}
+
+	/**
+	 * Set the layer subsequent sprites are drawn on. Lower layers are drawn
+	 * first, so sprites on higher layers are drawn over them.
+	 *
+	 * @param layer The layer to draw on, any int is valid
+	 */
+	public void setLayer(int layer) {
+		this.layer = layer;
+	}
+
+	/**
+	 * Get the layer sprites are currently drawn on
+	 *
+	 * @return The layer sprites are currently drawn on
+	 */
+	public int getLayer() {
+		return layer;
+	}
+
+	/**
+	 * Set the drawing mode subsequent sprites are drawn with.
+	 *
+	 * The mode supplied should be one of {@link Graphics#MODE_NORMAL} or
+	 * {@link Graphics#MODE_ADD}
+	 *
+	 * @param mode The mode to draw with
+	 */
+	public void setDrawMode(int mode) {
+		if ((mode != Graphics.MODE_NORMAL) && (mode != Graphics.MODE_ADD)) {
+			throw new RuntimeException("SpriteBatch only supports MODE_NORMAL and MODE_ADD: "+mode);
+		}
+
+		this.mode = mode;
+	}
+
+	/**
+	 * Get the drawing mode sprites are currently drawn with
+	 *
+	 * @return The drawing mode sprites are currently drawn with
+	 */
+	public int getDrawMode() {
+		return mode;
+	}
+
+	/**
+	 * Indicate if sprites within a layer should be grouped by drawing mode and
+	 * texture. Grouping means fewer draw calls but the order sprites were drawn
+	 * in is lost between sprites that don't share a texture. Changing this
+	 * flushes the batch.
+	 *
+	 * @param sorting True if sprites within a layer should be grouped
+	 */
+	public void setSorting(boolean sorting) {
+		if (this.sorting != sorting) {
+			flush();
+			this.sorting = sorting;
+		}
+	}
+
+	/**
+	 * Check if sprites within a layer are grouped by drawing mode and texture
+	 *
+	 * @return True if sprites within a layer are grouped
+	 */
+	public boolean isSorting() {
+		return sorting;
+	}
+
+	/**
+	 * Get the number of sprites waiting to be drawn
+	 *
+	 * @return The number of sprites waiting to be drawn
+	 */
+	public int getSpriteCount() {
+		return count;
+	}
+
+	/**
+	 * Draw an image at its own size
+	 *
+	 * @param image The image to draw
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 */
+	public void draw(Image image, float x, float y) {
+		draw(image, x, y, image.getWidth(), image.getHeight(), null);
+	}
+
+	/**
+	 * Draw an image at its own size
+	 *
+	 * @param image The image to draw
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 * @param filter The colour to filter with when drawing, null for none
+	 */
+	public void draw(Image image, float x, float y, Color filter) {
+		draw(image, x, y, image.getWidth(), image.getHeight(), filter);
+	}
+
+	/**
+	 * Draw an image at a given size
+	 *
+	 * @param image The image to draw
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 * @param width The width to draw the image at
+	 * @param height The height to draw the image at
+	 */
+	public void draw(Image image, float x, float y, float width, float height) {
+		draw(image, x, y, width, height, null);
+	}
+
+	/**
+	 * Draw a sprite from a sprite sheet at its own size
+	 *
+	 * @param sheet The sheet holding the sprite
+	 * @param sx The x position of the sprite in the sheet (in sprites)
+	 * @param sy The y position of the sprite in the sheet (in sprites)
+	 * @param x The x location to draw the sprite at
+	 * @param y The y location to draw the sprite at
+	 */
+	public void draw(SpriteSheet sheet, int sx, int sy, float x, float y) {
+		Image image = sheet.getSubImage(sx, sy);
+		draw(image, x, y, image.getWidth(), image.getHeight(), null);
+	}
+
+	/**
+	 * Draw the current frame of an animation at its own size. The animation is
+	 * updated if it's set to auto update just as if it were drawn directly.
+	 *
+	 * @param anim The animation to draw
+	 * @param x The x location to draw the animation at
+	 * @param y The y location to draw the animation at
+	 */
+	public void draw(Animation anim, float x, float y) {
+		Image image = anim.prepareDraw();
+		if (image != null) {
+			draw(image, x, y, image.getWidth(), image.getHeight(), null);
+		}
+	}
+
+	/**
+	 * Draw the current frame of an animation. The animation is updated if it's
+	 * set to auto update just as if it were drawn directly.
+	 *
+	 * @param anim The animation to draw
+	 * @param x The x location to draw the animation at
+	 * @param y The y location to draw the animation at
+	 * @param width The width to draw the animation at
+	 * @param height The height to draw the animation at
+	 * @param filter The colour to filter with when drawing, null for none
+	 */
+	public void draw(Animation anim, float x, float y, float width, float height, Color filter) {
+		Image image = anim.prepareDraw();
+		if (image != null) {
+			draw(image, x, y, width, height, filter);
+		}
+	}
+
+	/**
+	 * Draw the current frame of an animation. The animation is updated if it's
+	 * set to auto update just as if it were drawn directly.
+	 *
+	 * @param anim The animation to draw
+	 * @param x The x location to draw the animation at
+	 * @param y The y location to draw the animation at
+	 * @param width The width to draw the animation at
+	 * @param height The height to draw the animation at
+	 * @param argb The colour to filter with when drawing packed 0xAARRGGBB
+	 */
+	public void draw(Animation anim, float x, float y, float width, float height, int argb) {
+		Image image = anim.prepareDraw();
+		if (image != null) {
+			draw(image, x, y, width, height, argb);
+		}
+	}
+
+	/**
+	 * Draw an image at a given size. The image's rotation, alpha and corner
+	 * colours are applied just as they would be drawing it directly.
+	 *
+	 * @param image The image to draw
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 * @param width The width to draw the image at
+	 * @param height The height to draw the image at
+	 * @param filter The colour to filter with when drawing, null for none
+	 */
+	public void draw(Image image, float x, float y, float width, float height, Color filter) {
+		if (filter == null) {
+			add(image, x, y, width, height, 1, 1, 1, 1);
+		} else {
+			add(image, x, y, width, height, filter.r, filter.g, filter.b, filter.a);
+		}
+	}
+
+	/**
+	 * Draw an image at a given size. The image's rotation, alpha and corner
+	 * colours are applied just as they would be drawing it directly.
+	 *
+	 * @param image The image to draw
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 * @param width The width to draw the image at
+	 * @param height The height to draw the image at
+	 * @param argb The colour to filter with when drawing packed 0xAARRGGBB
+	 */
+	public void draw(Image image, float x, float y, float width, float height, int argb) {
+		add(image, x, y, width, height, ((argb >> 16) & 0xff) / 255.0f, ((argb >> 8) & 0xff) / 255.0f,
+			(argb & 0xff) / 255.0f, ((argb >> 24) & 0xff) / 255.0f);
+	}
+
+	/**
+	 * Add an image to the batch
+	 *
+	 * @param image The image to draw
+	 * @param x The x location to draw the image at
+	 * @param y The y location to draw the image at
+	 * @param width The width to draw the image at
+	 * @param height The height to draw the image at
+	 * @param r The red component of the colour to filter with
+	 * @param g The green component of the colour to filter with
+	 * @param b The blue component of the colour to filter with
+	 * @param a The alpha component of the colour to filter with
+	 */
+	private void add(Image image, float x, float y, float width, float height, float r, float g, float b, float a) {
+		if (!drawing) {
+			throw new RuntimeException("SpriteBatch.begin() must be called before drawing");
+		}
+		image.init();
+
+		if ((count == MAX_SPRITES) || ((textureCount == MAX_TEXTURES) && (image.texture != lastTexture)
+				&& (!textureSlots.containsKey(image.texture)))) {
+			flush();
+		}
+		if (count == keys.length) {
+			grow();
+		}
+
+		// colours, as the image would bind them
+		a *= image.alpha;
+		for (int i=0;i<4;i++) {
+			Color corner = image.corners == null ? null : image.corners[CORNERS[i]];
+			if (corner == null) {
+				colors[(i*4)] = r;
+				colors[(i*4)+1] = g;
+				colors[(i*4)+2] = b;
+				colors[(i*4)+3] = a;
+			} else {
+				colors[(i*4)] = corner.r;
+				colors[(i*4)+1] = corner.g;
+				colors[(i*4)+2] = corner.b;
+				colors[(i*4)+3] = corner.a;
+			}
+		}
+
+		// corners in the order the image draws them
+		float u1 = image.textureOffsetX;
+		float v1 = image.textureOffsetY;
+		float u2 = image.textureOffsetX + image.textureWidth;
+		float v2 = image.textureOffsetY + image.textureHeight;
+		int index = count * SPRITE_SIZE;
+
+		if (image.angle == 0) {
+			index = putVertex(index, x, y, u1, v1, 0);
+			index = putVertex(index, x, y + height, u1, v2, 1);
+			index = putVertex(index, x + width, y + height, u2, v2, 2);
+			putVertex(index, x + width, y, u2, v1, 3);
+		} else {
+			double radians = Math.toRadians(image.angle);
+			float cos = (float) Math.cos(radians);
+			float sin = (float) Math.sin(radians);
+			float cx = x + image.centerX;
+			float cy = y + image.centerY;
+
+			// the corners relative to the centre of rotation
+			float left = -image.centerX;
+			float top = -image.centerY;
+			float right = width - image.centerX;
+			float bottom = height - image.centerY;
+
+			index = putVertex(index, cx + (left*cos) - (top*sin), cy + (left*sin) + (top*cos), u1, v1, 0);
+			index = putVertex(index, cx + (left*cos) - (bottom*sin), cy + (left*sin) + (bottom*cos), u1, v2, 1);
+			index = putVertex(index, cx + (right*cos) - (bottom*sin), cy + (right*sin) + (bottom*cos), u2, v2, 2);
+			putVertex(index, cx + (right*cos) - (top*sin), cy + (right*sin) + (top*cos), u2, v1, 3);
+		}
+
+		int state = getSlot(image.texture);
+		if (mode == Graphics.MODE_ADD) {
+			state |= ADDITIVE;
+		}
+		long key = ((long) layer) << LAYER_SHIFT;
+		if (sorting) {
+			key |= ((long) state) << TEXTURE_SHIFT;
+		}
+		key |= count;
+
+		if ((count > 0) && (key < keys[count-1])) {
+			ordered = false;
+		}
+		states[count] = state;
+		keys[count] = key;
+		count++;
+	}
+
+	/**
+	 * Write a vertex of the sprite being added
+	 *
+	 * @param index The index in the vertex data to write at
+	 * @param x The x coordinate of the vertex
+	 * @param y The y coordinate of the vertex
+	 * @param u The u texture coordinate of the vertex
+	 * @param v The v texture coordinate of the vertex
+	 * @param corner The index of the corner being written
+	 * @return The index in the vertex data following the vertex
+	 */
+	private int putVertex(int index, float x, float y, float u, float v, int corner) {
+		vertices[index++] = x;
+		vertices[index++] = y;
+		vertices[index++] = u;
+		vertices[index++] = v;
+		vertices[index++] = colors[(corner*4)];
+		vertices[index++] = colors[(corner*4)+1];
+		vertices[index++] = colors[(corner*4)+2];
+		vertices[index++] = colors[(corner*4)+3];
+
+		return index;
+	}
+
+	/**
+	 * Get the slot in the sort key for a given texture, allocating one if the
+	 * texture hasn't been used since the last flush
+	 *
+	 * @param texture The texture to get the slot for
+	 * @return The slot for the texture
+	 */
+	private int getSlot(Texture texture) {
+		if (texture == lastTexture) {
+			return lastSlot;
+		}
+
+		Integer slot = (Integer) textureSlots.get(texture);
+		if (slot == null) {
+			slot = new Integer(textureCount);
+			textures[textureCount++] = texture;
+			textureSlots.put(texture, slot);
+		}
+
+		lastTexture = texture;
+		lastSlot = slot.intValue();
+		return lastSlot;
+	}
+
+	/**
+	 * Grow the space available for sprites
+	 */
+	private void grow() {
+		int capacity = Math.min(keys.length * 2, MAX_SPRITES);
+
+		float[] newVertices = new float[capacity * SPRITE_SIZE];
+		System.arraycopy(vertices, 0, newVertices, 0, count * SPRITE_SIZE);
+		vertices = newVertices;
+
+		int[] newStates = new int[capacity];
+		System.arraycopy(states, 0, newStates, 0, count);
+		states = newStates;
+
+		long[] newKeys = new long[capacity];
+		System.arraycopy(keys, 0, newKeys, 0, count);
+		keys = newKeys;
+	}
+
+	/**
+	 * Draw all the sprites drawn to the batch since the last flush
+	 */
+	public void flush() {
+		if (count == 0) {
+			return;
+		}
+
+		if (!ordered) {
+			Arrays.sort(keys, 0, count);
+		}
+		if ((buffer == null) || (buffer.capacity() < count * SPRITE_SIZE)) {
+			buffer = BufferUtils.createFloatBuffer(keys.length * SPRITE_SIZE);
+		}
+
+		buffer.clear();
+		for (int i=0;i<count;i++) {
+			int sprite = (int) (keys[i] & INDEX_MASK);
+			buffer.put(vertices, sprite * SPRITE_SIZE, SPRITE_SIZE);
+		}
+		buffer.flip();
+
+		// draw each run of sprites sharing a texture and mode in one go
+		Graphics g = Graphics.currentGraphics;
+		int originalMode = (g == null) ? Graphics.MODE_NORMAL : g.getDrawMode();
+		int currentMode = originalMode;
+		int start = 0;
+		int state = states[(int) (keys[0] & INDEX_MASK)];
+		for (int i=1;i<=count;i++) {
+			int next = i < count ? states[(int) (keys[i] & INDEX_MASK)] : -1;
+			if (next == state) {
+				continue;
+			}
+
+			int runMode = (state & ADDITIVE) != 0 ? Graphics.MODE_ADD : originalMode;
+			if (runMode != currentMode) {
+				applyMode(g, runMode);
+				currentMode = runMode;
+			}
+			textures[state & (MAX_TEXTURES - 1)].bind();
+			GL.drawQuads(buffer, start * 4, (i - start) * 4);
+
+			start = i;
+			state = next;
+		}
+		if (currentMode != originalMode) {
+			applyMode(g, originalMode);
+		}
+
+		for (int i=0;i<textureCount;i++) {
+			textures[i] = null;
+		}
+		textureSlots.clear();
+		textureCount = 0;
+		lastTexture = null;
+		count = 0;
+		ordered = true;
+	}
+
+	/**
+	 * Apply the blending for a drawing mode
+	 *
+	 * @param g The graphics context current when flushing or null if there is none
+	 * @param mode The mode to apply
+	 */
+	private void applyMode(Graphics g, int mode) {
+		if (g != null) {
+			g.setDrawMode(mode);
+		} else if (mode == Graphics.MODE_ADD) {
+			GL.glBlendFunc(SGL.GL_ONE, SGL.GL_ONE);
+		} else {
+			GL.glBlendFunc(SGL.GL_SRC_ALPHA, SGL.GL_ONE_MINUS_SRC_ALPHA);
+		}
+	}
+}
@@ -175,7 +175,7 @@ public class Ellipse extends Shape {
         resultPolygon.points = result;
         resultPolygon.checkPoints();
 
-        return resultPolygon;
+        return shareTriangles(resultPolygon);
     }
 
     /**
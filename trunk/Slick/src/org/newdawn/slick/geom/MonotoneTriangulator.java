@@ -0,0 +1,847 @@
+package org.newdawn.slick.geom;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A triangulator that splits the polygon into pieces that are monotone in y and
+ * then triangulates each piece in linear time. A sweep from the top to the bottom
+ * of the polygon finds the splitting diagonals, keeping the edges crossing the
+ * sweep in a tree - so the whole process is O(n log n) and copes with shapes of
+ * many thousands of points where the ear clipping triangulators slow to a crawl.
+ *
+ * Holes are supported, points following a call to startHole() describe a hole in
+ * the polygon. Repeated points and spikes of zero width are removed before the
+ * sweep, and points at the same height are ordered left to right so horizontal
+ * and collinear edges need no special treatment.
+ *
+ * @author agent
+ */
+public class MonotoneTriangulator implements Triangulator {
+	/** The serial identifier for this class */
+	private static final long serialVersionUID = 1L;
+	
+	/** The vertex type for a vertex with both neighbours below and the interior between them */
+	private static final int START = 0;
+	/** The vertex type for a vertex with both neighbours below and the exterior between them */
+	private static final int SPLIT = 1;
+	/** The vertex type for a vertex with both neighbours above and the interior between them */
+	private static final int END = 2;
+	/** The vertex type for a vertex with both neighbours above and the exterior between them */
+	private static final int MERGE = 3;
+	/** The vertex type for a vertex with one neighbour above and one below */
+	private static final int REGULAR = 4;
+
+	/** The x coordinates of the points added */
+	private float[] pointsX = new float[16];
+	/** The y coordinates of the points added */
+	private float[] pointsY = new float[16];
+	/** The number of points added */
+	private int numPoints;
+	/** The index of the first point of each contour, the outline then each hole */
+	private int[] contours = new int[] {0};
+	/** The number of contours started */
+	private int numContours = 1;
+	/** The index of each point of each triangle, three per triangle */
+	private int[] triangles = new int[0];
+	/** The number of triangles produced */
+	private int numTriangles;
+
+	/** The x coordinate of each vertex being triangulated */
+	private double[] vx;
+	/** The y coordinate of each vertex being triangulated, flipped so y increases upwards */
+	private double[] vy;
+	/** The index of the point each vertex was created from */
+	private int[] source;
+	/** The next vertex round the contour, interior on the left */
+	private int[] next;
+	/** The previous vertex round the contour */
+	private int[] prev;
+	/** The vertices in the order the sweep visits them */
+	private int[] order;
+	/** The position of each vertex in the sweep, 0 being the top */
+	private int[] rank;
+	/** The type of each vertex */
+	private int[] type;
+	/** The vertex that last saw the interior to the right of each edge, indexed by start vertex */
+	private int[] helper;
+	/** The edges leaving each vertex, indexed by start vertex */
+	private Edge[] edges;
+	/** The diagonals found, pairs of vertices */
+	private int[] diagonals;
+	/** The number of diagonals found */
+	private int numDiagonals;
+	/** The vertex the sweep is currently at */
+	private int sweep;
+
+	/**
+	 * Create a new triangulator
+	 */
+	public MonotoneTriangulator() {
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#addPolyPoint(float, float)
+	 */
+	public void addPolyPoint(float x, float y) {
+		if (numPoints == pointsX.length) {
+			float[] temp = new float[numPoints * 2];
+			System.arraycopy(pointsX, 0, temp, 0, numPoints);
+			pointsX = temp;
+			temp = new float[numPoints * 2];
+			System.arraycopy(pointsY, 0, temp, 0, numPoints);
+			pointsY = temp;
+		}
+
+		pointsX[numPoints] = x;
+		pointsY[numPoints] = y;
+		numPoints++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#startHole()
+	 */
+	public void startHole() {
+		if (numContours == contours.length) {
+			int[] temp = new int[numContours * 2];
+			System.arraycopy(contours, 0, temp, 0, numContours);
+			contours = temp;
+		}
+		contours[numContours++] = numPoints;
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#triangulate()
+	 */
+	public boolean triangulate() {
+		numTriangles = 0;
+		numDiagonals = 0;
+		triangles = new int[Math.max(0, (numPoints - 2 + (2 * (numContours - 1))) * 3)];
+		diagonals = new int[16];
+
+		try {
+			int count = buildContours();
+			if (count < 3) {
+				return false;
+			}
+			sortVertices(count);
+			sweep(count);
+			triangulatePieces(count);
+			return true;
+		} catch (InternalException e) {
+			numTriangles = 0;
+			return false;
+		} finally {
+			vx = null;
+			vy = null;
+			source = null;
+			next = null;
+			prev = null;
+			order = null;
+			rank = null;
+			type = null;
+			helper = null;
+			edges = null;
+			diagonals = null;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#getTriangleCount()
+	 */
+	public int getTriangleCount() {
+		return numTriangles;
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#getTrianglePoint(int, int)
+	 */
+	public float[] getTrianglePoint(int tri, int i) {
+		int index = triangles[(tri*3)+i];
+
+		return new float[] {pointsX[index], pointsY[index]};
+	}
+
+	/**
+	 * Get the index of a point on a specified generated triangle, in the order
+	 * the points were added
+	 *
+	 * @param tri The index of the triangle to interegate
+	 * @param i The index of the point within the triangle to retrieve
+	 * (0 - 2)
+	 * @return The index of the point as it was added to the polygon
+	 */
+	public int getTrianglePointIndex(int tri, int i) {
+		return triangles[(tri*3)+i];
+	}
+
+	/**
+	 * Link the points of each contour into rings, dropping repeated points, spikes
+	 * and contours with no area, and wind them so the interior is always on the left
+	 *
+	 * @return The number of vertices created
+	 */
+	private int buildContours() {
+		vx = new double[numPoints];
+		vy = new double[numPoints];
+		source = new int[numPoints];
+		next = new int[numPoints];
+		prev = new int[numPoints];
+		boolean[] removed = new boolean[numPoints];
+
+		for (int c=0;c<numContours;c++) {
+			int start = contours[c];
+			int end = c+1 < numContours ? contours[c+1] : numPoints;
+			int size = end - start;
+			if (size < 3) {
+				for (int i=start;i<end;i++) {
+					removed[i] = true;
+				}
+				if (c == 0) {
+					return 0;
+				}
+				continue;
+			}
+
+			for (int i=start;i<end;i++) {
+				vx[i] = pointsX[i];
+				vy[i] = -pointsY[i];
+				source[i] = i;
+				next[i] = i+1 < end ? i+1 : start;
+				prev[i] = i > start ? i-1 : end-1;
+			}
+
+			// walk the ring removing points that add nothing, stepping back after each
+			// removal since the point before may have become a spike
+			int v = start;
+			int steps = 0;
+			while ((steps < size) && (size >= 3)) {
+				int p = prev[v];
+				int n = next[v];
+				if (isRedundant(p, v, n)) {
+					next[p] = n;
+					prev[n] = p;
+					removed[v] = true;
+					size--;
+					v = p;
+					steps = 0;
+				} else {
+					v = n;
+					steps++;
+				}
+			}
+
+			double area = 0;
+			if (size >= 3) {
+				int i = v;
+				do {
+					area += (vx[i] * vy[next[i]]) - (vx[next[i]] * vy[i]);
+					i = next[i];
+				} while (i != v);
+			}
+			if ((size < 3) || (area == 0)) {
+				int i = v;
+				for (int j=0;j<size;j++) {
+					removed[i] = true;
+					i = next[i];
+				}
+				if (c == 0) {
+					return 0;
+				}
+				continue;
+			}
+
+			// the outline runs counter clockwise and the holes clockwise
+			if ((c == 0) != (area > 0)) {
+				int i = v;
+				do {
+					int temp = next[i];
+					next[i] = prev[i];
+					prev[i] = temp;
+					i = temp;
+				} while (i != v);
+			}
+		}
+
+		// compact the vertices left
+		int[] map = new int[numPoints];
+		int count = 0;
+		for (int i=0;i<numPoints;i++) {
+			if (!removed[i]) {
+				map[i] = count;
+				vx[count] = vx[i];
+				vy[count] = vy[i];
+				source[count] = source[i];
+				next[count] = next[i];
+				prev[count] = prev[i];
+				count++;
+			}
+		}
+		for (int i=0;i<count;i++) {
+			next[i] = map[next[i]];
+			prev[i] = map[prev[i]];
+		}
+
+		return count;
+	}
+
+	/**
+	 * Check if a vertex can be dropped from its contour without changing the area
+	 * covered
+	 *
+	 * @param p The vertex before
+	 * @param v The vertex to check
+	 * @param n The vertex after
+	 * @return True if the vertex repeats its neighbour or is the tip of a spike
+	 */
+	private boolean isRedundant(int p, int v, int n) {
+		if ((vx[v] == vx[n]) && (vy[v] == vy[n])) {
+			return true;
+		}
+		if (orient(p, v, n) != 0) {
+			return false;
+		}
+
+		double dot = ((vx[v] - vx[p]) * (vx[n] - vx[v])) + ((vy[v] - vy[p]) * (vy[n] - vy[v]));
+		return dot <= 0;
+	}
+
+	/**
+	 * Sort the vertices into the order the sweep visits them and classify them
+	 *
+	 * @param count The number of vertices
+	 */
+	private void sortVertices(int count) {
+		Integer[] vertices = new Integer[count];
+		for (int i=0;i<count;i++) {
+			vertices[i] = new Integer(i);
+		}
+		Arrays.sort(vertices, new Comparator() {
+			public int compare(Object a, Object b) {
+				int va = ((Integer) a).intValue();
+				int vb = ((Integer) b).intValue();
+				if (va == vb) {
+					return 0;
+				}
+				return above(va, vb) ? -1 : 1;
+			}
+		});
+
+		rank = new int[count];
+		order = new int[count];
+		for (int i=0;i<count;i++) {
+			order[i] = vertices[i].intValue();
+			rank[order[i]] = i;
+		}
+
+		type = new int[count];
+		for (int v=0;v<count;v++) {
+			boolean prevAbove = rank[prev[v]] < rank[v];
+			boolean nextAbove = rank[next[v]] < rank[v];
+			boolean convex = orient(prev[v], v, next[v]) > 0;
+
+			if (!prevAbove && !nextAbove) {
+				type[v] = convex ? START : SPLIT;
+			} else if (prevAbove && nextAbove) {
+				type[v] = convex ? END : MERGE;
+			} else {
+				type[v] = REGULAR;
+			}
+		}
+	}
+
+	/**
+	 * Sweep from the top of the polygon to the bottom adding the diagonals that
+	 * split it into pieces monotone in y
+	 *
+	 * @param count The number of vertices
+	 * @throws InternalException Indicates the polygon crosses itself
+	 */
+	private void sweep(int count) throws InternalException {
+		helper = new int[count];
+		edges = new Edge[count];
+		for (int i=0;i<count;i++) {
+			edges[i] = new Edge(i);
+		}
+		TreeSet status = new TreeSet(new EdgeComparator());
+		Edge probe = new Edge(-1);
+
+		for (int i=0;i<count;i++) {
+			int v = order[i];
+			int p = prev[v];
+			sweep = v;
+
+			switch (type[v]) {
+			case START:
+				status.add(edges[v]);
+				helper[v] = v;
+				break;
+			case END:
+				if (type[helper[p]] == MERGE) {
+					addDiagonal(v, helper[p]);
+				}
+				remove(status, edges[p]);
+				break;
+			case SPLIT: {
+				Edge left = findLeft(status, probe);
+				addDiagonal(v, helper[left.start]);
+				helper[left.start] = v;
+				status.add(edges[v]);
+				helper[v] = v;
+				break;
+			}
+			case MERGE: {
+				if (type[helper[p]] == MERGE) {
+					addDiagonal(v, helper[p]);
+				}
+				remove(status, edges[p]);
+				Edge left = findLeft(status, probe);
+				if (type[helper[left.start]] == MERGE) {
+					addDiagonal(v, helper[left.start]);
+				}
+				helper[left.start] = v;
+				break;
+			}
+			default:
+				if (rank[p] < rank[v]) {
+					// the interior is to the right, this edge bounds it on the left
+					if (type[helper[p]] == MERGE) {
+						addDiagonal(v, helper[p]);
+					}
+					remove(status, edges[p]);
+					status.add(edges[v]);
+					helper[v] = v;
+				} else {
+					Edge left = findLeft(status, probe);
+					if (type[helper[left.start]] == MERGE) {
+						addDiagonal(v, helper[left.start]);
+					}
+					helper[left.start] = v;
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Find the edge directly left of the vertex the sweep is at
+	 *
+	 * @param status The edges crossing the sweep
+	 * @param probe The edge used to search the status
+	 * @return The edge directly to the left
+	 * @throws InternalException Indicates there is no edge to the left, the polygon crosses itself
+	 */
+	private Edge findLeft(TreeSet status, Edge probe) throws InternalException {
+		SortedSet head = status.headSet(probe);
+		if (head.isEmpty()) {
+			throw new InternalException("No edge left of vertex "+source[sweep]);
+		}
+
+		return (Edge) head.last();
+	}
+
+	/**
+	 * Remove an edge from the sweep
+	 *
+	 * @param status The edges crossing the sweep
+	 * @param edge The edge to remove
+	 * @throws InternalException Indicates the edge was never added, the polygon crosses itself
+	 */
+	private void remove(TreeSet status, Edge edge) throws InternalException {
+		if (!status.remove(edge)) {
+			throw new InternalException("Edge from "+source[edge.start]+" is out of order");
+		}
+	}
+
+	/**
+	 * Record a diagonal splitting the polygon
+	 *
+	 * @param a The vertex at one end
+	 * @param b The vertex at the other end
+	 */
+	private void addDiagonal(int a, int b) {
+		if ((a == b) || (next[a] == b) || (prev[a] == b)) {
+			return;
+		}
+		if (numDiagonals * 2 == diagonals.length) {
+			int[] temp = new int[diagonals.length * 2];
+			System.arraycopy(diagonals, 0, temp, 0, diagonals.length);
+			diagonals = temp;
+		}
+		diagonals[(numDiagonals*2)] = a;
+		diagonals[(numDiagonals*2)+1] = b;
+		numDiagonals++;
+	}
+
+	/**
+	 * Trace the monotone pieces formed by the contours and diagonals, and triangulate
+	 * each of them
+	 *
+	 * @param count The number of vertices
+	 * @throws InternalException Indicates the pieces couldn't be traced
+	 */
+	private void triangulatePieces(int count) throws InternalException {
+		// half edges, the contour edges then both directions of each diagonal
+		int total = count + (numDiagonals * 2);
+		int[] from = new int[total];
+		int[] to = new int[total];
+		for (int i=0;i<count;i++) {
+			from[i] = i;
+			to[i] = next[i];
+		}
+		for (int i=0;i<numDiagonals;i++) {
+			from[count+(i*2)] = diagonals[(i*2)];
+			to[count+(i*2)] = diagonals[(i*2)+1];
+			from[count+(i*2)+1] = diagonals[(i*2)+1];
+			to[count+(i*2)+1] = diagonals[(i*2)];
+		}
+
+		// the half edges leaving each vertex, the contour edge first then any diagonals
+		int[] extra = new int[count + 1];
+		for (int i=count;i<total;i++) {
+			extra[from[i]+1]++;
+		}
+		for (int i=0;i<count;i++) {
+			extra[i+1] += extra[i];
+		}
+		int[] outgoing = new int[total - count];
+		int[] filled = new int[count];
+		for (int i=count;i<total;i++) {
+			outgoing[extra[from[i]] + filled[from[i]]++] = i;
+		}
+
+		// link each half edge to the one following it round the piece on its left,
+		// the first edge clockwise from the way back
+		int[] link = new int[total];
+		for (int h=0;h<total;h++) {
+			int v = to[h];
+			double back = angle(v, from[h]);
+			link[h] = v;
+			double best = turn(back, angle(v, next[v]));
+			for (int k=extra[v];k<extra[v+1];k++) {
+				double turn = turn(back, angle(v, to[outgoing[k]]));
+				if (turn < best) {
+					link[h] = outgoing[k];
+					best = turn;
+				}
+			}
+		}
+
+		boolean[] visited = new boolean[total];
+		int[] piece = new int[count];
+		for (int h=0;h<total;h++) {
+			if (visited[h]) {
+				continue;
+			}
+
+			int size = 0;
+			int e = h;
+			while (!visited[e]) {
+				if (size == count) {
+					throw new InternalException("Failed to trace the pieces of the polygon");
+				}
+				visited[e] = true;
+				piece[size++] = from[e];
+				e = link[e];
+			}
+			if (e != h) {
+				throw new InternalException("Failed to trace the pieces of the polygon");
+			}
+			triangulateMonotone(piece, size);
+		}
+	}
+
+	/**
+	 * Get the direction from one vertex to another
+	 *
+	 * @param a The vertex to look from
+	 * @param b The vertex to look at
+	 * @return The angle of the direction in radians
+	 */
+	private double angle(int a, int b) {
+		return Math.atan2(vy[b] - vy[a], vx[b] - vx[a]);
+	}
+
+	/**
+	 * Get how far clockwise one direction is from another
+	 *
+	 * @param from The angle of the direction to start from
+	 * @param to The angle of the direction to turn to
+	 * @return The angle turned clockwise, greater than zero and up to a full turn
+	 */
+	private double turn(double from, double to) {
+		double turn = from - to;
+		if (turn <= 0) {
+			turn += Math.PI * 2;
+		}
+		return turn;
+	}
+
+	/**
+	 * Triangulate a piece of the polygon that is monotone in y
+	 *
+	 * @param piece The vertices of the piece, counter clockwise
+	 * @param size The number of vertices in the piece
+	 */
+	private void triangulateMonotone(int[] piece, int size) {
+		if (size < 3) {
+			return;
+		}
+		if (size == 3) {
+			addTriangle(piece[0], piece[1], piece[2]);
+			return;
+		}
+
+		int top = 0;
+		int bottom = 0;
+		for (int i=1;i<size;i++) {
+			if (rank[piece[i]] < rank[piece[top]]) {
+				top = i;
+			}
+			if (rank[piece[i]] > rank[piece[bottom]]) {
+				bottom = i;
+			}
+		}
+
+		// counter clockwise from the top runs down the left chain, merge it with the
+		// right chain into sweep order
+		int[] sorted = new int[size];
+		boolean[] left = new boolean[size];
+		int l = (top + 1) % size;
+		int r = (top + size - 1) % size;
+		sorted[0] = piece[top];
+		for (int i=1;i<size;i++) {
+			if ((l != bottom) && ((r == bottom) || (rank[piece[l]] < rank[piece[r]]))) {
+				sorted[i] = piece[l];
+				left[i] = true;
+				l = (l + 1) % size;
+			} else if (r != bottom) {
+				sorted[i] = piece[r];
+				r = (r + size - 1) % size;
+			} else {
+				sorted[i] = piece[bottom];
+			}
+		}
+
+		int[] stack = new int[size];
+		int depth = 0;
+		stack[depth++] = sorted[0];
+		stack[depth++] = sorted[1];
+		boolean topLeft = left[1];
+
+		for (int j=2;j<size-1;j++) {
+			int u = sorted[j];
+			if (left[j] != topLeft) {
+				// the vertex can see everything on the other chain
+				for (int i=0;i<depth-1;i++) {
+					addTriangle(u, stack[i], stack[i+1]);
+				}
+				stack[0] = stack[depth-1];
+				stack[1] = u;
+				depth = 2;
+			} else {
+				int last = stack[--depth];
+				while (depth > 0) {
+					double turn = orient(stack[depth-1], last, u);
+					if (left[j] ? turn <= 0 : turn >= 0) {
+						break;
+					}
+					addTriangle(u, last, stack[depth-1]);
+					last = stack[--depth];
+				}
+				stack[depth++] = last;
+				stack[depth++] = u;
+			}
+			topLeft = left[j];
+		}
+
+		int u = sorted[size-1];
+		for (int i=0;i<depth-1;i++) {
+			addTriangle(u, stack[i], stack[i+1]);
+		}
+	}
+
+	/**
+	 * Add a triangle to the results, wound clockwise on screen. Triangles with no
+	 * area are skipped.
+	 *
+	 * @param a The first vertex
+	 * @param b The second vertex
+	 * @param c The third vertex
+	 */
+	private void addTriangle(int a, int b, int c) {
+		double turn = orient(a, b, c);
+		if (turn == 0) {
+			return;
+		}
+		if (turn < 0) {
+			int temp = b;
+			b = c;
+			c = temp;
+		}
+
+		if (numTriangles * 3 == triangles.length) {
+			int[] temp = new int[Math.max(3, triangles.length * 2)];
+			System.arraycopy(triangles, 0, temp, 0, triangles.length);
+			triangles = temp;
+		}
+		triangles[(numTriangles*3)] = source[a];
+		triangles[(numTriangles*3)+1] = source[b];
+		triangles[(numTriangles*3)+2] = source[c];
+		numTriangles++;
+	}
+
+	/**
+	 * Check if one vertex comes before another in the sweep
+	 *
+	 * @param a The first vertex
+	 * @param b The second vertex
+	 * @return True if the first vertex is higher, or level and further left
+	 */
+	private boolean above(int a, int b) {
+		if (vy[a] != vy[b]) {
+			return vy[a] > vy[b];
+		}
+		if (vx[a] != vx[b]) {
+			return vx[a] < vx[b];
+		}
+		return a < b;
+	}
+
+	/**
+	 * Check which way the path through three vertices turns
+	 *
+	 * @param a The first vertex
+	 * @param b The second vertex
+	 * @param c The third vertex
+	 * @return Positive for a turn to the left, negative to the right and zero if
+	 * the vertices are in line
+	 */
+	private double orient(int a, int b, int c) {
+		return ((vx[b] - vx[a]) * (vy[c] - vy[a])) - ((vy[b] - vy[a]) * (vx[c] - vx[a]));
+	}
+
+	/**
+	 * An edge of a contour, identified by the vertex it starts at
+	 *
+	 * @author agent
+	 */
+	private class Edge {
+		/** The vertex the edge starts at, -1 for the edge used to search */
+		private int start;
+		/** The higher vertex of the edge */
+		private int upper;
+		/** The lower vertex of the edge */
+		private int lower;
+
+		/**
+		 * Create a new edge
+		 *
+		 * @param start The vertex the edge starts at, -1 for the edge used to search
+		 */
+		public Edge(int start) {
+			this.start = start;
+			if (start >= 0) {
+				boolean down = rank[start] < rank[next[start]];
+				upper = down ? start : next[start];
+				lower = down ? next[start] : start;
+			}
+		}
+
+		/**
+		 * Get the x coordinate where the edge crosses the sweep
+		 *
+		 * @return The x coordinate where the edge crosses the sweep
+		 */
+		public double getX() {
+			double x = vx[sweep];
+			if (start < 0) {
+				return x;
+			}
+
+			double y = vy[sweep];
+			if (vy[upper] == vy[lower]) {
+				// level edges cross the sweep wherever it is along them
+				return Math.min(Math.max(x, vx[upper]), vx[lower]);
+			}
+			if (y >= vy[upper]) {
+				return vx[upper];
+			}
+			if (y <= vy[lower]) {
+				return vx[lower];
+			}
+			return vx[upper] + (((vx[lower] - vx[upper]) * (vy[upper] - y)) / (vy[upper] - vy[lower]));
+		}
+
+		/**
+		 * Get how far the edge moves right for each unit it moves down
+		 *
+		 * @return How far the edge moves right for each unit it moves down
+		 */
+		public double getSlope() {
+			if (vy[upper] == vy[lower]) {
+				return Double.POSITIVE_INFINITY;
+			}
+			return (vx[lower] - vx[upper]) / (vy[upper] - vy[lower]);
+		}
+	}
+
+	/**
+	 * Orders the edges crossing the sweep from left to right. The search edge is
+	 * placed after any edge it touches.
+	 *
+	 * @author agent
+	 */
+	private class EdgeComparator implements Comparator {
+		/**
+		 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+		 */
+		public int compare(Object o1, Object o2) {
+			Edge a = (Edge) o1;
+			Edge b = (Edge) o2;
+			if (a == b) {
+				return 0;
+			}
+
+			double xa = a.getX();
+			double xb = b.getX();
+			if (xa != xb) {
+				return xa < xb ? -1 : 1;
+			}
+			if (a.start < 0) {
+				return 1;
+			}
+			if (b.start < 0) {
+				return -1;
+			}
+
+			double sa = a.getSlope();
+			double sb = b.getSlope();
+			if (sa != sb) {
+				return sa < sb ? -1 : 1;
+			}
+			return a.start < b.start ? -1 : 1;
+		}
+	}
+
+	/**
+	 * A failure to triangulate, hidden from outside and handled
+	 *
+	 * @author agent
+	 */
+	private class InternalException extends Exception {
+		/** The serial identifier for this class */
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * Create an internal exception
+		 *
+		 * @param msg The message describing the exception
+		 */
+		public InternalException(String msg) {
+			super(msg);
+		}
+	}
+}
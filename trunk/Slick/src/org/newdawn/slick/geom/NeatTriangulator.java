@@ -609,6 +609,19 @@ public class NeatTriangulator implements Triangulator
 		return new float[] {xp,yp};
 	}
 
+	/**
+	 * Get the index of a point on a specified generated triangle, in the order
+	 * the points were added
+	 * 
+	 * @param tri The index of the triangle to interegate
+	 * @param i The index of the point within the triangle to retrieve
+	 * (0 - 2)
+	 * @return The index of the point as it was added to the polygon
+	 */
+	public int getTrianglePointIndex(int tri, int i) {
+		return triangles[tri].v[i];
+	}
+
 	/**
 	 * @see org.newdawn.slick.geom.Triangulator#startHole()
 	 */
@@ -142,7 +142,7 @@ public class Polygon extends Shape {
         resultPolygon.findCenter();
         resultPolygon.closed = closed;
 
-        return resultPolygon;
+        return shareTriangles(resultPolygon);
     }
     
     /**
@@ -264,6 +264,6 @@ public class Rectangle extends Shape {
         resultPolygon.findCenter();
         resultPolygon.checkPoints();
 
-        return resultPolygon;
+        return shareTriangles(resultPolygon);
     }
 }
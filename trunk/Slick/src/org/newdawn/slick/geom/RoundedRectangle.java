@@ -278,7 +278,7 @@ public class RoundedRectangle extends Rectangle {
         resultPolygon.points = result;
         resultPolygon.findCenter();
 
-        return resultPolygon;
+        return shareTriangles(resultPolygon);
     }
     
 }
@@ -33,6 +33,10 @@ public abstract class Shape implements Serializable {
     protected transient Triangulator tris;
     /** True if the triangles need updating */
     protected boolean trianglesDirty;
+    /** The index of each point of each triangle into the points, null if not yet known */
+    protected transient int[] triangleIndices;
+    /** The triangulator used to fill this shape, one of the TessellationCache constants */
+    protected int triangulator = TessellationCache.NEAT;
     
     /**
      * Shape constructor.
@@ -608,29 +612,45 @@ public abstract class Shape implements Serializable {
     		return;
     	}
     	if (points.length >= 6) {
-    		boolean clockwise = true;
-    		float area = 0;
-    		for (int i=0;i<(points.length/2)-1;i++) {
-    			float x1 = points[(i*2)];
-    			float y1 = points[(i*2)+1];
-    			float x2 = points[(i*2)+2];
-    			float y2 = points[(i*2)+3];
-    			
-    			area += (x1 * y2) - (y1 * x2);
+    		// moving the shape only moves the triangles, the indices stay valid until
+    		// the points are regenerated
+    		if (triangleIndices == null) {
+    			triangleIndices = TessellationCache.getIndices(points, triangulator);
     		}
-    		area /= 2;
-    		clockwise = area > 0;
-
-        	tris = new NeatTriangulator();
-    		for (int i=0;i<points.length;i+=2) {
-	    		tris.addPolyPoint(points[i], points[i+1]);
-	    	}
-    		tris.triangulate();
+    		if (!(tris instanceof Tessellation)) {
+    			tris = new Tessellation();
+    		}
+    		((Tessellation) tris).update(points, triangleIndices);
     	}
     	
     	trianglesDirty = false;
     }
     
+    /**
+     * Choose how this shape is split into triangles when filled. Shapes are
+     * triangulated with TessellationCache.NEAT unless told otherwise. Large shapes,
+     * such as paths loaded from SVG, triangulate much faster with 
+     * TessellationCache.MONOTONE.
+     * 
+     * @param triangulator The triangulator to use, TessellationCache.NEAT or MONOTONE
+     */
+    public void setTriangulator(int triangulator) {
+    	if (this.triangulator != triangulator) {
+    		this.triangulator = triangulator;
+    		triangleIndices = null;
+    		trianglesDirty = true;
+    	}
+    }
+    
+    /**
+     * Get the triangulator used when this shape is filled
+     * 
+     * @return The triangulator used, TessellationCache.NEAT or MONOTONE
+     */
+    public int getTriangulator() {
+    	return triangulator;
+    }
+    
     /**
      * Increase triangulation
      */
@@ -652,6 +672,26 @@ public abstract class Shape implements Serializable {
     	return tris;
     }
     
+    /**
+     * Give a shape built from the points of this one by a transform the triangles
+     * of this shape. A transform keeps the order of the points so the same triangles 
+     * still fill the shape, even when the shape is skewed or scaled unevenly.
+     * 
+     * @param result The shape built by transforming this one
+     * @return The shape built by transforming this one
+     */
+    protected Shape shareTriangles(Shape result) {
+    	checkPoints();
+    	result.checkPoints();
+    	result.triangulator = triangulator;
+    	if ((triangleIndices != null) && (result.points.length == points.length)) {
+    		result.triangleIndices = triangleIndices;
+    		result.trianglesDirty = true;
+    	}
+    	
+    	return result;
+    }
+    
     /**
      * Check the dirty flag and create points as necessary.
      */
@@ -677,6 +717,7 @@ public abstract class Shape implements Serializable {
             }
             pointsDirty = false;
             trianglesDirty = true;
+            triangleIndices = null;
         }
     }
     
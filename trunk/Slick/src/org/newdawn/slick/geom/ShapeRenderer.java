@@ -111,12 +111,7 @@ public final class ShapeRenderer {
         Texture t = TextureImpl.getLastBind();
         TextureImpl.bindNone();
         
-    	fill(shape, new PointCallback() {
-			public float[] preRenderPoint(Shape shape, float x, float y) {
-				// do nothing, we're just filling the shape this time
-				return null;
-			}
-    	});
+    	fill(shape, (PointCallback) null);
         
         if (t == null) {
         	TextureImpl.bindNone();
@@ -130,26 +125,53 @@ public final class ShapeRenderer {
      * The colour has to be set independently of this method.
      * 
      * @param shape The shape to fill.
-     * @param callback The callback that will be invoked for each shape point
+     * @param callback The callback that will be invoked for each shape point, or null
+     * if the points should be rendered as they are
      */
     private static final void fill(Shape shape, PointCallback callback) {
     	Triangulator tris = shape.getTriangles();
 
         GL.glBegin(SGL.GL_TRIANGLES);
-        for (int i=0;i<tris.getTriangleCount();i++) {
-        	for (int p=0;p<3;p++) {
-        		float[] pt = tris.getTrianglePoint(i, p);
-        		float[] np = callback.preRenderPoint(shape, pt[0],pt[1]);
-        		
-        		if (np == null) {
-        			GL.glVertex2f(pt[0],pt[1]);
-        		} else {
-        			GL.glVertex2f(np[0],np[1]);
-        		}
+        if (tris instanceof Tessellation) {
+        	// the common case, the vertices are ready to go
+        	Tessellation tess = (Tessellation) tris;
+        	float[] verts = tess.getVertices();
+        	int count = tess.getVertexCount() * 2;
+        	for (int i=0;i<count;i+=2) {
+        		vertex(shape, callback, verts[i], verts[i+1]);
         	}
+        } else {
+	        for (int i=0;i<tris.getTriangleCount();i++) {
+	        	for (int p=0;p<3;p++) {
+	        		float[] pt = tris.getTrianglePoint(i, p);
+	        		vertex(shape, callback, pt[0], pt[1]);
+	        	}
+	        }
         }
         GL.glEnd();
     }
+    
+    /**
+     * Render a single point of the filled shape
+     * 
+     * @param shape The shape being filled
+     * @param callback The callback that will be invoked for the point, or null
+     * if the point should be rendered as it is
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     */
+    private static final void vertex(Shape shape, PointCallback callback, float x, float y) {
+    	float[] np = null;
+    	if (callback != null) {
+    		np = callback.preRenderPoint(shape, x, y);
+    	}
+    	
+		if (np == null) {
+			GL.glVertex2f(x, y);
+		} else {
+			GL.glVertex2f(np[0],np[1]);
+		}
+    }
 
     /**
      * Draw the the given shape filled in with a texture.  Only the vertices are set.  
@@ -361,7 +383,7 @@ public final class ShapeRenderer {
 				Vector2f tex = gen.getCoordFor(x, y);
 	            GL.glTexCoord2f(tex.x, tex.y);
 
-	            return new float[] {x,y};
+	            return null;
 			}
     	});
         
@@ -0,0 +1,153 @@
+package org.newdawn.slick.geom;
+
+/**
+ * The triangles filling a shape held as a single array of vertices ready to be
+ * drawn - three x,y pairs per triangle. The triangles are described by indices into
+ * the points of the shape so they can be rebuilt cheaply as the shape moves.
+ *
+ * A tessellation can also be used as a triangulator in its own right. Points
+ * given through addPolyPoint() are triangulated with NeatTriangulator, or with
+ * MonotoneTriangulator if the polygon has holes since only it supports them.
+ *
+ * @author agent
+ */
+public class Tessellation implements Triangulator {
+	/** The serial identifier for this class */
+	private static final long serialVersionUID = 1L;
+	
+	/** The x,y coordinates of each vertex of each triangle */
+	private float[] vertices = new float[0];
+	/** The number of triangles held */
+	private int count;
+	/** The x,y coordinates of the points added to be triangulated */
+	private float[] polyPoints = new float[32];
+	/** The number of points added to be triangulated */
+	private int polyPointCount;
+	/** The index of the first point of each hole added */
+	private int[] holes = new int[4];
+	/** The number of holes added */
+	private int holeCount;
+
+	/**
+	 * Rebuild the triangles from the points of a shape
+	 *
+	 * @param points The x,y coordinates of the points of the shape
+	 * @param indices The index of each point of each triangle into the shape's points
+	 */
+	public void update(float[] points, int[] indices) {
+		if (vertices.length < indices.length * 2) {
+			vertices = new float[indices.length * 2];
+		}
+
+		for (int i=0;i<indices.length;i++) {
+			vertices[(i*2)] = points[(indices[i]*2)];
+			vertices[(i*2)+1] = points[(indices[i]*2)+1];
+		}
+		count = indices.length / 3;
+	}
+
+	/**
+	 * Get the vertices of the triangles, three x,y pairs per triangle. The array
+	 * may be longer than the data held, see getVertexCount().
+	 *
+	 * @return The vertices of the triangles
+	 */
+	public float[] getVertices() {
+		return vertices;
+	}
+
+	/**
+	 * Get the number of vertices held
+	 *
+	 * @return The number of vertices held
+	 */
+	public int getVertexCount() {
+		return count * 3;
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#getTriangleCount()
+	 */
+	public int getTriangleCount() {
+		return count;
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#getTrianglePoint(int, int)
+	 */
+	public float[] getTrianglePoint(int tri, int i) {
+		int index = ((tri * 3) + i) * 2;
+
+		return new float[] {vertices[index], vertices[index+1]};
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#addPolyPoint(float, float)
+	 */
+	public void addPolyPoint(float x, float y) {
+		if (polyPoints.length == polyPointCount * 2) {
+			float[] temp = new float[polyPoints.length * 2];
+			System.arraycopy(polyPoints, 0, temp, 0, polyPointCount * 2);
+			polyPoints = temp;
+		}
+		polyPoints[(polyPointCount*2)] = x;
+		polyPoints[(polyPointCount*2)+1] = y;
+		polyPointCount++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#startHole()
+	 */
+	public void startHole() {
+		if (holes.length == holeCount) {
+			int[] temp = new int[holeCount * 2];
+			System.arraycopy(holes, 0, temp, 0, holeCount);
+			holes = temp;
+		}
+		holes[holeCount++] = polyPointCount;
+	}
+
+	/**
+	 * @see org.newdawn.slick.geom.Triangulator#triangulate()
+	 */
+	public boolean triangulate() {
+		float[] points = new float[polyPointCount * 2];
+		System.arraycopy(polyPoints, 0, points, 0, points.length);
+
+		if (holeCount == 0) {
+			NeatTriangulator tris = new NeatTriangulator();
+			for (int i=0;i<polyPointCount;i++) {
+				tris.addPolyPoint(points[(i*2)], points[(i*2)+1]);
+			}
+			boolean result = tris.triangulate();
+
+			int[] indices = new int[tris.getTriangleCount() * 3];
+			for (int i=0;i<indices.length;i++) {
+				indices[i] = tris.getTrianglePointIndex(i / 3, i % 3);
+			}
+			update(points, indices);
+			return result;
+		}
+
+		MonotoneTriangulator tris = new MonotoneTriangulator();
+		int hole = 0;
+		for (int i=0;i<polyPointCount;i++) {
+			while ((hole < holeCount) && (holes[hole] == i)) {
+				tris.startHole();
+				hole++;
+			}
+			tris.addPolyPoint(points[(i*2)], points[(i*2)+1]);
+		}
+		if (!tris.triangulate()) {
+			count = 0;
+			return false;
+		}
+
+		int[] indices = new int[tris.getTriangleCount() * 3];
+		for (int i=0;i<indices.length;i++) {
+			indices[i] = tris.getTrianglePointIndex(i / 3, i % 3);
+		}
+		update(points, indices);
+		return true;
+	}
+}
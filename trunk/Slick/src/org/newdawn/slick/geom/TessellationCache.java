@@ -0,0 +1,245 @@
+package org.newdawn.slick.geom;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the triangles that fill shapes, keyed by the outline of the shape.
+ * The triangles are held as indices into the points of the shape, so shapes that
+ * differ only by translation, rotation or uniform scale share a single triangulation
+ * - a shape moving and spinning across the screen is only triangulated once.
+ *
+ * The least recently used entries are discarded once the cache is full.
+ *
+ * @author agent
+ */
+public class TessellationCache {
+	/** Triangulate with NeatTriangulator, robust but slow on large shapes - the default */
+	public static final int NEAT = 1;
+	/** 
+	 * Triangulate with MonotoneTriangulator, O(n log n) in the number of points. Shapes
+	 * whose outline crosses itself fall back on NeatTriangulator.
+	 */
+	public static final int MONOTONE = 2;
+	/** The default maximum number of outlines held */
+	public static final int DEFAULT_MAX_ENTRIES = 512;
+	/** The precision outlines are compared at, relative to the size of the shape */
+	private static final float PRECISION = 4096;
+
+	/** The maximum number of outlines held */
+	private static int maxEntries = DEFAULT_MAX_ENTRIES;
+	/** The triangle indices (int[]) for each outline (Key) held */
+	private static LinkedHashMap cache = new LinkedHashMap(64, 0.75f, true) {
+		/** The serial identifier for this class */
+		private static final long serialVersionUID = 1L;
+		
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > maxEntries;
+		}
+	};
+	/** The number of lookups found in the cache */
+	private static int hits;
+	/** The number of lookups that required triangulation */
+	private static int misses;
+
+	/**
+	 * Get the triangles filling a shape, triangulating the shape only if no shape
+	 * with the same outline has been seen before
+	 *
+	 * @param points The x,y coordinates of the points of the shape
+	 * @param triangulator The triangulator to use, NEAT or MONOTONE
+	 * @return The index of each point of each triangle into the shape's points,
+	 * three per triangle. The array is shared and must not be modified.
+	 */
+	public static synchronized int[] getIndices(float[] points, int triangulator) {
+		Key key = new Key(points, triangulator);
+		int[] indices = (int[]) cache.get(key);
+		if (indices != null) {
+			hits++;
+			return indices;
+		}
+
+		misses++;
+		indices = triangulate(points, triangulator);
+		cache.put(key, indices);
+
+		return indices;
+	}
+
+	/**
+	 * Triangulate a shape without reference to the cache
+	 *
+	 * @param points The x,y coordinates of the points of the shape
+	 * @param triangulator The triangulator to use, NEAT or MONOTONE
+	 * @return The index of each point of each triangle into the shape's points,
+	 * three per triangle.
+	 */
+	public static int[] triangulate(float[] points, int triangulator) {
+		if (triangulator == MONOTONE) {
+			MonotoneTriangulator tris = new MonotoneTriangulator();
+			for (int i=0;i<points.length;i+=2) {
+				tris.addPolyPoint(points[i], points[i+1]);
+			}
+			if (tris.triangulate()) {
+				int[] indices = new int[tris.getTriangleCount() * 3];
+				for (int i=0;i<indices.length;i++) {
+					indices[i] = tris.getTrianglePointIndex(i / 3, i % 3);
+				}
+				return indices;
+			}
+			// the outline crosses itself, fall back on the more forgiving triangulator
+		}
+		
+		NeatTriangulator tris = new NeatTriangulator();
+		for (int i=0;i<points.length;i+=2) {
+			tris.addPolyPoint(points[i], points[i+1]);
+		}
+		tris.triangulate();
+
+		int[] indices = new int[tris.getTriangleCount() * 3];
+		for (int i=0;i<indices.length;i++) {
+			indices[i] = tris.getTrianglePointIndex(i / 3, i % 3);
+		}
+
+		return indices;
+	}
+
+	/**
+	 * Set the maximum number of outlines held
+	 *
+	 * @param max The maximum number of outlines held
+	 */
+	public static synchronized void setMaxEntries(int max) {
+		maxEntries = max;
+		if (cache.size() > max) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Get the maximum number of outlines held
+	 *
+	 * @return The maximum number of outlines held
+	 */
+	public static synchronized int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Get the number of outlines held
+	 *
+	 * @return The number of outlines held
+	 */
+	public static synchronized int getSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Get the number of lookups that were found in the cache
+	 *
+	 * @return The number of lookups that were found in the cache
+	 */
+	public static synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of lookups that required triangulation
+	 *
+	 * @return The number of lookups that required triangulation
+	 */
+	public static synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Discard all the outlines held and reset the statistics
+	 */
+	public static synchronized void clear() {
+		cache.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * The outline of a shape with its position, rotation and size removed. The points
+	 * are taken relative to the first, rotated so the first edge lies along the x axis
+	 * and scaled by the distance to the furthest point. The triangulator used is part
+	 * of the key.
+	 *
+	 * @author agent
+	 */
+	private static class Key {
+		/** The normalised coordinates of the points */
+		private int[] values;
+		/** The hash code of the values */
+		private int hash;
+		/** The triangulator used */
+		private int triangulator;
+
+		/**
+		 * Create a new key
+		 *
+		 * @param points The x,y coordinates of the points of the shape
+		 * @param triangulator The triangulator used
+		 */
+		public Key(float[] points, int triangulator) {
+			this.triangulator = triangulator;
+			hash = triangulator;
+
+			int count = points.length / 2;
+			float ox = points[0];
+			float oy = points[1];
+
+			double cos = 1;
+			double sin = 0;
+			for (int i=1;i<count;i++) {
+				double dx = points[(i*2)] - ox;
+				double dy = points[(i*2)+1] - oy;
+				if ((dx != 0) || (dy != 0)) {
+					double length = Math.sqrt((dx * dx) + (dy * dy));
+					cos = dx / length;
+					sin = dy / length;
+					break;
+				}
+			}
+
+			double extent = 0;
+			for (int i=1;i<count;i++) {
+				double dx = points[(i*2)] - ox;
+				double dy = points[(i*2)+1] - oy;
+				extent = Math.max(extent, (dx * dx) + (dy * dy));
+			}
+			double scale = extent == 0 ? 0 : PRECISION / Math.sqrt(extent);
+
+			values = new int[points.length];
+			for (int i=0;i<count;i++) {
+				double dx = points[(i*2)] - ox;
+				double dy = points[(i*2)+1] - oy;
+				values[(i*2)] = (int) Math.round(((dx * cos) + (dy * sin)) * scale);
+				values[(i*2)+1] = (int) Math.round(((dy * cos) - (dx * sin)) * scale);
+				hash = (31 * ((31 * hash) + values[(i*2)])) + values[(i*2)+1];
+			}
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+
+			return (key.hash == hash) && (key.triangulator == triangulator) && Arrays.equals(key.values, values);
+		}
+	}
+}
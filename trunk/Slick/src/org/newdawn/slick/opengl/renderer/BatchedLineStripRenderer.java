@@ -0,0 +1,331 @@
+package org.newdawn.slick.opengl.renderer;
+
+/**
+ * A line strip renderer that builds the lines from triangles, joining the segments
+ * of each strip with mitered or bevelled corners. Lines of every width are drawn
+ * the same way, so they look the same whatever the driver's support for wide GL
+ * lines, and the width scales with the rest of the geometry drawn.
+ *
+ * The strips don't change any GL state and are only ever sent as GL_TRIANGLES, so
+ * the vertex array and vertex buffer renderers collect any number of lines drawn
+ * with the same state into a single draw.
+ *
+ * @author agent
+ */
+public class BatchedLineStripRenderer implements LineStripRenderer {
+	/** The indicator for joins extended to a point, bevelled past the miter limit */
+	public static final int MITER_JOIN = 0;
+	/** The indicator for joins cut off square across the corner */
+	public static final int BEVEL_JOIN = 1;
+
+	/** The renderer used to interact with GL */
+	private SGL GL = Renderer.get();
+
+	/** The width of the lines to draw */
+	private float width = 1;
+	/** True if we should render round end caps */
+	private boolean lineCaps;
+	/** The way segments are joined, MITER_JOIN or BEVEL_JOIN */
+	private int join = MITER_JOIN;
+	/** The longest a miter may be, relative to the width of the line, before it's bevelled */
+	private float miterLimit = 4;
+
+	/** The points of the strip being built */
+	private float[] points = new float[64];
+	/** The colours of the points of the strip being built */
+	private float[] colours = new float[128];
+	/** The normals of the segments of the strip being built */
+	private float[] normals = new float[64];
+	/** The number of points in the strip being built */
+	private int count;
+	/** True if a colour has been given for the points in the strip being built */
+	private boolean coloured;
+	/** The colour applied to the next point */
+	private float[] colour = new float[4];
+	/** The index of the point whose colour was last sent to GL, -1 for none */
+	private int lastColour;
+
+	/**
+	 * Set the way the segments of a strip are joined
+	 *
+	 * @param join The way segments are joined, MITER_JOIN or BEVEL_JOIN
+	 */
+	public void setJoin(int join) {
+		this.join = join;
+	}
+
+	/**
+	 * Get the way the segments of a strip are joined
+	 *
+	 * @return The way segments are joined, MITER_JOIN or BEVEL_JOIN
+	 */
+	public int getJoin() {
+		return join;
+	}
+
+	/**
+	 * Set the longest a mitered join may be before it's bevelled instead
+	 *
+	 * @param limit The longest a miter may be relative to the width of the line
+	 */
+	public void setMiterLimit(float limit) {
+		this.miterLimit = limit;
+	}
+
+	/**
+	 * Get the longest a mitered join may be before it's bevelled instead
+	 *
+	 * @return The longest a miter may be relative to the width of the line
+	 */
+	public float getMiterLimit() {
+		return miterLimit;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#applyGLLineFixes()
+	 */
+	public boolean applyGLLineFixes() {
+		return false;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#start()
+	 */
+	public void start() {
+		// pick up the renderer each time, it may have changed since creation
+		GL = Renderer.get();
+
+		count = 0;
+		coloured = false;
+		// the current colour is held with the global alpha scale applied, which
+		// would be applied again if the colour is sent for the first points
+		float[] current = GL.getCurrentColor();
+		float scale = GL.getGlobalAlphaScale();
+		System.arraycopy(current, 0, colour, 0, 3);
+		colour[3] = scale == 0 ? current[3] : current[3] / scale;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#vertex(float, float)
+	 */
+	public void vertex(float x, float y) {
+		if (count * 2 == points.length) {
+			float[] temp = new float[points.length * 2];
+			System.arraycopy(points, 0, temp, 0, points.length);
+			points = temp;
+			temp = new float[colours.length * 2];
+			System.arraycopy(colours, 0, temp, 0, colours.length);
+			colours = temp;
+			normals = new float[points.length];
+		}
+
+		points[(count*2)] = x;
+		points[(count*2)+1] = y;
+		System.arraycopy(colour, 0, colours, count*4, 4);
+		count++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#color(float, float, float, float)
+	 */
+	public void color(float r, float g, float b, float a) {
+		colour[0] = r;
+		colour[1] = g;
+		colour[2] = b;
+		colour[3] = a;
+		coloured = true;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#setWidth(float)
+	 */
+	public void setWidth(float width) {
+		this.width = width;
+	}
+
+	/**
+	 * Antialiasing is left to the polygon smoothing enabled by the graphics context
+	 *
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#setAntiAlias(boolean)
+	 */
+	public void setAntiAlias(boolean antialias) {
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#setLineCaps(boolean)
+	 */
+	public void setLineCaps(boolean caps) {
+		this.lineCaps = caps;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.LineStripRenderer#end()
+	 */
+	public void end() {
+		removeRepeats();
+
+		boolean closed = false;
+		if ((count > 3) && (points[0] == points[(count*2)-2]) && (points[1] == points[(count*2)-1])) {
+			count--;
+			closed = true;
+		}
+		if (count < 2) {
+			return;
+		}
+
+		int segments = closed ? count : count - 1;
+		for (int i=0;i<segments;i++) {
+			int next = (i + 1) % count;
+			float dx = points[(next*2)] - points[(i*2)];
+			float dy = points[(next*2)+1] - points[(i*2)+1];
+			float length = (float) Math.sqrt((dx * dx) + (dy * dy));
+			normals[(i*2)] = -dy / length;
+			normals[(i*2)+1] = dx / length;
+		}
+
+		float w = width / 2;
+		lastColour = -1;
+		GL.glBegin(SGL.GL_TRIANGLES);
+		for (int i=0;i<segments;i++) {
+			int next = (i + 1) % count;
+			float nx = normals[(i*2)] * w;
+			float ny = normals[(i*2)+1] * w;
+
+			emit(i, nx, ny);
+			emit(i, -nx, -ny);
+			emit(next, -nx, -ny);
+			emit(i, nx, ny);
+			emit(next, -nx, -ny);
+			emit(next, nx, ny);
+		}
+
+		int first = closed ? 0 : 1;
+		int last = closed ? count : count - 1;
+		for (int i=first;i<last;i++) {
+			int before = (i + segments - 1) % segments;
+			join(i, before, i % segments, w);
+		}
+
+		if (lineCaps && !closed) {
+			cap(0, 0, -1, w);
+			cap(count-1, count-2, 1, w);
+		}
+		GL.glEnd();
+	}
+
+	/**
+	 * Drop points that repeat the one before, they give segments with no direction
+	 */
+	private void removeRepeats() {
+		int kept = 0;
+		for (int i=0;i<count;i++) {
+			if ((kept > 0) && (points[(i*2)] == points[(kept*2)-2]) && (points[(i*2)+1] == points[(kept*2)-1])) {
+				continue;
+			}
+			if (kept != i) {
+				points[(kept*2)] = points[(i*2)];
+				points[(kept*2)+1] = points[(i*2)+1];
+				System.arraycopy(colours, i*4, colours, kept*4, 4);
+			}
+			kept++;
+		}
+		count = kept;
+	}
+
+	/**
+	 * Fill the gap on the outside of the corner between two segments
+	 *
+	 * @param point The index of the point at the corner
+	 * @param before The index of the segment coming into the corner
+	 * @param after The index of the segment leaving the corner
+	 * @param w Half the width of the line
+	 */
+	private void join(int point, int before, int after, float w) {
+		float n1x = normals[(before*2)];
+		float n1y = normals[(before*2)+1];
+		float n2x = normals[(after*2)];
+		float n2y = normals[(after*2)+1];
+
+		float cross = (n1x * n2y) - (n1y * n2x);
+		if (cross == 0) {
+			// straight on, or doubling back where there's no corner to fill
+			return;
+		}
+		float side = cross > 0 ? -w : w;
+
+		emit(point, 0, 0);
+		emit(point, n1x * side, n1y * side);
+		emit(point, n2x * side, n2y * side);
+
+		if (join == MITER_JOIN) {
+			float mx = n1x + n2x;
+			float my = n1y + n2y;
+			float length = (float) Math.sqrt((mx * mx) + (my * my));
+			if (length == 0) {
+				return;
+			}
+			mx /= length;
+			my /= length;
+
+			// the miter reaches 1/cos(half the angle turned) of the way out
+			float cos = (mx * n1x) + (my * n1y);
+			if (cos * miterLimit < 1) {
+				return;
+			}
+			float reach = side / cos;
+
+			emit(point, n1x * side, n1y * side);
+			emit(point, mx * reach, my * reach);
+			emit(point, n2x * side, n2y * side);
+		}
+	}
+
+	/**
+	 * Round off the end of a strip
+	 *
+	 * @param point The index of the point at the end
+	 * @param other The index of the point next to the end
+	 * @param dir 1 if the end is the last point, -1 if it's the first
+	 * @param w Half the width of the line
+	 */
+	private void cap(int point, int other, int dir, float w) {
+		int segment = dir > 0 ? other : point;
+		float nx = normals[(segment*2)] * w;
+		float ny = normals[(segment*2)+1] * w;
+		// the direction pointing out of the end of the line
+		float ox = ny * dir;
+		float oy = -nx * dir;
+
+		int steps = Math.max(2, Math.min(32, (int) Math.ceil(w)));
+		float lastX = nx;
+		float lastY = ny;
+		for (int i=1;i<=steps;i++) {
+			double ang = (Math.PI * i) / steps;
+			float cos = (float) Math.cos(ang);
+			float sin = (float) Math.sin(ang);
+			float x = (nx * cos) + (ox * sin);
+			float y = (ny * cos) + (oy * sin);
+
+			emit(point, 0, 0);
+			emit(point, lastX, lastY);
+			emit(point, x, y);
+			lastX = x;
+			lastY = y;
+		}
+	}
+
+	/**
+	 * Send a vertex offset from a point of the strip to GL
+	 *
+	 * @param point The index of the point in the strip
+	 * @param dx The offset on the x axis
+	 * @param dy The offset on the y axis
+	 */
+	private void emit(int point, float dx, float dy) {
+		if (coloured && (lastColour != point)) {
+			GL.glColor4f(colours[(point*4)], colours[(point*4)+1], colours[(point*4)+2], colours[(point*4)+3]);
+			lastColour = point;
+		}
+		GL.glVertex2f(points[(point*2)] + dx, points[(point*2)+1] + dy);
+	}
+}
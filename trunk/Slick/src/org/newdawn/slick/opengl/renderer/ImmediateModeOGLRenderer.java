@@ -15,6 +15,9 @@ import org.lwjgl.opengl.GLContext;
  * @author kevin
  */
 public class ImmediateModeOGLRenderer implements SGL {
+	/** The number of floats given for each vertex passed to drawQuads() */
+	private static final int QUAD_VERTEX_SIZE = 8;
+	
 	/** The width of the display */
 	private int width;
 	/** The height of the display */
@@ -361,6 +364,48 @@ public class ImmediateModeOGLRenderer implements SGL {
 		this.alphaScale = alphaScale;
 	}
 
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#getGlobalAlphaScale()
+	 */
+	public float getGlobalAlphaScale() {
+		return alphaScale;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#drawQuads(java.nio.FloatBuffer, int, int)
+	 */
+	public void drawQuads(FloatBuffer data, int first, int count) {
+		if (count == 0) {
+			return;
+		}
+		if (alphaScale != 1) {
+			for (int i=first;i<first+count;i++) {
+				int index = (i*QUAD_VERTEX_SIZE)+7;
+				data.put(index, data.get(index) * alphaScale);
+			}
+		}
+		
+		int position = data.position();
+		GL11.glPushClientAttrib(GL11.GL_CLIENT_VERTEX_ARRAY_BIT);
+		GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+		GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+		
+		data.position(0);
+		GL11.glVertexPointer(2, QUAD_VERTEX_SIZE*4, data);
+		data.position(2);
+		GL11.glTexCoordPointer(2, QUAD_VERTEX_SIZE*4, data);
+		data.position(4);
+		GL11.glColorPointer(4, QUAD_VERTEX_SIZE*4, data);
+		data.position(position);
+		
+		GL11.glDrawArrays(GL11.GL_QUADS, first, count);
+		GL11.glPopClientAttrib();
+		
+		// the colour array leaves the current colour undefined
+		GL11.glColor4f(current[0], current[1], current[2], current[3]);
+	}
+
 	/**
 	 * @see org.newdawn.slick.opengl.renderer.SGL#glLoadMatrix(java.nio.FloatBuffer)
 	 */
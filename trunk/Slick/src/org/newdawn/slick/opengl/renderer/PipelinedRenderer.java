@@ -0,0 +1,600 @@
+package org.newdawn.slick.opengl.renderer;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * A renderer that lets a frame be rendered on one thread while the last is
+ * drawn on another. Calls made from the recording thread are captured in a
+ * command list rather than executed. Calls made from any other thread, which
+ * should only be the thread that owns the GL context, go straight through to
+ * the real renderer.
+ *
+ * There are two command lists. Once a frame has been recorded swap() makes it
+ * the list to be drawn and hands the old one back to be recorded into, replay()
+ * then draws it on the GL thread while the next frame is recorded. The two
+ * threads never touch the same list so no locking is needed, as long as swap()
+ * is only called while the recording thread is idle.
+ *
+ * Textures and display lists can be created while recording. They're given IDs
+ * well above those the real renderer hands out, and those IDs are mapped to the
+ * real ones as they're created on replay. The mapping is kept for the life of
+ * the renderer so the IDs stay valid once recording stops.
+ *
+ * Reading back from GL (glReadPixels() and glGetTexImage()) isn't possible while
+ * recording since the frame hasn't been drawn yet, and fails with an exception.
+ *
+ * @author agent
+ */
+public class PipelinedRenderer implements SGL {
+	/** The first ID given to textures and display lists created while recording */
+	private static final int NAME_BASE = 0x40000000;
+
+	/** The renderer that actually draws */
+	private SGL target;
+	/** The list being recorded into */
+	private RecordingRenderer recorder = new RecordingRenderer(true);
+	/** The list recorded last, waiting to be replayed */
+	private RecordingRenderer replay = new RecordingRenderer(true);
+	/** The map from the texture IDs recorded to those on the target */
+	private RecordingRenderer.NameMap textures = new RecordingRenderer.NameMap(NAME_BASE);
+	/** The map from the display list IDs recorded to those on the target */
+	private RecordingRenderer.NameMap lists = new RecordingRenderer.NameMap(NAME_BASE);
+	/** The thread whose calls are recorded or null if none are */
+	private Thread recordingThread;
+	/** True if the mirror clamp extension is available, as found on the GL thread */
+	private boolean textureMirrorClamp;
+	/** True if the secondary colour extension is available, as found on the GL thread */
+	private boolean secondaryColor;
+
+	/**
+	 * Create a new pipelined renderer
+	 *
+	 * @param target The renderer that actually draws
+	 */
+	public PipelinedRenderer(SGL target) {
+		this.target = target;
+		recorder.setNameBase(NAME_BASE);
+	}
+
+	/**
+	 * Get the renderer that actually draws
+	 *
+	 * @return The renderer that actually draws
+	 */
+	public SGL getTarget() {
+		return target;
+	}
+
+	/**
+	 * Set the thread whose calls should be recorded. This must be set while
+	 * the thread isn't rendering.
+	 *
+	 * @param recordingThread The thread whose calls are recorded or null to
+	 * execute all calls
+	 */
+	public void setRecordingThread(Thread recordingThread) {
+		this.recordingThread = recordingThread;
+	}
+
+	/**
+	 * Get the thread whose calls are recorded
+	 *
+	 * @return The thread whose calls are recorded or null if none are
+	 */
+	public Thread getRecordingThread() {
+		return recordingThread;
+	}
+
+	/**
+	 * Make the frame just recorded the one to be replayed, and start recording
+	 * the next frame. Must only be called while the recording thread is idle.
+	 *
+	 * @return The counts for the frame just recorded
+	 */
+	public RenderStats swap() {
+		recorder.swapRecording(replay);
+		recorder.clearRecording();
+		return recorder.endFrame();
+	}
+
+	/**
+	 * Draw the frame waiting to be replayed to the real renderer. The frame is
+	 * discarded once drawn. Must be called on the GL thread.
+	 */
+	public void replay() {
+		replay.replay(target, textures, lists);
+		replay.clearRecording();
+	}
+
+	/**
+	 * Get the counts for the last frame recorded
+	 *
+	 * @return The counts for the last frame recorded
+	 */
+	public RenderStats getLastFrameStats() {
+		return recorder.getLastFrameStats();
+	}
+
+	/**
+	 * Check if the current call should be recorded
+	 *
+	 * @return True if the current call is made from the recording thread
+	 */
+	private boolean isRecording() {
+		return (recordingThread != null) && (Thread.currentThread() == recordingThread);
+	}
+
+	/**
+	 * Get the renderer the current call should be passed to
+	 *
+	 * @return The recorder if the call is made from the recording thread,
+	 * otherwise the real renderer
+	 */
+	private SGL current() {
+		if (isRecording()) {
+			return recorder;
+		}
+
+		return target;
+	}
+
+	/**
+	 * Check that reading back from GL is possible
+	 *
+	 * @param name The name of the call reading back
+	 */
+	private void checkRead(String name) {
+		if (isRecording()) {
+			throw new RuntimeException(name+"() can't be used while a pipelined frame is recorded");
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#flush()
+	 */
+	public void flush() {
+		current().flush();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#initDisplay(int, int)
+	 */
+	public void initDisplay(int width, int height) {
+		if (isRecording()) {
+			recorder.initDisplay(width, height);
+			return;
+		}
+
+		target.initDisplay(width, height);
+		textureMirrorClamp = target.canTextureMirrorClamp();
+		secondaryColor = target.canSecondaryColor();
+
+		IntBuffer size = BufferUtils.createIntBuffer(16);
+		target.glGetInteger(SGL.GL_MAX_TEXTURE_SIZE, size);
+		recorder.setMaxTextureSize(size.get(0));
+
+		// keep the state the recorder reports in step, without recording it
+		recorder.setRecording(false);
+		recorder.initDisplay(width, height);
+		recorder.setRecording(true);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#enterOrtho(int, int)
+	 */
+	public void enterOrtho(int xsize, int ysize) {
+		if (isRecording()) {
+			recorder.enterOrtho(xsize, ysize);
+			return;
+		}
+
+		target.enterOrtho(xsize, ysize);
+		recorder.setRecording(false);
+		recorder.enterOrtho(xsize, ysize);
+		recorder.setRecording(true);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClearColor(float, float, float, float)
+	 */
+	public void glClearColor(float red, float green, float blue, float alpha) {
+		current().glClearColor(red, green, blue, alpha);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClipPlane(int, java.nio.DoubleBuffer)
+	 */
+	public void glClipPlane(int plane, DoubleBuffer buffer) {
+		current().glClipPlane(plane, buffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glScissor(int, int, int, int)
+	 */
+	public void glScissor(int x, int y, int width, int height) {
+		current().glScissor(x, y, width, height);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glLineWidth(float)
+	 */
+	public void glLineWidth(float width) {
+		current().glLineWidth(width);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClear(int)
+	 */
+	public void glClear(int value) {
+		current().glClear(value);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glColorMask(boolean, boolean, boolean, boolean)
+	 */
+	public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+		current().glColorMask(red, green, blue, alpha);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glLoadIdentity()
+	 */
+	public void glLoadIdentity() {
+		current().glLoadIdentity();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetInteger(int, java.nio.IntBuffer)
+	 */
+	public void glGetInteger(int id, IntBuffer ret) {
+		current().glGetInteger(id, ret);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetFloat(int, java.nio.FloatBuffer)
+	 */
+	public void glGetFloat(int id, FloatBuffer ret) {
+		current().glGetFloat(id, ret);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glEnable(int)
+	 */
+	public void glEnable(int item) {
+		current().glEnable(item);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDisable(int)
+	 */
+	public void glDisable(int item) {
+		current().glDisable(item);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glBindTexture(int, int)
+	 */
+	public void glBindTexture(int target, int id) {
+		if (isRecording()) {
+			recorder.glBindTexture(target, id);
+		} else {
+			this.target.glBindTexture(target, textures.get(id));
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetTexImage(int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glGetTexImage(int target, int level, int format, int type, ByteBuffer pixels) {
+		checkRead("glGetTexImage");
+		this.target.glGetTexImage(target, level, format, type, pixels);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDeleteTextures(java.nio.IntBuffer)
+	 */
+	public void glDeleteTextures(IntBuffer buffer) {
+		if (isRecording()) {
+			recorder.glDeleteTextures(buffer);
+			return;
+		}
+
+		IntBuffer ids = BufferUtils.createIntBuffer(buffer.remaining());
+		for (int i=buffer.position();i<buffer.limit();i++) {
+			ids.put(textures.get(buffer.get(i)));
+		}
+		ids.flip();
+		target.glDeleteTextures(ids);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glColor4f(float, float, float, float)
+	 */
+	public void glColor4f(float r, float g, float b, float a) {
+		current().glColor4f(r, g, b, a);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexCoord2f(float, float)
+	 */
+	public void glTexCoord2f(float u, float v) {
+		current().glTexCoord2f(u, v);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glVertex3f(float, float, float)
+	 */
+	public void glVertex3f(float x, float y, float z) {
+		current().glVertex3f(x, y, z);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glVertex2f(float, float)
+	 */
+	public void glVertex2f(float x, float y) {
+		current().glVertex2f(x, y);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glRotatef(float, float, float, float)
+	 */
+	public void glRotatef(float angle, float x, float y, float z) {
+		current().glRotatef(angle, x, y, z);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTranslatef(float, float, float)
+	 */
+	public void glTranslatef(float x, float y, float z) {
+		current().glTranslatef(x, y, z);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glBegin(int)
+	 */
+	public void glBegin(int geomType) {
+		current().glBegin(geomType);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glEnd()
+	 */
+	public void glEnd() {
+		current().glEnd();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexEnvi(int, int, int)
+	 */
+	public void glTexEnvi(int target, int mode, int value) {
+		current().glTexEnvi(target, mode, value);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glPointSize(float)
+	 */
+	public void glPointSize(float size) {
+		current().glPointSize(size);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glScalef(float, float, float)
+	 */
+	public void glScalef(float x, float y, float z) {
+		current().glScalef(x, y, z);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glPushMatrix()
+	 */
+	public void glPushMatrix() {
+		current().glPushMatrix();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glPopMatrix()
+	 */
+	public void glPopMatrix() {
+		current().glPopMatrix();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glBlendFunc(int, int)
+	 */
+	public void glBlendFunc(int src, int dest) {
+		current().glBlendFunc(src, dest);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGenLists(int)
+	 */
+	public int glGenLists(int count) {
+		return current().glGenLists(count);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glNewList(int, int)
+	 */
+	public void glNewList(int id, int option) {
+		if (isRecording()) {
+			recorder.glNewList(id, option);
+		} else {
+			target.glNewList(lists.get(id), option);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glEndList()
+	 */
+	public void glEndList() {
+		current().glEndList();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glCallList(int)
+	 */
+	public void glCallList(int id) {
+		if (isRecording()) {
+			recorder.glCallList(id);
+		} else {
+			target.glCallList(lists.get(id));
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glCopyTexImage2D(int, int, int, int, int, int, int, int)
+	 */
+	public void glCopyTexImage2D(int target, int level, int internalFormat,
+								 int x, int y, int width, int height, int border) {
+		current().glCopyTexImage2D(target, level, internalFormat, x, y, width, height, border);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glReadPixels(int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glReadPixels(int x, int y, int width, int height, int format, int type,
+							 ByteBuffer pixels) {
+		checkRead("glReadPixels");
+		target.glReadPixels(x, y, width, height, format, type, pixels);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexParameteri(int, int, int)
+	 */
+	public void glTexParameteri(int target, int param, int value) {
+		current().glTexParameteri(target, param, value);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#getCurrentColor()
+	 */
+	public float[] getCurrentColor() {
+		return current().getCurrentColor();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDeleteLists(int, int)
+	 */
+	public void glDeleteLists(int list, int count) {
+		if (isRecording()) {
+			recorder.glDeleteLists(list, count);
+		} else {
+			target.glDeleteLists(lists.get(list), count);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDepthMask(boolean)
+	 */
+	public void glDepthMask(boolean mask) {
+		current().glDepthMask(mask);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClearDepth(float)
+	 */
+	public void glClearDepth(float value) {
+		current().glClearDepth(value);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDepthFunc(int)
+	 */
+	public void glDepthFunc(int func) {
+		current().glDepthFunc(func);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#setGlobalAlphaScale(float)
+	 */
+	public void setGlobalAlphaScale(float alphaScale) {
+		current().setGlobalAlphaScale(alphaScale);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#getGlobalAlphaScale()
+	 */
+	public float getGlobalAlphaScale() {
+		return current().getGlobalAlphaScale();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#drawQuads(java.nio.FloatBuffer, int, int)
+	 */
+	public void drawQuads(FloatBuffer data, int first, int count) {
+		current().drawQuads(data, first, count);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glLoadMatrix(java.nio.FloatBuffer)
+	 */
+	public void glLoadMatrix(FloatBuffer buffer) {
+		current().glLoadMatrix(buffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGenTextures(java.nio.IntBuffer)
+	 */
+	public void glGenTextures(IntBuffer ids) {
+		current().glGenTextures(ids);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetError()
+	 */
+	public void glGetError() {
+		current().glGetError();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexImage2D(int, int, int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glTexImage2D(int target, int i, int dstPixelFormat,
+			int width, int height, int border, int srcPixelFormat,
+			int type, ByteBuffer textureBuffer) {
+		current().glTexImage2D(target, i, dstPixelFormat, width, height, border, srcPixelFormat,
+							   type, textureBuffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexSubImage2D(int, int, int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glTexSubImage2D(int target, int i, int pageX, int pageY,
+			int width, int height, int format, int type, ByteBuffer buffer) {
+		current().glTexSubImage2D(target, i, pageX, pageY, width, height, format, type, buffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#canTextureMirrorClamp()
+	 */
+	public boolean canTextureMirrorClamp() {
+		if (isRecording()) {
+			return textureMirrorClamp;
+		}
+
+		return target.canTextureMirrorClamp();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#canSecondaryColor()
+	 */
+	public boolean canSecondaryColor() {
+		if (isRecording()) {
+			return secondaryColor;
+		}
+
+		return target.canSecondaryColor();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glSecondaryColor3ubEXT(byte, byte, byte)
+	 */
+	public void glSecondaryColor3ubEXT(byte b, byte c, byte d) {
+		current().glSecondaryColor3ubEXT(b, c, d);
+	}
+}
@@ -0,0 +1,1719 @@
+package org.newdawn.slick.opengl.renderer;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * A renderer that doesn't render at all. Instead the calls made to it are counted,
+ * and optionally recorded, so that rendering can be run and measured without a
+ * graphics card or display, e.g. on a build server.
+ *
+ * The work of each frame is gathered into a RenderStats - draw calls, vertices,
+ * texture binds, blend, matrix and other state changes, along with how many of
+ * those changes set state that was already current. Call endFrame() at the end
+ * of each frame to collect them.
+ *
+ * When recording is enabled the calls are kept as a compact command stream that can
+ * be dumped as text, for comparing against a known good stream, or replayed into
+ * another renderer. Texture and display list IDs are mapped to the ones the other
+ * renderer generates as they're replayed. Queries, such as glGetInteger(), are
+ * recorded but not replayed.
+ *
+ * Enough state is tracked to answer the queries Slick makes - the model view
+ * matrix, the clear colour and the maximum texture size. Changes made within
+ * display lists aren't tracked, the state they affect is considered unknown once
+ * the list is called.
+ *
+ * Classes keep a reference to the renderer when they're loaded, so this renderer
+ * must be set with Renderer.setRenderer() before anything else in Slick is used.
+ *
+ * @author agent
+ */
+public class RecordingRenderer implements SGL {
+	/** The command for flush() */
+	private static final int FLUSH = 0;
+	/** The command for initDisplay() */
+	private static final int INIT_DISPLAY = 1;
+	/** The command for enterOrtho() */
+	private static final int ENTER_ORTHO = 2;
+	/** The command for glClearColor() */
+	private static final int CLEAR_COLOR = 3;
+	/** The command for glClipPlane() */
+	private static final int CLIP_PLANE = 4;
+	/** The command for glScissor() */
+	private static final int SCISSOR = 5;
+	/** The command for glLineWidth() */
+	private static final int LINE_WIDTH = 6;
+	/** The command for glClear() */
+	private static final int CLEAR = 7;
+	/** The command for glColorMask() */
+	private static final int COLOR_MASK = 8;
+	/** The command for glLoadIdentity() */
+	private static final int LOAD_IDENTITY = 9;
+	/** The command for glGetInteger() */
+	private static final int GET_INTEGER = 10;
+	/** The command for glGetFloat() */
+	private static final int GET_FLOAT = 11;
+	/** The command for glEnable() */
+	private static final int ENABLE = 12;
+	/** The command for glDisable() */
+	private static final int DISABLE = 13;
+	/** The command for glBindTexture() */
+	private static final int BIND_TEXTURE = 14;
+	/** The command for glGetTexImage() */
+	private static final int GET_TEX_IMAGE = 15;
+	/** The command for glDeleteTextures() */
+	private static final int DELETE_TEXTURES = 16;
+	/** The command for glColor4f() */
+	private static final int COLOR = 17;
+	/** The command for glTexCoord2f() */
+	private static final int TEX_COORD = 18;
+	/** The command for glVertex3f() */
+	private static final int VERTEX3 = 19;
+	/** The command for glVertex2f() */
+	private static final int VERTEX2 = 20;
+	/** The command for glRotatef() */
+	private static final int ROTATE = 21;
+	/** The command for glTranslatef() */
+	private static final int TRANSLATE = 22;
+	/** The command for glBegin() */
+	private static final int BEGIN = 23;
+	/** The command for glEnd() */
+	private static final int END = 24;
+	/** The command for glTexEnvi() */
+	private static final int TEX_ENV = 25;
+	/** The command for glPointSize() */
+	private static final int POINT_SIZE = 26;
+	/** The command for glScalef() */
+	private static final int SCALE = 27;
+	/** The command for glPushMatrix() */
+	private static final int PUSH_MATRIX = 28;
+	/** The command for glPopMatrix() */
+	private static final int POP_MATRIX = 29;
+	/** The command for glBlendFunc() */
+	private static final int BLEND_FUNC = 30;
+	/** The command for glGenLists() */
+	private static final int GEN_LISTS = 31;
+	/** The command for glNewList() */
+	private static final int NEW_LIST = 32;
+	/** The command for glEndList() */
+	private static final int END_LIST = 33;
+	/** The command for glCallList() */
+	private static final int CALL_LIST = 34;
+	/** The command for glCopyTexImage2D() */
+	private static final int COPY_TEX_IMAGE = 35;
+	/** The command for glReadPixels() */
+	private static final int READ_PIXELS = 36;
+	/** The command for glTexParameteri() */
+	private static final int TEX_PARAMETER = 37;
+	/** The command for glDeleteLists() */
+	private static final int DELETE_LISTS = 38;
+	/** The command for glDepthMask() */
+	private static final int DEPTH_MASK = 39;
+	/** The command for glClearDepth() */
+	private static final int CLEAR_DEPTH = 40;
+	/** The command for glDepthFunc() */
+	private static final int DEPTH_FUNC = 41;
+	/** The command for setGlobalAlphaScale() */
+	private static final int ALPHA_SCALE = 42;
+	/** The command for drawQuads() */
+	private static final int DRAW_QUADS = 43;
+	/** The command for glLoadMatrix() */
+	private static final int LOAD_MATRIX = 44;
+	/** The command for glGenTextures() */
+	private static final int GEN_TEXTURES = 45;
+	/** The command for glGetError() */
+	private static final int GET_ERROR = 46;
+	/** The command for glTexImage2D() */
+	private static final int TEX_IMAGE = 47;
+	/** The command for glTexSubImage2D() */
+	private static final int TEX_SUB_IMAGE = 48;
+	/** The command for glSecondaryColor3ubEXT() */
+	private static final int SECONDARY_COLOR = 49;
+
+	/** The name of each command, indexed by command */
+	private static final String[] NAMES = new String[] {
+		"flush", "initDisplay", "enterOrtho", "glClearColor", "glClipPlane",
+		"glScissor", "glLineWidth", "glClear", "glColorMask", "glLoadIdentity",
+		"glGetInteger", "glGetFloat", "glEnable", "glDisable", "glBindTexture",
+		"glGetTexImage", "glDeleteTextures", "glColor4f", "glTexCoord2f", "glVertex3f",
+		"glVertex2f", "glRotatef", "glTranslatef", "glBegin", "glEnd",
+		"glTexEnvi", "glPointSize", "glScalef", "glPushMatrix", "glPopMatrix",
+		"glBlendFunc", "glGenLists", "glNewList", "glEndList", "glCallList",
+		"glCopyTexImage2D", "glReadPixels", "glTexParameteri", "glDeleteLists", "glDepthMask",
+		"glClearDepth", "glDepthFunc", "setGlobalAlphaScale", "drawQuads", "glLoadMatrix",
+		"glGenTextures", "glGetError", "glTexImage2D", "glTexSubImage2D", "glSecondaryColor3ubEXT"
+	};
+	/**
+	 * The arguments of each command, indexed by command. i is an int, f a float,
+	 * z a boolean and d some data held outside of the stream
+	 */
+	private static final String[] ARGUMENTS = new String[] {
+		"", "ii", "ii", "ffff", "id",
+		"iiii", "f", "i", "zzzz", "",
+		"i", "i", "i", "i", "ii",
+		"iiii", "d", "ffff", "ff", "fff",
+		"ff", "ffff", "fff", "i", "",
+		"iii", "f", "fff", "", "",
+		"ii", "ii", "ii", "", "i",
+		"iiiiiiii", "iiiiii", "iii", "ii", "z",
+		"f", "i", "f", "di", "d",
+		"d", "", "iiiiiiiid", "iiiiiiiid", "iii"
+	};
+
+	/** The maximum texture size reported */
+	private int maxTextureSize = 4096;
+	/** True if we're recording the command stream */
+	private boolean recording;
+	/** The recorded command stream, each command followed by its arguments */
+	private int[] commands = new int[1024];
+	/** The number of ints used in the command stream */
+	private int commandsSize;
+	/** The number of commands recorded */
+	private int commandCount;
+	/** The data referenced from the command stream - copies of buffers passed */
+	private ArrayList data = new ArrayList();
+
+	/** The counts for the frame in progress */
+	private RenderStats frame = new RenderStats();
+	/** The counts for the last frame completed */
+	private RenderStats lastFrame = new RenderStats();
+	/** The counts currently being added to, the frame or a list being compiled */
+	private RenderStats stats = frame;
+	/** The number of frames completed */
+	private int frameCount;
+	/** The counts for each display list compiled (Integer to RenderStats) */
+	private HashMap lists = new HashMap();
+	/** True if the calls made are being executed, false if they're compiled into a list */
+	private boolean executing = true;
+	/** The execution mode of the list being compiled */
+	private int listMode;
+	/** True if we're between a begin and end */
+	private boolean inPrimitive;
+
+	/** The first texture and display list ID generated */
+	private int nameBase = 1;
+	/** The next texture ID to be generated */
+	private int nextTexture = 1;
+	/** The next display list ID to be generated */
+	private int nextList = 1;
+	/** The buffer reused to pass float data to the target when replaying */
+	private FloatBuffer replayBuffer;
+	/** The width of the display */
+	private int width;
+	/** The height of the display */
+	private int height;
+
+	/** The current model view matrix, column major */
+	private float[] matrix = new float[16];
+	/** The stack of model view matrices pushed */
+	private ArrayList matrixStack = new ArrayList();
+	/** The current colour */
+	private float[] current = new float[] {1,1,1,1};
+	/** True if the current colour is known */
+	private boolean colorKnown = true;
+	/** The global alpha scale */
+	private float alphaScale = 1;
+	/** The current clear colour */
+	private float[] clearColor = new float[4];
+	/** The texture currently bound or -1 if unknown */
+	private int boundTexture;
+	/** The source blend factor or -1 if unknown */
+	private int blendSrc = -1;
+	/** The destination blend factor or -1 if unknown */
+	private int blendDst = -1;
+	/** The capabilities known to be enabled or disabled (Integer to Boolean) */
+	private HashMap enabled = new HashMap();
+	/** The other state values known, e.g. the line width (String to Object) */
+	private HashMap state = new HashMap();
+
+	/**
+	 * Create a new renderer that counts but doesn't record the calls made
+	 */
+	public RecordingRenderer() {
+		this(false);
+	}
+
+	/**
+	 * Create a new renderer
+	 *
+	 * @param recording True if the command stream should be recorded
+	 */
+	public RecordingRenderer(boolean recording) {
+		this.recording = recording;
+		loadIdentity();
+	}
+
+	/**
+	 * Indicate whether the command stream should be recorded
+	 *
+	 * @param recording True if the command stream should be recorded
+	 */
+	public void setRecording(boolean recording) {
+		this.recording = recording;
+	}
+
+	/**
+	 * Check if the command stream is being recorded
+	 *
+	 * @return True if the command stream is being recorded
+	 */
+	public boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * Discard the command stream recorded so far
+	 */
+	public void clearRecording() {
+		commandsSize = 0;
+		commandCount = 0;
+		data.clear();
+	}
+
+	/**
+	 * Get the number of commands recorded
+	 *
+	 * @return The number of commands recorded
+	 */
+	public int getCommandCount() {
+		return commandCount;
+	}
+
+	/**
+	 * Exchange the command stream recorded with that of another renderer. This
+	 * lets one frame be recorded while the last is replayed without copying
+	 * or reallocating either stream.
+	 *
+	 * @param other The renderer to exchange command streams with
+	 */
+	public void swapRecording(RecordingRenderer other) {
+		int[] tempCommands = commands;
+		commands = other.commands;
+		other.commands = tempCommands;
+
+		int tempSize = commandsSize;
+		commandsSize = other.commandsSize;
+		other.commandsSize = tempSize;
+
+		int tempCount = commandCount;
+		commandCount = other.commandCount;
+		other.commandCount = tempCount;
+
+		ArrayList tempData = data;
+		data = other.data;
+		other.data = tempData;
+	}
+
+	/**
+	 * Set the first ID given to textures and display lists generated. Setting
+	 * this well above the IDs a real renderer hands out keeps them apart when
+	 * both are in use at once. Must be set before any IDs are generated.
+	 *
+	 * @param nameBase The first ID to generate
+	 */
+	public void setNameBase(int nameBase) {
+		this.nameBase = nameBase;
+		nextTexture = nameBase;
+		nextList = nameBase;
+	}
+
+	/**
+	 * Get the first ID given to textures and display lists generated
+	 *
+	 * @return The first ID generated
+	 */
+	public int getNameBase() {
+		return nameBase;
+	}
+
+	/**
+	 * Set the maximum texture size reported through glGetInteger()
+	 *
+	 * @param maxTextureSize The maximum texture size to report
+	 */
+	public void setMaxTextureSize(int maxTextureSize) {
+		this.maxTextureSize = maxTextureSize;
+	}
+
+	/**
+	 * Get the counts for the frame in progress
+	 *
+	 * @return The counts for the frame in progress
+	 */
+	public RenderStats getFrameStats() {
+		return frame;
+	}
+
+	/**
+	 * Get the counts for the last frame completed
+	 *
+	 * @return The counts for the last frame completed
+	 */
+	public RenderStats getLastFrameStats() {
+		return lastFrame;
+	}
+
+	/**
+	 * Get the number of frames completed
+	 *
+	 * @return The number of frames completed
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Notification that a frame is complete, the counts are reset for the next
+	 *
+	 * @return The counts for the frame that's been completed
+	 */
+	public RenderStats endFrame() {
+		RenderStats completed = frame;
+		frame = lastFrame;
+		frame.clear();
+		lastFrame = completed;
+		if (executing) {
+			stats = frame;
+		}
+		frameCount++;
+
+		return completed;
+	}
+
+	/**
+	 * Replay the command stream recorded into another renderer
+	 *
+	 * @param target The renderer to replay the commands into
+	 */
+	public void replay(SGL target) {
+		replay(target, new NameMap(nameBase), new NameMap(nameBase));
+	}
+
+	/**
+	 * Replay the command stream recorded into another renderer, mapping IDs
+	 * through maps that may be kept between replays. IDs generated while
+	 * recording are added to the maps as they're generated on the target.
+	 *
+	 * @param target The renderer to replay the commands into
+	 * @param textureMap The map from texture IDs recorded to those on the target
+	 * @param listMap The map from display list IDs recorded to those on the target
+	 */
+	void replay(SGL target, NameMap textureMap, NameMap listMap) {
+		int pos = 0;
+		while (pos < commandsSize) {
+			int command = commands[pos++];
+
+			switch (command) {
+			case FLUSH:
+				target.flush();
+				break;
+			case INIT_DISPLAY:
+				target.initDisplay(commands[pos], commands[pos+1]);
+				break;
+			case ENTER_ORTHO:
+				target.enterOrtho(commands[pos], commands[pos+1]);
+				break;
+			case CLEAR_COLOR:
+				target.glClearColor(getFloat(pos), getFloat(pos+1), getFloat(pos+2), getFloat(pos+3));
+				break;
+			case CLIP_PLANE:
+				double[] plane = (double[]) data.get(commands[pos+1]);
+				DoubleBuffer planeBuffer = BufferUtils.createDoubleBuffer(plane.length);
+				planeBuffer.put(plane);
+				planeBuffer.flip();
+				target.glClipPlane(commands[pos], planeBuffer);
+				break;
+			case SCISSOR:
+				target.glScissor(commands[pos], commands[pos+1], commands[pos+2], commands[pos+3]);
+				break;
+			case LINE_WIDTH:
+				target.glLineWidth(getFloat(pos));
+				break;
+			case CLEAR:
+				target.glClear(commands[pos]);
+				break;
+			case COLOR_MASK:
+				target.glColorMask(commands[pos] != 0, commands[pos+1] != 0, commands[pos+2] != 0, commands[pos+3] != 0);
+				break;
+			case LOAD_IDENTITY:
+				target.glLoadIdentity();
+				break;
+			case ENABLE:
+				target.glEnable(commands[pos]);
+				break;
+			case DISABLE:
+				target.glDisable(commands[pos]);
+				break;
+			case BIND_TEXTURE:
+				target.glBindTexture(commands[pos], textureMap.get(commands[pos+1]));
+				break;
+			case DELETE_TEXTURES:
+				int[] deleted = (int[]) data.get(commands[pos]);
+				IntBuffer deletedBuffer = BufferUtils.createIntBuffer(deleted.length);
+				for (int i=0;i<deleted.length;i++) {
+					deletedBuffer.put(textureMap.get(deleted[i]));
+				}
+				deletedBuffer.flip();
+				target.glDeleteTextures(deletedBuffer);
+				break;
+			case COLOR:
+				target.glColor4f(getFloat(pos), getFloat(pos+1), getFloat(pos+2), getFloat(pos+3));
+				break;
+			case TEX_COORD:
+				target.glTexCoord2f(getFloat(pos), getFloat(pos+1));
+				break;
+			case VERTEX3:
+				target.glVertex3f(getFloat(pos), getFloat(pos+1), getFloat(pos+2));
+				break;
+			case VERTEX2:
+				target.glVertex2f(getFloat(pos), getFloat(pos+1));
+				break;
+			case ROTATE:
+				target.glRotatef(getFloat(pos), getFloat(pos+1), getFloat(pos+2), getFloat(pos+3));
+				break;
+			case TRANSLATE:
+				target.glTranslatef(getFloat(pos), getFloat(pos+1), getFloat(pos+2));
+				break;
+			case BEGIN:
+				target.glBegin(commands[pos]);
+				break;
+			case END:
+				target.glEnd();
+				break;
+			case TEX_ENV:
+				target.glTexEnvi(commands[pos], commands[pos+1], commands[pos+2]);
+				break;
+			case POINT_SIZE:
+				target.glPointSize(getFloat(pos));
+				break;
+			case SCALE:
+				target.glScalef(getFloat(pos), getFloat(pos+1), getFloat(pos+2));
+				break;
+			case PUSH_MATRIX:
+				target.glPushMatrix();
+				break;
+			case POP_MATRIX:
+				target.glPopMatrix();
+				break;
+			case BLEND_FUNC:
+				target.glBlendFunc(commands[pos], commands[pos+1]);
+				break;
+			case GEN_LISTS:
+				int base = target.glGenLists(commands[pos]);
+				for (int i=0;i<commands[pos];i++) {
+					listMap.put(commands[pos+1]+i, base+i);
+				}
+				break;
+			case NEW_LIST:
+				target.glNewList(listMap.get(commands[pos]), commands[pos+1]);
+				break;
+			case END_LIST:
+				target.glEndList();
+				break;
+			case CALL_LIST:
+				target.glCallList(listMap.get(commands[pos]));
+				break;
+			case COPY_TEX_IMAGE:
+				target.glCopyTexImage2D(commands[pos], commands[pos+1], commands[pos+2], commands[pos+3],
+										commands[pos+4], commands[pos+5], commands[pos+6], commands[pos+7]);
+				break;
+			case TEX_PARAMETER:
+				target.glTexParameteri(commands[pos], commands[pos+1], commands[pos+2]);
+				break;
+			case DELETE_LISTS:
+				target.glDeleteLists(listMap.get(commands[pos]), commands[pos+1]);
+				break;
+			case DEPTH_MASK:
+				target.glDepthMask(commands[pos] != 0);
+				break;
+			case CLEAR_DEPTH:
+				target.glClearDepth(getFloat(pos));
+				break;
+			case DEPTH_FUNC:
+				target.glDepthFunc(commands[pos]);
+				break;
+			case ALPHA_SCALE:
+				target.setGlobalAlphaScale(getFloat(pos));
+				break;
+			case DRAW_QUADS:
+				target.drawQuads(getFloats(commands[pos]), 0, commands[pos+1]);
+				break;
+			case LOAD_MATRIX:
+				target.glLoadMatrix(getFloats(commands[pos]));
+				break;
+			case GEN_TEXTURES:
+				int[] generated = (int[]) data.get(commands[pos]);
+				IntBuffer ids = BufferUtils.createIntBuffer(generated.length);
+				target.glGenTextures(ids);
+				for (int i=0;i<generated.length;i++) {
+					textureMap.put(generated[i], ids.get(i));
+				}
+				break;
+			case TEX_IMAGE:
+				target.glTexImage2D(commands[pos], commands[pos+1], commands[pos+2], commands[pos+3],
+									commands[pos+4], commands[pos+5], commands[pos+6], commands[pos+7],
+									getBytes(commands[pos+8]));
+				break;
+			case TEX_SUB_IMAGE:
+				target.glTexSubImage2D(commands[pos], commands[pos+1], commands[pos+2], commands[pos+3],
+									   commands[pos+4], commands[pos+5], commands[pos+6], commands[pos+7],
+									   getBytes(commands[pos+8]));
+				break;
+			case SECONDARY_COLOR:
+				target.glSecondaryColor3ubEXT((byte) commands[pos], (byte) commands[pos+1], (byte) commands[pos+2]);
+				break;
+			default:
+				// queries have no effect to replay
+				break;
+			}
+
+			pos += ARGUMENTS[command].length();
+		}
+	}
+
+	/**
+	 * Write the command stream recorded as text, one command per line
+	 *
+	 * @param out The stream to write the commands to
+	 */
+	public void dump(PrintStream out) {
+		StringBuffer line = new StringBuffer();
+
+		int pos = 0;
+		while (pos < commandsSize) {
+			int command = commands[pos++];
+			String arguments = ARGUMENTS[command];
+
+			line.setLength(0);
+			line.append(NAMES[command]);
+			line.append("(");
+			for (int i=0;i<arguments.length();i++) {
+				if (i != 0) {
+					line.append(",");
+				}
+				int value = commands[pos++];
+				switch (arguments.charAt(i)) {
+				case 'f':
+					line.append(Float.intBitsToFloat(value));
+					break;
+				case 'z':
+					line.append(value != 0);
+					break;
+				case 'd':
+					line.append(describe(value));
+					break;
+				default:
+					line.append(value);
+				}
+			}
+			line.append(")");
+
+			out.println(line);
+		}
+	}
+
+	/**
+	 * Describe some data referenced from the command stream
+	 *
+	 * @param index The index of the data to describe
+	 * @return A description of the data
+	 */
+	private String describe(int index) {
+		Object value = data.get(index);
+		if (value instanceof float[]) {
+			return "float["+((float[]) value).length+"]";
+		}
+		if (value instanceof int[]) {
+			int[] ints = (int[]) value;
+			StringBuffer result = new StringBuffer("{");
+			for (int i=0;i<ints.length;i++) {
+				if (i != 0) {
+					result.append(",");
+				}
+				result.append(ints[i]);
+			}
+			return result.append("}").toString();
+		}
+		if (value instanceof double[]) {
+			return "double["+((double[]) value).length+"]";
+		}
+		if (value instanceof byte[]) {
+			return "byte["+((byte[]) value).length+"]";
+		}
+
+		return "null";
+	}
+
+	/**
+	 * Get a float argument from the command stream
+	 *
+	 * @param pos The position of the argument in the stream
+	 * @return The value of the argument
+	 */
+	private float getFloat(int pos) {
+		return Float.intBitsToFloat(commands[pos]);
+	}
+
+	/**
+	 * Get bytes referenced from the command stream as a buffer
+	 *
+	 * @param index The index of the bytes in the data
+	 * @return A buffer holding the bytes or null if none were recorded
+	 */
+	private ByteBuffer getBytes(int index) {
+		byte[] bytes = (byte[]) data.get(index);
+		if (bytes == null) {
+			return null;
+		}
+
+		ByteBuffer buffer = BufferUtils.createByteBuffer(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Get floats referenced from the command stream as a buffer. The buffer
+	 * is reused so is only valid until the next call.
+	 *
+	 * @param index The index of the floats in the data
+	 * @return A buffer holding the floats
+	 */
+	private FloatBuffer getFloats(int index) {
+		float[] floats = (float[]) data.get(index);
+		if ((replayBuffer == null) || (replayBuffer.capacity() < floats.length)) {
+			replayBuffer = BufferUtils.createFloatBuffer(Math.max(floats.length, 1024));
+		}
+
+		replayBuffer.clear();
+		replayBuffer.put(floats);
+		replayBuffer.flip();
+		return replayBuffer;
+	}
+
+	/**
+	 * Start recording a command
+	 *
+	 * @param command The command to record
+	 * @param size The number of arguments that will follow
+	 */
+	private void start(int command, int size) {
+		if (commandsSize + size + 1 > commands.length) {
+			int[] temp = new int[Math.max(commands.length * 2, commandsSize + size + 1)];
+			System.arraycopy(commands, 0, temp, 0, commandsSize);
+			commands = temp;
+		}
+
+		commands[commandsSize++] = command;
+		commandCount++;
+	}
+
+	/**
+	 * Record a command with a single int argument
+	 *
+	 * @param command The command to record
+	 * @param a The argument
+	 */
+	private void record(int command, int a) {
+		start(command, 1);
+		commands[commandsSize++] = a;
+	}
+
+	/**
+	 * Record a command with two int arguments
+	 *
+	 * @param command The command to record
+	 * @param a The first argument
+	 * @param b The second argument
+	 */
+	private void record(int command, int a, int b) {
+		start(command, 2);
+		commands[commandsSize++] = a;
+		commands[commandsSize++] = b;
+	}
+
+	/**
+	 * Record a command with three int arguments
+	 *
+	 * @param command The command to record
+	 * @param a The first argument
+	 * @param b The second argument
+	 * @param c The third argument
+	 */
+	private void record(int command, int a, int b, int c) {
+		start(command, 3);
+		commands[commandsSize++] = a;
+		commands[commandsSize++] = b;
+		commands[commandsSize++] = c;
+	}
+
+	/**
+	 * Record a command with up to four float arguments
+	 *
+	 * @param command The command to record
+	 * @param count The number of arguments to record
+	 * @param a The first argument
+	 * @param b The second argument
+	 * @param c The third argument
+	 * @param d The fourth argument
+	 */
+	private void record(int command, int count, float a, float b, float c, float d) {
+		start(command, count);
+		commands[commandsSize++] = Float.floatToIntBits(a);
+		if (count > 1) {
+			commands[commandsSize++] = Float.floatToIntBits(b);
+		}
+		if (count > 2) {
+			commands[commandsSize++] = Float.floatToIntBits(c);
+		}
+		if (count > 3) {
+			commands[commandsSize++] = Float.floatToIntBits(d);
+		}
+	}
+
+	/**
+	 * Add an int argument to the command being recorded
+	 *
+	 * @param value The value of the argument
+	 */
+	private void argument(int value) {
+		commands[commandsSize++] = value;
+	}
+
+	/**
+	 * Add data to be referenced from the command stream
+	 *
+	 * @param value The data to add
+	 * @return The index of the data
+	 */
+	private int addData(Object value) {
+		data.add(value);
+		return data.size() - 1;
+	}
+
+	/**
+	 * Count a change of state other than textures, blending, matrices or colour
+	 *
+	 * @param key The name of the state being changed
+	 * @param value The value the state is being set to
+	 */
+	private void changeState(String key, Object value) {
+		stats.stateChanges++;
+		if (executing) {
+			if (value.equals(state.get(key))) {
+				stats.redundantStateChanges++;
+			}
+			state.put(key, value);
+		}
+	}
+
+	/**
+	 * Count a change to the model view matrix
+	 *
+	 * @param redundant True if the change has no effect
+	 */
+	private void changeMatrix(boolean redundant) {
+		stats.matrixChanges++;
+		if (redundant) {
+			stats.redundantMatrixChanges++;
+		}
+	}
+
+	/**
+	 * Set the model view matrix to the identity
+	 */
+	private void loadIdentity() {
+		for (int i=0;i<16;i++) {
+			matrix[i] = (i % 5) == 0 ? 1 : 0;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#flush()
+	 */
+	public void flush() {
+		if (recording) {
+			start(FLUSH, 0);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#initDisplay(int, int)
+	 */
+	public void initDisplay(int width, int height) {
+		if (recording) {
+			record(INIT_DISPLAY, width, height);
+		}
+
+		this.width = width;
+		this.height = height;
+
+		// the state the GL renderers set up
+		enabled.put(new Integer(SGL.GL_TEXTURE_2D), Boolean.TRUE);
+		enabled.put(new Integer(SGL.GL_BLEND), Boolean.TRUE);
+		blendSrc = SGL.GL_SRC_ALPHA;
+		blendDst = SGL.GL_ONE_MINUS_SRC_ALPHA;
+		for (int i=0;i<4;i++) {
+			clearColor[i] = 0;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#enterOrtho(int, int)
+	 */
+	public void enterOrtho(int xsize, int ysize) {
+		if (recording) {
+			record(ENTER_ORTHO, xsize, ysize);
+		}
+
+		loadIdentity();
+		matrix[12] = (width-xsize)/2;
+		matrix[13] = (height-ysize)/2;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClearColor(float, float, float, float)
+	 */
+	public void glClearColor(float red, float green, float blue, float alpha) {
+		if (recording) {
+			record(CLEAR_COLOR, 4, red, green, blue, alpha);
+		}
+
+		stats.stateChanges++;
+		if (executing) {
+			if ((clearColor[0] == red) && (clearColor[1] == green) &&
+				(clearColor[2] == blue) && (clearColor[3] == alpha)) {
+				stats.redundantStateChanges++;
+			}
+			clearColor[0] = red;
+			clearColor[1] = green;
+			clearColor[2] = blue;
+			clearColor[3] = alpha;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClipPlane(int, java.nio.DoubleBuffer)
+	 */
+	public void glClipPlane(int plane, DoubleBuffer buffer) {
+		if (recording) {
+			double[] values = new double[buffer.remaining()];
+			buffer.duplicate().get(values);
+			record(CLIP_PLANE, plane, addData(values));
+		}
+
+		stats.stateChanges++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glScissor(int, int, int, int)
+	 */
+	public void glScissor(int x, int y, int width, int height) {
+		if (recording) {
+			start(SCISSOR, 4);
+			argument(x);
+			argument(y);
+			argument(width);
+			argument(height);
+		}
+
+		changeState("scissor", x+","+y+","+width+","+height);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glLineWidth(float)
+	 */
+	public void glLineWidth(float width) {
+		if (recording) {
+			record(LINE_WIDTH, 1, width, 0, 0, 0);
+		}
+
+		changeState("lineWidth", new Float(width));
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClear(int)
+	 */
+	public void glClear(int value) {
+		if (recording) {
+			record(CLEAR, value);
+		}
+
+		stats.clears++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glColorMask(boolean, boolean, boolean, boolean)
+	 */
+	public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+		int mask = (red ? 1 : 0) | (green ? 2 : 0) | (blue ? 4 : 0) | (alpha ? 8 : 0);
+		if (recording) {
+			start(COLOR_MASK, 4);
+			argument(red ? 1 : 0);
+			argument(green ? 1 : 0);
+			argument(blue ? 1 : 0);
+			argument(alpha ? 1 : 0);
+		}
+
+		changeState("colorMask", new Integer(mask));
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glLoadIdentity()
+	 */
+	public void glLoadIdentity() {
+		if (recording) {
+			start(LOAD_IDENTITY, 0);
+		}
+
+		changeMatrix(false);
+		if (executing) {
+			loadIdentity();
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetInteger(int, java.nio.IntBuffer)
+	 */
+	public void glGetInteger(int id, IntBuffer ret) {
+		if (recording) {
+			record(GET_INTEGER, id);
+		}
+
+		if (id == SGL.GL_MAX_TEXTURE_SIZE) {
+			ret.put(ret.position(), maxTextureSize);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetFloat(int, java.nio.FloatBuffer)
+	 */
+	public void glGetFloat(int id, FloatBuffer ret) {
+		if (recording) {
+			record(GET_FLOAT, id);
+		}
+
+		if (id == SGL.GL_MODELVIEW_MATRIX) {
+			for (int i=0;i<16;i++) {
+				ret.put(ret.position()+i, matrix[i]);
+			}
+		}
+		if (id == SGL.GL_COLOR_CLEAR_VALUE) {
+			for (int i=0;i<4;i++) {
+				ret.put(ret.position()+i, clearColor[i]);
+			}
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glEnable(int)
+	 */
+	public void glEnable(int item) {
+		if (recording) {
+			record(ENABLE, item);
+		}
+
+		setEnabled(item, Boolean.TRUE);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDisable(int)
+	 */
+	public void glDisable(int item) {
+		if (recording) {
+			record(DISABLE, item);
+		}
+
+		setEnabled(item, Boolean.FALSE);
+	}
+
+	/**
+	 * Count the enabling or disabling of a capability
+	 *
+	 * @param item The capability being enabled or disabled
+	 * @param value True if the capability is being enabled
+	 */
+	private void setEnabled(int item, Boolean value) {
+		stats.stateChanges++;
+		if (executing) {
+			Integer key = new Integer(item);
+			if (value.equals(enabled.get(key))) {
+				stats.redundantStateChanges++;
+			}
+			enabled.put(key, value);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glBindTexture(int, int)
+	 */
+	public void glBindTexture(int target, int id) {
+		if (recording) {
+			record(BIND_TEXTURE, target, id);
+		}
+
+		stats.textureBinds++;
+		if (executing) {
+			if (boundTexture == id) {
+				stats.redundantTextureBinds++;
+			}
+			boundTexture = id;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetTexImage(int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glGetTexImage(int target, int level, int format, int type, ByteBuffer pixels) {
+		if (recording) {
+			start(GET_TEX_IMAGE, 4);
+			argument(target);
+			argument(level);
+			argument(format);
+			argument(type);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDeleteTextures(java.nio.IntBuffer)
+	 */
+	public void glDeleteTextures(IntBuffer buffer) {
+		int[] ids = new int[buffer.remaining()];
+		buffer.duplicate().get(ids);
+		if (recording) {
+			record(DELETE_TEXTURES, addData(ids));
+		}
+
+		for (int i=0;i<ids.length;i++) {
+			if (ids[i] == boundTexture) {
+				boundTexture = 0;
+			}
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glColor4f(float, float, float, float)
+	 */
+	public void glColor4f(float r, float g, float b, float a) {
+		if (recording) {
+			record(COLOR, 4, r, g, b, a);
+		}
+
+		a *= alphaScale;
+		stats.colorChanges++;
+		if (executing) {
+			if ((colorKnown) && (current[0] == r) && (current[1] == g) &&
+				(current[2] == b) && (current[3] == a)) {
+				stats.redundantColorChanges++;
+			}
+			current[0] = r;
+			current[1] = g;
+			current[2] = b;
+			current[3] = a;
+			colorKnown = true;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexCoord2f(float, float)
+	 */
+	public void glTexCoord2f(float u, float v) {
+		if (recording) {
+			record(TEX_COORD, 2, u, v, 0, 0);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glVertex3f(float, float, float)
+	 */
+	public void glVertex3f(float x, float y, float z) {
+		if (recording) {
+			record(VERTEX3, 3, x, y, z, 0);
+		}
+
+		if (inPrimitive) {
+			stats.vertices++;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glVertex2f(float, float)
+	 */
+	public void glVertex2f(float x, float y) {
+		if (recording) {
+			record(VERTEX2, 2, x, y, 0, 0);
+		}
+
+		if (inPrimitive) {
+			stats.vertices++;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glRotatef(float, float, float, float)
+	 */
+	public void glRotatef(float angle, float x, float y, float z) {
+		if (recording) {
+			record(ROTATE, 4, angle, x, y, z);
+		}
+
+		changeMatrix(angle == 0);
+		float length = (float) Math.sqrt((x*x)+(y*y)+(z*z));
+		if ((!executing) || (angle == 0) || (length == 0)) {
+			return;
+		}
+
+		x /= length;
+		y /= length;
+		z /= length;
+		double radians = Math.toRadians(angle);
+		float c = (float) Math.cos(radians);
+		float s = (float) Math.sin(radians);
+		float t = 1 - c;
+
+		float r00 = (x*x*t)+c;
+		float r01 = (x*y*t)-(z*s);
+		float r02 = (x*z*t)+(y*s);
+		float r10 = (y*x*t)+(z*s);
+		float r11 = (y*y*t)+c;
+		float r12 = (y*z*t)-(x*s);
+		float r20 = (x*z*t)-(y*s);
+		float r21 = (y*z*t)+(x*s);
+		float r22 = (z*z*t)+c;
+
+		for (int i=0;i<4;i++) {
+			float m0 = matrix[i];
+			float m1 = matrix[4+i];
+			float m2 = matrix[8+i];
+			matrix[i] = (m0*r00)+(m1*r10)+(m2*r20);
+			matrix[4+i] = (m0*r01)+(m1*r11)+(m2*r21);
+			matrix[8+i] = (m0*r02)+(m1*r12)+(m2*r22);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTranslatef(float, float, float)
+	 */
+	public void glTranslatef(float x, float y, float z) {
+		if (recording) {
+			record(TRANSLATE, 3, x, y, z, 0);
+		}
+
+		changeMatrix((x == 0) && (y == 0) && (z == 0));
+		if (executing) {
+			for (int i=0;i<4;i++) {
+				matrix[12+i] += (matrix[i]*x)+(matrix[4+i]*y)+(matrix[8+i]*z);
+			}
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glBegin(int)
+	 */
+	public void glBegin(int geomType) {
+		if (recording) {
+			record(BEGIN, geomType);
+		}
+
+		stats.drawCalls++;
+		inPrimitive = true;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glEnd()
+	 */
+	public void glEnd() {
+		if (recording) {
+			start(END, 0);
+		}
+
+		inPrimitive = false;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexEnvi(int, int, int)
+	 */
+	public void glTexEnvi(int target, int mode, int value) {
+		if (recording) {
+			record(TEX_ENV, target, mode, value);
+		}
+
+		changeState("texEnv"+target+","+mode, new Integer(value));
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glPointSize(float)
+	 */
+	public void glPointSize(float size) {
+		if (recording) {
+			record(POINT_SIZE, 1, size, 0, 0, 0);
+		}
+
+		changeState("pointSize", new Float(size));
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glScalef(float, float, float)
+	 */
+	public void glScalef(float x, float y, float z) {
+		if (recording) {
+			record(SCALE, 3, x, y, z, 0);
+		}
+
+		changeMatrix((x == 1) && (y == 1) && (z == 1));
+		if (executing) {
+			for (int i=0;i<4;i++) {
+				matrix[i] *= x;
+				matrix[4+i] *= y;
+				matrix[8+i] *= z;
+			}
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glPushMatrix()
+	 */
+	public void glPushMatrix() {
+		if (recording) {
+			start(PUSH_MATRIX, 0);
+		}
+
+		changeMatrix(false);
+		if (executing) {
+			matrixStack.add(matrix.clone());
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glPopMatrix()
+	 */
+	public void glPopMatrix() {
+		if (recording) {
+			start(POP_MATRIX, 0);
+		}
+
+		changeMatrix(false);
+		if ((executing) && (matrixStack.size() > 0)) {
+			matrix = (float[]) matrixStack.remove(matrixStack.size()-1);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glBlendFunc(int, int)
+	 */
+	public void glBlendFunc(int src, int dest) {
+		if (recording) {
+			record(BLEND_FUNC, src, dest);
+		}
+
+		stats.blendChanges++;
+		if (executing) {
+			if ((blendSrc == src) && (blendDst == dest)) {
+				stats.redundantBlendChanges++;
+			}
+			blendSrc = src;
+			blendDst = dest;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGenLists(int)
+	 */
+	public int glGenLists(int count) {
+		int base = nextList;
+		nextList += count;
+
+		if (recording) {
+			record(GEN_LISTS, count, base);
+		}
+
+		return base;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glNewList(int, int)
+	 */
+	public void glNewList(int id, int option) {
+		if (recording) {
+			record(NEW_LIST, id, option);
+		}
+
+		RenderStats list = new RenderStats();
+		lists.put(new Integer(id), list);
+		stats = list;
+		listMode = option;
+		executing = option != SGL.GL_COMPILE;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glEndList()
+	 */
+	public void glEndList() {
+		if (recording) {
+			start(END_LIST, 0);
+		}
+
+		if ((stats != frame) && (listMode != SGL.GL_COMPILE)) {
+			frame.add(stats);
+		}
+		stats = frame;
+		executing = true;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glCallList(int)
+	 */
+	public void glCallList(int id) {
+		if (recording) {
+			record(CALL_LIST, id);
+		}
+
+		stats.listCalls++;
+		RenderStats list = (RenderStats) lists.get(new Integer(id));
+		if (list != null) {
+			stats.add(list);
+
+			// the list may have changed state we can't track
+			if (list.textureBinds > 0) {
+				boundTexture = -1;
+			}
+			if (list.blendChanges > 0) {
+				blendSrc = -1;
+				blendDst = -1;
+			}
+			if (list.colorChanges > 0) {
+				colorKnown = false;
+			}
+			if (list.stateChanges > 0) {
+				enabled.clear();
+				state.clear();
+			}
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glCopyTexImage2D(int, int, int, int, int, int, int, int)
+	 */
+	public void glCopyTexImage2D(int target, int level, int internalFormat,
+			int x, int y, int width, int height, int border) {
+		if (recording) {
+			start(COPY_TEX_IMAGE, 8);
+			argument(target);
+			argument(level);
+			argument(internalFormat);
+			argument(x);
+			argument(y);
+			argument(width);
+			argument(height);
+			argument(border);
+		}
+
+		stats.textureUploads++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glReadPixels(int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glReadPixels(int x, int y, int width, int height, int format, int type,
+			ByteBuffer pixels) {
+		if (recording) {
+			start(READ_PIXELS, 6);
+			argument(x);
+			argument(y);
+			argument(width);
+			argument(height);
+			argument(format);
+			argument(type);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexParameteri(int, int, int)
+	 */
+	public void glTexParameteri(int target, int param, int value) {
+		if (recording) {
+			record(TEX_PARAMETER, target, param, value);
+		}
+
+		stats.stateChanges++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#getCurrentColor()
+	 */
+	public float[] getCurrentColor() {
+		return current;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDeleteLists(int, int)
+	 */
+	public void glDeleteLists(int list, int count) {
+		if (recording) {
+			record(DELETE_LISTS, list, count);
+		}
+
+		for (int i=0;i<count;i++) {
+			lists.remove(new Integer(list+i));
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDepthMask(boolean)
+	 */
+	public void glDepthMask(boolean mask) {
+		if (recording) {
+			record(DEPTH_MASK, mask ? 1 : 0);
+		}
+
+		changeState("depthMask", mask ? Boolean.TRUE : Boolean.FALSE);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glClearDepth(float)
+	 */
+	public void glClearDepth(float value) {
+		if (recording) {
+			record(CLEAR_DEPTH, 1, value, 0, 0, 0);
+		}
+
+		changeState("clearDepth", new Float(value));
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glDepthFunc(int)
+	 */
+	public void glDepthFunc(int func) {
+		if (recording) {
+			record(DEPTH_FUNC, func);
+		}
+
+		changeState("depthFunc", new Integer(func));
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#setGlobalAlphaScale(float)
+	 */
+	public void setGlobalAlphaScale(float alphaScale) {
+		if (recording) {
+			record(ALPHA_SCALE, 1, alphaScale, 0, 0, 0);
+		}
+
+		this.alphaScale = alphaScale;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#getGlobalAlphaScale()
+	 */
+	public float getGlobalAlphaScale() {
+		return alphaScale;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#drawQuads(java.nio.FloatBuffer, int, int)
+	 */
+	public void drawQuads(FloatBuffer data, int first, int count) {
+		if (count == 0) {
+			return;
+		}
+		if (recording) {
+			float[] quads = new float[count * 8];
+			FloatBuffer source = data.duplicate();
+			source.position(first * 8);
+			source.get(quads);
+			record(DRAW_QUADS, addData(quads), count);
+		}
+
+		stats.drawCalls++;
+		stats.vertices += count;
+		if (executing) {
+			colorKnown = false;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glLoadMatrix(java.nio.FloatBuffer)
+	 */
+	public void glLoadMatrix(FloatBuffer buffer) {
+		float[] values = new float[16];
+		buffer.duplicate().get(values);
+		if (recording) {
+			record(LOAD_MATRIX, addData(values));
+		}
+
+		changeMatrix(false);
+		if (executing) {
+			matrix = values;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGenTextures(java.nio.IntBuffer)
+	 */
+	public void glGenTextures(IntBuffer ids) {
+		int[] generated = new int[ids.remaining()];
+		for (int i=0;i<generated.length;i++) {
+			generated[i] = nextTexture++;
+			ids.put(ids.position()+i, generated[i]);
+		}
+
+		if (recording) {
+			record(GEN_TEXTURES, addData(generated));
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glGetError()
+	 */
+	public void glGetError() {
+		if (recording) {
+			start(GET_ERROR, 0);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexImage2D(int, int, int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glTexImage2D(int target, int i, int dstPixelFormat,
+			int width, int height, int j, int srcPixelFormat,
+			int glUnsignedByte, ByteBuffer textureBuffer) {
+		if (recording) {
+			start(TEX_IMAGE, 9);
+			argument(target);
+			argument(i);
+			argument(dstPixelFormat);
+			argument(width);
+			argument(height);
+			argument(j);
+			argument(srcPixelFormat);
+			argument(glUnsignedByte);
+			argument(addData(copy(textureBuffer)));
+		}
+
+		stats.textureUploads++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glTexSubImage2D(int, int, int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glTexSubImage2D(int glTexture2d, int i, int pageX, int pageY,
+			int width, int height, int glBgra, int glUnsignedByte,
+			ByteBuffer scratchByteBuffer) {
+		if (recording) {
+			start(TEX_SUB_IMAGE, 9);
+			argument(glTexture2d);
+			argument(i);
+			argument(pageX);
+			argument(pageY);
+			argument(width);
+			argument(height);
+			argument(glBgra);
+			argument(glUnsignedByte);
+			argument(addData(copy(scratchByteBuffer)));
+		}
+
+		stats.textureUploads++;
+	}
+
+	/**
+	 * Copy the remaining contents of a buffer
+	 *
+	 * @param buffer The buffer to copy, may be null
+	 * @return The contents of the buffer or null if there was no buffer
+	 */
+	private byte[] copy(ByteBuffer buffer) {
+		if (buffer == null) {
+			return null;
+		}
+
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#canTextureMirrorClamp()
+	 */
+	public boolean canTextureMirrorClamp() {
+		return false;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#canSecondaryColor()
+	 */
+	public boolean canSecondaryColor() {
+		return false;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glSecondaryColor3ubEXT(byte, byte, byte)
+	 */
+	public void glSecondaryColor3ubEXT(byte b, byte c, byte d) {
+		if (recording) {
+			record(SECONDARY_COLOR, b, c, d);
+		}
+	}
+
+	/**
+	 * A map from the IDs generated while recording to the IDs generated for
+	 * them when replayed. IDs that weren't generated while recording, such as
+	 * those of textures created before, map to themselves.
+	 *
+	 * @author agent
+	 */
+	static class NameMap {
+		/** The first ID generated while recording */
+		private int base;
+		/** The IDs generated on replay indexed by recorded ID less the base */
+		private int[] names = new int[16];
+
+		/**
+		 * Create a new empty map
+		 *
+		 * @param base The first ID generated while recording
+		 */
+		public NameMap(int base) {
+			this.base = base;
+		}
+
+		/**
+		 * Record the ID generated on replay for a recorded ID
+		 *
+		 * @param id The ID recorded
+		 * @param name The ID generated on replay
+		 */
+		public void put(int id, int name) {
+			int index = id - base;
+			if (index >= names.length) {
+				int[] temp = new int[Math.max(names.length * 2, index + 1)];
+				System.arraycopy(names, 0, temp, 0, names.length);
+				names = temp;
+			}
+			names[index] = name;
+		}
+
+		/**
+		 * Get the ID to use on replay for a recorded ID
+		 *
+		 * @param id The ID recorded
+		 * @return The ID generated on replay or the recorded ID if it wasn't generated
+		 * while recording
+		 */
+		public int get(int id) {
+			int index = id - base;
+			if ((index >= 0) && (index < names.length) && (names[index] != 0)) {
+				return names[index];
+			}
+
+			return id;
+		}
+	}
+}
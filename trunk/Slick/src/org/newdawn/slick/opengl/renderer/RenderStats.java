@@ -0,0 +1,267 @@
+package org.newdawn.slick.opengl.renderer;
+
+/**
+ * The counts of the rendering work issued through a renderer, normally over a
+ * single frame. Gathered by the RecordingRenderer.
+ *
+ * A state change is counted as redundant when it sets state to the value it
+ * already had, so could have been skipped without changing what's rendered.
+ *
+ * @author agent
+ */
+public class RenderStats {
+	/** The number of primitives drawn - begin/end pairs and drawQuads() calls */
+	int drawCalls;
+	/** The number of vertices drawn */
+	int vertices;
+	/** The number of display lists called */
+	int listCalls;
+	/** The number of textures bound */
+	int textureBinds;
+	/** The number of textures bound that were already bound */
+	int redundantTextureBinds;
+	/** The number of times the blend function was set */
+	int blendChanges;
+	/** The number of times the blend function was set to the current function */
+	int redundantBlendChanges;
+	/** The number of changes to the model view matrix or matrix stack */
+	int matrixChanges;
+	/** The number of matrix changes that had no effect, e.g. a translate by zero */
+	int redundantMatrixChanges;
+	/** The number of times the current colour was set */
+	int colorChanges;
+	/** The number of times the current colour was set to the current colour */
+	int redundantColorChanges;
+	/** The number of other state changes, enables, masks, line widths and so on */
+	int stateChanges;
+	/** The number of other state changes that set the current value */
+	int redundantStateChanges;
+	/** The number of texture images uploaded or copied */
+	int textureUploads;
+	/** The number of times the buffers were cleared */
+	int clears;
+
+	/**
+	 * Create a new empty set of counts
+	 */
+	public RenderStats() {
+	}
+
+	/**
+	 * Create a copy of a set of counts
+	 *
+	 * @param other The counts to copy
+	 */
+	public RenderStats(RenderStats other) {
+		add(other);
+	}
+
+	/**
+	 * Add another set of counts into this one
+	 *
+	 * @param other The counts to add
+	 */
+	public void add(RenderStats other) {
+		drawCalls += other.drawCalls;
+		vertices += other.vertices;
+		listCalls += other.listCalls;
+		textureBinds += other.textureBinds;
+		redundantTextureBinds += other.redundantTextureBinds;
+		blendChanges += other.blendChanges;
+		redundantBlendChanges += other.redundantBlendChanges;
+		matrixChanges += other.matrixChanges;
+		redundantMatrixChanges += other.redundantMatrixChanges;
+		colorChanges += other.colorChanges;
+		redundantColorChanges += other.redundantColorChanges;
+		stateChanges += other.stateChanges;
+		redundantStateChanges += other.redundantStateChanges;
+		textureUploads += other.textureUploads;
+		clears += other.clears;
+	}
+
+	/**
+	 * Reset all the counts to zero
+	 */
+	public void clear() {
+		drawCalls = 0;
+		vertices = 0;
+		listCalls = 0;
+		textureBinds = 0;
+		redundantTextureBinds = 0;
+		blendChanges = 0;
+		redundantBlendChanges = 0;
+		matrixChanges = 0;
+		redundantMatrixChanges = 0;
+		colorChanges = 0;
+		redundantColorChanges = 0;
+		stateChanges = 0;
+		redundantStateChanges = 0;
+		textureUploads = 0;
+		clears = 0;
+	}
+
+	/**
+	 * Get the number of primitives drawn, each begin/end pair and each
+	 * drawQuads() call counts as one. Calls made within a display list are
+	 * counted each time the list is called.
+	 *
+	 * @return The number of primitives drawn
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * Get the number of vertices drawn
+	 *
+	 * @return The number of vertices drawn
+	 */
+	public int getVertices() {
+		return vertices;
+	}
+
+	/**
+	 * Get the number of display lists called
+	 *
+	 * @return The number of display lists called
+	 */
+	public int getListCalls() {
+		return listCalls;
+	}
+
+	/**
+	 * Get the number of textures bound
+	 *
+	 * @return The number of textures bound
+	 */
+	public int getTextureBinds() {
+		return textureBinds;
+	}
+
+	/**
+	 * Get the number of textures bound that were already bound
+	 *
+	 * @return The number of redundant texture binds
+	 */
+	public int getRedundantTextureBinds() {
+		return redundantTextureBinds;
+	}
+
+	/**
+	 * Get the number of times the blend function was set
+	 *
+	 * @return The number of times the blend function was set
+	 */
+	public int getBlendChanges() {
+		return blendChanges;
+	}
+
+	/**
+	 * Get the number of times the blend function was set to the function
+	 * already in use
+	 *
+	 * @return The number of redundant blend function changes
+	 */
+	public int getRedundantBlendChanges() {
+		return redundantBlendChanges;
+	}
+
+	/**
+	 * Get the number of changes to the model view matrix, including pushing
+	 * and popping the matrix stack
+	 *
+	 * @return The number of matrix changes
+	 */
+	public int getMatrixChanges() {
+		return matrixChanges;
+	}
+
+	/**
+	 * Get the number of matrix changes that had no effect, such as translating
+	 * by zero or rotating by no angle
+	 *
+	 * @return The number of redundant matrix changes
+	 */
+	public int getRedundantMatrixChanges() {
+		return redundantMatrixChanges;
+	}
+
+	/**
+	 * Get the number of times the current colour was set
+	 *
+	 * @return The number of times the current colour was set
+	 */
+	public int getColorChanges() {
+		return colorChanges;
+	}
+
+	/**
+	 * Get the number of times the current colour was set to the colour
+	 * already current
+	 *
+	 * @return The number of redundant colour changes
+	 */
+	public int getRedundantColorChanges() {
+		return redundantColorChanges;
+	}
+
+	/**
+	 * Get the number of other state changes - enables, disables, masks,
+	 * line widths, texture environment and so on
+	 *
+	 * @return The number of other state changes
+	 */
+	public int getStateChanges() {
+		return stateChanges;
+	}
+
+	/**
+	 * Get the number of other state changes that set a value already current
+	 *
+	 * @return The number of redundant other state changes
+	 */
+	public int getRedundantStateChanges() {
+		return redundantStateChanges;
+	}
+
+	/**
+	 * Get the total number of redundant changes of any kind
+	 *
+	 * @return The total number of redundant changes
+	 */
+	public int getRedundantChanges() {
+		return redundantTextureBinds + redundantBlendChanges + redundantMatrixChanges +
+			   redundantColorChanges + redundantStateChanges;
+	}
+
+	/**
+	 * Get the number of texture images uploaded or copied from the screen
+	 *
+	 * @return The number of texture uploads
+	 */
+	public int getTextureUploads() {
+		return textureUploads;
+	}
+
+	/**
+	 * Get the number of times the buffers were cleared
+	 *
+	 * @return The number of clears
+	 */
+	public int getClears() {
+		return clears;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return "[RenderStats draws="+drawCalls+" vertices="+vertices+" lists="+listCalls+
+			   " binds="+textureBinds+"("+redundantTextureBinds+" redundant)"+
+			   " blends="+blendChanges+"("+redundantBlendChanges+" redundant)"+
+			   " matrices="+matrixChanges+"("+redundantMatrixChanges+" redundant)"+
+			   " colors="+colorChanges+"("+redundantColorChanges+" redundant)"+
+			   " states="+stateChanges+"("+redundantStateChanges+" redundant)"+
+			   " uploads="+textureUploads+" clears="+clears+"]";
+	}
+}
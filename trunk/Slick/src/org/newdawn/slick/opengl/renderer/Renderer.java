@@ -12,11 +12,15 @@ public class Renderer {
 	public static final int IMMEDIATE_RENDERER = 1;
 	/** The indicator for vertex array based rendering */
 	public static final int VERTEX_ARRAY_RENDERER = 2;
+	/** The indicator for rendering streamed through a vertex buffer object */
+	public static final int VERTEX_BUFFER_RENDERER = 5;
 	
 	/** The indicator for direct GL line renderer (the default) */
 	public static final int DEFAULT_LINE_STRIP_RENDERER = 3;
 	/** The indicator for consistant quad based lines */
 	public static final int QUAD_BASED_LINE_STRIP_RENDERER = 4;
+	/** The indicator for triangle based lines with joins that batch with other lines */
+	public static final int BATCHED_LINE_STRIP_RENDERER = 6;
 	
 	
 	/** The renderer in use */
@@ -37,6 +41,9 @@ public class Renderer {
 			case VERTEX_ARRAY_RENDERER:
 				setRenderer(new VAOGLRenderer());
 				return;
+			case VERTEX_BUFFER_RENDERER:
+				setRenderer(new VBORenderer());
+				return;
 		}
 		
 		throw new RuntimeException("Unknown renderer type: "+type);
@@ -55,6 +62,9 @@ public class Renderer {
 		case QUAD_BASED_LINE_STRIP_RENDERER:
 			setLineStripRenderer(new QuadBasedLineStripRenderer());
 			return;
+		case BATCHED_LINE_STRIP_RENDERER:
+			setLineStripRenderer(new BatchedLineStripRenderer());
+			return;
 		}
 		
 		throw new RuntimeException("Unknown line strip renderer type: "+type);
@@ -76,6 +86,22 @@ public class Renderer {
 	 */
 	public static void setRenderer(SGL r) {
 		renderer = r;
+		
+		// the default line strip renderer keeps the renderer it was created with
+		if (lineStripRenderer.getClass() == DefaultLineStripRenderer.class) {
+			lineStripRenderer = new DefaultLineStripRenderer();
+		}
+	}
+	
+	/**
+	 * Wrap the renderer in use so that rendering can be recorded on another
+	 * thread and drawn later, as used by GameContainer.setPipelined(). Like the
+	 * renderer itself this must be set before the game has been started.
+	 */
+	public static void enablePipelining() {
+		if (!(renderer instanceof PipelinedRenderer)) {
+			setRenderer(new PipelinedRenderer(renderer));
+		}
 	}
 	
 	/**
@@ -488,6 +488,27 @@ public interface SGL {
 	 * @param alphaScale The scale to apply to any colour binds
 	 */
 	public void setGlobalAlphaScale(float alphaScale);
+	
+	/**
+	 * Get the scaling we apply to any colour binds in this renderer. The current
+	 * colour is held with the scale already applied.
+	 * 
+	 * @return The scale applied to any colour binds
+	 */
+	public float getGlobalAlphaScale();
+
+	/**
+	 * Draw a set of textured, coloured quads from interleaved vertex data in
+	 * a single call. Each vertex is given by eight floats - x, y, u, v, r, g, b, a -
+	 * and each quad by four vertices. The colours given override the current
+	 * colour, which is restored once the quads are drawn. The alpha values in the 
+	 * buffer are scaled in place by the global alpha scale if one is set.
+	 * 
+	 * @param data The interleaved vertex data
+	 * @param first The index of the first vertex to draw
+	 * @param count The number of vertices to draw
+	 */
+	public void drawQuads(FloatBuffer data, int first, int count);
 
 	/**
 	 * OpenGL Method - @url http://www.opengl.org/documentation/
@@ -132,6 +132,14 @@ public class VAOGLRenderer extends ImmediateModeOGLRenderer {
 		applyBuffer();
 	}
 	
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#drawQuads(java.nio.FloatBuffer, int, int)
+	 */
+	public void drawQuads(FloatBuffer data, int first, int count) {
+		applyBuffer();
+		super.drawQuads(data, first, count);
+	}
+	
 	/**
 	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glBegin(int)
 	 */
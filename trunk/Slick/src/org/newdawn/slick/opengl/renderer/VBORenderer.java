@@ -0,0 +1,940 @@
+package org.newdawn.slick.opengl.renderer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GLContext;
+
+/**
+ * A renderer that gathers geometry into batches of interleaved vertices and
+ * streams them to the card through a single vertex buffer object, reused for
+ * the life of the renderer.
+ *
+ * Each batch is written after the last in the buffer until it's full, at which
+ * point the buffer is orphaned - its storage is replaced so the card can keep
+ * drawing from the old storage while new batches are written. The buffer and
+ * the batch being gathered grow as needed, there's no limit on the size of a
+ * batch. Where vertex buffer objects aren't supported the batches are drawn
+ * from client side arrays instead.
+ *
+ * The state Slick changes is tracked, so setting state to the value it already
+ * has neither flushes the batch nor reaches GL. Strips, fans, loops and polygons
+ * are broken into separate lines or triangles as they're gathered so that
+ * consecutive shapes can share a batch.
+ *
+ * flush() draws the batch and leaves GL with no buffer bound and the arrays
+ * disabled, ready for code calling GL directly. Any state tracked is forgotten,
+ * since that code may change it.
+ *
+ * @author agent
+ */
+public class VBORenderer extends ImmediateModeOGLRenderer {
+	/** Indicates there is no current batch */
+	private static final int NONE = -1;
+	/** The number of ints in each vertex - position, texture coordinate and packed colour */
+	private static final int VERTEX_SIZE = 6;
+	/** The number of bytes in each vertex */
+	private static final int VERTEX_BYTES = VERTEX_SIZE * 4;
+	/** The number of floats given for each vertex passed to drawQuads() */
+	private static final int QUAD_VERTEX_SIZE = 8;
+	/** The number of vertices gathered before the batch is drawn between primitives */
+	private static final int FLUSH_VERTS = 65536;
+	/** The initial size of the vertex buffer in bytes */
+	private static final int INITIAL_CAPACITY = 1 << 20;
+	/** The capabilities whose enabled state is tracked */
+	private static final int[] CAPABILITIES = new int[] {
+		SGL.GL_TEXTURE_2D, SGL.GL_BLEND, SGL.GL_SCISSOR_TEST, SGL.GL_LINE_SMOOTH,
+		SGL.GL_POINT_SMOOTH, SGL.GL_POLYGON_SMOOTH, SGL.GL_DEPTH_TEST,
+		SGL.GL_CLIP_PLANE0, SGL.GL_CLIP_PLANE1, SGL.GL_CLIP_PLANE2, SGL.GL_CLIP_PLANE3
+	};
+	/** Indicates the value of a piece of state isn't known */
+	private static final int UNKNOWN = -1;
+
+	/** True if vertex buffer objects are used, false to use client side arrays */
+	private boolean useBuffers;
+	/** True if colours are packed little endian */
+	private boolean littleEndian = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+	/** The vertex buffer object the batches are streamed through */
+	private int buffer;
+	/** The size of the vertex buffer in bytes */
+	private int capacity;
+	/** The offset in the vertex buffer the next batch will be written at */
+	private int offset;
+	/** True if the arrays have been enabled and pointed at the vertex data */
+	private boolean arraysReady;
+
+	/** The type of geometry in the batch being gathered - i.e. GL_QUADS */
+	private int batchType = NONE;
+	/** The type of geometry given to glBegin() */
+	private int primitiveType = NONE;
+	/** The index of the first vertex of the primitive being gathered */
+	private int primitiveStart;
+	/** The vertices gathered, VERTEX_SIZE ints each */
+	private int[] verts = new int[4096 * VERTEX_SIZE];
+	/** The number of vertices gathered */
+	private int vertIndex;
+	/** Space to copy a primitive to while it's broken up */
+	private int[] scratch = new int[64 * VERTEX_SIZE];
+	/** The buffer the vertices are passed to GL through */
+	private ByteBuffer data;
+	/** The ints of the buffer the vertices are passed through */
+	private IntBuffer dataInts;
+
+	/** The last colour applied */
+	private float[] color = new float[] {1f,1f,1f,1f};
+	/** The last colour applied packed as it's stored in a vertex */
+	private int packedColor = 0xffffffff;
+	/** The last texture coordinate applied as int bits */
+	private int texU;
+	/** The last texture coordinate applied as int bits */
+	private int texV;
+	/** The depth of display list creation - when we're creating a list we can't batch */
+	private int listMode;
+
+	/** The texture bound or UNKNOWN */
+	private int boundTexture = UNKNOWN;
+	/** The source blend factor or UNKNOWN */
+	private int blendSrc = UNKNOWN;
+	/** The destination blend factor or UNKNOWN */
+	private int blendDst = UNKNOWN;
+	/** The state of each tracked capability, 1 enabled, 0 disabled or UNKNOWN */
+	private int[] enabled = new int[CAPABILITIES.length];
+	/** The line width or -1 if unknown */
+	private float lineWidth = UNKNOWN;
+	/** The point size or -1 if unknown */
+	private float pointSize = UNKNOWN;
+	/** The colour mask as bits or UNKNOWN */
+	private int colorMask = UNKNOWN;
+	/** The texture environment mode or UNKNOWN */
+	private int texEnvMode = UNKNOWN;
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#initDisplay(int, int)
+	 */
+	public void initDisplay(int width, int height) {
+		super.initDisplay(width, height);
+
+		useBuffers = GLContext.getCapabilities().OpenGL15;
+		if (useBuffers) {
+			buffer = GL15.glGenBuffers();
+			capacity = INITIAL_CAPACITY;
+			GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, buffer);
+			GL15.glBufferData(GL15.GL_ARRAY_BUFFER, capacity, GL15.GL_STREAM_DRAW);
+			GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		}
+		allocateData(verts.length);
+
+		forgetState();
+		// the state the immediate renderer sets up
+		enabled[indexOf(SGL.GL_TEXTURE_2D)] = 1;
+		enabled[indexOf(SGL.GL_BLEND)] = 1;
+		enabled[indexOf(SGL.GL_DEPTH_TEST)] = 0;
+		blendSrc = SGL.GL_SRC_ALPHA;
+		blendDst = SGL.GL_ONE_MINUS_SRC_ALPHA;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#enterOrtho(int, int)
+	 */
+	public void enterOrtho(int xsize, int ysize) {
+		applyBuffer();
+		super.enterOrtho(xsize, ysize);
+	}
+
+	/**
+	 * Allocate the buffer the vertices are passed to GL through
+	 *
+	 * @param size The number of ints the buffer should hold
+	 */
+	private void allocateData(int size) {
+		data = BufferUtils.createByteBuffer(size * 4);
+		dataInts = data.asIntBuffer();
+		if (!useBuffers) {
+			// the client arrays point into the buffer being replaced
+			arraysReady = false;
+		}
+	}
+
+	/**
+	 * Forget all the state tracked, it must be set again before it's relied on
+	 */
+	private void forgetState() {
+		boundTexture = UNKNOWN;
+		blendSrc = UNKNOWN;
+		blendDst = UNKNOWN;
+		for (int i=0;i<enabled.length;i++) {
+			enabled[i] = UNKNOWN;
+		}
+		lineWidth = UNKNOWN;
+		pointSize = UNKNOWN;
+		colorMask = UNKNOWN;
+		texEnvMode = UNKNOWN;
+	}
+
+	/**
+	 * Get the index of a capability in those tracked
+	 *
+	 * @param item The capability to look for
+	 * @return The index of the capability or -1 if it isn't tracked
+	 */
+	private int indexOf(int item) {
+		for (int i=0;i<CAPABILITIES.length;i++) {
+			if (CAPABILITIES[i] == item) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Enable the arrays and point them at the vertex data
+	 */
+	private void prepareArrays() {
+		GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+		GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+
+		if (useBuffers) {
+			GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, buffer);
+			GL11.glVertexPointer(3, GL11.GL_FLOAT, VERTEX_BYTES, 0);
+			GL11.glTexCoordPointer(2, GL11.GL_FLOAT, VERTEX_BYTES, 12);
+			GL11.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, VERTEX_BYTES, 20);
+		} else {
+			FloatBuffer floats = data.asFloatBuffer();
+			floats.position(0);
+			GL11.glVertexPointer(3, VERTEX_BYTES, floats.slice());
+			floats.position(3);
+			GL11.glTexCoordPointer(2, VERTEX_BYTES, floats.slice());
+			data.position(20);
+			GL11.glColorPointer(4, true, VERTEX_BYTES, data.slice());
+			data.position(0);
+		}
+
+		arraysReady = true;
+	}
+
+	/**
+	 * Disable the arrays and unbind the vertex buffer, leaving GL as the
+	 * immediate renderer would
+	 */
+	private void releaseArrays() {
+		if (!arraysReady) {
+			return;
+		}
+
+		if (useBuffers) {
+			GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		}
+		GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+		GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+
+		arraysReady = false;
+		applyColor();
+	}
+
+	/**
+	 * Set the current colour in GL. The colour given to glColor4f() is only
+	 * stored in the vertices, and the colour array leaves GL's undefined.
+	 */
+	private void applyColor() {
+		GL11.glColor4f(color[0], color[1], color[2], color[3]);
+	}
+
+	/**
+	 * Draw the batch gathered and start a new one
+	 */
+	private void applyBuffer() {
+		if ((vertIndex == 0) || (batchType == NONE)) {
+			vertIndex = 0;
+			batchType = NONE;
+			return;
+		}
+
+		int ints = vertIndex * VERTEX_SIZE;
+		if (data.capacity() < ints * 4) {
+			allocateData(verts.length);
+		}
+		dataInts.clear();
+		dataInts.put(verts, 0, ints);
+
+		if (!arraysReady) {
+			prepareArrays();
+		}
+
+		int first = 0;
+		if (useBuffers) {
+			int size = ints * 4;
+			if (size > capacity) {
+				while (capacity < size) {
+					capacity *= 2;
+				}
+				GL15.glBufferData(GL15.GL_ARRAY_BUFFER, capacity, GL15.GL_STREAM_DRAW);
+				offset = 0;
+			} else if (offset + size > capacity) {
+				// orphan the storage still being drawn from rather than wait for it
+				GL15.glBufferData(GL15.GL_ARRAY_BUFFER, capacity, GL15.GL_STREAM_DRAW);
+				offset = 0;
+			}
+
+			data.position(0);
+			data.limit(size);
+			GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, offset, data);
+			data.clear();
+
+			first = offset / VERTEX_BYTES;
+			offset += size;
+		}
+
+		GL11.glDrawArrays(batchType, first, vertIndex);
+		vertIndex = 0;
+		batchType = NONE;
+	}
+
+	/**
+	 * Make room for more vertices in the batch
+	 *
+	 * @param count The number of vertices to make room for
+	 */
+	private void ensureCapacity(int count) {
+		int needed = (vertIndex + count) * VERTEX_SIZE;
+		if (needed > verts.length) {
+			int[] temp = new int[Math.max(verts.length * 2, needed)];
+			System.arraycopy(verts, 0, temp, 0, vertIndex * VERTEX_SIZE);
+			verts = temp;
+		}
+	}
+
+	/**
+	 * Start gathering geometry of a given type, drawing the batch if it holds
+	 * a different type
+	 *
+	 * @param type The type of geometry in the batch
+	 */
+	private void startBatch(int type) {
+		if ((batchType != type) || (vertIndex >= FLUSH_VERTS)) {
+			applyBuffer();
+			batchType = type;
+		}
+	}
+
+	/**
+	 * Get the type of batch a primitive is gathered into
+	 *
+	 * @param type The type given to glBegin()
+	 * @return The type of batch its broken into
+	 */
+	private int getBatchType(int type) {
+		switch (type) {
+		case GL11.GL_LINE_STRIP:
+		case GL11.GL_LINE_LOOP:
+			return GL11.GL_LINES;
+		case GL11.GL_TRIANGLE_STRIP:
+		case GL11.GL_TRIANGLE_FAN:
+		case GL11.GL_QUAD_STRIP:
+		case GL11.GL_POLYGON:
+			return GL11.GL_TRIANGLES;
+		}
+
+		return type;
+	}
+
+	/**
+	 * Break the primitive just gathered into separate lines or triangles so
+	 * it can share the batch with the primitives either side of it
+	 */
+	private void endPrimitive() {
+		int count = vertIndex - primitiveStart;
+
+		switch (primitiveType) {
+		case GL11.GL_POINTS:
+			return;
+		case GL11.GL_LINES:
+			vertIndex -= count % 2;
+			return;
+		case GL11.GL_TRIANGLES:
+			vertIndex -= count % 3;
+			return;
+		case GL11.GL_QUADS:
+			vertIndex -= count % 4;
+			return;
+		}
+
+		if (scratch.length < count * VERTEX_SIZE) {
+			scratch = new int[count * VERTEX_SIZE];
+		}
+		System.arraycopy(verts, primitiveStart * VERTEX_SIZE, scratch, 0, count * VERTEX_SIZE);
+		vertIndex = primitiveStart;
+
+		switch (primitiveType) {
+		case GL11.GL_LINE_STRIP:
+		case GL11.GL_LINE_LOOP:
+			if (count < 2) {
+				return;
+			}
+			ensureCapacity(count * 2);
+			for (int i=0;i<count-1;i++) {
+				copyVertex(i);
+				copyVertex(i+1);
+			}
+			if ((primitiveType == GL11.GL_LINE_LOOP) && (count > 2)) {
+				copyVertex(count-1);
+				copyVertex(0);
+			}
+			return;
+		case GL11.GL_TRIANGLE_FAN:
+		case GL11.GL_POLYGON:
+			if (count < 3) {
+				return;
+			}
+			ensureCapacity((count - 2) * 3);
+			for (int i=1;i<count-1;i++) {
+				copyVertex(0);
+				copyVertex(i);
+				copyVertex(i+1);
+			}
+			return;
+		case GL11.GL_TRIANGLE_STRIP:
+		case GL11.GL_QUAD_STRIP:
+			if (count < 3) {
+				return;
+			}
+			if (primitiveType == GL11.GL_QUAD_STRIP) {
+				count -= count % 2;
+			}
+			ensureCapacity((count - 2) * 3);
+			for (int i=0;i<count-2;i++) {
+				if ((i % 2) == 0) {
+					copyVertex(i);
+					copyVertex(i+1);
+				} else {
+					copyVertex(i+1);
+					copyVertex(i);
+				}
+				copyVertex(i+2);
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Add a vertex of the primitive being broken up to the batch
+	 *
+	 * @param index The index of the vertex in the primitive
+	 */
+	private void copyVertex(int index) {
+		System.arraycopy(scratch, index * VERTEX_SIZE, verts, vertIndex * VERTEX_SIZE, VERTEX_SIZE);
+		vertIndex++;
+	}
+
+	/**
+	 * Pack a colour as it's stored in a vertex
+	 *
+	 * @param r The red component
+	 * @param g The green component
+	 * @param b The blue component
+	 * @param a The alpha component
+	 * @return The colour packed as four bytes in memory order
+	 */
+	private int pack(float r, float g, float b, float a) {
+		int red = toByte(r);
+		int green = toByte(g);
+		int blue = toByte(b);
+		int alpha = toByte(a);
+
+		if (littleEndian) {
+			return red | (green << 8) | (blue << 16) | (alpha << 24);
+		}
+		return (red << 24) | (green << 16) | (blue << 8) | alpha;
+	}
+
+	/**
+	 * Convert a colour component to a byte
+	 *
+	 * @param value The component between 0 and 1
+	 * @return The component between 0 and 255
+	 */
+	private int toByte(float value) {
+		if (value <= 0) {
+			return 0;
+		}
+		if (value >= 1) {
+			return 255;
+		}
+		return (int) ((value * 255) + 0.5f);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#flush()
+	 */
+	public void flush() {
+		super.flush();
+
+		applyBuffer();
+		releaseArrays();
+		forgetState();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#drawQuads(java.nio.FloatBuffer, int, int)
+	 */
+	public void drawQuads(FloatBuffer data, int first, int count) {
+		if (listMode > 0) {
+			super.drawQuads(data, first, count);
+			return;
+		}
+		if (count == 0) {
+			return;
+		}
+
+		startBatch(GL11.GL_QUADS);
+		ensureCapacity(count);
+		for (int i=first;i<first+count;i++) {
+			int index = i * QUAD_VERTEX_SIZE;
+			int pos = vertIndex * VERTEX_SIZE;
+			verts[pos] = Float.floatToRawIntBits(data.get(index));
+			verts[pos+1] = Float.floatToRawIntBits(data.get(index+1));
+			verts[pos+2] = 0;
+			verts[pos+3] = Float.floatToRawIntBits(data.get(index+2));
+			verts[pos+4] = Float.floatToRawIntBits(data.get(index+3));
+			verts[pos+5] = pack(data.get(index+4), data.get(index+5), data.get(index+6),
+								data.get(index+7) * alphaScale);
+			vertIndex++;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glBegin(int)
+	 */
+	public void glBegin(int geomType) {
+		if (listMode > 0) {
+			super.glBegin(geomType);
+			return;
+		}
+
+		startBatch(getBatchType(geomType));
+		primitiveType = geomType;
+		primitiveStart = vertIndex;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glEnd()
+	 */
+	public void glEnd() {
+		if (listMode > 0) {
+			super.glEnd();
+			return;
+		}
+
+		endPrimitive();
+		primitiveType = NONE;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glColor4f(float, float, float, float)
+	 */
+	public void glColor4f(float r, float g, float b, float a) {
+		if (listMode > 0) {
+			super.glColor4f(r, g, b, a);
+		}
+
+		a *= alphaScale;
+
+		color[0] = r;
+		color[1] = g;
+		color[2] = b;
+		color[3] = a;
+		packedColor = pack(r, g, b, a);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glTexCoord2f(float, float)
+	 */
+	public void glTexCoord2f(float u, float v) {
+		if (listMode > 0) {
+			super.glTexCoord2f(u, v);
+			return;
+		}
+
+		texU = Float.floatToRawIntBits(u);
+		texV = Float.floatToRawIntBits(v);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glVertex2f(float, float)
+	 */
+	public void glVertex2f(float x, float y) {
+		if (listMode > 0) {
+			super.glVertex2f(x, y);
+			return;
+		}
+
+		glVertex3f(x, y, 0);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glVertex3f(float, float, float)
+	 */
+	public void glVertex3f(float x, float y, float z) {
+		if (listMode > 0) {
+			super.glVertex3f(x, y, z);
+			return;
+		}
+
+		int pos = vertIndex * VERTEX_SIZE;
+		if (pos + VERTEX_SIZE > verts.length) {
+			ensureCapacity(1);
+		}
+		verts[pos] = Float.floatToRawIntBits(x);
+		verts[pos+1] = Float.floatToRawIntBits(y);
+		verts[pos+2] = Float.floatToRawIntBits(z);
+		verts[pos+3] = texU;
+		verts[pos+4] = texV;
+		verts[pos+5] = packedColor;
+		vertIndex++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glBindTexture(int, int)
+	 */
+	public void glBindTexture(int target, int id) {
+		if ((listMode == 0) && (id == boundTexture)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glBindTexture(target, id);
+		boundTexture = listMode == 0 ? id : UNKNOWN;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glBlendFunc(int, int)
+	 */
+	public void glBlendFunc(int src, int dest) {
+		if ((listMode == 0) && (src == blendSrc) && (dest == blendDst)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glBlendFunc(src, dest);
+		blendSrc = listMode == 0 ? src : UNKNOWN;
+		blendDst = listMode == 0 ? dest : UNKNOWN;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glEnable(int)
+	 */
+	public void glEnable(int item) {
+		if (setEnabled(item, 1)) {
+			super.glEnable(item);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glDisable(int)
+	 */
+	public void glDisable(int item) {
+		if (setEnabled(item, 0)) {
+			super.glDisable(item);
+		}
+	}
+
+	/**
+	 * Record a capability being enabled or disabled, drawing the batch if
+	 * the change is real
+	 *
+	 * @param item The capability being changed
+	 * @param value 1 if it's being enabled, 0 if disabled
+	 * @return True if the change must be passed to GL
+	 */
+	private boolean setEnabled(int item, int value) {
+		int index = indexOf(item);
+		if ((listMode == 0) && (index >= 0) && (enabled[index] == value)) {
+			return false;
+		}
+
+		applyBuffer();
+		if (index >= 0) {
+			enabled[index] = listMode == 0 ? value : UNKNOWN;
+		}
+		return true;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glLineWidth(float)
+	 */
+	public void glLineWidth(float width) {
+		if ((listMode == 0) && (width == lineWidth)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glLineWidth(width);
+		lineWidth = listMode == 0 ? width : UNKNOWN;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glPointSize(float)
+	 */
+	public void glPointSize(float size) {
+		if ((listMode == 0) && (size == pointSize)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glPointSize(size);
+		pointSize = listMode == 0 ? size : UNKNOWN;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glColorMask(boolean, boolean, boolean, boolean)
+	 */
+	public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+		int mask = (red ? 1 : 0) | (green ? 2 : 0) | (blue ? 4 : 0) | (alpha ? 8 : 0);
+		if ((listMode == 0) && (mask == colorMask)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glColorMask(red, green, blue, alpha);
+		colorMask = listMode == 0 ? mask : UNKNOWN;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glTexEnvi(int, int, int)
+	 */
+	public void glTexEnvi(int target, int mode, int value) {
+		boolean tracked = (target == SGL.GL_TEXTURE_ENV) && (mode == SGL.GL_TEXTURE_ENV_MODE);
+		if ((listMode == 0) && tracked && (value == texEnvMode)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glTexEnvi(target, mode, value);
+		if (tracked) {
+			texEnvMode = listMode == 0 ? value : UNKNOWN;
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glCallList(int)
+	 */
+	public void glCallList(int id) {
+		applyBuffer();
+		applyColor();
+		super.glCallList(id);
+
+		// the list may have changed anything
+		forgetState();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glNewList(int, int)
+	 */
+	public void glNewList(int id, int option) {
+		applyBuffer();
+		releaseArrays();
+		applyColor();
+		listMode++;
+		super.glNewList(id, option);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glEndList()
+	 */
+	public void glEndList() {
+		listMode--;
+		super.glEndList();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glTranslatef(float, float, float)
+	 */
+	public void glTranslatef(float x, float y, float z) {
+		if ((x == 0) && (y == 0) && (z == 0)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glTranslatef(x, y, z);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glRotatef(float, float, float, float)
+	 */
+	public void glRotatef(float angle, float x, float y, float z) {
+		if (angle == 0) {
+			return;
+		}
+
+		applyBuffer();
+		super.glRotatef(angle, x, y, z);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glScalef(float, float, float)
+	 */
+	public void glScalef(float x, float y, float z) {
+		if ((x == 1) && (y == 1) && (z == 1)) {
+			return;
+		}
+
+		applyBuffer();
+		super.glScalef(x, y, z);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glPushMatrix()
+	 */
+	public void glPushMatrix() {
+		// pushing leaves the current matrix as it was, so the batch can continue
+		super.glPushMatrix();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glPopMatrix()
+	 */
+	public void glPopMatrix() {
+		applyBuffer();
+		super.glPopMatrix();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glLoadIdentity()
+	 */
+	public void glLoadIdentity() {
+		applyBuffer();
+		super.glLoadIdentity();
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#glLoadMatrix(java.nio.FloatBuffer)
+	 */
+	public void glLoadMatrix(FloatBuffer buffer) {
+		applyBuffer();
+		super.glLoadMatrix(buffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glClear(int)
+	 */
+	public void glClear(int value) {
+		applyBuffer();
+		super.glClear(value);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glClipPlane(int, java.nio.DoubleBuffer)
+	 */
+	public void glClipPlane(int plane, DoubleBuffer buffer) {
+		applyBuffer();
+		super.glClipPlane(plane, buffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glScissor(int, int, int, int)
+	 */
+	public void glScissor(int x, int y, int width, int height) {
+		applyBuffer();
+		super.glScissor(x, y, width, height);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glDepthFunc(int)
+	 */
+	public void glDepthFunc(int func) {
+		applyBuffer();
+		super.glDepthFunc(func);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glDepthMask(boolean)
+	 */
+	public void glDepthMask(boolean mask) {
+		applyBuffer();
+		super.glDepthMask(mask);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glCopyTexImage2D(int, int, int, int, int, int, int, int)
+	 */
+	public void glCopyTexImage2D(int target, int level, int internalFormat, int x, int y, int width, int height, int border) {
+		applyBuffer();
+		super.glCopyTexImage2D(target, level, internalFormat, x, y, width, height, border);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glReadPixels(int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glReadPixels(int x, int y, int width, int height, int format, int type, ByteBuffer pixels) {
+		applyBuffer();
+		super.glReadPixels(x, y, width, height, format, type, pixels);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glGetTexImage(int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glGetTexImage(int target, int level, int format, int type, ByteBuffer pixels) {
+		applyBuffer();
+		super.glGetTexImage(target, level, format, type, pixels);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glTexImage2D(int, int, int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glTexImage2D(int target, int i, int dstPixelFormat, int width, int height, int j,
+							 int srcPixelFormat, int type, ByteBuffer textureBuffer) {
+		applyBuffer();
+		super.glTexImage2D(target, i, dstPixelFormat, width, height, j, srcPixelFormat, type, textureBuffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glTexSubImage2D(int, int, int, int, int, int, int, int, java.nio.ByteBuffer)
+	 */
+	public void glTexSubImage2D(int target, int i, int x, int y, int width, int height,
+								int format, int type, ByteBuffer buffer) {
+		applyBuffer();
+		super.glTexSubImage2D(target, i, x, y, width, height, format, type, buffer);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glTexParameteri(int, int, int)
+	 */
+	public void glTexParameteri(int target, int param, int value) {
+		applyBuffer();
+		super.glTexParameteri(target, param, value);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glDeleteTextures(java.nio.IntBuffer)
+	 */
+	public void glDeleteTextures(IntBuffer buffer) {
+		applyBuffer();
+		super.glDeleteTextures(buffer);
+
+		// deleting the bound texture binds none, and its ID may be reused
+		boundTexture = UNKNOWN;
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.ImmediateModeOGLRenderer#glSecondaryColor3ubEXT(byte, byte, byte)
+	 */
+	public void glSecondaryColor3ubEXT(byte b, byte c, byte d) {
+		applyBuffer();
+		super.glSecondaryColor3ubEXT(b, c, d);
+	}
+
+	/**
+	 * @see org.newdawn.slick.opengl.renderer.SGL#getCurrentColor()
+	 */
+	public float[] getCurrentColor() {
+		return color;
+	}
+}
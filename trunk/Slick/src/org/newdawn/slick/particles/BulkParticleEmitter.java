@@ -0,0 +1,24 @@
+package org.newdawn.slick.particles;
+
+/**
+ * An emitter that keeps its particles in a ParticleBuffer rather than as Particle
+ * objects, updating all of them in a single call. The particle system gives each
+ * bulk emitter its own buffer, available through ParticleSystem.getParticleBuffer(),
+ * which the emitter should add new particles to from update().
+ *
+ * Bulk emitters aren't given particles by ParticleSystem.getNewParticle() and their
+ * updateParticle() isn't called by the system.
+ *
+ * @author agent
+ */
+public interface BulkParticleEmitter extends ParticleEmitter {
+	/**
+	 * Update all the live particles this emitter produced. The system ages the
+	 * particles, moves them by their velocity and removes those that have died
+	 * once this returns.
+	 *
+	 * @param particles The buffer holding the particles this emitter produced
+	 * @param delta The amount of time in milliseconds since the last update
+	 */
+	public void updateParticles(ParticleBuffer particles, int delta);
+}
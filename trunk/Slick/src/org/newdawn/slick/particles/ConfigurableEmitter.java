@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Random;
 
 import org.newdawn.slick.Color;
 import org.newdawn.slick.Image;
@@ -16,13 +17,44 @@ import org.newdawn.slick.util.Log;
  * An emitter than can be externally configured. This configuration can also be
  * saved/loaded using the ParticleIO class.
  * 
+ * The emitter keeps its particles in a ParticleBuffer and updates them all in
+ * a single pass. Each emitter has its own random number generator, seeded in the
+ * order emitters are created unless given a seed, so an effect plays out the same
+ * however many threads the particle system is updated on.
+ * 
+ * Subclasses that override updateParticle() must also override usesBulkUpdate()
+ * to return false. They're then given Particle objects instead, updated one at a
+ * time through updateParticle() as before. Such emitters load
+ * their image while updating so, like any emitter using the shared random number
+ * generator, shouldn't be updated in parallel.
+ * 
+ * The interpolated values and the colour range are compiled into lookup tables
+ * so a particle's values can be found without searching the points they're
+ * defined by. The tables are rebuilt as each update starts if any point has
+ * changed, so the emitter can be edited at any time.
+ * 
  * @see ParticleIO
  * 
  * @author kevin
  */
-public class ConfigurableEmitter implements ParticleEmitter {
+public class ConfigurableEmitter implements BulkParticleEmitter {
+	/** The number of steps the interpolated values and colour range are compiled into */
+	private static final int TABLE_STEPS = 256;
+	
 	/** The path from which the images should be loaded */
 	private static String relativePath = "";
+	/** The number of emitters given a seed so far */
+	private static long seeds;
+
+	/**
+	 * Get the seed for the next emitter created
+	 * 
+	 * @return The seed for the random number generator of the next emitter
+	 */
+	private static synchronized long nextSeed() {
+		// spread the seeds of consecutive emitters across the range
+		return (++seeds) * 0x9E3779B97F4A7C15L;
+	}
 
 	/**
 	 * Set the path from which images should be loaded
@@ -104,8 +136,18 @@ public class ConfigurableEmitter implements ParticleEmitter {
 	public String imageName = "";
 	/** The image being used for the particles */
 	private Image image;
+	/** The random number generator used for this emitter's values */
+	private Random random = new Random(nextSeed());
 	/** True if the image needs updating */
 	private boolean updateImage;
+	/** The red, green and blue components of the colour range at the start of each step */
+	private float[] colorTable = new float[(TABLE_STEPS + 1) * 3];
+	/** True for each step the colour range can't be interpolated across */
+	private boolean[] colorBends = new boolean[TABLE_STEPS];
+	/** The position and colour of each record the colour table was compiled from */
+	private float[] colorSource;
+	/** The colour found by the last lookup in the colour range */
+	private float[] color = new float[3];
 
 	/** True if the emitter is enabled */
 	private boolean enabled = true;
@@ -169,6 +211,8 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		curve.add(new Vector2f(0.0f, 0.0f));
 		curve.add(new Vector2f(1.0f, 1.0f));
 		scaleY = new LinearInterpolator(curve, 0, 1);
+		
+		compile();
 	}
 
 	/**
@@ -209,6 +253,16 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		return "[" + name + "]";
 	}
 
+	/**
+	 * Seed the random number generator used for this emitter's values, so the
+	 * emitter plays out the same each time it's given the same seed
+	 * 
+	 * @param seed The seed for the random number generator
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
 	/**
 	 * Set the position of this particle source
 	 * 
@@ -279,6 +333,7 @@ public class ConfigurableEmitter implements ParticleEmitter {
 	 */
 	public void update(ParticleSystem system, int delta) {
 		this.engine = system;
+		compile();
 
 		if (!adjust) {
 			adjustx = 0;
@@ -286,16 +341,6 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		} else {
 			adjust = false;
 		}
-		
-		if (updateImage) {
-			updateImage = false;
-			try {
-				image = new Image(relativePath + imageName);
-			} catch (SlickException e) {
-				image = null;
-				Log.error(e);
-			}
-		}
 
 		if ((wrapUp) || 
 		    ((length.isEnabled()) && (timeout < 0)) ||
@@ -327,37 +372,20 @@ public class ConfigurableEmitter implements ParticleEmitter {
 			nextSpawn = (int) spawnInterval.random();
 			int count = (int) spawnCount.random();
 
+			ParticleBuffer particles = system.getParticleBuffer(this);
 			for (int i = 0; i < count; i++) {
-				Particle p = system.getNewParticle(this, initialLife.random());
-				p.setSize(initialSize.random());
-				p.setPosition(x + xOffset.random(), y + yOffset.random());
-				p.setVelocity(0, 0, 0);
-
-				float dist = initialDistance.random();
-				float power = speed.random();
-				if ((dist != 0) || (power != 0)) {
-					float s = spread.getValue(0);
-					float ang = (s + angularOffset.getValue(0) - (spread
-							.getValue() / 2)) - 90;
-					float xa = (float) FastTrig.cos(Math.toRadians(ang)) * dist;
-					float ya = (float) FastTrig.sin(Math.toRadians(ang)) * dist;
-					p.adjustPosition(xa, ya);
-
-					float xv = (float) FastTrig.cos(Math.toRadians(ang));
-					float yv = (float) FastTrig.sin(Math.toRadians(ang));
-					p.setVelocity(xv, yv, power * 0.001f);
-				}
-
-				if (image != null) {
-					p.setImage(image);
+				if (particles == null) {
+					// the system was set up to give this emitter Particle objects
+					spawn(system.getNewParticle(this, initialLife.random()));
+				} else {
+					int p = particles.add(initialLife.random());
+					if (p < 0) {
+						Log.warn("Ran out of particles (increase the limit)!");
+					} else {
+						spawn(particles, p);
+					}
 				}
 
-				ColorRecord start = (ColorRecord) colors.get(0);
-				p.setColor(start.col.r, start.col.g, start.col.b, startAlpha
-						.getValue(0) / 255.0f);
-				p.setUsePoint(usePoints);
-				p.setOriented(useOriented);
-
 				if (emitCount.isEnabled()) {
 					leftToEmit--;
 					if (leftToEmit <= 0) {
@@ -368,6 +396,159 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		}
 	}
 
+	/**
+	 * Set up a new particle object
+	 * 
+	 * @param p The particle to set up
+	 */
+	private void spawn(Particle p) {
+		p.setSize(initialSize.random());
+		p.setPosition(x + xOffset.random(), y + yOffset.random());
+		p.setVelocity(0, 0, 0);
+
+		float dist = initialDistance.random();
+		float power = speed.random();
+		if ((dist != 0) || (power != 0)) {
+			float s = spread.getValue(0);
+			float ang = (s + angularOffset.getValue(0) - (spread
+					.getValue() / 2)) - 90;
+			float xa = (float) FastTrig.cos(Math.toRadians(ang)) * dist;
+			float ya = (float) FastTrig.sin(Math.toRadians(ang)) * dist;
+			p.adjustPosition(xa, ya);
+
+			float xv = (float) FastTrig.cos(Math.toRadians(ang));
+			float yv = (float) FastTrig.sin(Math.toRadians(ang));
+			p.setVelocity(xv, yv, power * 0.001f);
+		}
+
+		Image image = getImage();
+		if (image != null) {
+			p.setImage(image);
+		}
+
+		ColorRecord start = (ColorRecord) colors.get(0);
+		p.setColor(start.col.r, start.col.g, start.col.b, startAlpha
+				.getValue(0) / 255.0f);
+		p.setUsePoint(usePoints);
+		p.setOriented(useOriented);
+	}
+	
+	/**
+	 * Check if the emitter keeps its particles in a ParticleBuffer and updates
+	 * them all at once. Subclasses that override updateParticle() must override
+	 * this to return false, so they're given Particle objects to update instead.
+	 * This is checked as the emitter is added to a particle system.
+	 * 
+	 * @return True if the particles are updated in bulk
+	 */
+	protected boolean usesBulkUpdate() {
+		return true;
+	}
+
+	/**
+	 * Set up a newly added particle
+	 * 
+	 * @param particles The buffer holding the particle
+	 * @param p The index of the particle in the buffer
+	 */
+	private void spawn(ParticleBuffer particles, int p) {
+		particles.size[p] = initialSize.random();
+		particles.x[p] = x + xOffset.random();
+		particles.y[p] = y + yOffset.random();
+
+		float dist = initialDistance.random();
+		float power = speed.random();
+		if ((dist != 0) || (power != 0)) {
+			float s = spread.getValue(0);
+			float ang = (s + angularOffset.getValue(0) - (spread
+					.getValue() / 2)) - 90;
+			float xv = (float) FastTrig.cos(Math.toRadians(ang));
+			float yv = (float) FastTrig.sin(Math.toRadians(ang));
+			particles.x[p] += xv * dist;
+			particles.y[p] += yv * dist;
+			particles.velx[p] = xv * power * 0.001f;
+			particles.vely[p] = yv * power * 0.001f;
+		}
+
+		ColorRecord start = (ColorRecord) colors.get(0);
+		particles.r[p] = start.col.r;
+		particles.g[p] = start.col.g;
+		particles.b[p] = start.col.b;
+		particles.a[p] = startAlpha.getValue(0) / 255.0f;
+	}
+
+	/**
+	 * @see org.newdawn.slick.particles.BulkParticleEmitter#updateParticles(org.newdawn.slick.particles.ParticleBuffer, int)
+	 */
+	public void updateParticles(ParticleBuffer particles, int delta) {
+		int count = particles.getCount();
+		particleCount += count;
+
+		// everything that's the same for every particle
+		float wind = windFactor.getValue(0) * 0.00005f * delta;
+		float gravity = gravityFactor.getValue(0) * 0.00005f * delta;
+		float growth = delta * growthFactor.getValue(0) * 0.001f;
+		float startA = startAlpha.getValue(0) / 255.0f;
+		float endA = endAlpha.getValue(0) / 255.0f;
+		boolean alphaActive = alpha.isActive();
+		boolean sizeActive = size.isActive();
+		boolean velocityActive = velocity.isActive();
+		boolean scaleActive = scaleY.isActive();
+
+		float[] px = particles.x;
+		float[] py = particles.y;
+		float[] velx = particles.velx;
+		float[] vely = particles.vely;
+		float[] sizes = particles.size;
+		float[] life = particles.life;
+		float[] originalLife = particles.originalLife;
+		float[] r = particles.r;
+		float[] g = particles.g;
+		float[] b = particles.b;
+		float[] a = particles.a;
+		float[] scales = particles.scaleY;
+
+		for (int i=0;i<count;i++) {
+			px[i] += adjustx;
+			py[i] += adjusty;
+			velx[i] += wind;
+			vely[i] += gravity;
+
+			float offset = life[i] / originalLife[i];
+			float inv = 1 - offset;
+
+			if (lookupColor(inv)) {
+				r[i] = color[0];
+				g[i] = color[1];
+				b[i] = color[2];
+				if (alphaActive) {
+					a[i] = alpha.lookup(inv) / 255.0f;
+				} else {
+					a[i] = (startA * offset) + (endA * inv);
+				}
+			}
+
+			if (sizeActive) {
+				sizes[i] = size.lookup(inv);
+			} else {
+				sizes[i] = Math.max(0, sizes[i] + growth);
+			}
+
+			if (velocityActive) {
+				float current = (float) Math.sqrt((velx[i] * velx[i]) + (vely[i] * vely[i]));
+				if (current > 0) {
+					float scale = velocity.lookup(inv) / current;
+					velx[i] *= scale;
+					vely[i] *= scale;
+				}
+			}
+
+			if (scaleActive) {
+				scales[i] = scaleY.lookup(inv);
+			}
+		}
+	}
+
 	/**
 	 * @see org.newdawn.slick.particles.ParticleEmitter#updateParticle(org.newdawn.slick.particles.Particle,
 	 *      int)
@@ -384,55 +565,163 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		
 		float offset = particle.getLife() / particle.getOriginalLife();
 		float inv = 1 - offset;
-		float colOffset = 0;
-		float colInv = 1;
-
-		Color startColor = null;
-		Color endColor = null;
-		for (int i = 0; i < colors.size() - 1; i++) {
-			ColorRecord rec1 = (ColorRecord) colors.get(i);
-			ColorRecord rec2 = (ColorRecord) colors.get(i + 1);
-
-			if ((inv >= rec1.pos) && (inv <= rec2.pos)) {
-				startColor = rec1.col;
-				endColor = rec2.col;
-
-				float step = rec2.pos - rec1.pos;
-				colOffset = inv - rec1.pos;
-				colOffset /= step;
-				colOffset = 1 - colOffset;
-				colInv = 1 - colOffset;
-			}
-		}
-
-		if (startColor != null) {
-			float r = (startColor.r * colOffset) + (endColor.r * colInv);
-			float g = (startColor.g * colOffset) + (endColor.g * colInv);
-			float b = (startColor.b * colOffset) + (endColor.b * colInv);
 
+		if (lookupColor(inv)) {
 			float a;
 			if (alpha.isActive()) {
-				a = alpha.getValue(inv) / 255.0f;
+				a = alpha.lookup(inv) / 255.0f;
 			} else {
 				a = ((startAlpha.getValue(0) / 255.0f) * offset)
 						+ ((endAlpha.getValue(0) / 255.0f) * inv);
 			}
-			particle.setColor(r, g, b, a);
+			particle.setColor(color[0], color[1], color[2], a);
 		}
 
 		if (size.isActive()) {
-			float s = size.getValue(inv);
+			float s = size.lookup(inv);
 			particle.setSize(s);
 		} else {
 			particle.adjustSize(delta * growthFactor.getValue(0) * 0.001f);
 		}
 
 		if (velocity.isActive()) {
-			particle.setSpeed(velocity.getValue(inv));
+			particle.setSpeed(velocity.lookup(inv));
 		}
 
 		if (scaleY.isActive()) {
-			particle.setScaleY(scaleY.getValue(inv));
+			particle.setScaleY(scaleY.lookup(inv));
+		}
+	}
+
+	/**
+	 * Compile the interpolated values and the colour range into lookup tables. Only
+	 * the tables whose points have changed since they were last compiled are rebuilt.
+	 * This is done as each update starts so it's only required if particles are
+	 * updated without updating the emitter.
+	 */
+	public void compile() {
+		alpha.compile();
+		size.compile();
+		velocity.compile();
+		scaleY.compile();
+		
+		int count = colors.size();
+		if ((colorSource != null) && (colorSource.length == count * 4)) {
+			boolean changed = false;
+			for (int i=0;i<count;i++) {
+				ColorRecord record = (ColorRecord) colors.get(i);
+				int s = i * 4;
+				if ((colorSource[s] != record.pos) || (colorSource[s+1] != record.col.r) ||
+					(colorSource[s+2] != record.col.g) || (colorSource[s+3] != record.col.b)) {
+					changed = true;
+					break;
+				}
+			}
+			if (!changed) {
+				return;
+			}
+		} else {
+			colorSource = new float[count * 4];
+		}
+		
+		for (int i=0;i<count;i++) {
+			ColorRecord record = (ColorRecord) colors.get(i);
+			int s = i * 4;
+			colorSource[s] = record.pos;
+			colorSource[s+1] = record.col.r;
+			colorSource[s+2] = record.col.g;
+			colorSource[s+3] = record.col.b;
+		}
+		
+		for (int i=0;i<TABLE_STEPS;i++) {
+			colorBends[i] = false;
+		}
+		for (int i=0;i<=TABLE_STEPS;i++) {
+			// where the range doesn't give a colour the particles keep the one they have
+			if (!evaluateColor(i / (float) TABLE_STEPS, colorTable, i * 3)) {
+				markBend(colorBends, i / (float) TABLE_STEPS);
+			}
+		}
+		for (int i=0;i<count;i++) {
+			markBend(colorBends, ((ColorRecord) colors.get(i)).pos);
+		}
+	}
+	
+	/**
+	 * Find the colour at a point in a particle's life, using the colour table
+	 * wherever possible
+	 * 
+	 * @param t The point in the particle's life (0 = start, 1 = end)
+	 * @return True if the colour range gives a colour at the point, in which
+	 * case it's stored in the color array
+	 */
+	private boolean lookupColor(float t) {
+		float scaled = t * TABLE_STEPS;
+		int step = (int) scaled;
+		if ((!(scaled >= 0)) || (step >= TABLE_STEPS) || (colorBends[step])) {
+			return evaluateColor(t, color, 0);
+		}
+		
+		float f = scaled - step;
+		int s = step * 3;
+		color[0] = colorTable[s] + (f * (colorTable[s+3] - colorTable[s]));
+		color[1] = colorTable[s+1] + (f * (colorTable[s+4] - colorTable[s+1]));
+		color[2] = colorTable[s+2] + (f * (colorTable[s+5] - colorTable[s+2]));
+		return true;
+	}
+	
+	/**
+	 * Find the colour at a point in a particle's life by searching the colour range
+	 * 
+	 * @param t The point in the particle's life (0 = start, 1 = end)
+	 * @param out The array to store the red, green and blue components in
+	 * @param offset The index in the array to store the red component at
+	 * @return True if the colour range gives a colour at the point
+	 */
+	private boolean evaluateColor(float t, float[] out, int offset) {
+		// the last colour segment holding the point
+		ColorRecord rec1 = null;
+		ColorRecord rec2 = null;
+		for (int c = 0; c < colors.size() - 1; c++) {
+			ColorRecord start = (ColorRecord) colors.get(c);
+			ColorRecord end = (ColorRecord) colors.get(c + 1);
+			if ((t >= start.pos) && (t <= end.pos)) {
+				rec1 = start;
+				rec2 = end;
+			}
+		}
+		
+		if (rec1 == null) {
+			return false;
+		}
+		
+		float colInv = (t - rec1.pos) / (rec2.pos - rec1.pos);
+		float colOffset = 1 - colInv;
+		out[offset] = (rec1.col.r * colOffset) + (rec2.col.r * colInv);
+		out[offset+1] = (rec1.col.g * colOffset) + (rec2.col.g * colInv);
+		out[offset+2] = (rec1.col.b * colOffset) + (rec2.col.b * colInv);
+		return true;
+	}
+	
+	/**
+	 * Mark the steps of a table touching a point, where the values can't be
+	 * interpolated across because the points they're defined by change there
+	 * 
+	 * @param bends The flags indicating which steps can't be interpolated
+	 * @param pos The position of the point (0 = start, 1 = end)
+	 */
+	private static void markBend(boolean[] bends, float pos) {
+		float scaled = pos * TABLE_STEPS;
+		if ((!(scaled >= 0)) || (scaled > TABLE_STEPS)) {
+			return;
+		}
+		
+		int step = (int) scaled;
+		if (step < TABLE_STEPS) {
+			bends[step] = true;
+		}
+		if ((step == scaled) && (step > 0)) {
+			bends[step - 1] = true;
 		}
 	}
 
@@ -599,7 +888,7 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		 * @return The currently configured value
 		 */
 		public float getValue(float time) {
-			return (float) (Math.random() * value);
+			return (float) (random.nextDouble() * value);
 		}
 
 		/**
@@ -636,6 +925,12 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		private int min;
 		/** The maximum value in the data set */
 		private int max;
+		/** The value of the curve at the start of each step */
+		private float[] table = new float[TABLE_STEPS + 1];
+		/** True for each step the curve can't be interpolated across */
+		private boolean[] bends = new boolean[TABLE_STEPS];
+		/** The coordinates of the points the table was compiled from */
+		private float[] source;
 
 		/**
 		 * Create a new interpolated value
@@ -649,6 +944,7 @@ public class ConfigurableEmitter implements ParticleEmitter {
 			this.min = min;
 			this.max = max;
 			this.active = false;
+			compile();
 		}
 
 		/**
@@ -658,6 +954,7 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		 */
 		public void setCurve(ArrayList curve) {
 			this.curve = curve;
+			compile();
 		}
 
 		/**
@@ -697,6 +994,67 @@ public class ConfigurableEmitter implements ParticleEmitter {
 			}
 			return 0;
 		}
+		
+		/**
+		 * Get the value to use at a given time value, using the compiled table 
+		 * wherever possible
+		 * 
+		 * @param t The time value (expecting t in [0,1])
+		 * @return The value to use at the specified time
+		 */
+		float lookup(float t) {
+			float scaled = t * TABLE_STEPS;
+			int step = (int) scaled;
+			if ((!(scaled >= 0)) || (step >= TABLE_STEPS) || (bends[step])) {
+				return getValue(t);
+			}
+			
+			return table[step] + ((scaled - step) * (table[step+1] - table[step]));
+		}
+		
+		/**
+		 * Compile the curve into a lookup table, only rebuilding the table if the
+		 * points have changed since it was last compiled
+		 */
+		public void compile() {
+			int count = (curve == null) ? 0 : curve.size();
+			if ((source != null) && (source.length == count * 2)) {
+				boolean changed = false;
+				for (int i=0;i<count;i++) {
+					Vector2f point = (Vector2f) curve.get(i);
+					if ((source[i*2] != point.getX()) || (source[(i*2)+1] != point.getY())) {
+						changed = true;
+						break;
+					}
+				}
+				if (!changed) {
+					return;
+				}
+			} else {
+				source = new float[count * 2];
+			}
+			
+			for (int i=0;i<count;i++) {
+				Vector2f point = (Vector2f) curve.get(i);
+				source[i*2] = point.getX();
+				source[(i*2)+1] = point.getY();
+			}
+			
+			// with no points there's nothing to compile, leave it to getValue()
+			for (int i=0;i<TABLE_STEPS;i++) {
+				bends[i] = (count == 0);
+			}
+			if (count == 0) {
+				return;
+			}
+			
+			for (int i=0;i<=TABLE_STEPS;i++) {
+				table[i] = getValue(i / (float) TABLE_STEPS);
+			}
+			for (int i=0;i<count;i++) {
+				markBend(bends, ((Vector2f) curve.get(i)).getX());
+			}
+		}
 
 		/**
 		 * Check if this interpolated value should be used
@@ -822,7 +1180,7 @@ public class ConfigurableEmitter implements ParticleEmitter {
 		 * @return The random number from the range
 		 */
 		public float random() {
-			return (float) (min + (Math.random() * (max - min)));
+			return (float) (min + (random.nextDouble() * (max - min)));
 		}
 
 		/**
@@ -897,6 +1255,17 @@ public class ConfigurableEmitter implements ParticleEmitter {
 	}
 
 	public Image getImage() {
+		// loaded here rather than in update() which may not be on the rendering thread 
+		if (updateImage) {
+			updateImage = false;
+			try {
+				image = new Image(relativePath + imageName);
+			} catch (SlickException e) {
+				image = null;
+				Log.error(e);
+			}
+		}
+		
 		return image;
 	}
 
@@ -0,0 +1,239 @@
+package org.newdawn.slick.particles;
+
+/**
+ * A pool of worker threads shared by every particle system updating in parallel.
+ * Each emitter, with the particles it produced, is a separate task. The tasks of
+ * a batch are claimed by the workers and the thread requesting the batch until
+ * none are left, so a batch runs on however many threads are free.
+ *
+ * Since every emitter is updated by exactly one thread, and each emitter keeps
+ * its own random number stream, the result of a batch doesn't depend on the
+ * number of threads or on which thread updates which emitter.
+ *
+ * @author agent
+ */
+class ParallelParticleUpdater {
+	/** The updater shared by all particle systems */
+	private static ParallelParticleUpdater shared;
+
+	/**
+	 * Get the updater shared by all particle systems, creating it if required
+	 *
+	 * @return The shared updater
+	 */
+	public static synchronized ParallelParticleUpdater get() {
+		if (shared == null) {
+			shared = new ParallelParticleUpdater(Runtime.getRuntime().availableProcessors());
+		}
+		return shared;
+	}
+
+	/** The worker threads sharing batches with the caller */
+	private Worker[] workers;
+	/** The array used to update a single system */
+	private ParticleSystem[] single = new ParticleSystem[1];
+	/** The lock guarding the batch state */
+	private Object lock = new Object();
+	/** The system owning the emitter of each task in the batch */
+	private ParticleSystem[] systems = new ParticleSystem[16];
+	/** The pool of the emitter updated by each task in the batch */
+	private ParticleSystem.ParticlePool[] pools = new ParticleSystem.ParticlePool[16];
+	/** The number of particles left alive by each task in the batch */
+	private int[] counts = new int[16];
+	/** The number of tasks in the batch */
+	private int size;
+	/** The amount of time in milliseconds to update the batch by */
+	private int delta;
+	/** True if a batch is being processed */
+	private boolean running;
+	/** The index of the next task in the batch to be claimed */
+	private int next;
+	/** The number of tasks in the batch not yet completed */
+	private int remaining;
+	/** The first failure while processing the current batch */
+	private Throwable failure;
+
+	/**
+	 * Create a new updater
+	 *
+	 * @param threads The number of threads to update with, including the thread
+	 * requesting each batch
+	 */
+	private ParallelParticleUpdater(int threads) {
+		workers = new Worker[Math.max(0, threads - 1)];
+		for (int i=0;i<workers.length;i++) {
+			workers[i] = new Worker(i);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Update a single particle system, returning once every enabled emitter
+	 * has been updated
+	 *
+	 * @param system The system to update
+	 * @param delta The amount of time in milliseconds to update by
+	 */
+	public synchronized void update(ParticleSystem system, int delta) {
+		single[0] = system;
+		try {
+			update(single, 1, delta);
+		} finally {
+			single[0] = null;
+		}
+	}
+
+	/**
+	 * Update a set of particle systems, returning once every enabled emitter of
+	 * every system has been updated. Systems not set to update in parallel are
+	 * skipped.
+	 *
+	 * @param targets The systems to update
+	 * @param count The number of systems to update from the start of the array
+	 * @param delta The amount of time in milliseconds to update by
+	 */
+	public synchronized void update(ParticleSystem[] targets, int count, int delta) {
+		size = 0;
+		for (int i=0;i<count;i++) {
+			if (targets[i].isParallel()) {
+				targets[i].startParallelUpdate(this);
+			}
+		}
+
+		synchronized (lock) {
+			this.delta = delta;
+			next = 0;
+			remaining = size;
+			failure = null;
+			running = true;
+			lock.notifyAll();
+		}
+
+		// the batch must drain before returning, even if this thread's tasks failed,
+		// as the workers are still using the task arrays
+		processBatch();
+
+		Throwable e;
+		synchronized (lock) {
+			while (remaining > 0) {
+				try {
+					lock.wait();
+				} catch (InterruptedException ex) {
+					// keep waiting, the workers are still using the batch
+				}
+			}
+			running = false;
+			e = failure;
+			failure = null;
+		}
+
+		// completed emitters are removed on this thread, in the order they were added
+		for (int i=0;i<size;i++) {
+			systems[i].finishParallelUpdate(pools[i], counts[i]);
+			systems[i] = null;
+			pools[i] = null;
+		}
+
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		if (e != null) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Add an emitter to the batch being prepared
+	 *
+	 * @param system The system owning the emitter
+	 * @param pool The pool of the emitter to update
+	 */
+	void add(ParticleSystem system, ParticleSystem.ParticlePool pool) {
+		if (size == pools.length) {
+			ParticleSystem[] newSystems = new ParticleSystem[size * 2];
+			System.arraycopy(systems, 0, newSystems, 0, size);
+			systems = newSystems;
+			ParticleSystem.ParticlePool[] newPools = new ParticleSystem.ParticlePool[size * 2];
+			System.arraycopy(pools, 0, newPools, 0, size);
+			pools = newPools;
+			counts = new int[size * 2];
+		}
+
+		systems[size] = system;
+		pools[size] = pool;
+		size++;
+	}
+
+	/**
+	 * Claim and process tasks from the current batch until there are none left
+	 */
+	private void processBatch() {
+		while (true) {
+			int task;
+			synchronized (lock) {
+				if ((!running) || (next >= size)) {
+					return;
+				}
+				task = next++;
+			}
+
+			counts[task] = 0;
+			try {
+				counts[task] = systems[task].updateEmitter(pools[task], delta);
+			} catch (Throwable e) {
+				// held until the batch has drained then thrown on the requesting thread
+				synchronized (lock) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			} finally {
+				synchronized (lock) {
+					remaining--;
+					if (remaining == 0) {
+						lock.notifyAll();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A thread that helps process batches of emitters
+	 *
+	 * @author agent
+	 */
+	private class Worker extends Thread {
+		/**
+		 * Create a new worker
+		 *
+		 * @param index The index of the worker, used to name the thread
+		 */
+		public Worker(int index) {
+			super("Particle Worker "+index);
+			setDaemon(true);
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		public void run() {
+			while (true) {
+				synchronized (lock) {
+					while ((!running) || (next >= size)) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							// just check for work again
+						}
+					}
+				}
+
+				processBatch();
+			}
+		}
+	}
+}
@@ -52,6 +52,10 @@ public class Particle {
 	protected boolean oriented = false;
 	/** The currently scalar applied on the y axis */
 	protected float scaleY = 1.0f;
+	/** The pool this particle belongs to, null if it doesn't belong to one */
+	ParticleSystem.ParticlePool pool;
+	/** The index of this particle in its pool */
+	int index;
 
 	/**
 	 * Create a new particle belonging to given engine
@@ -0,0 +1,266 @@
+package org.newdawn.slick.particles;
+
+/**
+ * The particles of a single emitter held as a structure of arrays rather than as
+ * Particle objects. Each property of the particles is held in its own array and
+ * the live particles always occupy the indices 0 to getCount()-1, so an emitter
+ * can update all of them in a single tight loop without allocating anything.
+ *
+ * When a particle is removed the last particle is moved into its place, so the
+ * index of a particle is only stable until the next removal.
+ *
+ * A full buffer grows, doubling its capacity, until it reaches its limit. The
+ * arrays are replaced when the buffer grows so references to them shouldn't be
+ * kept across adding particles.
+ *
+ * @see BulkParticleEmitter
+ * @author agent
+ */
+public class ParticleBuffer {
+	/** The x coordinate of each particle */
+	public float[] x;
+	/** The y coordinate of each particle */
+	public float[] y;
+	/** The x component of the velocity of each particle */
+	public float[] velx;
+	/** The y component of the velocity of each particle */
+	public float[] vely;
+	/** The size in pixels of each particle */
+	public float[] size;
+	/** The life left in each particle in milliseconds */
+	public float[] life;
+	/** The life each particle started with in milliseconds */
+	public float[] originalLife;
+	/** The red component of the colour of each particle */
+	public float[] r;
+	/** The green component of the colour of each particle */
+	public float[] g;
+	/** The blue component of the colour of each particle */
+	public float[] b;
+	/** The alpha component of the colour of each particle */
+	public float[] a;
+	/** The scale applied on the y axis to each particle */
+	public float[] scaleY;
+	/** The type identifier of each particle */
+	public int[] type;
+
+	/** The number of live particles */
+	private int count;
+	/** The most particles the buffer may grow to hold */
+	private int limit;
+	/** The number of particles that couldn't be added since the count was reset */
+	int refused;
+
+	/**
+	 * Create a new buffer that won't grow
+	 *
+	 * @param capacity The most particles the buffer can hold
+	 */
+	public ParticleBuffer(int capacity) {
+		this(capacity, capacity);
+	}
+
+	/**
+	 * Create a new buffer
+	 *
+	 * @param capacity The number of particles the buffer can initially hold
+	 * @param limit The most particles the buffer may grow to hold
+	 */
+	public ParticleBuffer(int capacity, int limit) {
+		this.limit = Math.max(capacity, limit);
+		x = new float[capacity];
+		y = new float[capacity];
+		velx = new float[capacity];
+		vely = new float[capacity];
+		size = new float[capacity];
+		life = new float[capacity];
+		originalLife = new float[capacity];
+		r = new float[capacity];
+		g = new float[capacity];
+		b = new float[capacity];
+		a = new float[capacity];
+		scaleY = new float[capacity];
+		type = new int[capacity];
+	}
+
+	/**
+	 * Get the number of live particles, held at the indices 0 to count-1
+	 *
+	 * @return The number of live particles
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the most particles the buffer can hold
+	 *
+	 * @return The most particles the buffer can hold
+	 */
+	public int getCapacity() {
+		return x.length;
+	}
+
+	/**
+	 * Set the number of particles the buffer can hold, never less than the
+	 * number of live particles
+	 *
+	 * @param capacity The number of particles the buffer can hold
+	 */
+	public void setCapacity(int capacity) {
+		capacity = Math.max(capacity, count);
+		if (capacity == x.length) {
+			return;
+		}
+
+		x = resize(x, capacity);
+		y = resize(y, capacity);
+		velx = resize(velx, capacity);
+		vely = resize(vely, capacity);
+		size = resize(size, capacity);
+		life = resize(life, capacity);
+		originalLife = resize(originalLife, capacity);
+		r = resize(r, capacity);
+		g = resize(g, capacity);
+		b = resize(b, capacity);
+		a = resize(a, capacity);
+		scaleY = resize(scaleY, capacity);
+		int[] newType = new int[capacity];
+		System.arraycopy(type, 0, newType, 0, count);
+		type = newType;
+	}
+
+	/**
+	 * Copy the live particles' values of a property into a new array
+	 *
+	 * @param values The values of the property
+	 * @param capacity The size of the new array
+	 * @return The new array holding the live particles' values
+	 */
+	private float[] resize(float[] values, int capacity) {
+		float[] newValues = new float[capacity];
+		System.arraycopy(values, 0, newValues, 0, count);
+		return newValues;
+	}
+
+	/**
+	 * Get the most particles the buffer may grow to hold
+	 *
+	 * @return The most particles the buffer may grow to hold
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Set the most particles the buffer may grow to hold, the buffer only
+	 * grows when full
+	 *
+	 * @param limit The most particles the buffer may grow to hold
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Add a particle to the buffer. The particle is given the same state as a
+	 * Particle newly taken from the system - at the origin, still, white, 10
+	 * pixels in size and of type 0.
+	 *
+	 * @param initialLife The life of the new particle in milliseconds
+	 * @return The index of the new particle or -1 if the buffer is full and
+	 * can't grow
+	 */
+	public int add(float initialLife) {
+		if (count == x.length) {
+			if (count >= limit) {
+				refused++;
+				return -1;
+			}
+			setCapacity(Math.min(limit, Math.max(1, count * 2)));
+		}
+
+		int i = count++;
+		x[i] = 0;
+		y[i] = 0;
+		velx[i] = 0;
+		vely[i] = 0;
+		size[i] = 10;
+		life[i] = initialLife;
+		originalLife[i] = initialLife;
+		r[i] = 1;
+		g[i] = 1;
+		b[i] = 1;
+		a[i] = 1;
+		scaleY[i] = 1;
+		type[i] = 0;
+
+		return i;
+	}
+
+	/**
+	 * Remove a particle from the buffer, the last particle is moved into its place
+	 *
+	 * @param index The index of the particle to remove
+	 */
+	public void remove(int index) {
+		int last = --count;
+		if (index == last) {
+			return;
+		}
+
+		x[index] = x[last];
+		y[index] = y[last];
+		velx[index] = velx[last];
+		vely[index] = vely[last];
+		size[index] = size[last];
+		life[index] = life[last];
+		originalLife[index] = originalLife[last];
+		r[index] = r[last];
+		g[index] = g[last];
+		b[index] = b[last];
+		a[index] = a[last];
+		scaleY[index] = scaleY[last];
+		type[index] = type[last];
+	}
+
+	/**
+	 * Remove all the particles
+	 */
+	public void clear() {
+		count = 0;
+	}
+
+	/**
+	 * Move all the particles a fixed amount
+	 *
+	 * @param dx The amount to move the particles on the x axis
+	 * @param dy The amount to move the particles on the y axis
+	 */
+	public void move(float dx, float dy) {
+		for (int i=0;i<count;i++) {
+			x[i] += dx;
+			y[i] += dy;
+		}
+	}
+
+	/**
+	 * Age all the particles, moving those still alive by their velocity and
+	 * removing those whose life has run out
+	 *
+	 * @param delta The time passed in milliseconds
+	 */
+	public void update(int delta) {
+		// walk backwards so the particle moved into a removed one's place has
+		// already been updated
+		for (int i=count-1;i>=0;i--) {
+			life[i] -= delta;
+			if (life[i] > 0) {
+				x[i] += delta * velx[i];
+				y[i] += delta * vely[i];
+			} else {
+				remove(i);
+			}
+		}
+	}
+}
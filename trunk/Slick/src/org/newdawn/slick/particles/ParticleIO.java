@@ -568,6 +568,7 @@ public class ParticleIO {
 
 			emitter.addColorPoint(offset, new Color(r, g, b, 1));
 		}
+		emitter.compile();
 
 		// generate new random play length
 		emitter.replay();
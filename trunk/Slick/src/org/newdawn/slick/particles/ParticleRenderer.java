@@ -0,0 +1,398 @@
+package org.newdawn.slick.particles;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.opengl.Texture;
+import org.newdawn.slick.opengl.TextureImpl;
+import org.newdawn.slick.opengl.renderer.Renderer;
+import org.newdawn.slick.opengl.renderer.SGL;
+
+/**
+ * Renders the particles of an emitter with as few GL calls as possible. Each
+ * particle drawn as a quad is transformed on the CPU, just as Particle.render()
+ * would have it transformed by the matrix stack, into a single interleaved
+ * vertex buffer that's drawn with one call once the emitter's particles have
+ * all been added. The buffer is only drawn early if particles change texture.
+ *
+ * Particles drawn as points can't be sized individually within a single call,
+ * so they're grouped by point size, rounded to the nearest POINT_STEP pixels,
+ * and each group is drawn as a single primitive. Points are drawn after quads
+ * and the order of points of different sizes isn't kept.
+ *
+ * @author agent
+ */
+class ParticleRenderer {
+	/** The renderer to use for all GL operations */
+	protected static SGL GL = Renderer.get();
+
+	/** The number of floats for each vertex - x, y, u, v, r, g, b, a */
+	private static final int VERTEX_SIZE = 8;
+	/** The number of floats for each quad */
+	private static final int QUAD_SIZE = VERTEX_SIZE * 4;
+	/** The number of floats for each point - x, y, r, g, b, a */
+	private static final int POINT_SIZE = 6;
+	/** The number of particles space is initially allocated for */
+	private static final int DEFAULT_CAPACITY = 256;
+	/** The size in pixels point sizes are rounded to */
+	private static final float POINT_STEP = 0.5f;
+	/** The number of different point sizes, points larger than this are drawn at the largest size */
+	private static final int POINT_SIZES = 256;
+	/** The index of the image's corner colour for each vertex of a quad */
+	private static final int[] CORNERS = new int[] {Image.TOP_LEFT, Image.BOTTOM_LEFT,
+													Image.BOTTOM_RIGHT, Image.TOP_RIGHT};
+
+	/** The vertex data of each quad */
+	private float[] quads = new float[DEFAULT_CAPACITY * QUAD_SIZE];
+	/** The number of quads added since the quads were last drawn */
+	private int quadCount;
+	/** The buffer the vertex data is passed to the card in */
+	private FloatBuffer buffer;
+
+	/** The data of each point */
+	private float[] points = new float[DEFAULT_CAPACITY * POINT_SIZE];
+	/** The size group of each point */
+	private int[] pointSizes = new int[DEFAULT_CAPACITY];
+	/** The indices of the points ordered by size group */
+	private int[] pointOrder = new int[DEFAULT_CAPACITY];
+	/** The index in the ordered points that each size group starts at */
+	private int[] sizeStarts = new int[POINT_SIZES + 1];
+	/** The number of points added since the points were last drawn */
+	private int pointCount;
+
+	/** The image the quads are being drawn with */
+	private Image image;
+	/** The texture the quads are being drawn with */
+	private Texture texture;
+	/** The left texture coordinate of the image */
+	private float u1;
+	/** The top texture coordinate of the image */
+	private float v1;
+	/** The right texture coordinate of the image */
+	private float u2;
+	/** The bottom texture coordinate of the image */
+	private float v2;
+	/** The alpha of the image */
+	private float alpha;
+	/** True if the image is rotated */
+	private boolean rotated;
+	/** The cosine of the image's rotation */
+	private float cos;
+	/** The sine of the image's rotation */
+	private float sin;
+	/** The x coordinate of the image's centre of rotation */
+	private float centerX;
+	/** The y coordinate of the image's centre of rotation */
+	private float centerY;
+	/** The corner colours of the image, null if not set */
+	private Color[] corners = new Color[4];
+	/** True if the image has corner colours */
+	private boolean cornered;
+
+	/** The x coordinate of each corner of the quad being added */
+	private float[] cornerX = new float[4];
+	/** The y coordinate of each corner of the quad being added */
+	private float[] cornerY = new float[4];
+
+	/**
+	 * Add all the particles in a buffer
+	 *
+	 * @param particles The particles to add
+	 * @param image The image to draw the particles with
+	 * @param oriented True if the particles are oriented based on their position
+	 * @param usePoints True if the particles should be drawn as points
+	 */
+	public void add(ParticleBuffer particles, Image image, boolean oriented, boolean usePoints) {
+		int count = particles.getCount();
+		if (usePoints) {
+			for (int i=0;i<count;i++) {
+				addPoint(particles.x[i], particles.y[i], particles.size[i],
+						 particles.r[i], particles.g[i], particles.b[i], particles.a[i]);
+			}
+			return;
+		}
+
+		setImage(image);
+		for (int i=0;i<count;i++) {
+			addQuad(particles.x[i], particles.y[i], particles.size[i], particles.scaleY[i], oriented,
+					particles.r[i], particles.g[i], particles.b[i], particles.a[i]);
+		}
+	}
+
+	/**
+	 * Add a particle
+	 *
+	 * @param particle The particle to add
+	 * @param image The image to draw the particle with if it doesn't have its own
+	 * @param systemPoints True if the system the particle belongs to uses points
+	 */
+	public void add(Particle particle, Image image, boolean systemPoints) {
+		Color color = particle.color;
+		if ((systemPoints && (particle.usePoints == Particle.INHERIT_POINTS))
+				|| (particle.usePoints == Particle.USE_POINTS)) {
+			addPoint(particle.x, particle.y, particle.size, color.r, color.g, color.b, color.a);
+			return;
+		}
+
+		setImage(particle.image != null ? particle.image : image);
+		addQuad(particle.x, particle.y, particle.size, particle.scaleY, particle.oriented,
+				color.r, color.g, color.b, color.a);
+	}
+
+	/**
+	 * Draw all the particles added since they were last drawn
+	 */
+	public void flush() {
+		flushQuads();
+		flushPoints();
+		image = null;
+		texture = null;
+	}
+
+	/**
+	 * Set the image the following quads are drawn with, drawing the quads added
+	 * so far if the texture changes
+	 *
+	 * @param image The image to draw the following quads with
+	 */
+	private void setImage(Image image) {
+		if (image == this.image) {
+			return;
+		}
+
+		// reading the texture coordinates loads the image if required
+		u1 = image.getTextureOffsetX();
+		v1 = image.getTextureOffsetY();
+		u2 = u1 + image.getTextureWidth();
+		v2 = v1 + image.getTextureHeight();
+		alpha = image.getAlpha();
+		rotated = image.getRotation() != 0;
+		if (rotated) {
+			double radians = Math.toRadians(image.getRotation());
+			cos = (float) Math.cos(radians);
+			sin = (float) Math.sin(radians);
+			centerX = image.getCenterOfRotationX();
+			centerY = image.getCenterOfRotationY();
+		}
+		cornered = false;
+		for (int i=0;i<4;i++) {
+			corners[i] = image.getColor(CORNERS[i]);
+			cornered |= corners[i] != null;
+		}
+
+		if (image.getTexture() != texture) {
+			flushQuads();
+			texture = image.getTexture();
+		}
+		this.image = image;
+	}
+
+	/**
+	 * Add a particle drawn as a quad
+	 *
+	 * @param x The x coordinate of the particle
+	 * @param y The y coordinate of the particle
+	 * @param size The size of the particle
+	 * @param scaleY The scale applied to the particle on the y axis
+	 * @param oriented True if the particle is oriented based on its position
+	 * @param r The red component of the particle's colour
+	 * @param g The green component of the particle's colour
+	 * @param b The blue component of the particle's colour
+	 * @param a The alpha component of the particle's colour
+	 */
+	private void addQuad(float x, float y, float size, float scaleY, boolean oriented,
+						 float r, float g, float b, float a) {
+		if (quadCount * QUAD_SIZE == quads.length) {
+			float[] newQuads = new float[quads.length * 2];
+			System.arraycopy(quads, 0, newQuads, 0, quads.length);
+			quads = newQuads;
+		}
+
+		int width = (int) size;
+		if (oriented || (scaleY != 1.0f)) {
+			// as the image would be drawn, then scaled, rotated and translated
+			// to the particle's position
+			float offset = (int) (-(size / 2));
+			setCorners(width);
+			float ocos = 1;
+			float osin = 0;
+			if (oriented) {
+				float length = (float) Math.sqrt((x * x) + (y * y));
+				if (length != 0) {
+					ocos = x / length;
+					osin = y / length;
+				}
+			}
+			for (int i=0;i<4;i++) {
+				float lx = offset + cornerX[i];
+				float ly = (offset + cornerY[i]) * scaleY;
+				cornerX[i] = x + (lx * ocos) - (ly * osin);
+				cornerY[i] = y + (lx * osin) + (ly * ocos);
+			}
+			a *= alpha;
+		} else {
+			// as the image would be drawn embedded, without its rotation or alpha
+			float left = (int) (x - (size / 2));
+			float top = (int) (y - (size / 2));
+			cornerX[0] = left;
+			cornerY[0] = top;
+			cornerX[1] = left;
+			cornerY[1] = top + width;
+			cornerX[2] = left + width;
+			cornerY[2] = top + width;
+			cornerX[3] = left + width;
+			cornerY[3] = top;
+		}
+
+		int index = quadCount * QUAD_SIZE;
+		for (int i=0;i<4;i++) {
+			quads[index++] = cornerX[i];
+			quads[index++] = cornerY[i];
+			quads[index++] = (i < 2) ? u1 : u2;
+			quads[index++] = ((i == 0) || (i == 3)) ? v1 : v2;
+			if (cornered && (corners[i] != null)) {
+				Color corner = corners[i];
+				quads[index++] = corner.r;
+				quads[index++] = corner.g;
+				quads[index++] = corner.b;
+				quads[index++] = corner.a;
+			} else {
+				quads[index++] = r;
+				quads[index++] = g;
+				quads[index++] = b;
+				quads[index++] = a;
+			}
+		}
+		quadCount++;
+	}
+
+	/**
+	 * Set the corners of the quad to those of the image drawn at the origin with
+	 * its rotation applied
+	 *
+	 * @param size The width and height of the image as drawn
+	 */
+	private void setCorners(int size) {
+		cornerX[0] = 0;
+		cornerY[0] = 0;
+		cornerX[1] = 0;
+		cornerY[1] = size;
+		cornerX[2] = size;
+		cornerY[2] = size;
+		cornerX[3] = size;
+		cornerY[3] = 0;
+
+		if (rotated) {
+			for (int i=0;i<4;i++) {
+				float dx = cornerX[i] - centerX;
+				float dy = cornerY[i] - centerY;
+				cornerX[i] = centerX + (dx * cos) - (dy * sin);
+				cornerY[i] = centerY + (dx * sin) + (dy * cos);
+			}
+		}
+	}
+
+	/**
+	 * Add a particle drawn as a point
+	 *
+	 * @param x The x coordinate of the particle
+	 * @param y The y coordinate of the particle
+	 * @param size The size of the particle, the point is drawn half this size
+	 * @param r The red component of the particle's colour
+	 * @param g The green component of the particle's colour
+	 * @param b The blue component of the particle's colour
+	 * @param a The alpha component of the particle's colour
+	 */
+	private void addPoint(float x, float y, float size, float r, float g, float b, float a) {
+		if (pointCount == pointSizes.length) {
+			float[] newPoints = new float[points.length * 2];
+			System.arraycopy(points, 0, newPoints, 0, points.length);
+			points = newPoints;
+			int[] newSizes = new int[pointSizes.length * 2];
+			System.arraycopy(pointSizes, 0, newSizes, 0, pointCount);
+			pointSizes = newSizes;
+			pointOrder = new int[pointSizes.length];
+		}
+
+		int index = pointCount * POINT_SIZE;
+		points[index] = x;
+		points[index+1] = y;
+		points[index+2] = r;
+		points[index+3] = g;
+		points[index+4] = b;
+		points[index+5] = a;
+
+		int group = (int) (((size / 2) / POINT_STEP) + 0.5f);
+		pointSizes[pointCount] = Math.max(1, Math.min(POINT_SIZES - 1, group));
+		pointCount++;
+	}
+
+	/**
+	 * Draw the quads added since they were last drawn
+	 */
+	private void flushQuads() {
+		if (quadCount == 0) {
+			return;
+		}
+
+		int floats = quadCount * QUAD_SIZE;
+		if ((buffer == null) || (buffer.capacity() < floats)) {
+			buffer = BufferUtils.createFloatBuffer(quads.length);
+		}
+		buffer.clear();
+		buffer.put(quads, 0, floats);
+		buffer.flip();
+
+		texture.bind();
+		GL.drawQuads(buffer, 0, quadCount * 4);
+		quadCount = 0;
+	}
+
+	/**
+	 * Draw the points added since they were last drawn, one primitive for each
+	 * point size
+	 */
+	private void flushPoints() {
+		if (pointCount == 0) {
+			return;
+		}
+
+		// counting sort of the points by size group
+		for (int i=0;i<sizeStarts.length;i++) {
+			sizeStarts[i] = 0;
+		}
+		for (int i=0;i<pointCount;i++) {
+			sizeStarts[pointSizes[i] + 1]++;
+		}
+		for (int i=1;i<sizeStarts.length;i++) {
+			sizeStarts[i] += sizeStarts[i-1];
+		}
+		for (int i=0;i<pointCount;i++) {
+			pointOrder[sizeStarts[pointSizes[i]]++] = i;
+		}
+
+		TextureImpl.bindNone();
+		GL.glEnable(SGL.GL_POINT_SMOOTH);
+		// each start has been moved on to the end of its group
+		int start = 0;
+		for (int group=0;group<POINT_SIZES;group++) {
+			int end = sizeStarts[group];
+			if (end == start) {
+				continue;
+			}
+
+			GL.glPointSize(group * POINT_STEP);
+			GL.glBegin(SGL.GL_POINTS);
+			for (int i=start;i<end;i++) {
+				int index = pointOrder[i] * POINT_SIZE;
+				GL.glColor4f(points[index+2], points[index+3], points[index+4], points[index+5]);
+				GL.glVertex2f(points[index], points[index+1]);
+			}
+			GL.glEnd();
+			start = end;
+		}
+		pointCount = 0;
+	}
+}
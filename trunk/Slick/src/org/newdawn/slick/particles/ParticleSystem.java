@@ -7,7 +7,6 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 
 import org.newdawn.slick.Color;
 import org.newdawn.slick.Image;
@@ -21,6 +20,27 @@ import org.newdawn.slick.util.Log;
  * A particle syste responsible for maintaining a set of data about individual 
  * particles which are created and controlled by assigned emitters. This pseudo 
  * chaotic nature hopes to give more organic looking effects
+ * 
+ * Emitters that implement BulkParticleEmitter are given a ParticleBuffer to keep
+ * their particles in rather than a pool of Particle objects, other than subclasses
+ * of ConfigurableEmitter that update particles themselves.
+ * 
+ * By default the particles of each emitter are drawn in a single batch rather 
+ * than one at a time, see setBatchRendering().
+ * 
+ * Each emitter has its own pool of particles, which starts with the number of 
+ * particles given when the system is created. Pools can be allowed to grow when 
+ * they run out, see setParticleLimit(), and to shrink again, see setPoolShrinking().
+ * The peak and refused particle counts show how many particles the emitters 
+ * really need.
+ * 
+ * Systems can optionally be updated in parallel, see setParallel() and 
+ * update(ParticleSystem[], int). Each emitter, along with the particles it produced, 
+ * is then updated on whichever thread is free, so emitters must be independent of 
+ * each other - an emitter may only touch its own particles and mustn't add or remove 
+ * emitters while being updated. Emitters wanting results that don't depend on the 
+ * number of threads should keep their own random number generator rather than 
+ * sharing Math.random().
  *
  * @author kevin
  */
@@ -35,9 +55,51 @@ public class ParticleSystem {
 	
 	/** The default number of particles in the system */
 	private static final int DEFAULT_PARTICLES = 100;
+	/** The time in milliseconds a pool must use less than a quarter of its particles for before shrinking */
+	private static final int SHRINK_DELAY = 5000;
 
 	/** List of emitters to be removed */
 	private ArrayList removeMe = new ArrayList();
+	/** The emitters being updated this frame, reused to avoid copying the list each frame */
+	private ArrayList updating = new ArrayList();
+	
+	/**
+	 * Check if an emitter keeps its particles in a ParticleBuffer
+	 * 
+	 * @param emitter The emitter to check
+	 * @return True if the emitter is given a ParticleBuffer rather than Particle objects
+	 */
+	private static boolean usesBuffer(ParticleEmitter emitter) {
+		if (emitter instanceof ConfigurableEmitter) {
+			return ((ConfigurableEmitter) emitter).usesBulkUpdate();
+		}
+		
+		return emitter instanceof BulkParticleEmitter;
+	}
+	
+	/**
+	 * Update a set of systems, spreading the emitters of all the systems set to
+	 * update in parallel (see setParallel()) across the available processors. The
+	 * other systems are updated one after another on the calling thread, exactly
+	 * as update(int) would. Returns once every system has been updated.
+	 * 
+	 * @param systems The systems to update
+	 * @param delta The amount of time thats passed since last update in milliseconds
+	 */
+	public static void update(ParticleSystem[] systems, int delta) {
+		boolean parallel = false;
+		for (int i=0;i<systems.length;i++) {
+			if (systems[i].isParallel()) {
+				parallel = true;
+			} else {
+				systems[i].update(delta);
+			}
+		}
+		
+		if (parallel) {
+			ParallelParticleUpdater.get().update(systems, systems.length, delta);
+		}
+	}
 	
 	/**
 	 * Set the path from which images should be loaded
@@ -50,60 +112,224 @@ public class ParticleSystem {
 	}
 	
 	/**
-	 * A pool of particles being used by a specific emitter
+	 * A pool of particles being used by a specific emitter. The particles in use
+	 * are always held at the start of the array, so a particle is taken from the
+	 * pool by using the first free particle and returned by swapping it with the
+	 * last particle in use. 
 	 * 
 	 * @author void
 	 */
-	private class ParticlePool
+	class ParticlePool
 	{
-		/** The particles being rendered and maintained */
+		/** The emitter using the particles */
+		public ParticleEmitter emitter;
+		/** The particles being rendered and maintained, those in use first */
 		public Particle[] particles;
-		/** The list of particles left to be used, if this size() == 0 then the particle engine was too small for the effect */
-		public ArrayList available;
+		/** The number of particles in use, held at the start of the array */
+		public int used;
+		/** The particles of a bulk emitter, null if the emitter uses particle objects */
+		public ParticleBuffer buffer;
+		/** True if the particles can be drawn by the particle renderer, i.e. they don't override render() */
+		public boolean batchable = true;
+		/** The most particles the pool may grow to */
+		public int limit;
+		/** The most particles in use at once since the stats were reset */
+		public int peak;
+		/** The number of particles that couldn't be given out since the stats were reset */
+		public int refused;
+		/** The most particles in use at once since the pool last considered shrinking */
+		public int recentPeak;
+		/** The time in milliseconds since the pool last considered shrinking */
+		public int recentTime;
 		
 		/**
 		 * Create a new particle pool contiaining a set of particles
 		 * 
-		 * @param system The system that owns the particles over all
-		 * @param maxParticles The maximum number of particles in the pool
+		 * @param emitter The emitter that will use the particles
+		 * @param maxParticles The number of particles initially in the pool
+		 * @param limit The most particles the pool may grow to
 		 */
-		public ParticlePool( ParticleSystem system, int maxParticles )
+		public ParticlePool( ParticleEmitter emitter, int maxParticles, int limit )
 		{
-			particles = new Particle[ maxParticles ];
-			available = new ArrayList();
+			this.emitter = emitter;
+			this.limit = limit;
+			if (usesBuffer(emitter)) {
+				particles = new Particle[0];
+				buffer = new ParticleBuffer(maxParticles, limit);
+			} else {
+				particles = new Particle[0];
+				setCapacity(maxParticles);
+			}
+		}
+		
+		/**
+		 * Get the number of particles the pool currently holds
+		 * 
+		 * @return The number of particles the pool currently holds
+		 */
+		public int getCapacity() {
+			return buffer != null ? buffer.getCapacity() : particles.length;
+		}
+		
+		/**
+		 * Get the number of particles in use
+		 * 
+		 * @return The number of particles in use
+		 */
+		public int getUsed() {
+			return buffer != null ? buffer.getCount() : used;
+		}
+		
+		/**
+		 * Set the number of particles the pool holds, never less than the number
+		 * in use
+		 * 
+		 * @param capacity The number of particles the pool should hold
+		 */
+		public void setCapacity(int capacity) {
+			if (buffer != null) {
+				buffer.setCapacity(capacity);
+				return;
+			}
 			
-			for( int i=0; i<particles.length; i++ )
-			{
-				particles[i] = createParticle( system );
+			capacity = Math.max(capacity, used);
+			Particle[] newParticles = new Particle[capacity];
+			System.arraycopy(particles, 0, newParticles, 0, Math.min(capacity, particles.length));
+			for (int i=particles.length;i<capacity;i++) {
+				Particle particle = createParticle(ParticleSystem.this);
+				particle.pool = this;
+				particle.index = i;
+				batchable &= particle.getClass() == Particle.class;
+				newParticles[i] = particle;
+			}
+			particles = newParticles;
+		}
+		
+		/**
+		 * Set the most particles the pool may grow to
+		 * 
+		 * @param limit The most particles the pool may grow to
+		 */
+		public void setLimit(int limit) {
+			this.limit = limit;
+			if (buffer != null) {
+				buffer.setLimit(limit);
+			}
+		}
+		
+		/**
+		 * Take a particle from the pool, growing the pool if it's full
+		 * 
+		 * @return The particle taken or null if the pool is full and can't grow
+		 */
+		public Particle allocate() {
+			if (used == particles.length) {
+				if (used >= limit) {
+					refused++;
+					return null;
+				}
+				setCapacity(Math.min(limit, Math.max(1, used * 2)));
 			}
 			
-			reset(system);
+			return particles[used++];
 		}
 		
 		/**
-		 * Rest the list of particles
+		 * Return a particle to the pool, swapping it with the last particle in use
 		 * 
-		 * @param system The system in which the particle belong
+		 * @param particle The particle to return
+		 */
+		public void release(Particle particle) {
+			int index = particle.index;
+			if ((index >= used) || (particles[index] != particle)) {
+				// already returned
+				return;
+			}
+			
+			int last = --used;
+			Particle moved = particles[last];
+			particles[index] = moved;
+			moved.index = index;
+			particles[last] = particle;
+			particle.index = last;
+		}
+		
+		/**
+		 * Return all the particles to the pool, they're no longer in use
 		 */
-		public void reset(ParticleSystem system) {
-			available.clear();
+		public void releaseAll() {
+			if (buffer != null) {
+				buffer.clear();
+			}
 			
-			for( int i=0; i<particles.length; i++ )
-			{
-				available.add(particles[i]);
+			for (int i=0;i<used;i++) {
+				particles[i].life = -1;
+			}
+			used = 0;
+		}
+		
+		/**
+		 * Record the particles in use, shrinking the pool if it's been mostly 
+		 * unused for a while
+		 * 
+		 * @param delta The amount of time thats passed since last update in milliseconds
+		 * @param shrink True if the pool should shrink when mostly unused
+		 */
+		public void record(int delta, boolean shrink) {
+			int current = getUsed();
+			peak = Math.max(peak, current);
+			if (!shrink) {
+				return;
+			}
+			
+			recentPeak = Math.max(recentPeak, current);
+			recentTime += delta;
+			if (recentTime >= SHRINK_DELAY) {
+				int capacity = getCapacity();
+				if ((recentPeak < capacity / 4) && (capacity > maxParticlesPerEmitter)) {
+					setCapacity(Math.max(maxParticlesPerEmitter, capacity / 2));
+				}
+				recentPeak = 0;
+				recentTime = 0;
+			}
+		}
+		
+		/**
+		 * Get the number of particles that couldn't be given out since the stats
+		 * were reset
+		 * 
+		 * @return The number of particles that couldn't be given out
+		 */
+		public int getRefused() {
+			return refused + (buffer != null ? buffer.refused : 0);
+		}
+		
+		/**
+		 * Reset the stats on the pool's use
+		 */
+		public void resetStats() {
+			peak = getUsed();
+			refused = 0;
+			if (buffer != null) {
+				buffer.refused = 0;
 			}
 		}
 	}
 	
 	/**
-	 * A map from emitter to a the particle pool holding the particles it uses
 	 * void: this is now sorted by emitters to allow emitter specfic state to be set for
 	 * each emitter. actually this is used to allow setting an individual blend mode for
 	 * each emitter
 	 */
 	protected HashMap particlesByEmitter = new HashMap();
-	/** The maximum number of particles allows per emitter */
+	/** The pool of particles used by each emitter, in the same order as the emitters */
+	private ArrayList pools = new ArrayList();
+	/** The number of particles each emitter's pool starts with, and the least it shrinks to */
 	protected int maxParticlesPerEmitter;
+	/** The most particles each emitter's pool may grow to */
+	private int particleLimit;
+	/** True if pools that have grown should shrink again when mostly unused */
+	private boolean poolShrinking;
 	
 	/** The list of emittered producing and controlling particles */
 	protected ArrayList emitters = new ArrayList();
@@ -122,6 +348,12 @@ public class ParticleSystem {
 	private float y;
 	/** True if we should remove completed emitters */
 	private boolean removeCompletedEmitters = true;
+	/** True if the emitters should be updated in parallel */
+	private boolean parallel;
+	/** True if the particles of each emitter should be drawn in a single batch */
+	private boolean batchRendering = true;
+	/** The renderer used to draw the particles in batches, created when first used */
+	private ParticleRenderer renderer;
 
 	/** The default image for the particles */
 	private Image sprite;
@@ -154,10 +386,9 @@ public class ParticleSystem {
 	 * Reset the state of the system
 	 */
 	public void reset() {
-		Iterator pools = particlesByEmitter.values().iterator();
-		while (pools.hasNext()) {
-			ParticlePool pool = (ParticlePool) pools.next();
-			pool.reset(this);
+		for (int i=0;i<pools.size();i++) {
+			ParticlePool pool = (ParticlePool) pools.get(i);
+			pool.releaseAll();
 		}
 		
 		for (int i=0;i<emitters.size();i++) {
@@ -195,6 +426,45 @@ public class ParticleSystem {
 		removeCompletedEmitters = remove;
 	}
 	
+	/**
+	 * Indicate if the emitters should be updated in parallel. The emitters must be 
+	 * independent of each other to be updated in parallel.
+	 * 
+	 * @param parallel True if the emitters should be updated in parallel
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+	
+	/**
+	 * Check if the emitters are updated in parallel
+	 * 
+	 * @return True if the emitters are updated in parallel
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+	
+	/**
+	 * Indicate if the particles of each emitter should be drawn in a single batch
+	 * rather than one at a time. Particles created by an overridden createParticle()
+	 * are always drawn one at a time in case they render themselves differently.
+	 * 
+	 * @param batchRendering True if the particles of each emitter should be drawn in a batch
+	 */
+	public void setBatchRendering(boolean batchRendering) {
+		this.batchRendering = batchRendering;
+	}
+	
+	/**
+	 * Check if the particles of each emitter are drawn in a single batch
+	 * 
+	 * @return True if the particles of each emitter are drawn in a single batch
+	 */
+	public boolean isBatchRendering() {
+		return batchRendering;
+	}
+	
 	/**
 	 * Indicate if this engine should use points to render the particles
 	 * 
@@ -232,6 +502,7 @@ public class ParticleSystem {
 	 */
 	public ParticleSystem(String defaultSpriteRef, int maxParticles, Color mask) {
 		this.maxParticlesPerEmitter= maxParticles;
+		this.particleLimit = maxParticles;
 		this.mask = mask;
 		
 		setDefaultImageName(defaultSpriteRef);
@@ -246,6 +517,7 @@ public class ParticleSystem {
 	 */
 	public ParticleSystem(Image defaultSprite, int maxParticles) {
 		this.maxParticlesPerEmitter= maxParticles;
+		this.particleLimit = maxParticles;
 	
 		sprite = defaultSprite;
 		dummy = createParticle(this);
@@ -319,8 +591,9 @@ public class ParticleSystem {
 	public void addEmitter(ParticleEmitter emitter) {
 		emitters.add(emitter);
 		
-		ParticlePool pool= new ParticlePool( this, maxParticlesPerEmitter );
+		ParticlePool pool = new ParticlePool( emitter, maxParticlesPerEmitter, particleLimit );
 		particlesByEmitter.put( emitter, pool );
+		pools.add(pool);
 	}
 	
 	/**
@@ -330,7 +603,23 @@ public class ParticleSystem {
 	 */
 	public void removeEmitter(ParticleEmitter emitter) {
 		emitters.remove(emitter);
-		particlesByEmitter.remove(emitter);
+		
+		ParticlePool pool = (ParticlePool) particlesByEmitter.remove(emitter);
+		if (pool != null) {
+			pools.remove(pool);
+		}
+	}
+	
+	/**
+	 * Get the pool of particles used by an emitter. The map isn't modified while
+	 * the emitters are being updated, so this may be called from several threads
+	 * during a parallel update.
+	 * 
+	 * @param emitter The emitter to get the pool for
+	 * @return The pool used by the emitter or null if the emitter hasn't been added
+	 */
+	private ParticlePool getPool(ParticleEmitter emitter) {
+		return (ParticlePool) particlesByEmitter.get(emitter);
 	}
 	
 	/**
@@ -406,10 +695,11 @@ public class ParticleSystem {
 		}
 		
 		// iterate over all emitters
-		for( int emitterIdx=0; emitterIdx<emitters.size(); emitterIdx++ )
+		for( int emitterIdx=0; emitterIdx<pools.size(); emitterIdx++ )
 		{
-			// get emitter
-			ParticleEmitter emitter = (ParticleEmitter) emitters.get(emitterIdx);
+			// get emitter and the particle pool for it
+			ParticlePool pool = (ParticlePool) pools.get(emitterIdx);
+			ParticleEmitter emitter = pool.emitter;
 			
 			if (!emitter.isEnabled()) {
 				continue;
@@ -420,25 +710,44 @@ public class ParticleSystem {
 				GL.glBlendFunc(SGL.GL_SRC_ALPHA, SGL.GL_ONE);
 			}
 			
-			// now get the particle pool for this emitter and render all particles that are in use
-			ParticlePool pool = (ParticlePool) particlesByEmitter.get(emitter);
+			// now render all particles in the pool that are in use
 			Image image = emitter.getImage();
 			if (image == null) {
 				image = this.sprite;
 			}
 			
-			if (!emitter.isOriented() && !emitter.usePoints(this)) {
-				image.startUse();
-			}
-			
-			for (int i = 0; i < pool.particles.length; i++)
-			{
-				if (pool.particles[i].inUse())
-					pool.particles[i].render();
-			} 
-			
-			if (!emitter.isOriented() && !emitter.usePoints(this)) {
-				image.endUse();
+			if (batchRendering && pool.batchable) {
+				if (renderer == null) {
+					renderer = new ParticleRenderer();
+				}
+				
+				// all the emitter's particles in as few calls as possible
+				if (pool.buffer != null) {
+					renderer.add(pool.buffer, image, emitter.isOriented(), emitter.usePoints(this));
+				}
+				for (int i = 0; i < pool.used; i++)
+				{
+					if (pool.particles[i].inUse())
+						renderer.add(pool.particles[i], image, usePoints);
+				}
+				renderer.flush();
+			} else {
+				if (!emitter.isOriented() && !emitter.usePoints(this)) {
+					image.startUse();
+				}
+				
+				if (pool.buffer != null) {
+					render(pool.buffer, emitter, image);
+				}
+				for (int i = 0; i < pool.used; i++)
+				{
+					if (pool.particles[i].inUse())
+						pool.particles[i].render();
+				} 
+				
+				if (!emitter.isOriented() && !emitter.usePoints(this)) {
+					image.endUse();
+				}
 			}
 
 			// reset additive blend mode
@@ -458,6 +767,50 @@ public class ParticleSystem {
 		GL.glTranslatef(-x,-y,0);
 	}
 	
+	/**
+	 * Render the particles of a bulk emitter, just as each would render if it
+	 * were a Particle
+	 * 
+	 * @param particles The particles to render
+	 * @param emitter The emitter that produced the particles
+	 * @param image The image to render each particle with
+	 */
+	private void render(ParticleBuffer particles, ParticleEmitter emitter, Image image) {
+		boolean points = emitter.usePoints(this);
+		boolean oriented = emitter.isOriented();
+		
+		for (int i=0;i<particles.getCount();i++) {
+			float px = particles.x[i];
+			float py = particles.y[i];
+			float size = particles.size[i];
+			
+			if (points) {
+				TextureImpl.bindNone();
+				GL.glEnable(SGL.GL_POINT_SMOOTH);
+				GL.glPointSize(size / 2);
+				GL.glColor4f(particles.r[i], particles.g[i], particles.b[i], particles.a[i]);
+				GL.glBegin(SGL.GL_POINTS);
+				GL.glVertex2f(px, py);
+				GL.glEnd();
+			} else if (oriented || (particles.scaleY[i] != 1.0f)) {
+				GL.glPushMatrix();
+				GL.glTranslatef(px, py, 0f);
+				if (oriented) {
+					float angle = (float) (Math.atan2(py, px) * 180 / Math.PI);
+					GL.glRotatef(angle, 0f, 0f, 1.0f);
+				}
+				GL.glScalef(1.0f, particles.scaleY[i], 1.0f);
+				
+				image.draw((int) (-(size / 2)), (int) (-(size / 2)), (int) size, (int) size,
+						   Color.pack(particles.r[i], particles.g[i], particles.b[i], particles.a[i]));
+				GL.glPopMatrix();
+			} else {
+				GL.glColor4f(particles.r[i], particles.g[i], particles.b[i], particles.a[i]);
+				image.drawEmbedded((int) (px - (size / 2)), (int) (py - (size / 2)), (int) size, (int) size);
+			}
+		}
+	}
+	
 	/**
 	 * Load the system particle image as the extension permissions
 	 */
@@ -485,45 +838,131 @@ public class ParticleSystem {
 	 * @param delta The amount of time thats passed since last update in milliseconds
 	 */
 	public void update(int delta) {
+		if (parallel) {
+			ParallelParticleUpdater.get().update(this, delta);
+			return;
+		}
+		
 		if ((sprite == null) && (defaultImageName != null)) {
 			loadSystemParticleImage();
 		}
 		
 		removeMe.clear();
-		ArrayList emitters = new ArrayList(this.emitters);
-		for (int i=0;i<emitters.size();i++) {
-			ParticleEmitter emitter = (ParticleEmitter) emitters.get(i);
+		// emitters may add or remove emitters as they update
+		updating.clear();
+		for (int i=0;i<pools.size();i++) {
+			updating.add(pools.get(i));
+		}
+		for (int i=0;i<updating.size();i++) {
+			ParticleEmitter emitter = ((ParticlePool) updating.get(i)).emitter;
 			if (emitter.isEnabled()) {
 				emitter.update(this, delta);
 				if (removeCompletedEmitters) {
 					if (emitter.completed()) {
 						removeMe.add(emitter);
-						particlesByEmitter.remove(emitter);
 					}
 				}
 			}
 		}
-		this.emitters.removeAll(removeMe);
+		updating.clear();
+		for (int i=0;i<removeMe.size();i++) {
+			removeEmitter((ParticleEmitter) removeMe.get(i));
+		}
 		
 		pCount = 0;
+		for (int i=0;i<pools.size();i++) {
+			ParticlePool pool = (ParticlePool) pools.get(i);
+			if (pool.emitter.isEnabled()) {
+				pCount += updateParticles(pool, delta);
+			}
+		}
+	}
+	
+	/**
+	 * Update the particles produced by a single emitter
+	 * 
+	 * @param pool The pool holding the emitter's particles
+	 * @param delta The amount of time thats passed since last update in milliseconds
+	 * @return The number of particles still alive
+	 */
+	private int updateParticles(ParticlePool pool, int delta) {
+		pool.record(delta, poolShrinking);
 		
-		if (!particlesByEmitter.isEmpty())
-		{
-			Iterator it= particlesByEmitter.keySet().iterator();
-			while (it.hasNext())
-			{
-				ParticleEmitter emitter = (ParticleEmitter) it.next();
-				if (emitter.isEnabled()) {
-					ParticlePool pool = (ParticlePool) particlesByEmitter.get(emitter);
-					for (int i=0;i<pool.particles.length;i++) {
-						if (pool.particles[i].life > 0) {
-							pool.particles[i].update(delta);
-							pCount++;
-						}
-					}
-				}
+		// particles are counted while alive before aging, whichever way they're held
+		int count = 0;
+		if (pool.buffer != null) {
+			count += pool.buffer.getCount();
+			((BulkParticleEmitter) pool.emitter).updateParticles(pool.buffer, delta);
+			pool.buffer.update(delta);
+		}
+		// walk backwards so the particle swapped into a released one's place 
+		// has already been updated
+		for (int i=pool.used-1;i>=0;i--) {
+			Particle particle = pool.particles[i];
+			if (particle.life > 0) {
+				particle.update(delta);
+				count++;
+			} else {
+				pool.release(particle);
 			}
 		}
+		
+		return count;
+	}
+	
+	/**
+	 * Prepare to update the system in parallel, adding each enabled emitter to the
+	 * batch being prepared. Called on the thread requesting the update.
+	 * 
+	 * @param updater The updater preparing the batch
+	 */
+	void startParallelUpdate(ParallelParticleUpdater updater) {
+		if ((sprite == null) && (defaultImageName != null)) {
+			loadSystemParticleImage();
+		}
+		
+		pCount = 0;
+		for (int i=0;i<pools.size();i++) {
+			ParticlePool pool = (ParticlePool) pools.get(i);
+			if (pool.emitter.isEnabled()) {
+				updater.add(this, pool);
+			}
+		}
+	}
+	
+	/**
+	 * Update a single emitter and the particles it produced. Called on any of the 
+	 * threads processing a parallel update.
+	 * 
+	 * @param pool The pool of the emitter to update
+	 * @param delta The amount of time thats passed since last update in milliseconds
+	 * @return The number of particles still alive or -1 if the emitter completed and
+	 * should be removed
+	 */
+	int updateEmitter(ParticlePool pool, int delta) {
+		ParticleEmitter emitter = pool.emitter;
+		emitter.update(this, delta);
+		if (removeCompletedEmitters && emitter.completed()) {
+			return -1;
+		}
+		
+		return updateParticles(pool, delta);
+	}
+	
+	/**
+	 * Complete the parallel update of a single emitter. Called on the thread requesting
+	 * the update once all the emitters have been updated.
+	 * 
+	 * @param pool The pool of the emitter that was updated
+	 * @param count The number of particles still alive or -1 if the emitter should
+	 * be removed
+	 */
+	void finishParallelUpdate(ParticlePool pool, int count) {
+		if (count < 0) {
+			removeEmitter(pool.emitter);
+		} else {
+			pCount += count;
+		}
 	}
 	
 	/**
@@ -545,11 +984,15 @@ public class ParticleSystem {
 	 */
 	public Particle getNewParticle(ParticleEmitter emitter, float life)
 	{
-		ParticlePool pool = (ParticlePool) particlesByEmitter.get(emitter);
-		ArrayList available = pool.available;
-		if (available.size() > 0)
+		ParticlePool pool = getPool(emitter);
+		if (pool.buffer != null) {
+			Log.warn("Bulk emitters add their particles to their buffer");
+			return dummy;
+		}
+		
+		Particle p = pool.allocate();
+		if (p != null)
 		{
-			Particle p = (Particle) available.remove(available.size()-1);
 			p.init(emitter, life);
 			p.setImage(sprite);
 			
@@ -560,16 +1003,32 @@ public class ParticleSystem {
 		return dummy;
 	}
 	
+	/**
+	 * Get the buffer holding the particles of a bulk emitter. Bulk emitters
+	 * should add the particles they produce to this buffer.
+	 * 
+	 * @param emitter The emitter to get the buffer for
+	 * @return The buffer holding the emitter's particles or null if the emitter
+	 * isn't a bulk emitter or hasn't been added to this system
+	 */
+	public ParticleBuffer getParticleBuffer(ParticleEmitter emitter) {
+		ParticlePool pool = getPool(emitter);
+		if (pool == null) {
+			return null;
+		}
+		
+		return pool.buffer;
+	}
+	
 	/**
 	 * Release a particle back to the system once it has expired
 	 * 
 	 * @param particle The particle to be released
 	 */
 	public void release(Particle particle) {
-		if (particle != dummy)
+		if ((particle != dummy) && (particle.pool != null))
 		{
-			ParticlePool pool = (ParticlePool)particlesByEmitter.get( particle.getEmitter() );
-			pool.available.add(particle);
+			particle.pool.release(particle);
 		}
 	}
 	
@@ -579,21 +1038,9 @@ public class ParticleSystem {
 	 * @param emitter The emitter owning the particles that should be released
 	 */
 	public void releaseAll(ParticleEmitter emitter) {
-		if( !particlesByEmitter.isEmpty() )
-		{
-			Iterator it= particlesByEmitter.values().iterator();
-			while( it.hasNext())
-			{
-				ParticlePool pool= (ParticlePool)it.next();
-				for (int i=0;i<pool.particles.length;i++) {
-					if (pool.particles[i].inUse()) {
-						if (pool.particles[i].getEmitter() == emitter) {
-							pool.particles[i].setLife(-1);
-							release(pool.particles[i]);
-						}
-					}
-				}
-			}
+		ParticlePool pool = getPool(emitter);
+		if (pool != null) {
+			pool.releaseAll();
 		}
 	}
 	
@@ -605,14 +1052,139 @@ public class ParticleSystem {
 	 * @param y The amount on the y axis to move the particles
 	 */
 	public void moveAll(ParticleEmitter emitter, float x, float y) {
-		ParticlePool pool = (ParticlePool) particlesByEmitter.get(emitter);
-		for (int i=0;i<pool.particles.length;i++) {
+		ParticlePool pool = getPool(emitter);
+		if (pool.buffer != null) {
+			pool.buffer.move(x, y);
+		}
+		for (int i=0;i<pool.used;i++) {
 			if (pool.particles[i].inUse()) {
 				pool.particles[i].move(x, y);
 			}
 		}
 	}
 	
+	/**
+	 * Set the most particles each emitter may use. Each emitter's pool starts with
+	 * the number of particles given when the system was created and grows, doubling
+	 * in size, when it runs out until it reaches this limit. By default the pools
+	 * don't grow.
+	 * 
+	 * @param limit The most particles each emitter may use
+	 */
+	public void setParticleLimit(int limit) {
+		particleLimit = Math.max(limit, maxParticlesPerEmitter);
+		for (int i=0;i<pools.size();i++) {
+			((ParticlePool) pools.get(i)).setLimit(particleLimit);
+		}
+	}
+	
+	/**
+	 * Get the most particles each emitter may use
+	 * 
+	 * @return The most particles each emitter may use
+	 */
+	public int getParticleLimit() {
+		return particleLimit;
+	}
+	
+	/**
+	 * Indicate if pools that have grown should shrink again. A pool that uses less
+	 * than a quarter of its particles for five seconds is halved in size, though
+	 * never below the number of particles it started with.
+	 * 
+	 * @param shrinking True if pools that have grown should shrink when mostly unused
+	 */
+	public void setPoolShrinking(boolean shrinking) {
+		poolShrinking = shrinking;
+	}
+	
+	/**
+	 * Check if pools that have grown shrink again when mostly unused
+	 * 
+	 * @return True if pools that have grown shrink again when mostly unused
+	 */
+	public boolean isPoolShrinking() {
+		return poolShrinking;
+	}
+	
+	/**
+	 * Get the number of particles currently held for an emitter
+	 * 
+	 * @param emitter The emitter to check
+	 * @return The number of particles held for the emitter or 0 if the emitter 
+	 * hasn't been added to this system
+	 */
+	public int getPoolCapacity(ParticleEmitter emitter) {
+		ParticlePool pool = getPool(emitter);
+		return pool == null ? 0 : pool.getCapacity();
+	}
+	
+	/**
+	 * Get the most particles an emitter has had in use at once since the pool
+	 * stats were reset
+	 * 
+	 * @param emitter The emitter to check
+	 * @return The most particles the emitter has had in use at once or 0 if the 
+	 * emitter hasn't been added to this system
+	 */
+	public int getPeakParticleCount(ParticleEmitter emitter) {
+		ParticlePool pool = getPool(emitter);
+		return pool == null ? 0 : pool.peak;
+	}
+	
+	/**
+	 * Get the number of particles an emitter asked for but couldn't be given,
+	 * since the pool stats were reset
+	 * 
+	 * @param emitter The emitter to check
+	 * @return The number of particles the emitter was refused or 0 if the emitter 
+	 * hasn't been added to this system
+	 */
+	public int getRefusedParticleCount(ParticleEmitter emitter) {
+		ParticlePool pool = getPool(emitter);
+		return pool == null ? 0 : pool.getRefused();
+	}
+	
+	/**
+	 * Get the most particles any one emitter has had in use at once since the
+	 * pool stats were reset. An emitter never needs more particles than this.
+	 * 
+	 * @return The most particles any one emitter has had in use at once
+	 */
+	public int getPeakParticleCount() {
+		int peak = 0;
+		for (int i=0;i<pools.size();i++) {
+			peak = Math.max(peak, ((ParticlePool) pools.get(i)).peak);
+		}
+		
+		return peak;
+	}
+	
+	/**
+	 * Get the number of particles the emitters asked for but couldn't be given,
+	 * since the pool stats were reset. Anything other than 0 means the emitters 
+	 * need more particles than allowed.
+	 * 
+	 * @return The number of particles the emitters were refused
+	 */
+	public int getRefusedParticleCount() {
+		int refused = 0;
+		for (int i=0;i<pools.size();i++) {
+			refused += ((ParticlePool) pools.get(i)).getRefused();
+		}
+		
+		return refused;
+	}
+	
+	/**
+	 * Reset the stats on the use of the emitters' pools
+	 */
+	public void resetPoolStats() {
+		for (int i=0;i<pools.size();i++) {
+			((ParticlePool) pools.get(i)).resetStats();
+		}
+	}
+	
 	/**
 	 * Create a duplicate of this system. This would have been nicer as a different interface
 	 * but may cause to much API change headache. Maybe next full version release it should be
@@ -1,5 +1,7 @@
 package org.newdawn.slick.particles.effects;
 
+import java.util.Random;
+
 import org.newdawn.slick.Image;
 import org.newdawn.slick.particles.Particle;
 import org.newdawn.slick.particles.ParticleEmitter;
@@ -11,6 +13,9 @@ import org.newdawn.slick.particles.ParticleSystem;
  * @author kevin
  */
 public class FireEmitter implements ParticleEmitter {
+	/** The number of emitters given a seed so far */
+	private static long seeds;
+	
 	/** The x coordinate of the center of the fire effect */
 	private int x;
 	/** The y coordinate of the center of the fire effect */
@@ -22,6 +27,18 @@ public class FireEmitter implements ParticleEmitter {
 	private int timer;
 	/** The size of the initial particles */
 	private float size = 40;
+	/** The random number generator used for this emitter's particles */
+	private Random random = new Random(nextSeed());
+	
+	/**
+	 * Get the seed for the next emitter created
+	 * 
+	 * @return The seed for the random number generator of the next emitter
+	 */
+	private static synchronized long nextSeed() {
+		// spread the seeds of consecutive emitters across the range
+		return (++seeds) * 0x9E3779B97F4A7C15L;
+	}
 	
 	/**
 	 * Create a default fire effect at 0,0
@@ -53,6 +70,16 @@ public class FireEmitter implements ParticleEmitter {
 		this.size = size;
 	}
 	
+	/**
+	 * Seed the random number generator used for this emitter's particles, so the
+	 * fire plays out the same each time it's given the same seed
+	 * 
+	 * @param seed The seed for the random number generator
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+	
 	/**
 	 * @see org.newdawn.slick.particles.ParticleEmitter#update(org.newdawn.slick.particles.ParticleSystem, int)
 	 */
@@ -64,8 +91,8 @@ public class FireEmitter implements ParticleEmitter {
 			p.setColor(1, 1, 1, 0.5f);
 			p.setPosition(x, y);
 			p.setSize(size);
-			float vx = (float) (-0.02f + (Math.random() * 0.04f));
-			float vy = (float) (-(Math.random() * 0.15f));
+			float vx = (float) (-0.02f + (random.nextDouble() * 0.04f));
+			float vy = (float) (-(random.nextDouble() * 0.15f));
 			p.setVelocity(vx,vy,1.1f);
 		}
 	}
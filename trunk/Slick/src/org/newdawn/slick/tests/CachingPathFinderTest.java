@@ -0,0 +1,181 @@
+package org.newdawn.slick.tests;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.newdawn.slick.util.pathfinding.AStarPathFinder;
+import org.newdawn.slick.util.pathfinding.CachingPathFinder;
+import org.newdawn.slick.util.pathfinding.ObservableTileBasedMap;
+import org.newdawn.slick.util.pathfinding.Path;
+import org.newdawn.slick.util.pathfinding.PathFindingContext;
+import org.newdawn.slick.util.pathfinding.TileChangeListener;
+
+/**
+ * A test of the caching path finder on a map whose walls are moved while paths
+ * are being requested. The map tells the cache about each tile it changes, and
+ * every path handed out is checked against the map as it stands. This runs
+ * without a display, the results are written to standard out.
+ *
+ * @author agent
+ */
+public class CachingPathFinderTest {
+	/** The size of the map in tiles */
+	private static final int SIZE = 64;
+	/** The number of rounds of requests to make */
+	private static final int ROUNDS = 200;
+	/** The number of start and target pairs requested each round */
+	private static final int PAIRS = 20;
+
+	/**
+	 * Entry point to our test
+	 *
+	 * @param argv The arguments passed to the test
+	 */
+	public static void main(String[] argv) {
+		WallMap map = new WallMap(SIZE, 12345);
+		CachingPathFinder finder = new CachingPathFinder(new AStarPathFinder(map, 500, false), 256, 20000);
+		map.addTileChangeListener(finder);
+
+		Random random = new Random(54321);
+		int[] pairs = new int[PAIRS * 4];
+		for (int i=0;i<pairs.length;i++) {
+			pairs[i] = random.nextInt(SIZE);
+		}
+
+		int paths = 0;
+		int failures = 0;
+		for (int round=0;round<ROUNDS;round++) {
+			for (int i=0;i<pairs.length;i+=4) {
+				Path path = finder.findPath(null, pairs[i], pairs[i+1], pairs[i+2], pairs[i+3]);
+				if (path == null) {
+					continue;
+				}
+
+				paths++;
+				if (!map.isClear(path)) {
+					failures++;
+				}
+				// callers get their own copy, so this mustn't change the next answer
+				path.appendStep(-1, -1);
+			}
+
+			// move a few walls, any cached path through them has to go
+			for (int i=0;i<5;i++) {
+				map.toggle(random.nextInt(SIZE), random.nextInt(SIZE));
+			}
+		}
+
+		System.out.println("Paths: "+paths+" checked, "+failures+" crossing a blocked tile");
+		System.out.println("Hits: "+finder.getHits()+" Misses: "+finder.getMisses());
+		System.out.println("Invalidations: "+finder.getInvalidations()+" Evictions: "+finder.getEvictions());
+		System.out.println(failures == 0 ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * A map of randomly placed walls that tells its listeners when a tile changes
+	 *
+	 * @author agent
+	 */
+	private static class WallMap implements ObservableTileBasedMap {
+		/** The size of the map in tiles */
+		private int size;
+		/** True for each blocked tile */
+		private boolean[] blocked;
+		/** The listeners to notify of changes to tiles */
+		private ArrayList listeners = new ArrayList();
+
+		/**
+		 * Create a new map
+		 *
+		 * @param size The size of the map in tiles
+		 * @param seed The seed used to place the walls
+		 */
+		public WallMap(int size, long seed) {
+			this.size = size;
+			blocked = new boolean[size * size];
+
+			Random random = new Random(seed);
+			for (int i=0;i<blocked.length / 5;i++) {
+				blocked[random.nextInt(blocked.length)] = true;
+			}
+		}
+
+		/**
+		 * Block a tile if it's clear or clear it if it's blocked
+		 *
+		 * @param x The x coordinate of the tile
+		 * @param y The y coordinate of the tile
+		 */
+		public void toggle(int x, int y) {
+			blocked[(y*size)+x] = !blocked[(y*size)+x];
+			for (int i=0;i<listeners.size();i++) {
+				((TileChangeListener) listeners.get(i)).tileChanged(x, y);
+			}
+		}
+
+		/**
+		 * Check that no step of a path after the start is on a blocked tile. The
+		 * start itself isn't checked by the path finder so may be blocked.
+		 *
+		 * @param path The path to check
+		 * @return True if the path only moves onto clear tiles
+		 */
+		public boolean isClear(Path path) {
+			for (int i=1;i<path.getLength();i++) {
+				if (blocked[(path.getY(i)*size)+path.getX(i)]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.ObservableTileBasedMap#addTileChangeListener(org.newdawn.slick.util.pathfinding.TileChangeListener)
+		 */
+		public void addTileChangeListener(TileChangeListener listener) {
+			listeners.add(listener);
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.ObservableTileBasedMap#removeTileChangeListener(org.newdawn.slick.util.pathfinding.TileChangeListener)
+		 */
+		public void removeTileChangeListener(TileChangeListener listener) {
+			listeners.remove(listener);
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#blocked(org.newdawn.slick.util.pathfinding.PathFindingContext, int, int)
+		 */
+		public boolean blocked(PathFindingContext context, int tx, int ty) {
+			return blocked[(ty*size)+tx];
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#getCost(org.newdawn.slick.util.pathfinding.PathFindingContext, int, int)
+		 */
+		public float getCost(PathFindingContext context, int tx, int ty) {
+			return 1;
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#getHeightInTiles()
+		 */
+		public int getHeightInTiles() {
+			return size;
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#getWidthInTiles()
+		 */
+		public int getWidthInTiles() {
+			return size;
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#pathFinderVisited(int, int)
+		 */
+		public void pathFinderVisited(int x, int y) {
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.newdawn.slick.tests;
+
+import org.newdawn.slick.AppGameContainer;
+import org.newdawn.slick.BasicGame;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Input;
+import org.newdawn.slick.SlickException;
+
+/**
+ * A test for updating with a fixed timestep. The logic runs at 20 updates
+ * a second and the box is drawn interpolated between updates, or not, so the
+ * difference can be seen.
+ *
+ * @author agent
+ */
+public class FixedTimestepTest extends BasicGame {
+	/** The length of each update in milliseconds */
+	private static final int STEP = 50;
+	/** The speed of the box in pixels per update */
+	private static final float SPEED = 10;
+
+	/** The container holding the test */
+	private GameContainer container;
+	/** The x position of the box after the last update */
+	private float x;
+	/** The x position of the box after the update before */
+	private float previousX;
+	/** The direction the box is moving in */
+	private float direction = 1;
+	/** True if we're interpolating the rendering */
+	private boolean interpolate = true;
+	/** The number of updates made */
+	private int updates;
+
+	/**
+	 * Create a new fixed timestep test
+	 */
+	public FixedTimestepTest() {
+		super("Fixed Timestep Test");
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#init(org.newdawn.slick.GameContainer)
+	 */
+	public void init(GameContainer container) throws SlickException {
+		this.container = container;
+		container.setFixedTimestep(STEP);
+		x = previousX = 100;
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#update(org.newdawn.slick.GameContainer, int)
+	 */
+	public void update(GameContainer container, int delta) throws SlickException {
+		previousX = x;
+		x += direction * SPEED;
+		if ((x < 100) || (x > 650)) {
+			direction = -direction;
+		}
+		updates++;
+	}
+
+	/**
+	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
+	 */
+	public void render(GameContainer container, Graphics g) throws SlickException {
+		float drawX = x;
+		if (interpolate) {
+			drawX = previousX + ((x - previousX) * container.getInterpolation());
+		}
+
+		g.setColor(Color.red);
+		g.fillRect(drawX, 250, 50, 50);
+
+		g.setColor(Color.white);
+		g.drawString("Updates: "+updates+" ("+(1000 / STEP)+" a second)", 10, 30);
+		g.drawString("Interpolating: "+interpolate+" (space to toggle)", 10, 50);
+		g.drawString("Press H to stall for a second, at most "+container.getMaximumStepsPerFrame()+
+					 " updates are caught up", 10, 70);
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#keyPressed(int, char)
+	 */
+	public void keyPressed(int key, char c) {
+		if (key == Input.KEY_SPACE) {
+			interpolate = !interpolate;
+		}
+		if (key == Input.KEY_H) {
+			container.sleep(1000);
+		}
+		if (key == Input.KEY_ESCAPE) {
+			container.exit();
+		}
+	}
+
+	/**
+	 * Entry point to our test
+	 *
+	 * @param argv The arguments to pass into the test
+	 */
+	public static void main(String[] argv) {
+		try {
+			AppGameContainer container = new AppGameContainer(new FixedTimestepTest());
+			container.setDisplayMode(800,600,false);
+			container.start();
+		} catch (SlickException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package org.newdawn.slick.tests;
+
+import org.newdawn.slick.AppGameContainer;
+import org.newdawn.slick.BasicGame;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Input;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.geom.Polygon;
+import org.newdawn.slick.opengl.renderer.BatchedLineStripRenderer;
+import org.newdawn.slick.opengl.renderer.Renderer;
+
+/**
+ * A test for the batched line renderer, drawing a vector display of several
+ * thousand segments each frame. The joins, caps and width of the lines can be
+ * changed to check the corners are filled correctly.
+ *
+ * @author agent
+ */
+public class LineBatchTest extends BasicGame {
+	/** The number of spokes in the radar sweep */
+	private static final int SPOKES = 2000;
+	/** The shades the spokes are drawn in */
+	private static final Color[] SHADES = new Color[7];
+
+	static {
+		for (int i=0;i<SHADES.length;i++) {
+			SHADES[i] = new Color(0, 0.3f + (i * 0.1f), 0);
+		}
+	}
+
+	/** The container holding the test */
+	private GameContainer container;
+	/** The renderer drawing the lines */
+	private BatchedLineStripRenderer lines;
+	/** The zig zag drawn to show the joins */
+	private Polygon zigzag;
+	/** The angle of the sweep */
+	private float angle;
+	/** The width of the lines */
+	private float width = 1;
+	/** True if the ends of the lines are capped */
+	private boolean caps;
+
+	/**
+	 * Create a new line batch test
+	 */
+	public LineBatchTest() {
+		super("Line Batch Test");
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#init(org.newdawn.slick.GameContainer)
+	 */
+	public void init(GameContainer container) throws SlickException {
+		this.container = container;
+		lines = (BatchedLineStripRenderer) Renderer.getLineStripRenderer();
+
+		zigzag = new Polygon();
+		zigzag.setClosed(false);
+		for (int i=0;i<8;i++) {
+			zigzag.addPoint(500 + (i * 35), (i % 2) == 0 ? 400 : 500 - (i * 10));
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#update(org.newdawn.slick.GameContainer, int)
+	 */
+	public void update(GameContainer container, int delta) throws SlickException {
+		angle += delta * 0.0005f;
+	}
+
+	/**
+	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
+	 */
+	public void render(GameContainer container, Graphics g) throws SlickException {
+		g.setLineWidth(1);
+		for (int i=0;i<SPOKES;i++) {
+			float a = angle + ((i * (float) Math.PI * 2) / SPOKES);
+			float length = 50 + ((i * 37) % 150);
+			g.setColor(SHADES[i % SHADES.length]);
+			g.drawLine(200, 250, 200 + ((float) Math.cos(a) * length), 250 + ((float) Math.sin(a) * length));
+		}
+
+		g.setColor(Color.green);
+		for (int i=0;i<20;i++) {
+			g.drawRect(420 + (i * 17), 50 + (i * 5), 100, 60);
+		}
+
+		g.setLineWidth(width);
+		g.setColor(Color.yellow);
+		g.draw(zigzag);
+		g.drawRect(100, 480, 200, 80);
+		g.drawOval(350, 460, 100, 100);
+
+		g.setColor(Color.white);
+		g.drawString("Join: "+(lines.getJoin() == BatchedLineStripRenderer.MITER_JOIN ? "miter" : "bevel")+" (J to toggle)", 10, 30);
+		g.drawString("Caps: "+caps+" (C to toggle)", 10, 50);
+		g.drawString("Width: "+width+" (up/down to change)", 10, 70);
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#keyPressed(int, char)
+	 */
+	public void keyPressed(int key, char c) {
+		if (key == Input.KEY_J) {
+			lines.setJoin(lines.getJoin() == BatchedLineStripRenderer.MITER_JOIN ?
+						  BatchedLineStripRenderer.BEVEL_JOIN : BatchedLineStripRenderer.MITER_JOIN);
+		}
+		if (key == Input.KEY_C) {
+			caps = !caps;
+			lines.setLineCaps(caps);
+		}
+		if (key == Input.KEY_UP) {
+			width++;
+		}
+		if ((key == Input.KEY_DOWN) && (width > 1)) {
+			width--;
+		}
+		if (key == Input.KEY_ESCAPE) {
+			container.exit();
+		}
+	}
+
+	/**
+	 * Entry point to our test
+	 *
+	 * @param argv The arguments to pass into the test
+	 */
+	public static void main(String[] argv) {
+		try {
+			// must be set before the container is created
+			Renderer.setRenderer(Renderer.VERTEX_BUFFER_RENDERER);
+			Renderer.setLineStripRenderer(Renderer.BATCHED_LINE_STRIP_RENDERER);
+
+			AppGameContainer container = new AppGameContainer(new LineBatchTest());
+			container.setDisplayMode(800,600,false);
+			container.start();
+		} catch (SlickException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package org.newdawn.slick.tests;
+
+import java.util.Random;
+
+import org.newdawn.slick.util.pathfinding.PathFindingContext;
+import org.newdawn.slick.util.pathfinding.TileBasedMap;
+import org.newdawn.slick.util.pathfinding.navmesh.GreedyNavMeshBuilder;
+import org.newdawn.slick.util.pathfinding.navmesh.NavMesh;
+import org.newdawn.slick.util.pathfinding.navmesh.NavMeshBuilder;
+import org.newdawn.slick.util.pathfinding.navmesh.Space;
+
+/**
+ * A benchmark comparing NavMeshBuilder with GreedyNavMeshBuilder and the
+ * indexed space lookup with a scan of every space, on randomly generated maps
+ * of increasing size. This runs without a display, the results are written to
+ * standard out.
+ *
+ * @author agent
+ */
+public class NavMeshBenchmark {
+	/** The sizes of the maps to build */
+	private static final int[] SIZES = new int[] {32, 64, 128, 256};
+	/** The number of locations to look up in each mesh */
+	private static final int LOOKUPS = 100000;
+
+	/**
+	 * Entry point to our benchmark
+	 *
+	 * @param argv The arguments passed to the benchmark - the largest map size
+	 * to build with NavMeshBuilder may be given, defaults to 64
+	 */
+	public static void main(String[] argv) {
+		int oldLimit = 64;
+		if (argv.length > 0) {
+			oldLimit = Integer.parseInt(argv[0]);
+		}
+
+		for (int i=0;i<SIZES.length;i++) {
+			int size = SIZES[i];
+			RandomMap map = new RandomMap(size, 12345);
+
+			System.out.println("Map "+size+"x"+size);
+
+			long before = System.currentTimeMillis();
+			NavMesh greedy = new GreedyNavMeshBuilder().build(map);
+			long after = System.currentTimeMillis();
+			System.out.println("  GreedyNavMeshBuilder: "+(after-before)+"ms, "+greedy.getSpaceCount()+" spaces");
+
+			if (size <= oldLimit) {
+				before = System.currentTimeMillis();
+				NavMesh original = new NavMeshBuilder().build(map);
+				after = System.currentTimeMillis();
+				System.out.println("  NavMeshBuilder: "+(after-before)+"ms, "+original.getSpaceCount()+" spaces");
+			} else {
+				System.out.println("  NavMeshBuilder: skipped");
+			}
+
+			Random random = new Random(size);
+			float[] points = new float[LOOKUPS * 2];
+			for (int p=0;p<points.length;p++) {
+				points[p] = random.nextFloat() * size;
+			}
+
+			int found = 0;
+			before = System.currentTimeMillis();
+			for (int p=0;p<points.length;p+=2) {
+				if (greedy.findSpace(points[p], points[p+1]) != null) {
+					found++;
+				}
+			}
+			after = System.currentTimeMillis();
+			System.out.println("  Indexed findSpace: "+(after-before)+"ms for "+LOOKUPS+" lookups ("+found+" found)");
+
+			found = 0;
+			before = System.currentTimeMillis();
+			for (int p=0;p<points.length;p+=2) {
+				if (scan(greedy, points[p], points[p+1]) != null) {
+					found++;
+				}
+			}
+			after = System.currentTimeMillis();
+			System.out.println("  Scanning findSpace: "+(after-before)+"ms for "+LOOKUPS+" lookups ("+found+" found)");
+		}
+	}
+
+	/**
+	 * Find the space at a given location by checking every space in the mesh
+	 *
+	 * @param mesh The mesh to search
+	 * @param x The x coordinate at which to find the space
+	 * @param y The y coordinate at which to find the space
+	 * @return The space at the given location or null if there isn't one
+	 */
+	private static Space scan(NavMesh mesh, float x, float y) {
+		for (int i=0;i<mesh.getSpaceCount();i++) {
+			Space space = mesh.getSpace(i);
+			if (space.contains(x, y)) {
+				return space;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * A map of randomly placed walls with gaps in them
+	 *
+	 * @author agent
+	 */
+	private static class RandomMap implements TileBasedMap {
+		/** The size of the map in tiles */
+		private int size;
+		/** True for each blocked tile */
+		private boolean[] blocked;
+
+		/**
+		 * Create a new map
+		 *
+		 * @param size The size of the map in tiles
+		 * @param seed The seed used to place the walls
+		 */
+		public RandomMap(int size, long seed) {
+			this.size = size;
+			blocked = new boolean[size * size];
+
+			Random random = new Random(seed);
+			int walls = (size * size) / 40;
+			for (int i=0;i<walls;i++) {
+				int x = random.nextInt(size);
+				int y = random.nextInt(size);
+				int length = 2 + random.nextInt(10);
+				boolean horizontal = random.nextBoolean();
+
+				for (int j=0;j<length;j++) {
+					int xp = horizontal ? x+j : x;
+					int yp = horizontal ? y : y+j;
+					if ((xp < size) && (yp < size)) {
+						blocked[(yp*size)+xp] = true;
+					}
+				}
+			}
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#blocked(org.newdawn.slick.util.pathfinding.PathFindingContext, int, int)
+		 */
+		public boolean blocked(PathFindingContext context, int tx, int ty) {
+			return blocked[(ty*size)+tx];
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#getCost(org.newdawn.slick.util.pathfinding.PathFindingContext, int, int)
+		 */
+		public float getCost(PathFindingContext context, int tx, int ty) {
+			return 1;
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#getHeightInTiles()
+		 */
+		public int getHeightInTiles() {
+			return size;
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#getWidthInTiles()
+		 */
+		public int getWidthInTiles() {
+			return size;
+		}
+
+		/**
+		 * @see org.newdawn.slick.util.pathfinding.TileBasedMap#pathFinderVisited(int, int)
+		 */
+		public void pathFinderVisited(int x, int y) {
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package org.newdawn.slick.tests;
+
+import org.newdawn.slick.AppGameContainer;
+import org.newdawn.slick.BasicGame;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.Input;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.opengl.renderer.Renderer;
+
+/**
+ * A test for pipelining the update of the game with the drawing of the last
+ * frame. The update is made artificially expensive, toggling the pipeline
+ * should show the frame rate change on a machine with more than one core.
+ *
+ * @author agent
+ */
+public class PipelineTest extends BasicGame {
+	/** The number of sprites drawn */
+	private static final int COUNT = 500;
+
+	/** The container holding the test */
+	private GameContainer container;
+	/** The image drawn for each sprite */
+	private Image image;
+	/** The x positions of the sprites */
+	private float[] xs = new float[COUNT];
+	/** The y positions of the sprites */
+	private float[] ys = new float[COUNT];
+	/** The angle the sprites are moving around at */
+	private float angle;
+	/** The time spent computing in each update in milliseconds */
+	private int work = 8;
+	/** The result of the work, kept so it's not optimised away */
+	private double result;
+
+	/**
+	 * Create a new pipeline test
+	 */
+	public PipelineTest() {
+		super("Pipeline Test");
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#init(org.newdawn.slick.GameContainer)
+	 */
+	public void init(GameContainer container) throws SlickException {
+		this.container = container;
+		image = new Image("testdata/rocket.png");
+		container.setPipelined(true);
+		container.getProfiler().setEnabled(true);
+		container.setShowProfiler(true);
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#update(org.newdawn.slick.GameContainer, int)
+	 */
+	public void update(GameContainer container, int delta) throws SlickException {
+		angle += delta * 0.001f;
+
+		// stand in for an expensive game update
+		long end = System.currentTimeMillis() + work;
+		while (System.currentTimeMillis() < end) {
+			result += Math.sqrt(result + 1);
+		}
+
+		for (int i=0;i<COUNT;i++) {
+			xs[i] = 400 + (float) Math.cos(angle + i) * (i % 300);
+			ys[i] = 300 + (float) Math.sin(angle + i) * (i % 250);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
+	 */
+	public void render(GameContainer container, Graphics g) throws SlickException {
+		for (int i=0;i<COUNT;i++) {
+			image.draw(xs[i], ys[i], 0.25f);
+		}
+
+		g.setColor(Color.white);
+		g.drawString("Pipelined: "+container.isPipelined()+" (space to toggle)", 10, 500);
+		g.drawString("Update work: "+work+"ms (up/down to change)", 10, 520);
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#keyPressed(int, char)
+	 */
+	public void keyPressed(int key, char c) {
+		if (key == Input.KEY_SPACE) {
+			container.setPipelined(!container.isPipelined());
+		}
+		if (key == Input.KEY_UP) {
+			work++;
+		}
+		if ((key == Input.KEY_DOWN) && (work > 0)) {
+			work--;
+		}
+		if (key == Input.KEY_ESCAPE) {
+			container.exit();
+		}
+	}
+
+	/**
+	 * Entry point to our test
+	 *
+	 * @param argv The arguments to pass into the test
+	 */
+	public static void main(String[] argv) {
+		try {
+			// must be enabled before the container is created
+			Renderer.enablePipelining();
+
+			AppGameContainer container = new AppGameContainer(new PipelineTest());
+			container.setDisplayMode(800,600,false);
+			container.start();
+		} catch (SlickException e) {
+			e.printStackTrace();
+		}
+	}
+}
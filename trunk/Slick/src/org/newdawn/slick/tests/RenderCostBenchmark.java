@@ -0,0 +1,105 @@
+package org.newdawn.slick.tests;
+
+import java.util.Random;
+
+import org.newdawn.slick.Color;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.SpriteBatch;
+import org.newdawn.slick.opengl.renderer.RecordingRenderer;
+import org.newdawn.slick.opengl.renderer.RenderStats;
+import org.newdawn.slick.opengl.renderer.Renderer;
+
+/**
+ * A benchmark of the rendering work issued for some typical scenes, measured
+ * through the RecordingRenderer. This runs without a display or graphics card,
+ * the counts for each scene are written to standard out.
+ *
+ * @author agent
+ */
+public class RenderCostBenchmark {
+	/** The number of sprites drawn in the sprite scenes */
+	private static final int SPRITES = 5000;
+
+	/**
+	 * Entry point to our benchmark
+	 *
+	 * @param argv The arguments passed to the benchmark - if "dump" is given
+	 * the command stream of the last scene is written out
+	 * @throws SlickException Indicates a failure to load the images drawn
+	 */
+	public static void main(String[] argv) throws SlickException {
+		// must be set before any other Slick class is loaded
+		RecordingRenderer recorder = new RecordingRenderer();
+		Renderer.setRenderer(recorder);
+		recorder.initDisplay(800, 600);
+		recorder.enterOrtho(800, 600);
+
+		Graphics g = new Graphics(800, 600);
+		Image[] images = new Image[] {new Image("testdata/rocket.png"), new Image("testdata/cross.png")};
+		images[1].setAlpha(0.5f);
+		recorder.endFrame();
+
+		Random random = new Random(12345);
+		float[] xs = new float[SPRITES];
+		float[] ys = new float[SPRITES];
+		for (int i=0;i<SPRITES;i++) {
+			xs[i] = random.nextInt(800);
+			ys[i] = random.nextInt(600);
+		}
+
+		for (int i=0;i<SPRITES;i++) {
+			images[i % 2].draw(xs[i], ys[i]);
+		}
+		report("Images drawn directly", recorder.endFrame());
+
+		SpriteBatch batch = new SpriteBatch();
+		batch.begin();
+		for (int i=0;i<SPRITES;i++) {
+			batch.draw(images[i % 2], xs[i], ys[i]);
+		}
+		batch.end();
+		report("Images drawn through a sorted batch", recorder.endFrame());
+
+		batch.setSorting(false);
+		batch.begin();
+		for (int i=0;i<SPRITES;i++) {
+			batch.draw(images[i % 2], xs[i], ys[i]);
+		}
+		batch.end();
+		report("Images drawn through an unsorted batch", recorder.endFrame());
+
+		if ((argv.length > 0) && (argv[0].equals("dump"))) {
+			recorder.setRecording(true);
+		}
+		for (int i=0;i<100;i++) {
+			g.setColor(new Color(i / 100.0f, 0.5f, 0.5f));
+			g.fillRect(xs[i], ys[i], 20, 20);
+			g.drawOval(xs[i], ys[i], 20, 20);
+			g.drawString("Text", xs[i], ys[i]);
+		}
+		report("Shapes and text", recorder.endFrame());
+
+		if (recorder.isRecording()) {
+			recorder.dump(System.out);
+		}
+	}
+
+	/**
+	 * Write the counts for a scene
+	 *
+	 * @param scene The name of the scene
+	 * @param stats The counts for the scene
+	 */
+	private static void report(String scene, RenderStats stats) {
+		System.out.println(scene);
+		System.out.println("  draw calls: "+stats.getDrawCalls()+", vertices: "+stats.getVertices()+
+						   ", display lists: "+stats.getListCalls());
+		System.out.println("  texture binds: "+stats.getTextureBinds()+" ("+stats.getRedundantTextureBinds()+" redundant)");
+		System.out.println("  blend changes: "+stats.getBlendChanges()+" ("+stats.getRedundantBlendChanges()+" redundant)");
+		System.out.println("  matrix changes: "+stats.getMatrixChanges()+" ("+stats.getRedundantMatrixChanges()+" redundant)");
+		System.out.println("  colour changes: "+stats.getColorChanges()+" ("+stats.getRedundantColorChanges()+" redundant)");
+		System.out.println("  other state changes: "+stats.getStateChanges()+" ("+stats.getRedundantStateChanges()+" redundant)");
+	}
+}
@@ -0,0 +1,135 @@
+package org.newdawn.slick.tests;
+
+import org.lwjgl.Sys;
+import org.newdawn.slick.AppGameContainer;
+import org.newdawn.slick.BasicGame;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.opengl.renderer.Renderer;
+
+/**
+ * A benchmark of the GL renderers drawing the same scene - sprites, rotated
+ * sprites, shapes and text. The renderer is given on the command line as
+ * "immediate", "vertexarray" or "vertexbuffer" since it can only be chosen
+ * once per run. The average time per frame is written to standard out once
+ * the frames have been drawn.
+ *
+ * @author agent
+ */
+public class RendererBenchmark extends BasicGame {
+	/** The number of frames drawn before timing starts */
+	private static final int WARM_UP = 100;
+	/** The number of frames timed */
+	private static final int FRAMES = 1000;
+	/** The number of sprites drawn each frame */
+	private static final int SPRITES = 2000;
+	/** The number of shapes drawn each frame */
+	private static final int SHAPES = 200;
+
+	/** The name of the renderer being measured */
+	private String name;
+	/** The images drawn for the sprites */
+	private Image[] images;
+	/** The number of frames drawn */
+	private int frames;
+	/** The time timing started */
+	private long start;
+
+	/**
+	 * Create a new benchmark
+	 *
+	 * @param name The name of the renderer being measured
+	 */
+	public RendererBenchmark(String name) {
+		super("Renderer Benchmark - "+name);
+		this.name = name;
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#init(org.newdawn.slick.GameContainer)
+	 */
+	public void init(GameContainer container) throws SlickException {
+		images = new Image[] {new Image("testdata/rocket.png"), new Image("testdata/cross.png")};
+		container.setVSync(false);
+		container.setShowFPS(false);
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#update(org.newdawn.slick.GameContainer, int)
+	 */
+	public void update(GameContainer container, int delta) throws SlickException {
+		frames++;
+		if (frames == WARM_UP) {
+			start = Sys.getTime();
+		}
+		if (frames == WARM_UP + FRAMES) {
+			double millis = ((Sys.getTime() - start) * 1000.0) / Sys.getTimerResolution();
+			System.out.println(name+": "+(millis / FRAMES)+"ms per frame over "+FRAMES+" frames");
+			container.exit();
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
+	 */
+	public void render(GameContainer container, Graphics g) throws SlickException {
+		for (int i=0;i<SPRITES;i++) {
+			Image image = images[(i / 100) % 2];
+			float x = (i * 37) % 760;
+			float y = (i * 53) % 560;
+			if ((i % 10) == 0) {
+				image.setRotation(frames + i);
+			} else {
+				image.setRotation(0);
+			}
+			image.draw(x, y, 0.5f);
+		}
+
+		for (int i=0;i<SHAPES;i++) {
+			g.setColor(new Color((i % 10) / 10.0f, 0.5f, 1 - ((i % 10) / 10.0f)));
+			float x = (i * 71) % 760;
+			float y = (i * 29) % 560;
+			if ((i % 2) == 0) {
+				g.fillRect(x, y, 20, 20);
+			} else {
+				g.fillOval(x, y, 20, 20);
+			}
+			g.drawLine(x, y, x + 30, y + 10);
+		}
+
+		g.setColor(Color.white);
+		for (int i=0;i<20;i++) {
+			g.drawString("Renderer benchmark "+i, 10, i * 20);
+		}
+	}
+
+	/**
+	 * Entry point to our benchmark
+	 *
+	 * @param argv The arguments passed to the benchmark - the name of the renderer
+	 */
+	public static void main(String[] argv) {
+		String name = argv.length > 0 ? argv[0] : "vertexbuffer";
+		if (name.equals("immediate")) {
+			Renderer.setRenderer(Renderer.IMMEDIATE_RENDERER);
+		} else if (name.equals("vertexarray")) {
+			Renderer.setRenderer(Renderer.VERTEX_ARRAY_RENDERER);
+		} else if (name.equals("vertexbuffer")) {
+			Renderer.setRenderer(Renderer.VERTEX_BUFFER_RENDERER);
+		} else {
+			System.out.println("Usage: RendererBenchmark [immediate|vertexarray|vertexbuffer]");
+			return;
+		}
+
+		try {
+			AppGameContainer container = new AppGameContainer(new RendererBenchmark(name));
+			container.setDisplayMode(800,600,false);
+			container.start();
+		} catch (SlickException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package org.newdawn.slick.tests;
+
+import java.util.Random;
+
+import org.newdawn.slick.AppGameContainer;
+import org.newdawn.slick.Animation;
+import org.newdawn.slick.BasicGame;
+import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.Input;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.SpriteBatch;
+import org.newdawn.slick.SpriteSheet;
+
+/**
+ * A test to show the performance of drawing lots of sprites through a sprite
+ * batch compared to drawing them directly
+ *
+ * @author agent
+ */
+public class SpriteBatchTest extends BasicGame {
+	/** The number of sprites to draw */
+	private static final int COUNT = 5000;
+
+	/** The images drawn */
+	private Image[] images;
+	/** The animation drawn */
+	private Animation animation;
+	/** The sheet the tiles are taken from */
+	private SpriteSheet tiles;
+	/** The batch used to draw the sprites */
+	private SpriteBatch batch = new SpriteBatch();
+	/** The x position of each sprite */
+	private float[] xs = new float[COUNT];
+	/** The y position of each sprite */
+	private float[] ys = new float[COUNT];
+	/** The type of each sprite, an image, an animation or a tile */
+	private int[] types = new int[COUNT];
+	/** The current rotation of the rotating images */
+	private float rot;
+	/** True if we're drawing through the batch */
+	private boolean batched = true;
+
+	/**
+	 * Create a new sprite batch test
+	 */
+	public SpriteBatchTest() {
+		super("Sprite Batch Test");
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#init(org.newdawn.slick.GameContainer)
+	 */
+	public void init(GameContainer container) throws SlickException {
+		images = new Image[] {new Image("testdata/rocket.png"), new Image("testdata/cross.png")};
+		images[1].setAlpha(0.5f);
+		tiles = new SpriteSheet("testdata/tiles.png", 32, 32);
+
+		SpriteSheet sheet = new SpriteSheet("testdata/homeranim.png", 36, 65);
+		animation = new Animation();
+		for (int i=0;i<8;i++) {
+			animation.addFrame(sheet.getSprite(i,0), 150);
+		}
+
+		Random random = new Random(12345);
+		for (int i=0;i<COUNT;i++) {
+			xs[i] = random.nextInt(container.getWidth());
+			ys[i] = random.nextInt(container.getHeight());
+			types[i] = random.nextInt(4);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#update(org.newdawn.slick.GameContainer, int)
+	 */
+	public void update(GameContainer container, int delta) throws SlickException {
+		if (container.getInput().isKeyPressed(Input.KEY_SPACE)) {
+			batched = !batched;
+		}
+		if (container.getInput().isKeyPressed(Input.KEY_S)) {
+			batch.setSorting(!batch.isSorting());
+		}
+
+		rot += delta * 0.1f;
+		images[0].setRotation(rot);
+	}
+
+	/**
+	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
+	 */
+	public void render(GameContainer container, Graphics g) throws SlickException {
+		if (batched) {
+			batch.begin();
+			for (int i=0;i<COUNT;i++) {
+				// tiles underneath everything else
+				batch.setLayer(types[i] == 3 ? 0 : 1);
+				switch (types[i]) {
+				case 0:
+				case 1:
+					batch.draw(images[types[i]], xs[i], ys[i]);
+					break;
+				case 2:
+					batch.draw(animation, xs[i], ys[i]);
+					break;
+				default:
+					batch.draw(tiles, i % 4, 0, xs[i], ys[i]);
+				}
+			}
+			batch.end();
+		} else {
+			for (int i=0;i<COUNT;i++) {
+				if (types[i] == 3) {
+					tiles.getSubImage(i % 4, 0).draw(xs[i], ys[i]);
+				}
+			}
+			for (int i=0;i<COUNT;i++) {
+				switch (types[i]) {
+				case 0:
+				case 1:
+					images[types[i]].draw(xs[i], ys[i]);
+					break;
+				case 2:
+					animation.draw(xs[i], ys[i]);
+					break;
+				}
+			}
+		}
+
+		g.drawString(batched ? "Drawing through the batch" : "Drawing direct", 10, 30);
+		g.drawString("Sorting: "+batch.isSorting(), 10, 50);
+		g.drawString("Press space to toggle batching, S to toggle sorting", 10, 70);
+	}
+
+	/**
+	 * Entry point to our test
+	 *
+	 * @param argv The arguments to pass into the test
+	 */
+	public static void main(String[] argv) {
+		try {
+			AppGameContainer container = new AppGameContainer(new SpriteBatchTest());
+			container.setDisplayMode(800,600,false);
+			container.start();
+		} catch (SlickException e) {
+			e.printStackTrace();
+		}
+	}
+}
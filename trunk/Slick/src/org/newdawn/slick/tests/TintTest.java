@@ -0,0 +1,144 @@
+package org.newdawn.slick.tests;
+
+import java.util.Random;
+
+import org.newdawn.slick.AppGameContainer;
+import org.newdawn.slick.BasicGame;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.Input;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.SpriteBatch;
+
+/**
+ * A test drawing thousands of sprites each tinted a different colour. The colours
+ * can be given as packed ints or as Color objects created each frame, with the
+ * bytes allocated per frame shown by the profiler.
+ *
+ * @author agent
+ */
+public class TintTest extends BasicGame {
+	/** The number of sprites to draw */
+	private static final int COUNT = 5000;
+
+	/** The container holding the test */
+	private GameContainer container;
+	/** The image drawn for each sprite */
+	private Image image;
+	/** The batch used to draw the sprites */
+	private SpriteBatch batch = new SpriteBatch();
+	/** The x position of each sprite */
+	private float[] xs = new float[COUNT];
+	/** The y position of each sprite */
+	private float[] ys = new float[COUNT];
+	/** The tint of each sprite packed 0xAARRGGBB */
+	private int[] tints = new int[COUNT];
+	/** The time passed in milliseconds */
+	private int time;
+	/** True if the tints are given as packed ints */
+	private boolean packed = true;
+	/** True if we're drawing through the batch */
+	private boolean batched;
+
+	/**
+	 * Create a new tint test
+	 */
+	public TintTest() {
+		super("Tint Test");
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#init(org.newdawn.slick.GameContainer)
+	 */
+	public void init(GameContainer container) throws SlickException {
+		this.container = container;
+		image = new Image("testdata/cross.png");
+		container.getProfiler().setEnabled(true);
+		container.setShowProfiler(true);
+
+		Random random = new Random(12345);
+		for (int i=0;i<COUNT;i++) {
+			xs[i] = random.nextInt(container.getWidth());
+			ys[i] = random.nextInt(container.getHeight());
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#update(org.newdawn.slick.GameContainer, int)
+	 */
+	public void update(GameContainer container, int delta) throws SlickException {
+		time += delta;
+		for (int i=0;i<COUNT;i++) {
+			int phase = ((time / 4) + i) & 0x1ff;
+			int level = phase < 256 ? phase : 511 - phase;
+			tints[i] = Color.pack(level / 255.0f, 1 - (level / 255.0f), (i % 256) / 255.0f, 0.75f);
+		}
+	}
+
+	/**
+	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
+	 */
+	public void render(GameContainer container, Graphics g) throws SlickException {
+		int width = image.getWidth() / 2;
+		int height = image.getHeight() / 2;
+
+		if (batched) {
+			batch.begin();
+		}
+		for (int i=0;i<COUNT;i++) {
+			if (packed) {
+				if (batched) {
+					batch.draw(image, xs[i], ys[i], width, height, tints[i]);
+				} else {
+					image.draw(xs[i], ys[i], width, height, tints[i]);
+				}
+			} else {
+				Color tint = new Color(tints[i]);
+				if (batched) {
+					batch.draw(image, xs[i], ys[i], width, height, tint);
+				} else {
+					image.draw(xs[i], ys[i], width, height, tint);
+				}
+			}
+		}
+		if (batched) {
+			batch.end();
+		}
+
+		g.setColorARGB(0xffffffff);
+		g.drawString("Tints: "+(packed ? "packed ints" : "Color objects")+" (space to toggle)", 10, 540);
+		g.drawString("Batched: "+batched+" (B to toggle)", 10, 560);
+	}
+
+	/**
+	 * @see org.newdawn.slick.BasicGame#keyPressed(int, char)
+	 */
+	public void keyPressed(int key, char c) {
+		if (key == Input.KEY_SPACE) {
+			packed = !packed;
+		}
+		if (key == Input.KEY_B) {
+			batched = !batched;
+		}
+		if (key == Input.KEY_ESCAPE) {
+			container.exit();
+		}
+	}
+
+	/**
+	 * Entry point to our test
+	 *
+	 * @param argv The arguments to pass into the test
+	 */
+	public static void main(String[] argv) {
+		try {
+			AppGameContainer container = new AppGameContainer(new TintTest());
+			container.setDisplayMode(800,600,false);
+			container.start();
+		} catch (SlickException e) {
+			e.printStackTrace();
+		}
+	}
+}
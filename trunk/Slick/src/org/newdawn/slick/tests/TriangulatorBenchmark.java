@@ -0,0 +1,129 @@
+package org.newdawn.slick.tests;
+
+import java.util.Random;
+
+import org.newdawn.slick.geom.BasicTriangulator;
+import org.newdawn.slick.geom.MannTriangulator;
+import org.newdawn.slick.geom.MonotoneTriangulator;
+import org.newdawn.slick.geom.NeatTriangulator;
+import org.newdawn.slick.geom.Triangulator;
+
+/**
+ * A benchmark of the triangulators on randomly generated outlines of increasing
+ * size, with and without holes. A triangulator is dropped from the larger sizes
+ * once it takes longer than a time limit. This runs without a display, the results
+ * are written to standard out.
+ *
+ * @author agent
+ */
+public class TriangulatorBenchmark {
+	/** The number of points in the outlines triangulated */
+	private static final int[] SIZES = new int[] {16, 64, 256, 1024, 4096, 16384};
+	/** The names of the triangulators measured */
+	private static final String[] NAMES = new String[] {"BasicTriangulator", "NeatTriangulator",
+														"MannTriangulator", "MonotoneTriangulator"};
+	/** True for the triangulators that support holes */
+	private static final boolean[] HOLES = new boolean[] {false, false, true, true};
+	/** The time in milliseconds after which a triangulator isn't tried on larger outlines */
+	private static final long LIMIT = 2000;
+
+	/**
+	 * Entry point to our benchmark
+	 *
+	 * @param argv The arguments passed to the benchmark - the time limit in milliseconds
+	 * may be given, defaults to 2000
+	 */
+	public static void main(String[] argv) {
+		long limit = LIMIT;
+		if (argv.length > 0) {
+			limit = Long.parseLong(argv[0]);
+		}
+
+		boolean[] dropped = new boolean[NAMES.length * 2];
+		for (int i=0;i<SIZES.length;i++) {
+			int size = SIZES[i];
+			Random random = new Random(size);
+			float[] outline = createOutline(random, size, 400, 300);
+			float[] hole = createOutline(random, size / 4, 400, 100);
+
+			System.out.println("Outline of "+size+" points");
+			for (int t=0;t<NAMES.length * 2;t++) {
+				int type = t % NAMES.length;
+				boolean holes = t >= NAMES.length;
+				if (holes && !HOLES[type]) {
+					continue;
+				}
+				String name = NAMES[type] + (holes ? " (with hole)" : "");
+				if (dropped[t]) {
+					System.out.println("  "+name+": skipped");
+					continue;
+				}
+
+				// repeat small outlines so the timing means something
+				int repeats = Math.max(1, 4096 / size);
+				int count = 0;
+				long before = System.currentTimeMillis();
+				for (int r=0;r<repeats;r++) {
+					Triangulator tris = create(type);
+					for (int p=0;p<outline.length;p+=2) {
+						tris.addPolyPoint(outline[p], outline[p+1]);
+					}
+					if (holes) {
+						tris.startHole();
+						for (int p=0;p<hole.length;p+=2) {
+							tris.addPolyPoint(hole[p], hole[p+1]);
+						}
+					}
+					tris.triangulate();
+					count = tris.getTriangleCount();
+				}
+				long time = System.currentTimeMillis() - before;
+
+				System.out.println("  "+name+": "+(time / (float) repeats)+"ms, "+count+" triangles");
+				if (time / repeats > limit) {
+					dropped[t] = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create a new triangulator
+	 *
+	 * @param type The index of the triangulator in NAMES
+	 * @return The newly created triangulator
+	 */
+	private static Triangulator create(int type) {
+		switch (type) {
+		case 0:
+			return new BasicTriangulator();
+		case 1:
+			return new NeatTriangulator();
+		case 2:
+			return new MannTriangulator();
+		default:
+			return new MonotoneTriangulator();
+		}
+	}
+
+	/**
+	 * Create a jagged outline around a center point, concave at many points
+	 *
+	 * @param random The source of random numbers used to place the points
+	 * @param size The number of points in the outline
+	 * @param center The coordinate of the center on both axis
+	 * @param radius The furthest any point lies from the center
+	 * @return The x,y coordinates of the points of the outline
+	 */
+	private static float[] createOutline(Random random, int size, float center, float radius) {
+		float[] points = new float[size * 2];
+		for (int i=0;i<size;i++) {
+			double angle = (Math.PI * 2 * i) / size;
+			double distance = radius * (0.5f + (random.nextFloat() * 0.5f));
+			points[(i*2)] = (float) (center + (Math.cos(angle) * distance));
+			points[(i*2)+1] = (float) (center + (Math.sin(angle) * distance));
+		}
+
+		return points;
+	}
+}
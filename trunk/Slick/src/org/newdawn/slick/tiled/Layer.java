@@ -1,12 +1,8 @@
 package org.newdawn.slick.tiled;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.util.Properties;
-import java.util.zip.GZIPInputStream;
 
 import org.newdawn.slick.SlickException;
-import org.newdawn.slick.util.Log;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -17,36 +13,16 @@ import org.w3c.dom.NodeList;
  * @author kevin
  */
 public class Layer {
-	/** The code used to decode Base64 encoding */
-	private static byte[] baseCodes = new byte[256];
-
-	/**
-	 * Static initialiser for the codes created against Base64
-	 */
-	static {
-		for (int i = 0; i < 256; i++)
-			baseCodes[i] = -1;
-		for (int i = 'A'; i <= 'Z'; i++)
-			baseCodes[i] = (byte) (i - 'A');
-		for (int i = 'a'; i <= 'z'; i++)
-			baseCodes[i] = (byte) (26 + i - 'a');
-		for (int i = '0'; i <= '9'; i++)
-			baseCodes[i] = (byte) (52 + i - '0');
-		baseCodes['+'] = 62;
-		baseCodes['/'] = 63;
-	}
-
 	/** The map this layer belongs to */
 	private final TiledMap map;
 	/** The index of this layer */
 	public int index;
 	/** The name of this layer - read from the XML */
 	public String name;
-	/**
-	 * The tile data representing this data, index 0 = tileset, index 1 = tile
-	 * id
-	 */
-	public int[][][] data;
+	/** The global ID of each tile, stored row by row (index = x + (y * width)) */
+	public int[] tiles;
+	/** The index of the tileset holding each tile, stored row by row, -1 for no tile */
+	public short[] tileSets;
 	/** The width of this layer */
 	public int width;
 	/** The height of this layer */
@@ -55,6 +31,36 @@ public class Layer {
 	/** the properties of this layer */
 	public Properties props;
 
+	/** The cache of this layer's geometry or null if the layer isn't cached */
+	LayerCache cache;
+	/** The tileset last found when setting a tile, checked first for the next */
+	private TileSet lastSet;
+
+	/**
+	 * Create a new empty layer
+	 * 
+	 * @param map
+	 *            The map this layer is part of
+	 * @param name
+	 *            The name of the layer
+	 * @param width
+	 *            The width of the layer in tiles
+	 * @param height
+	 *            The height of the layer in tiles
+	 */
+	Layer(TiledMap map, String name, int width, int height) {
+		this.map = map;
+		this.name = name;
+		this.width = width;
+		this.height = height;
+
+		tiles = new int[width * height];
+		tileSets = new short[width * height];
+		for (int i = 0; i < tileSets.length; i++) {
+			tileSets[i] = -1;
+		}
+	}
+
 	/**
 	 * Create a new layer based on the XML definition
 	 * 
@@ -66,11 +72,9 @@ public class Layer {
 	 *             Indicates a failure to parse the XML layer
 	 */
 	public Layer(TiledMap map, Element element) throws SlickException {
-		this.map = map;
-		name = element.getAttribute("name");
-		width = Integer.parseInt(element.getAttribute("width"));
-		height = Integer.parseInt(element.getAttribute("height"));
-		data = new int[width][height][3];
+		this(map, element.getAttribute("name"), Integer.parseInt(element
+				.getAttribute("width")), Integer.parseInt(element
+				.getAttribute("height")));
 
 		// now read the layer properties
 		Element propsElement = (Element) element.getElementsByTagName(
@@ -91,48 +95,22 @@ public class Layer {
 
 		Element dataNode = (Element) element.getElementsByTagName("data").item(
 				0);
-		String encoding = dataNode.getAttribute("encoding");
-		String compression = dataNode.getAttribute("compression");
-
-		if (encoding.equals("base64") && compression.equals("gzip")) {
-			try {
-				Node cdata = dataNode.getFirstChild();
-				char[] enc = cdata.getNodeValue().trim().toCharArray();
-				byte[] dec = decodeBase64(enc);
-				GZIPInputStream is = new GZIPInputStream(
-						new ByteArrayInputStream(dec));
-
-				for (int y = 0; y < height; y++) {
-					for (int x = 0; x < width; x++) {
-						int tileId = 0;
-						tileId |= is.read();
-						tileId |= is.read() << 8;
-						tileId |= is.read() << 16;
-						tileId |= is.read() << 24;
-
-						if (tileId == 0) {
-							data[x][y][0] = -1;
-							data[x][y][1] = 0;
-							data[x][y][2] = 0;
-						} else {
-							TileSet set = map.findTileSet(tileId);
-
-							if (set != null) {
-								data[x][y][0] = set.index;
-								data[x][y][1] = tileId - set.firstGID;
-							}
-							data[x][y][2] = tileId;
-						}
-					}
+		TileDataDecoder decoder = new TileDataDecoder(this, dataNode
+				.getAttribute("encoding"), dataNode.getAttribute("compression"));
+
+		for (Node node = dataNode.getFirstChild(); node != null; node = node
+				.getNextSibling()) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				if (node.getNodeName().equals("tile")) {
+					decoder.tile((int) Long.parseLong(((Element) node)
+							.getAttribute("gid")));
 				}
-			} catch (IOException e) {
-				Log.error(e);
-				throw new SlickException("Unable to decode base 64 block");
+			} else if (node.getNodeValue() != null) {
+				char[] text = node.getNodeValue().toCharArray();
+				decoder.characters(text, 0, text.length);
 			}
-		} else {
-			throw new SlickException("Unsupport tiled map type: " + encoding
-					+ "," + compression + " (only gzip base64 supported)");
 		}
+		decoder.end();
 	}
 
 	/**
@@ -145,7 +123,7 @@ public class Layer {
 	 * @return The global ID of the tile
 	 */
 	public int getTileID(int x, int y) {
-		return data[x][y][2];
+		return tiles[x + (y * width)];
 	}
 
 	/**
@@ -159,17 +137,33 @@ public class Layer {
 	 *            The tile value to set
 	 */
 	public void setTileID(int x, int y, int tile) {
+		setTile(x + (y * width), tile);
+
+		if (cache != null) {
+			cache.tileChanged(x, y);
+		}
+	}
+
+	/**
+	 * Set the global tile ID at a specified index in the tile data
+	 * 
+	 * @param index
+	 *            The index of the tile (x + (y * width))
+	 * @param tile
+	 *            The tile value to set
+	 */
+	void setTile(int index, int tile) {
+		tiles[index] = tile;
 		if (tile == 0) {
-			data[x][y][0] = -1;
-			data[x][y][1] = 0;
-			data[x][y][2] = 0;
-		} else {
-			TileSet set = map.findTileSet(tile);
+			tileSets[index] = -1;
+			return;
+		}
 
-			data[x][y][0] = set.index;
-			data[x][y][1] = tile - set.firstGID;
-			data[x][y][2] = tile;
+		// tiles next to each other usually come from the same set
+		if ((lastSet == null) || (!lastSet.contains(tile))) {
+			lastSet = map.findTileSet(tile);
 		}
+		tileSets[index] = (lastSet == null) ? -1 : (short) lastSet.index;
 	}
 
 	/**
@@ -208,14 +202,15 @@ public class Layer {
 					continue;
 				}
 
-				if (data[sx + tx][sy + ty][0] == tileset) {
+				int tile = (sx + tx) + ((sy + ty) * this.width);
+				if (tileSets[tile] == tileset) {
 					if (set == null) {
 						set = map.getTileSet(tileset);
 						set.tiles.startUse();
 					}
 
-					int sheetX = set.getTileX(data[sx + tx][sy + ty][1]);
-					int sheetY = set.getTileY(data[sx + tx][sy + ty][1]);
+					int sheetX = set.getTileX(tiles[tile] - set.firstGID);
+					int sheetY = set.getTileY(tiles[tile] - set.firstGID);
 
 					int tileOffsetY = set.tileHeight - mapTileHeight;
 
@@ -240,54 +235,4 @@ public class Layer {
 			}
 		}
 	}
-
-	/**
-	 * Decode a Base64 string as encoded by TilED
-	 * 
-	 * @param data
-	 *            The string of character to decode
-	 * @return The byte array represented by character encoding
-	 */
-	private byte[] decodeBase64(char[] data) {
-		int temp = data.length;
-		for (int ix = 0; ix < data.length; ix++) {
-			if ((data[ix] > 255) || baseCodes[data[ix]] < 0) {
-				--temp;
-			}
-		}
-
-		int len = (temp / 4) * 3;
-		if ((temp % 4) == 3)
-			len += 2;
-		if ((temp % 4) == 2)
-			len += 1;
-
-		byte[] out = new byte[len];
-
-		int shift = 0;
-		int accum = 0;
-		int index = 0;
-
-		for (int ix = 0; ix < data.length; ix++) {
-			int value = (data[ix] > 255) ? -1 : baseCodes[data[ix]];
-
-			if (value >= 0) {
-				accum <<= 6;
-				shift += 6;
-				accum |= value;
-				if (shift >= 8) {
-					shift -= 8;
-					out[index++] = (byte) ((accum >> shift) & 0xff);
-				}
-			}
-		}
-
-		if (index != out.length) {
-			throw new RuntimeException(
-					"Data length appears to be wrong (wrote " + index
-							+ " should be " + out.length + ")");
-		}
-
-		return out;
-	}
 }
\ No newline at end of file
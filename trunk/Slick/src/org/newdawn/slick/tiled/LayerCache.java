@@ -0,0 +1,209 @@
+package org.newdawn.slick.tiled;
+
+import org.newdawn.slick.Color;
+import org.newdawn.slick.opengl.renderer.Renderer;
+import org.newdawn.slick.opengl.renderer.SGL;
+
+/**
+ * A cache of the geometry of a layer held on the graphics card. The layer is
+ * split into square chunks of tiles and the tiles of each chunk are compiled into
+ * a display list per tileset. Rendering a section of the layer then only needs a
+ * single call per visible chunk and tileset rather than a quad per tile.
+ *
+ * Chunks are compiled when first rendered and recompiled only when a tile within
+ * them is changed through setTileID().
+ *
+ * Tiles are drawn tileset by tileset across the visible chunks rather than row by
+ * row, so the picture only matches rendering tile by tile when tiles can't
+ * overlap. The map doesn't use the cache for tilesets with oversized tiles.
+ *
+ * @author agent
+ */
+class LayerCache {
+	/** The renderer to use for all GL operations */
+	protected static SGL GL = Renderer.get();
+
+	/** The map the layer belongs to */
+	private TiledMap map;
+	/** The layer being cached */
+	private Layer layer;
+	/** The width and height of each chunk in tiles */
+	private int chunkSize;
+	/** The number of chunks across the layer */
+	private int columns;
+	/** The number of chunks down the layer */
+	private int rows;
+	/** The display list for each chunk and tileset, 0 if there's nothing to draw */
+	private int[] lists;
+	/** True for each chunk that needs compiling */
+	private boolean[] dirty;
+
+	/**
+	 * Create a new cache for a layer. Nothing is compiled until the layer is
+	 * rendered.
+	 *
+	 * @param map The map the layer belongs to
+	 * @param layer The layer to cache
+	 * @param chunkSize The width and height of each chunk in tiles
+	 */
+	public LayerCache(TiledMap map, Layer layer, int chunkSize) {
+		this.map = map;
+		this.layer = layer;
+		this.chunkSize = chunkSize;
+
+		columns = (layer.width + chunkSize - 1) / chunkSize;
+		rows = (layer.height + chunkSize - 1) / chunkSize;
+		lists = new int[columns * rows * map.getTileSetCount()];
+		dirty = new boolean[columns * rows];
+		for (int i=0;i<dirty.length;i++) {
+			dirty[i] = true;
+		}
+	}
+
+	/**
+	 * Notification that a tile on the layer has changed, so the chunk
+	 * containing it must be compiled again
+	 *
+	 * @param x The x coordinate of the tile that changed
+	 * @param y The y coordinate of the tile that changed
+	 */
+	public void tileChanged(int x, int y) {
+		dirty[((y / chunkSize) * columns) + (x / chunkSize)] = true;
+	}
+
+	/**
+	 * Render a section of the layer. Whole chunks are drawn, so tiles
+	 * around the edge of the section may also be drawn.
+	 *
+	 * @param x The x location to render at
+	 * @param y The y location to render at
+	 * @param sx The x tile location to start rendering
+	 * @param sy The y tile location to start rendering
+	 * @param width The width of the section to render (in tiles)
+	 * @param height The height of the section to render (in tiles)
+	 * @param mapTileWidth The tile width specified in the map file
+	 * @param mapTileHeight The tile height specified in the map file
+	 */
+	public void render(int x, int y, int sx, int sy, int width, int height,
+					   int mapTileWidth, int mapTileHeight) {
+		int left = Math.max(0, sx);
+		int top = Math.max(0, sy);
+		int right = Math.min(layer.width, sx + width);
+		int bottom = Math.min(layer.height, sy + height);
+		if ((left >= right) || (top >= bottom)) {
+			return;
+		}
+
+		int cx1 = left / chunkSize;
+		int cy1 = top / chunkSize;
+		int cx2 = (right - 1) / chunkSize;
+		int cy2 = (bottom - 1) / chunkSize;
+
+		for (int cy=cy1;cy<=cy2;cy++) {
+			for (int cx=cx1;cx<=cx2;cx++) {
+				if (dirty[(cy*columns)+cx]) {
+					compile(cx, cy, mapTileWidth, mapTileHeight);
+				}
+			}
+		}
+
+		float offsetX = x - (sx * mapTileWidth);
+		float offsetY = y - (sy * mapTileHeight);
+		GL.glTranslatef(offsetX, offsetY, 0);
+
+		int tileSetCount = map.getTileSetCount();
+		for (int tileset=0;tileset<tileSetCount;tileset++) {
+			boolean bound = false;
+
+			for (int cy=cy1;cy<=cy2;cy++) {
+				for (int cx=cx1;cx<=cx2;cx++) {
+					int list = lists[(((cy*columns)+cx) * tileSetCount) + tileset];
+					if (list == 0) {
+						continue;
+					}
+
+					if (!bound) {
+						Color.white.bind();
+						map.getTileSet(tileset).tiles.bind();
+						bound = true;
+					}
+					GL.glCallList(list);
+				}
+			}
+		}
+
+		GL.glTranslatef(-offsetX, -offsetY, 0);
+	}
+
+	/**
+	 * Compile the display lists for a single chunk
+	 *
+	 * @param cx The x coordinate of the chunk
+	 * @param cy The y coordinate of the chunk
+	 * @param mapTileWidth The tile width specified in the map file
+	 * @param mapTileHeight The tile height specified in the map file
+	 */
+	private void compile(int cx, int cy, int mapTileWidth, int mapTileHeight) {
+		int chunk = (cy*columns)+cx;
+		int tileSetCount = map.getTileSetCount();
+
+		int x1 = cx * chunkSize;
+		int y1 = cy * chunkSize;
+		int x2 = Math.min(layer.width, x1 + chunkSize);
+		int y2 = Math.min(layer.height, y1 + chunkSize);
+
+		for (int tileset=0;tileset<tileSetCount;tileset++) {
+			int index = (chunk * tileSetCount) + tileset;
+			if (lists[index] != 0) {
+				GL.glDeleteLists(lists[index], 1);
+				lists[index] = 0;
+			}
+
+			TileSet set = null;
+			for (int ty=y1;ty<y2;ty++) {
+				for (int tx=x1;tx<x2;tx++) {
+					int tile = tx + (ty * layer.width);
+					if (layer.tileSets[tile] != tileset) {
+						continue;
+					}
+
+					if (set == null) {
+						set = map.getTileSet(tileset);
+						lists[index] = GL.glGenLists(1);
+						GL.glNewList(lists[index], SGL.GL_COMPILE);
+						GL.glBegin(SGL.GL_QUADS);
+					}
+
+					int sheetX = set.getTileX(layer.tiles[tile] - set.firstGID);
+					int sheetY = set.getTileY(layer.tiles[tile] - set.firstGID);
+					int tileOffsetY = set.tileHeight - mapTileHeight;
+
+					set.tiles.renderInUse(tx * mapTileWidth, (ty * mapTileHeight) - tileOffsetY,
+										  sheetX, sheetY);
+				}
+			}
+
+			if (set != null) {
+				GL.glEnd();
+				GL.glEndList();
+			}
+		}
+
+		dirty[chunk] = false;
+	}
+
+	/**
+	 * Release the display lists held by this cache
+	 */
+	public void destroy() {
+		for (int i=0;i<lists.length;i++) {
+			if (lists[i] != 0) {
+				GL.glDeleteLists(lists[i], 1);
+				lists[i] = 0;
+			}
+		}
+		for (int i=0;i<dirty.length;i++) {
+			dirty[i] = true;
+		}
+	}
+}
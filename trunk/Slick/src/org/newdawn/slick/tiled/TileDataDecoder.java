@@ -0,0 +1,256 @@
+package org.newdawn.slick.tiled;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.util.Log;
+
+/**
+ * A decoder for the tile data of a layer as it's read from a TMX file. The
+ * text of the data element is passed in as it arrives and the tiles are written
+ * straight into the layer, so the data never needs to be held as a whole.
+ *
+ * Supports base64 (uncompressed, gzip or zlib compressed), CSV and plain XML
+ * (a tile element per tile) encodings. Compressed data is collected in its
+ * compressed form and inflated once the data element is complete.
+ *
+ * @author agent
+ */
+class TileDataDecoder {
+	/** Indicates the tiles are given by tile elements */
+	private static final int XML = 0;
+	/** Indicates the tiles are given as comma separated values */
+	private static final int CSV = 1;
+	/** Indicates the tiles are given as base64 encoded bytes */
+	private static final int BASE64 = 2;
+
+	/** The code used to decode Base64 encoding */
+	private static byte[] baseCodes = new byte[256];
+
+	/**
+	 * Static initialiser for the codes created against Base64
+	 */
+	static {
+		for (int i = 0; i < 256; i++)
+			baseCodes[i] = -1;
+		for (int i = 'A'; i <= 'Z'; i++)
+			baseCodes[i] = (byte) (i - 'A');
+		for (int i = 'a'; i <= 'z'; i++)
+			baseCodes[i] = (byte) (26 + i - 'a');
+		for (int i = '0'; i <= '9'; i++)
+			baseCodes[i] = (byte) (52 + i - '0');
+		baseCodes['+'] = 62;
+		baseCodes['/'] = 63;
+	}
+
+	/** The layer the tiles are written to */
+	private Layer layer;
+	/** The encoding of the data */
+	private int encoding;
+	/** True if the data is gzip compressed */
+	private boolean gzip;
+	/** True if the data is zlib compressed */
+	private boolean zlib;
+
+	/** The index of the next tile to be written */
+	private int tile;
+	/** The total number of tiles in the layer */
+	private int size;
+
+	/** The bits decoded from base64 not yet formed into a byte */
+	private int accum;
+	/** The number of bits held in accum */
+	private int shift;
+	/** The compressed bytes collected so far */
+	private ByteArrayOutputStream compressed;
+
+	/** The value of the tile ID being assembled from bytes */
+	private int value;
+	/** The number of bytes of the current tile ID read so far */
+	private int bytes;
+	/** True if digits of a CSV value have been read */
+	private boolean digits;
+
+	/**
+	 * Create a new decoder
+	 *
+	 * @param layer
+	 *            The layer the tiles are written to
+	 * @param encoding
+	 *            The encoding given on the data element
+	 * @param compression
+	 *            The compression given on the data element
+	 * @throws SlickException
+	 *             Indicates the encoding or compression isn't supported
+	 */
+	public TileDataDecoder(Layer layer, String encoding, String compression)
+			throws SlickException {
+		this.layer = layer;
+		size = layer.width * layer.height;
+
+		if (encoding == null) {
+			encoding = "";
+		}
+		if (compression == null) {
+			compression = "";
+		}
+
+		if (encoding.equals("base64")) {
+			this.encoding = BASE64;
+			if (compression.equals("gzip")) {
+				gzip = true;
+			} else if (compression.equals("zlib")) {
+				zlib = true;
+			} else if (!compression.equals("")) {
+				throw new SlickException("Unsupport tiled map compression: "
+						+ compression + " (only gzip and zlib supported)");
+			}
+			if (gzip || zlib) {
+				compressed = new ByteArrayOutputStream();
+			}
+		} else if (encoding.equals("csv") && compression.equals("")) {
+			this.encoding = CSV;
+		} else if (encoding.equals("") && compression.equals("")) {
+			this.encoding = XML;
+		} else {
+			throw new SlickException("Unsupport tiled map type: " + encoding
+					+ "," + compression
+					+ " (only base64, csv and xml supported)");
+		}
+	}
+
+	/**
+	 * Decode some of the text of the data element
+	 *
+	 * @param ch
+	 *            The characters of the text
+	 * @param start
+	 *            The index of the first character to decode
+	 * @param length
+	 *            The number of characters to decode
+	 */
+	public void characters(char[] ch, int start, int length) {
+		int end = start + length;
+
+		if (encoding == CSV) {
+			for (int i = start; i < end; i++) {
+				char c = ch[i];
+				if ((c >= '0') && (c <= '9')) {
+					value = (value * 10) + (c - '0');
+					digits = true;
+				} else if (digits) {
+					addTile(value);
+					value = 0;
+					digits = false;
+				}
+			}
+		} else if (encoding == BASE64) {
+			for (int i = start; i < end; i++) {
+				int code = (ch[i] > 255) ? -1 : baseCodes[ch[i]];
+				if (code < 0) {
+					continue;
+				}
+
+				accum = (accum << 6) | code;
+				shift += 6;
+				if (shift >= 8) {
+					shift -= 8;
+					int b = (accum >> shift) & 0xff;
+					if (compressed != null) {
+						compressed.write(b);
+					} else {
+						addByte(b);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add a tile given by its own element
+	 *
+	 * @param gid
+	 *            The global ID of the tile
+	 */
+	public void tile(int gid) {
+		if (encoding == XML) {
+			addTile(gid);
+		}
+	}
+
+	/**
+	 * Notification that the data element is complete
+	 *
+	 * @throws SlickException
+	 *             Indicates a failure to decompress the data
+	 */
+	public void end() throws SlickException {
+		if ((encoding == CSV) && (digits)) {
+			addTile(value);
+			digits = false;
+		}
+
+		if (compressed != null) {
+			try {
+				InputStream in = new ByteArrayInputStream(compressed
+						.toByteArray());
+				compressed = null;
+				if (gzip) {
+					in = new GZIPInputStream(in);
+				} else {
+					in = new InflaterInputStream(in);
+				}
+
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = in.read(buffer)) > 0) {
+					for (int i = 0; i < read; i++) {
+						addByte(buffer[i] & 0xff);
+					}
+				}
+			} catch (IOException e) {
+				Log.error(e);
+				throw new SlickException("Unable to decompress layer data");
+			}
+		}
+
+		if (tile != size) {
+			Log.warn("Layer " + layer.name + " has data for " + tile
+					+ " tiles, expected " + size);
+		}
+	}
+
+	/**
+	 * Add a byte of the binary data, forming tile IDs from each four bytes
+	 *
+	 * @param b
+	 *            The byte to add
+	 */
+	private void addByte(int b) {
+		value |= b << (bytes * 8);
+		bytes++;
+		if (bytes == 4) {
+			addTile(value);
+			value = 0;
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * Write the next tile to the layer
+	 *
+	 * @param gid
+	 *            The global ID of the tile
+	 */
+	private void addTile(int gid) {
+		if (tile < size) {
+			layer.setTile(tile, gid);
+		}
+		tile++;
+	}
+}
@@ -1,24 +1,19 @@
 package org.newdawn.slick.tiled;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Properties;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 
 import org.newdawn.slick.Image;
 import org.newdawn.slick.SlickException;
 import org.newdawn.slick.util.Log;
 import org.newdawn.slick.util.ResourceLoader;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 /**
  * This class is intended to parse TilED maps. TilED is a generic tool for tile
@@ -78,6 +73,13 @@ public class TiledMap {
 	/** True if we want to load tilesets - including their image data */
 	private boolean loadTileSets = true;
 
+	/** The default width and height of the chunks layers are cached in */
+	public static final int DEFAULT_CHUNK_SIZE = 16;
+	/** True if layers are rendered from cached geometry */
+	private boolean layerCaching;
+	/** True if layers are cached and the cache draws the same as rendering tile by tile */
+	private boolean renderCached;
+
 	/**
 	 * Create a new tile map based on a given TMX file
 	 * 
@@ -196,12 +198,13 @@ public class TiledMap {
 	public Image getTileImage(int x, int y, int layerIndex) {
 		Layer layer = (Layer) layers.get(layerIndex);
 
-		int tileSetIndex = layer.data[x][y][0];
+		int tile = x + (y * layer.width);
+		int tileSetIndex = layer.tileSets[tile];
 		if ((tileSetIndex >= 0) && (tileSetIndex < tileSets.size())) {
 			TileSet tileSet = (TileSet) tileSets.get(tileSetIndex);
 
-			int sheetX = tileSet.getTileX(layer.data[x][y][1]);
-			int sheetY = tileSet.getTileY(layer.data[x][y][1]);
+			int sheetX = tileSet.getTileX(layer.tiles[tile] - tileSet.firstGID);
+			int sheetY = tileSet.getTileY(layer.tiles[tile] - tileSet.firstGID);
 
 			return tileSet.tiles.getSprite(sheetX, sheetY);
 		}
@@ -346,6 +349,82 @@ public class TiledMap {
 		return props.getProperty(propertyName, def);
 	}
 
+	/**
+	 * Indicate whether the layers of the map should be rendered from geometry
+	 * cached on the graphics card. Each layer is split into chunks of tiles that are
+	 * compiled once and then drawn with one call per chunk and tileset, which is
+	 * much cheaper than drawing each tile every frame. Chunks are only compiled
+	 * again when a tile in them is changed with setTileId().
+	 * 
+	 * Only orthogonal maps rendered without lineByLine are cached. Layers are drawn
+	 * one after another rather than interleaved line by line, and whole chunks are
+	 * drawn so tiles just outside the section requested may be drawn too. This
+	 * suits static layers best - the tile data must not be modified directly.
+	 * 
+	 * Cached tiles are drawn tileset by tileset rather than row by row. Where a
+	 * tileset has tiles larger than the map's tiles neighbouring tiles overlap and
+	 * that order would show, so such maps keep rendering tile by tile.
+	 * 
+	 * @param caching
+	 *            True if layers should be rendered from cached geometry
+	 */
+	public void setLayerCaching(boolean caching) {
+		setLayerCaching(caching, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Indicate whether the layers of the map should be rendered from geometry
+	 * cached on the graphics card.
+	 * 
+	 * @see #setLayerCaching(boolean)
+	 * @param caching
+	 *            True if layers should be rendered from cached geometry
+	 * @param chunkSize
+	 *            The width and height of the chunks the layers are split into
+	 *            (in tiles)
+	 */
+	public void setLayerCaching(boolean caching, int chunkSize) {
+		for (int i = 0; i < layers.size(); i++) {
+			Layer layer = (Layer) layers.get(i);
+			if (layer.cache != null) {
+				layer.cache.destroy();
+				layer.cache = null;
+			}
+			if (caching) {
+				layer.cache = new LayerCache(this, layer, chunkSize);
+			}
+		}
+
+		layerCaching = caching;
+		renderCached = caching && tilesFit();
+	}
+
+	/**
+	 * Check if the tiles of every tileset fit within the map's tiles, so tiles
+	 * drawn next to each other never overlap
+	 * 
+	 * @return True if no tileset has tiles larger than the map's tiles
+	 */
+	private boolean tilesFit() {
+		for (int i = 0; i < tileSets.size(); i++) {
+			TileSet set = (TileSet) tileSets.get(i);
+			if ((set.tileWidth > tileWidth) || (set.tileHeight > tileHeight)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Check if the layers of the map are rendered from cached geometry
+	 * 
+	 * @return True if the layers are rendered from cached geometry
+	 */
+	public boolean isLayerCaching() {
+		return layerCaching;
+	}
+
 	/**
 	 * Render the whole tile map at a given location
 	 * 
@@ -420,6 +499,11 @@ public class TiledMap {
 
 		switch (orientation) {
 		case ORTHOGONAL:
+			if (renderCached && !lineByLine) {
+				layer.cache.render(x, y, sx, sy, width, height, tileWidth,
+						tileHeight);
+				break;
+			}
 			for (int ty = 0; ty < height; ty++) {
 				layer.render(x, y, sx, sy, width, ty, lineByLine, tileWidth,
 						tileHeight);
@@ -457,6 +541,14 @@ public class TiledMap {
 			boolean lineByLine) {
 		switch (orientation) {
 		case ORTHOGONAL:
+			if (renderCached && !lineByLine) {
+				for (int i = 0; i < layers.size(); i++) {
+					Layer layer = (Layer) layers.get(i);
+					layer.cache.render(x, y, sx, sy, width, height,
+							tileWidth, tileHeight);
+				}
+				break;
+			}
 			for (int ty = 0; ty < height; ty++) {
 				for (int i = 0; i < layers.size(); i++) {
 					Layer layer = (Layer) layers.get(i);
@@ -572,21 +664,6 @@ public class TiledMap {
 		return layers.size();
 	}
 
-	/**
-	 * Save parser for strings to ints
-	 * 
-	 * @param value
-	 *            The string to parse
-	 * @return The integer to parse or zero if the string isn't an int
-	 */
-	private int parseInt(String value) {
-		try {
-			return Integer.parseInt(value);
-		} catch (NumberFormatException e) {
-			return 0;
-		}
-	}
-
 	/**
 	 * Load a TilED map
 	 * 
@@ -602,94 +679,12 @@ public class TiledMap {
 		tilesLocation = tileSetsLocation;
 
 		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory
-					.newInstance();
+			SAXParserFactory factory = SAXParserFactory.newInstance();
 			factory.setValidating(false);
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			builder.setEntityResolver(new EntityResolver() {
-				public InputSource resolveEntity(String publicId,
-						String systemId) throws SAXException, IOException {
-					return new InputSource(
-							new ByteArrayInputStream(new byte[0]));
-				}
-			});
-
-			Document doc = builder.parse(in);
-			Element docElement = doc.getDocumentElement();
-
-			if (docElement.getAttribute("orientation").equals("orthogonal"))
-				orientation = ORTHOGONAL;
-			else
-				orientation = ISOMETRIC;
-			/*
-			 * if (!orient.equals("orthogonal")) { throw new
-			 * SlickException("Only orthogonal maps supported, found: "+orient);
-			 * }
-			 */
-
-			width = parseInt(docElement.getAttribute("width"));
-			height = parseInt(docElement.getAttribute("height"));
-			tileWidth = parseInt(docElement.getAttribute("tilewidth"));
-			tileHeight = parseInt(docElement.getAttribute("tileheight"));
-
-			// now read the map properties
-			Element propsElement = (Element) docElement.getElementsByTagName(
-					"properties").item(0);
-			if (propsElement != null) {
-				NodeList properties = propsElement
-						.getElementsByTagName("property");
-				if (properties != null) {
-					props = new Properties();
-					for (int p = 0; p < properties.getLength(); p++) {
-						Element propElement = (Element) properties.item(p);
-
-						String name = propElement.getAttribute("name");
-						String value = propElement.getAttribute("value");
-						props.setProperty(name, value);
-					}
-				}
-			}
-
-			if (loadTileSets) {
-				TileSet tileSet = null;
-				TileSet lastSet = null;
-
-				NodeList setNodes = docElement.getElementsByTagName("tileset");
-				for (int i = 0; i < setNodes.getLength(); i++) {
-					Element current = (Element) setNodes.item(i);
-
-					tileSet = new TileSet(this, current, !headless);
-					tileSet.index = i;
-
-					if (lastSet != null) {
-						lastSet.setLimit(tileSet.firstGID - 1);
-					}
-					lastSet = tileSet;
-
-					tileSets.add(tileSet);
-				}
-			}
-
-			NodeList layerNodes = docElement.getElementsByTagName("layer");
-			for (int i = 0; i < layerNodes.getLength(); i++) {
-				Element current = (Element) layerNodes.item(i);
-				Layer layer = new Layer(this, current);
-				layer.index = i;
+			SAXParser parser = factory.newSAXParser();
 
-				layers.add(layer);
-			}
-
-			// acquire object-groups
-			NodeList objectGroupNodes = docElement
-					.getElementsByTagName("objectgroup");
-
-			for (int i = 0; i < objectGroupNodes.getLength(); i++) {
-				Element current = (Element) objectGroupNodes.item(i);
-				ObjectGroup objectGroup = new ObjectGroup(current);
-				objectGroup.index = i;
-
-				objectGroups.add(objectGroup);
-			}
+			parser.parse(new InputSource(in), new TiledMapParser(this,
+					loadTileSets, !headless));
 		} catch (Exception e) {
 			Log.error(e);
 			throw new SlickException("Failed to parse tilemap", e);
@@ -0,0 +1,283 @@
+package org.newdawn.slick.tiled;
+
+import java.io.ByteArrayInputStream;
+import java.util.Properties;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.newdawn.slick.SlickException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * A SAX handler that reads a TMX file into a TiledMap as it's parsed. The
+ * tile data of each layer is decoded straight into the layer as the text arrives
+ * so the potentially huge data sections are never held in memory as text or as
+ * a DOM.
+ *
+ * Tilesets, object groups and properties are small, so each is collected into a
+ * DOM element of its own and handed to the existing element based constructors.
+ *
+ * @author agent
+ */
+class TiledMapParser extends DefaultHandler {
+	/** The map being loaded */
+	private TiledMap map;
+	/** True if we want to load tilesets */
+	private boolean loadTileSets;
+	/** True if we want to load the tileset images */
+	private boolean loadImages;
+
+	/** The document used to build the elements collected */
+	private Document document;
+	/** The root of the element being collected or null if none is */
+	private Element fragment;
+	/** The element currently being collected */
+	private Element current;
+	/** The depth of the current element in the TMX document, the map is 1 */
+	private int depth;
+
+	/** The layer being read or null if we're not within a layer */
+	private Layer layer;
+	/** The decoder for the tile data being read or null if we're not within the data */
+	private TileDataDecoder decoder;
+	/** The last tileset read */
+	private TileSet lastSet;
+
+	/**
+	 * Create a new parser
+	 *
+	 * @param map
+	 *            The map to load into
+	 * @param loadTileSets
+	 *            True if we want to load tilesets
+	 * @param loadImages
+	 *            True if we want to load the tileset images
+	 */
+	public TiledMapParser(TiledMap map, boolean loadTileSets, boolean loadImages) {
+		this.map = map;
+		this.loadTileSets = loadTileSets;
+		this.loadImages = loadImages;
+	}
+
+	/**
+	 * Ignore any external entities, such as the DTD
+	 *
+	 * @see org.xml.sax.helpers.DefaultHandler#resolveEntity(java.lang.String,
+	 *      java.lang.String)
+	 */
+	public InputSource resolveEntity(String publicId, String systemId) {
+		return new InputSource(new ByteArrayInputStream(new byte[0]));
+	}
+
+	/**
+	 * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String,
+	 *      java.lang.String, java.lang.String, org.xml.sax.Attributes)
+	 */
+	public void startElement(String uri, String localName, String qName,
+			Attributes attributes) throws SAXException {
+		depth++;
+
+		if (fragment != null) {
+			Element element = createElement(qName, attributes);
+			current.appendChild(element);
+			current = element;
+			return;
+		}
+
+		try {
+			if (depth == 1) {
+				if ("orthogonal".equals(attributes.getValue("orientation"))) {
+					map.orientation = TiledMap.ORTHOGONAL;
+				} else {
+					map.orientation = TiledMap.ISOMETRIC;
+				}
+
+				map.width = parseInt(attributes.getValue("width"));
+				map.height = parseInt(attributes.getValue("height"));
+				map.tileWidth = parseInt(attributes.getValue("tilewidth"));
+				map.tileHeight = parseInt(attributes.getValue("tileheight"));
+			} else if (depth == 2) {
+				if (qName.equals("layer")) {
+					layer = new Layer(map, attributes.getValue("name"),
+							parseInt(attributes.getValue("width")),
+							parseInt(attributes.getValue("height")));
+					layer.index = map.layers.size();
+				} else if (qName.equals("tileset")
+						|| qName.equals("objectgroup")
+						|| qName.equals("properties")) {
+					fragment = createElement(qName, attributes);
+					current = fragment;
+				}
+			} else if ((depth == 3) && (layer != null)) {
+				if (qName.equals("data")) {
+					decoder = new TileDataDecoder(layer, attributes
+							.getValue("encoding"), attributes
+							.getValue("compression"));
+				} else if (qName.equals("properties")) {
+					fragment = createElement(qName, attributes);
+					current = fragment;
+				}
+			} else if ((depth == 4) && (decoder != null)) {
+				if (qName.equals("tile")) {
+					decoder.tile((int) Long.parseLong(attributes
+							.getValue("gid")));
+				}
+			}
+		} catch (SlickException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	/**
+	 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
+	 */
+	public void characters(char[] ch, int start, int length) {
+		if (decoder != null) {
+			decoder.characters(ch, start, length);
+		} else if (fragment != null) {
+			current.appendChild(document.createTextNode(new String(ch, start,
+					length)));
+		}
+	}
+
+	/**
+	 * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String,
+	 *      java.lang.String, java.lang.String)
+	 */
+	public void endElement(String uri, String localName, String qName)
+			throws SAXException {
+		depth--;
+
+		try {
+			if (fragment != null) {
+				if (current == fragment) {
+					Element element = fragment;
+					fragment = null;
+					current = null;
+					fragmentComplete(element);
+				} else {
+					current = (Element) current.getParentNode();
+				}
+			} else if ((decoder != null) && (qName.equals("data"))) {
+				decoder.end();
+				decoder = null;
+			} else if ((layer != null) && (qName.equals("layer"))) {
+				map.layers.add(layer);
+				layer = null;
+			}
+		} catch (SlickException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	/**
+	 * Notification that an element being collected is complete
+	 *
+	 * @param element
+	 *            The element collected
+	 * @throws SlickException
+	 *             Indicates a failure to process the element
+	 */
+	private void fragmentComplete(Element element) throws SlickException {
+		String name = element.getTagName();
+
+		if (name.equals("properties")) {
+			if (layer != null) {
+				layer.props = readProperties(element);
+			} else {
+				map.props = readProperties(element);
+			}
+		} else if (name.equals("tileset")) {
+			if (loadTileSets) {
+				TileSet tileSet = new TileSet(map, element, loadImages);
+				tileSet.index = map.tileSets.size();
+
+				if (lastSet != null) {
+					lastSet.setLimit(tileSet.firstGID - 1);
+				}
+				lastSet = tileSet;
+
+				map.tileSets.add(tileSet);
+			}
+		} else if (name.equals("objectgroup")) {
+			TiledMap.ObjectGroup objectGroup = map.new ObjectGroup(element);
+			objectGroup.index = map.objectGroups.size();
+
+			map.objectGroups.add(objectGroup);
+		}
+	}
+
+	/**
+	 * Read the properties from a properties element
+	 *
+	 * @param element
+	 *            The properties element
+	 * @return The properties read
+	 */
+	private Properties readProperties(Element element) {
+		Properties props = new Properties();
+
+		NodeList properties = element.getElementsByTagName("property");
+		for (int p = 0; p < properties.getLength(); p++) {
+			Element propElement = (Element) properties.item(p);
+
+			String name = propElement.getAttribute("name");
+			String value = propElement.getAttribute("value");
+			props.setProperty(name, value);
+		}
+
+		return props;
+	}
+
+	/**
+	 * Create an element to collect
+	 *
+	 * @param name
+	 *            The name of the element
+	 * @param attributes
+	 *            The attributes of the element
+	 * @return The newly created element
+	 * @throws SAXException
+	 *             Indicates a failure to create a document to hold the element
+	 */
+	private Element createElement(String name, Attributes attributes)
+			throws SAXException {
+		if (document == null) {
+			try {
+				document = DocumentBuilderFactory.newInstance()
+						.newDocumentBuilder().newDocument();
+			} catch (ParserConfigurationException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		Element element = document.createElement(name);
+		for (int i = 0; i < attributes.getLength(); i++) {
+			element.setAttribute(attributes.getQName(i), attributes.getValue(i));
+		}
+
+		return element;
+	}
+
+	/**
+	 * Save parser for strings to ints
+	 *
+	 * @param value
+	 *            The string to parse
+	 * @return The integer to parse or zero if the string isn't an int
+	 */
+	private int parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package org.newdawn.slick.util;
+
+import java.lang.reflect.Method;
+
+/**
+ * A count of the memory allocated on the heap, used to check code that's meant
+ * to run without creating garbage.
+ *
+ * Where the VM can report the bytes allocated by each thread (HotSpot from Java 6)
+ * the count is exact and only includes the current thread. Elsewhere the count
+ * falls back on the growth of the used heap, which includes every thread and
+ * can't be measured across a garbage collection.
+ *
+ * The VM's interfaces are found by reflection so the library still runs on VMs
+ * without them.
+ *
+ * @author agent
+ */
+public class AllocationCounter {
+	/** The value returned when the allocation can't be counted */
+	public static final long UNKNOWN = -1;
+
+	/** The thread management bean, null if per thread counts aren't available */
+	private static Object threadBean;
+	/** The method getting the bytes allocated by the current thread, null if not available */
+	private static Method currentThreadAllocated;
+	/** The method getting the bytes allocated by a given thread, null if not available */
+	private static Method threadAllocated;
+	/** The method getting the id of a thread */
+	private static Method threadId;
+	/** The bytes allocated by a single call to read the count */
+	private static long overhead;
+
+	static {
+		try {
+			Class factory = Class.forName("java.lang.management.ManagementFactory");
+			Object bean = factory.getMethod("getThreadMXBean", (Class[]) null).invoke(null, (Object[]) null);
+			Class beanClass = Class.forName("com.sun.management.ThreadMXBean");
+
+			if (beanClass.isInstance(bean)) {
+				Method supported = beanClass.getMethod("isThreadAllocatedMemorySupported", (Class[]) null);
+				Method enabled = beanClass.getMethod("isThreadAllocatedMemoryEnabled", (Class[]) null);
+				if (((Boolean) supported.invoke(bean, (Object[]) null)).booleanValue() &&
+					((Boolean) enabled.invoke(bean, (Object[]) null)).booleanValue()) {
+					threadBean = bean;
+					try {
+						currentThreadAllocated = beanClass.getMethod("getCurrentThreadAllocatedBytes", (Class[]) null);
+					} catch (NoSuchMethodException e) {
+						threadAllocated = beanClass.getMethod("getThreadAllocatedBytes", new Class[] {long.class});
+						threadId = Thread.class.getMethod("getId", (Class[]) null);
+					}
+				}
+			}
+		} catch (Throwable e) {
+			// not available on this VM, fall back on the size of the heap
+			threadBean = null;
+		}
+
+		if (threadBean != null) {
+			// reading the count allocates a little itself
+			long first = getAllocatedBytes();
+			long second = getAllocatedBytes();
+			overhead = Math.max(0, second - first);
+		}
+	}
+
+	/**
+	 * Check if the count is exact and only includes the current thread
+	 *
+	 * @return True if the count is exact and only includes the current thread, false
+	 * if it's taken from the growth of the used heap
+	 */
+	public static boolean isThreadAccurate() {
+		return threadBean != null;
+	}
+
+	/**
+	 * Get the number of bytes allocated so far. The value is only useful compared
+	 * to another taken on the same thread, see getAllocatedSince().
+	 *
+	 * @return The number of bytes allocated by the current thread or the size of
+	 * the used heap if the allocation by thread isn't available
+	 */
+	public static long getAllocatedBytes() {
+		if (threadBean != null) {
+			try {
+				if (currentThreadAllocated != null) {
+					return ((Long) currentThreadAllocated.invoke(threadBean, (Object[]) null)).longValue();
+				}
+				Object id = threadId.invoke(Thread.currentThread(), (Object[]) null);
+				return ((Long) threadAllocated.invoke(threadBean, new Object[] {id})).longValue();
+			} catch (Exception e) {
+				Log.error(e);
+				threadBean = null;
+			}
+		}
+
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Get the number of bytes allocated since a value returned from getAllocatedBytes(),
+	 * not including the allocation made reading the count
+	 *
+	 * @param start The value returned from getAllocatedBytes() to count from
+	 * @return The number of bytes allocated or UNKNOWN if the count isn't exact and
+	 * a garbage collection has taken place
+	 */
+	public static long getAllocatedSince(long start) {
+		long allocated = getAllocatedBytes() - start;
+		if (allocated < 0) {
+			return UNKNOWN;
+		}
+
+		return Math.max(0, allocated - overhead);
+	}
+}
@@ -0,0 +1,821 @@
+package org.newdawn.slick.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.lwjgl.Sys;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.Font;
+
+/**
+ * A profiler that records how long each part of a frame takes. Time is recorded
+ * against named scopes which may be nested, e.g. "physics" started within the
+ * container's "update" scope. The time spent in each scope over each frame is
+ * kept for a rolling window of recent frames from which percentiles are taken.
+ *
+ * The game container records the input, update, render, sound, sync, swap and
+ * sleep scopes itself. Games can add their own scopes with start() and end()
+ * through the container's profiler:
+ *
+ * <pre>
+ * Profiler profiler = container.getProfiler();
+ * profiler.start("physics");
+ * world.step(delta);
+ * profiler.end();
+ * </pre>
+ *
+ * When the profiler is disabled, the default, start() and end() do nothing but
+ * check a flag. Enabling or disabling takes effect at the start of the next frame.
+ *
+ * Scopes are recorded on the thread that started the frame. When the container
+ * is pipelined the update thread's scopes, including the container's update and
+ * record scopes, are kept apart while it runs and added to the frame that collects
+ * them, one frame after they ran. Scopes on any other thread are ignored. The
+ * statistics should only be read on the thread running frames, but render() may
+ * be called on either thread since it only draws the text prepared as each frame
+ * ends.
+ *
+ * The bytes allocated on the heap over each frame are also recorded, see
+ * AllocationCounter for how exact the count is.
+ *
+ * Times are taken from the VM's nanosecond timer where there is one (Java 5 on),
+ * found by reflection so the library still runs on older VMs. Elsewhere they're
+ * taken from the LWJGL timer, which only counts whole milliseconds on some
+ * platforms. The timer's method is looked up once, but each read through
+ * reflection still boxes the time in a Long. That's a few dozen bytes for every
+ * scope started or ended on the thread running frames, and it's counted in the
+ * bytes allocated like any other garbage.
+ *
+ * The percentiles of a scope are taken over the frames since it was first
+ * entered, up to the size of the window, so a scope first seen partway through
+ * doesn't count the frames before it as taking no time.
+ *
+ * @author agent
+ */
+public class Profiler {
+	/** The scope recorded for polling input */
+	public static final String INPUT = "input";
+	/** The scope recorded for updating the game */
+	public static final String UPDATE = "update";
+	/** The scope recorded for rendering the game */
+	public static final String RENDER = "render";
+	/** The scope recorded for polling the sound system */
+	public static final String SOUND = "sound";
+	/** The scope recorded for waiting to meet the target frame rate */
+	public static final String SYNC = "sync";
+	/** The scope recorded for swapping the display buffers, including waiting for vsync */
+	public static final String SWAP = "swap";
+	/** The scope recorded for sleeping while the display isn't visible */
+	public static final String SLEEP = "sleep";
+	/** The scope recorded for waiting on the update thread when pipelined */
+	public static final String WAIT = "wait";
+	/** The scope recorded for the game rendering into the command list on the update thread when pipelined */
+	public static final String RECORD = "record";
+
+	/** The default number of frames kept */
+	public static final int DEFAULT_WINDOW = 300;
+	/** The number of frames between updates of the overlay text */
+	private static final int OVERLAY_INTERVAL = 30;
+
+	/** The method reading the VM's nanosecond timer, null if not available */
+	private static Method nanoTime;
+
+	static {
+		try {
+			nanoTime = System.class.getMethod("nanoTime", (Class[]) null);
+		} catch (Throwable e) {
+			// not available on this VM, fall back on the LWJGL timer
+			nanoTime = null;
+		}
+	}
+
+	/** True if the profiler should record from the next frame */
+	private boolean enabled;
+	/** True if the profiler is recording the current frame */
+	private boolean active;
+	/** The number of frames kept for each scope */
+	private int window;
+	/** The scope at the root of the tree, timing whole frames */
+	private Scope root;
+	/** The scope currently being recorded */
+	private Scope current;
+	/** The thread the current frame was started on */
+	private Thread thread;
+	/** The number of frames recorded */
+	private int frames;
+	/** The allocation count at the start of the current frame */
+	private long allocationStart;
+	/** The bytes allocated in each frame of the window, UNKNOWN where it couldn't be counted */
+	private long[] allocations;
+
+	/** The thread running the game when pipelined, whose scopes are collected with each frame */
+	private volatile Thread worker;
+	/** True if the worker is recording the frame it's running */
+	private volatile boolean workerActive;
+	/** The scope at the root of the tree recorded on the worker */
+	private Scope workerRoot;
+	/** The worker's scope currently being recorded */
+	private Scope workerCurrent;
+	/** True if the worker's scopes should be discarded when next collected */
+	private volatile boolean workerReset;
+
+	/** The lines of the overlay, replaced as a whole every few frames */
+	private volatile String[] overlay = new String[0];
+	/** True if the overlay has been rendered, so should be kept up to date */
+	private volatile boolean overlayShown;
+	/** The frame the overlay was last updated on */
+	private int overlayFrame = -OVERLAY_INTERVAL;
+	/** Space to sort the values of a window in when taking percentiles */
+	private long[] sorted;
+
+	/**
+	 * Create a new profiler keeping the default number of frames
+	 */
+	public Profiler() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Create a new profiler
+	 *
+	 * @param window The number of frames to keep the times of for percentiles
+	 */
+	public Profiler(int window) {
+		this.window = window;
+		sorted = new long[window];
+		allocations = new long[window];
+		root = new Scope("frame", null);
+		current = root;
+		workerRoot = new Scope("frame", null);
+		workerCurrent = workerRoot;
+	}
+
+	/**
+	 * Indicate whether the profiler should record frames. This takes effect
+	 * at the start of the next frame.
+	 *
+	 * @param enabled True if the profiler should record frames
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Check if the profiler is recording frames
+	 *
+	 * @return True if the profiler is recording frames
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Discard all the times recorded so far. Must be called on the thread
+	 * running frames.
+	 */
+	public void reset() {
+		root = new Scope("frame", null);
+		current = root;
+		// the worker may be running, so its scopes are replaced once it's idle
+		workerReset = true;
+		frames = 0;
+		Arrays.fill(allocations, 0);
+		active = false;
+		overlay = new String[0];
+		overlayFrame = -OVERLAY_INTERVAL;
+	}
+
+	/**
+	 * Get the number of frames recorded
+	 *
+	 * @return The number of frames recorded
+	 */
+	public int getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Notification that a frame is starting
+	 */
+	public void startFrame() {
+		active = enabled;
+		if (active) {
+			thread = Thread.currentThread();
+			current = root;
+			root.startTime = getTime();
+			allocationStart = AllocationCounter.getAllocatedBytes();
+		}
+	}
+
+	/**
+	 * Notification that the frame is complete, the time of each scope over the
+	 * frame is added to its window
+	 */
+	public void endFrame() {
+		if (!active) {
+			return;
+		}
+
+		long now = getTime();
+		// close any scopes left open so their time isn't lost
+		while (current != root) {
+			current.elapsed += now - current.startTime;
+			current = current.parent;
+		}
+		root.elapsed = now - root.startTime;
+
+		allocations[frames % window] = AllocationCounter.getAllocatedSince(allocationStart);
+		root.endFrame(frames % window);
+		frames++;
+		active = false;
+
+		// the overlay is built here, rather than while rendering, so it's only ever
+		// built on this thread and outside the allocation counted for the frame
+		if (overlayShown && (frames - overlayFrame >= OVERLAY_INTERVAL)) {
+			overlayFrame = frames;
+			overlay = createOverlay();
+		}
+	}
+
+	/**
+	 * Notification that the worker thread of a pipelined container is starting
+	 * to run a frame. Scopes started on the worker are recorded until
+	 * endWorkerFrame() and added to the frame that calls collectWorkerFrame().
+	 */
+	public void startWorkerFrame() {
+		workerActive = enabled;
+		if (workerActive) {
+			worker = Thread.currentThread();
+			workerCurrent = workerRoot;
+		}
+	}
+
+	/**
+	 * Notification that the worker thread has finished running its frame
+	 */
+	public void endWorkerFrame() {
+		if (!workerActive) {
+			return;
+		}
+
+		long now = getTime();
+		// close any scopes left open so their time isn't lost
+		while (workerCurrent.parent != null) {
+			workerCurrent.elapsed += now - workerCurrent.startTime;
+			workerCurrent = workerCurrent.parent;
+		}
+		workerActive = false;
+	}
+
+	/**
+	 * Add the scopes the worker recorded over its last frame to the current frame.
+	 * Must be called on the thread running frames while the worker is idle.
+	 */
+	public void collectWorkerFrame() {
+		if (workerReset) {
+			workerRoot = new Scope("frame", null);
+			workerCurrent = workerRoot;
+			workerReset = false;
+			return;
+		}
+		
+		merge(workerRoot, active ? root : null);
+	}
+
+	/**
+	 * Move the time recorded in the scopes nested within one of the worker's scopes
+	 * into the matching scopes of the frame
+	 *
+	 * @param from The worker's scope to move the nested scopes of
+	 * @param into The scope to add the time to or null to discard it
+	 */
+	private void merge(Scope from, Scope into) {
+		for (int i=0;i<from.childList.size();i++) {
+			Scope child = (Scope) from.childList.get(i);
+			Scope target = null;
+			if (into != null) {
+				target = (Scope) into.children.get(child.name);
+				if (target == null) {
+					target = new Scope(child.name, into);
+					into.children.put(child.name, target);
+					into.childList.add(target);
+				}
+				target.elapsed += child.elapsed;
+				target.calls += child.calls;
+			}
+
+			child.elapsed = 0;
+			child.calls = 0;
+			merge(child, target);
+		}
+	}
+
+	/**
+	 * Get the number of bytes allocated over the last frame recorded
+	 *
+	 * @return The number of bytes allocated or AllocationCounter.UNKNOWN if
+	 * it couldn't be counted
+	 */
+	public long getAllocatedBytes() {
+		if (frames == 0) {
+			return AllocationCounter.UNKNOWN;
+		}
+		return allocations[(frames - 1) % window];
+	}
+
+	/**
+	 * Get a percentile of the number of bytes allocated per frame, over the
+	 * frames in the window where it could be counted
+	 *
+	 * @param percent The percentile to get, e.g. 50 for the median
+	 * @return The number of bytes allocated or AllocationCounter.UNKNOWN if
+	 * no frame could be counted
+	 */
+	public long getAllocatedBytes(int percent) {
+		int count = 0;
+		for (int i=0;i<Math.min(frames, window);i++) {
+			if (allocations[i] != AllocationCounter.UNKNOWN) {
+				sorted[count++] = allocations[i];
+			}
+		}
+		if (count == 0) {
+			return AllocationCounter.UNKNOWN;
+		}
+
+		Arrays.sort(sorted, 0, count);
+		return sorted[percentile(count, percent)];
+	}
+
+	/**
+	 * Start recording time against a scope. The scope is nested within the
+	 * scope currently being recorded, if any. Each call must be matched by a
+	 * call to end().
+	 *
+	 * @param name The name of the scope
+	 */
+	public void start(String name) {
+		if (active && (Thread.currentThread() == thread)) {
+			current = enter(current, name);
+		} else if (workerActive && (Thread.currentThread() == worker)) {
+			workerCurrent = enter(workerCurrent, name);
+		}
+	}
+
+	/**
+	 * Enter a scope nested within another
+	 *
+	 * @param parent The scope being recorded
+	 * @param name The name of the scope to enter
+	 * @return The scope entered
+	 */
+	private Scope enter(Scope parent, String name) {
+		Scope scope = (Scope) parent.children.get(name);
+		if (scope == null) {
+			scope = new Scope(name, parent);
+			parent.children.put(name, scope);
+			parent.childList.add(scope);
+		}
+
+		scope.calls++;
+		scope.startTime = getTime();
+		return scope;
+	}
+
+	/**
+	 * Stop recording time against the scope most recently started
+	 */
+	public void end() {
+		if (active && (Thread.currentThread() == thread)) {
+			if (current != root) {
+				current.elapsed += getTime() - current.startTime;
+				current = current.parent;
+			}
+		} else if (workerActive && (Thread.currentThread() == worker)) {
+			if (workerCurrent.parent != null) {
+				workerCurrent.elapsed += getTime() - workerCurrent.startTime;
+				workerCurrent = workerCurrent.parent;
+			}
+		}
+	}
+
+	/**
+	 * Get the statistics for every scope recorded, with each scope followed by
+	 * the scopes nested within it. The first entry is for whole frames.
+	 *
+	 * @return The list of statistics (ScopeStats) for each scope
+	 */
+	public ArrayList getSnapshot() {
+		ArrayList result = new ArrayList();
+		addSnapshot(root, "", 0, result);
+		return result;
+	}
+
+	/**
+	 * Get the statistics for a single scope
+	 *
+	 * @param path The path of the scope, the names of the scope and the scopes
+	 * containing it separated by '/', e.g. "update/physics"
+	 * @return The statistics for the scope or null if the scope hasn't been recorded
+	 */
+	public ScopeStats getStats(String path) {
+		Scope scope = root;
+		int start = 0;
+		while ((scope != null) && (start < path.length())) {
+			int end = path.indexOf('/', start);
+			if (end < 0) {
+				end = path.length();
+			}
+			scope = (Scope) scope.children.get(path.substring(start, end));
+			start = end + 1;
+		}
+
+		if (scope == null) {
+			return null;
+		}
+		return createStats(scope, path, 0);
+	}
+
+	/**
+	 * Add the statistics for a scope and those nested within it to a list
+	 *
+	 * @param scope The scope to add
+	 * @param path The path of the scope
+	 * @param depth The depth of the scope in the tree
+	 * @param result The list to add to
+	 */
+	private void addSnapshot(Scope scope, String path, int depth, ArrayList result) {
+		result.add(createStats(scope, path, depth));
+		for (int i=0;i<scope.childList.size();i++) {
+			Scope child = (Scope) scope.childList.get(i);
+			addSnapshot(child, path.length() == 0 ? child.name : path+"/"+child.name, depth+1, result);
+		}
+	}
+
+	/**
+	 * Create the statistics for a scope from the frames in its window
+	 *
+	 * @param scope The scope to create statistics for
+	 * @param path The path of the scope
+	 * @param depth The depth of the scope in the tree
+	 * @return The statistics for the scope
+	 */
+	private ScopeStats createStats(Scope scope, String path, int depth) {
+		int count = scope.samples;
+		ScopeStats stats = new ScopeStats();
+		stats.name = scope.name;
+		stats.path = path;
+		stats.depth = depth;
+		if (count == 0) {
+			return stats;
+		}
+
+		// only the frames since the scope was first entered
+		long total = 0;
+		for (int i=0;i<count;i++) {
+			long time = scope.times[(frames - 1 - i + window) % window];
+			sorted[i] = time;
+			total += time;
+		}
+		Arrays.sort(sorted, 0, count);
+
+		stats.calls = scope.lastCalls;
+		stats.last = toMillis(scope.times[(frames - 1) % window]);
+		stats.mean = toMillis(total) / count;
+		stats.p50 = toMillis(sorted[percentile(count, 50)]);
+		stats.p95 = toMillis(sorted[percentile(count, 95)]);
+		stats.p99 = toMillis(sorted[percentile(count, 99)]);
+		stats.max = toMillis(sorted[count-1]);
+
+		return stats;
+	}
+
+	/**
+	 * Get the index of a percentile in a sorted set of values
+	 *
+	 * @param count The number of values
+	 * @param percent The percentile to find
+	 * @return The index of the value at the percentile
+	 */
+	private int percentile(int count, int percent) {
+		int index = ((count * percent) + 99) / 100;
+		return Math.max(0, Math.min(count-1, index-1));
+	}
+
+	/**
+	 * Render the percentiles of each scope as text. The text is prepared as
+	 * frames end, every few frames once it has been rendered.
+	 *
+	 * @param font The font to render with
+	 * @param x The x position to render at
+	 * @param y The y position to render at
+	 */
+	public void render(Font font, int x, int y) {
+		overlayShown = true;
+
+		String[] lines = overlay;
+		int lineHeight = font.getLineHeight();
+		for (int i=0;i<lines.length;i++) {
+			font.drawString(x, y + (i * lineHeight), lines[i], Color.white);
+		}
+	}
+
+	/**
+	 * Create the lines of text showing the percentiles of each scope
+	 *
+	 * @return The lines of the overlay
+	 */
+	private String[] createOverlay() {
+		ArrayList snapshot = getSnapshot();
+		String[] lines = new String[snapshot.size()+2];
+		lines[0] = "scope  p50  p95  p99 (ms)";
+		for (int i=0;i<snapshot.size();i++) {
+			ScopeStats stats = (ScopeStats) snapshot.get(i);
+			StringBuffer line = new StringBuffer();
+			for (int d=0;d<stats.depth;d++) {
+				line.append("  ");
+			}
+			line.append(stats.name);
+			line.append("  ");
+			appendMillis(line, stats.p50);
+			line.append("  ");
+			appendMillis(line, stats.p95);
+			line.append("  ");
+			appendMillis(line, stats.p99);
+			lines[i+1] = line.toString();
+		}
+
+		StringBuffer line = new StringBuffer("alloc");
+		line.append(AllocationCounter.isThreadAccurate() ? "  " : "~ ");
+		appendKilobytes(line, getAllocatedBytes(50));
+		line.append("  ");
+		appendKilobytes(line, getAllocatedBytes(95));
+		line.append("  ");
+		appendKilobytes(line, getAllocatedBytes(99));
+		line.append(" (KB)");
+		lines[lines.length-1] = line.toString();
+		return lines;
+	}
+
+	/**
+	 * Append a time in milliseconds to two decimal places
+	 *
+	 * @param buffer The buffer to append to
+	 * @param millis The time to append
+	 */
+	private void appendMillis(StringBuffer buffer, float millis) {
+		int hundredths = Math.round(millis * 100);
+		buffer.append(hundredths / 100);
+		buffer.append('.');
+		if (hundredths % 100 < 10) {
+			buffer.append('0');
+		}
+		buffer.append(hundredths % 100);
+	}
+
+	/**
+	 * Append a number of bytes in kilobytes to one decimal place
+	 *
+	 * @param buffer The buffer to append to
+	 * @param bytes The number of bytes to append or AllocationCounter.UNKNOWN
+	 */
+	private void appendKilobytes(StringBuffer buffer, long bytes) {
+		if (bytes == AllocationCounter.UNKNOWN) {
+			buffer.append('?');
+			return;
+		}
+
+		long tenths = ((bytes * 10) + 512) / 1024;
+		buffer.append(tenths / 10);
+		buffer.append('.');
+		buffer.append(tenths % 10);
+	}
+
+	/**
+	 * Convert a time in timer ticks to milliseconds
+	 *
+	 * @param ticks The time in timer ticks
+	 * @return The time in milliseconds
+	 */
+	private float toMillis(long ticks) {
+		return (ticks * 1000.0f) / getTimerResolution();
+	}
+
+	/**
+	 * Get the current time in timer ticks
+	 *
+	 * @return The current time in timer ticks
+	 */
+	protected long getTime() {
+		if (nanoTime != null) {
+			try {
+				return ((Long) nanoTime.invoke(null, (Object[]) null)).longValue();
+			} catch (Exception e) {
+				Log.error(e);
+				nanoTime = null;
+			}
+		}
+		return Sys.getTime();
+	}
+
+	/**
+	 * Get the number of timer ticks in a second
+	 *
+	 * @return The number of timer ticks in a second
+	 */
+	protected long getTimerResolution() {
+		if (nanoTime != null) {
+			return 1000000000L;
+		}
+		return Sys.getTimerResolution();
+	}
+
+	/**
+	 * The statistics for a single scope, taken over the frames in the window.
+	 * Times are given in milliseconds and are the total time spent in the scope
+	 * in each frame.
+	 *
+	 * @author agent
+	 */
+	public static class ScopeStats {
+		/** The name of the scope */
+		String name;
+		/** The path of the scope, its name and those of the scopes containing it */
+		String path;
+		/** The number of scopes containing the scope */
+		int depth;
+		/** The number of times the scope was entered in the last frame */
+		int calls;
+		/** The time spent in the scope in the last frame */
+		float last;
+		/** The mean time spent in the scope per frame */
+		float mean;
+		/** The median time spent in the scope per frame */
+		float p50;
+		/** The 95th percentile of the time spent in the scope per frame */
+		float p95;
+		/** The 99th percentile of the time spent in the scope per frame */
+		float p99;
+		/** The most time spent in the scope in a frame */
+		float max;
+
+		/**
+		 * Get the name of the scope
+		 *
+		 * @return The name of the scope
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Get the path of the scope, the names of the scope and those containing
+		 * it separated by '/'. The path of the frame scope is empty.
+		 *
+		 * @return The path of the scope
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * Get the number of scopes containing this one
+		 *
+		 * @return The depth of the scope
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Get the number of times the scope was entered in the last frame
+		 *
+		 * @return The number of times the scope was entered in the last frame
+		 */
+		public int getCalls() {
+			return calls;
+		}
+
+		/**
+		 * Get the time spent in the scope in the last frame
+		 *
+		 * @return The time in milliseconds
+		 */
+		public float getLast() {
+			return last;
+		}
+
+		/**
+		 * Get the mean time spent in the scope per frame
+		 *
+		 * @return The time in milliseconds
+		 */
+		public float getMean() {
+			return mean;
+		}
+
+		/**
+		 * Get the median time spent in the scope per frame
+		 *
+		 * @return The time in milliseconds
+		 */
+		public float getP50() {
+			return p50;
+		}
+
+		/**
+		 * Get the 95th percentile of the time spent in the scope per frame
+		 *
+		 * @return The time in milliseconds
+		 */
+		public float getP95() {
+			return p95;
+		}
+
+		/**
+		 * Get the 99th percentile of the time spent in the scope per frame
+		 *
+		 * @return The time in milliseconds
+		 */
+		public float getP99() {
+			return p99;
+		}
+
+		/**
+		 * Get the most time spent in the scope in a single frame
+		 *
+		 * @return The time in milliseconds
+		 */
+		public float getMax() {
+			return max;
+		}
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		public String toString() {
+			return "[ScopeStats "+(path.length() == 0 ? name : path)+" p50="+p50+" p95="+p95+
+				   " p99="+p99+" max="+max+" mean="+mean+"]";
+		}
+	}
+
+	/**
+	 * A scope time is recorded against
+	 *
+	 * @author agent
+	 */
+	private class Scope {
+		/** The name of the scope */
+		private String name;
+		/** The scope containing this one */
+		private Scope parent;
+		/** The scopes nested within this one (String to Scope) */
+		private HashMap children = new HashMap();
+		/** The scopes nested within this one in the order they were first entered */
+		private ArrayList childList = new ArrayList();
+		/** The time the scope was last entered */
+		private long startTime;
+		/** The time spent in the scope so far this frame */
+		private long elapsed;
+		/** The number of times the scope has been entered this frame */
+		private int calls;
+		/** The number of times the scope was entered in the last frame */
+		private int lastCalls;
+		/** The time spent in the scope in each frame of the window */
+		private long[] times = new long[window];
+		/** The number of frames recorded since the scope was created, at most the window */
+		private int samples;
+
+		/**
+		 * Create a new scope
+		 *
+		 * @param name The name of the scope
+		 * @param parent The scope containing this one
+		 */
+		public Scope(String name, Scope parent) {
+			this.name = name;
+			this.parent = parent;
+		}
+
+		/**
+		 * Record the time spent in this scope and those nested within it for
+		 * the frame just completed
+		 *
+		 * @param slot The slot in the window for the frame
+		 */
+		public void endFrame(int slot) {
+			times[slot] = elapsed;
+			if (samples < window) {
+				samples++;
+			}
+			lastCalls = calls;
+			elapsed = 0;
+			calls = 0;
+
+			for (int i=0;i<childList.size();i++) {
+				((Scope) childList.get(i)).endFrame(slot);
+			}
+		}
+	}
+}
@@ -0,0 +1,416 @@
+package org.newdawn.slick.util.pathfinding;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A path finder that remembers the paths found by another path finder, so
+ * repeated requests for the same path don't need to be searched again.
+ *
+ * Paths are cached against the mover, the region the start lies in and the
+ * target of the request. Regions are square blocks of tiles, a single tile by
+ * default. A request from any tile that lies on the path cached for its region
+ * is answered with the rest of that path from the tile, which is a valid path
+ * from there and the shortest if the paths found are. Requests from elsewhere
+ * in the region are searched and replace the cached path. Movers are matched on
+ * getMoverKey(), which is the mover itself unless overridden - for instance to
+ * share paths between all the movers of one type. The least recently used
+ * paths are discarded when either the number of paths or the total number of
+ * steps held goes over the limits given. The cache should be
+ * registered as a listener on the map (see ObservableTileBasedMap) or told about
+ * changes directly through tileChanged(). When a tile changes any cached path
+ * through that tile is discarded along with any cached failures to find a path.
+ * Paths that don't cross the changed tile are kept, so after walls are removed
+ * the cached paths remain valid but may no longer be the shortest - call clear()
+ * if that matters.
+ *
+ * Each request is given its own copy of the path so callers may modify it.
+ *
+ * @author agent
+ */
+public class CachingPathFinder implements PathFinder, TileChangeListener {
+	/** The path finder used to find paths that aren't cached */
+	private PathFinder finder;
+	/** The maximum number of paths to hold */
+	private int maxEntries;
+	/** The maximum number of steps to hold across all the paths */
+	private int maxSteps;
+	/** The width and height of the source regions in tiles */
+	private int regionSize;
+
+	/** The cached entries in least recently used order */
+	private LinkedHashMap cache = new LinkedHashMap(16, 0.75f, true);
+	/** The total number of steps held in the cache */
+	private int steps;
+
+	/** The number of requests answered from the cache */
+	private long hits;
+	/** The number of requests passed on to the path finder */
+	private long misses;
+	/** The number of entries discarded to stay within the limits */
+	private long evictions;
+	/** The number of entries discarded because the map changed */
+	private long invalidations;
+
+	/**
+	 * Create a new cache
+	 *
+	 * @param finder The path finder used to find paths that aren't cached
+	 * @param maxEntries The maximum number of paths to hold
+	 * @param maxSteps The maximum number of steps to hold across all the paths
+	 */
+	public CachingPathFinder(PathFinder finder, int maxEntries, int maxSteps) {
+		this(finder, maxEntries, maxSteps, 1);
+	}
+
+	/**
+	 * Create a new cache that shares paths between starts in the same region
+	 *
+	 * @param finder The path finder used to find paths that aren't cached
+	 * @param maxEntries The maximum number of paths to hold
+	 * @param maxSteps The maximum number of steps to hold across all the paths
+	 * @param regionSize The width and height of the source regions in tiles
+	 */
+	public CachingPathFinder(PathFinder finder, int maxEntries, int maxSteps, int regionSize) {
+		if (regionSize < 1) {
+			throw new IllegalArgumentException("Region size must be at least 1: "+regionSize);
+		}
+
+		this.finder = finder;
+		this.maxEntries = maxEntries;
+		this.maxSteps = maxSteps;
+		this.regionSize = regionSize;
+	}
+
+	/**
+	 * @see PathFinder#findPath(Mover, int, int, int, int)
+	 */
+	public Path findPath(Mover mover, int sx, int sy, int tx, int ty) {
+		Key key = new Key(getMoverKey(mover), sx / regionSize, sy / regionSize, tx, ty);
+		Entry entry = (Entry) cache.get(key);
+		if (entry != null) {
+			int start = entry.indexOf(sx, sy);
+			if (start >= 0) {
+				hits++;
+				return copy(entry.path, start);
+			}
+
+			cache.remove(key);
+			steps -= entry.length;
+		}
+
+		misses++;
+		Path path = finder.findPath(mover, sx, sy, tx, ty);
+
+		entry = new Entry(copy(path, 0), sx, sy);
+		if (entry.length <= maxSteps) {
+			cache.put(key, entry);
+			steps += entry.length;
+			trim();
+		}
+
+		return path;
+	}
+
+	/**
+	 * Get the key movers are matched on. Paths found for one mover are only
+	 * given to movers with an equal key. By default this is the mover itself,
+	 * override to share paths between movers that are blocked by and pay the
+	 * same costs for every tile.
+	 *
+	 * @param mover The mover requesting a path
+	 * @return The key paths for the mover are cached against
+	 */
+	protected Object getMoverKey(Mover mover) {
+		return mover;
+	}
+
+	/**
+	 * Copy a path from a given step onwards
+	 *
+	 * @param path The path to copy or null if no path was found
+	 * @param start The index of the first step to copy
+	 * @return The copy of the path or null if no path was given
+	 */
+	private Path copy(Path path, int start) {
+		if (path == null) {
+			return null;
+		}
+
+		Path result = new Path();
+		for (int i=start;i<path.getLength();i++) {
+			result.appendStep(path.getX(i), path.getY(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Discard the least recently used entries until the cache is back within
+	 * its limits
+	 */
+	private void trim() {
+		Iterator i = cache.values().iterator();
+		while (((cache.size() > maxEntries) || (steps > maxSteps)) && i.hasNext()) {
+			Entry entry = (Entry) i.next();
+			steps -= entry.length;
+			i.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Discard any cached paths through the given tile and any cached failures
+	 * to find a path.
+	 *
+	 * @see TileChangeListener#tileChanged(int, int)
+	 */
+	public void tileChanged(int x, int y) {
+		Iterator i = cache.values().iterator();
+		while (i.hasNext()) {
+			Entry entry = (Entry) i.next();
+			if (entry.crosses(x, y)) {
+				steps -= entry.length;
+				i.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	/**
+	 * Discard every cached path
+	 */
+	public void clear() {
+		cache.clear();
+		steps = 0;
+	}
+
+	/**
+	 * Get the number of paths currently cached
+	 *
+	 * @return The number of paths currently cached
+	 */
+	public int getSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Get the total number of steps held across all cached paths
+	 *
+	 * @return The number of steps held in the cache
+	 */
+	public int getStepCount() {
+		return steps;
+	}
+
+	/**
+	 * Get the number of requests answered from the cache
+	 *
+	 * @return The number of cache hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of requests that had to be passed on to the path finder
+	 *
+	 * @return The number of cache misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Get the number of paths discarded to keep the cache within its limits
+	 *
+	 * @return The number of paths evicted
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Get the number of paths discarded because the map changed
+	 *
+	 * @return The number of paths invalidated
+	 */
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * Reset the hit, miss, eviction and invalidation counts
+	 */
+	public void resetStatistics() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		invalidations = 0;
+	}
+
+	/**
+	 * The key a path is cached against
+	 *
+	 * @author agent
+	 */
+	private class Key {
+		/** The key of the entity moving along the path */
+		private Object mover;
+		/** The x coordinate of the start region */
+		private int sx;
+		/** The y coordinate of the start region */
+		private int sy;
+		/** The x coordinate of the target location */
+		private int tx;
+		/** The y coordinate of the target location */
+		private int ty;
+
+		/**
+		 * Create a new key
+		 *
+		 * @param mover The key of the entity moving along the path
+		 * @param sx The x coordinate of the start region
+		 * @param sy The y coordinate of the start region
+		 * @param tx The x coordinate of the target location
+		 * @param ty The y coordinate of the target location
+		 */
+		public Key(Object mover, int sx, int sy, int tx, int ty) {
+			this.mover = mover;
+			this.sx = sx;
+			this.sy = sy;
+			this.tx = tx;
+			this.ty = ty;
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		public int hashCode() {
+			int result = (mover == null) ? 0 : mover.hashCode();
+			result = (result * 31) + sx;
+			result = (result * 31) + sy;
+			result = (result * 31) + tx;
+			result = (result * 31) + ty;
+
+			return result;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		public boolean equals(Object other) {
+			if (other instanceof Key) {
+				Key o = (Key) other;
+
+				boolean sameMover = (mover == null) ? (o.mover == null) : mover.equals(o.mover);
+
+				return sameMover && (o.sx == sx) && (o.sy == sy) && (o.tx == tx) && (o.ty == ty);
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * A cached path along with the bounds of the area it covers
+	 *
+	 * @author agent
+	 */
+	private class Entry {
+		/** The path cached or null if no path could be found */
+		private Path path;
+		/** The x coordinate of the start the path was searched from */
+		private int sx;
+		/** The y coordinate of the start the path was searched from */
+		private int sy;
+		/** The number of steps in the path, at least one so failures count towards the limit */
+		private int length;
+		/** The lowest x coordinate on the path */
+		private int minX = Integer.MAX_VALUE;
+		/** The lowest y coordinate on the path */
+		private int minY = Integer.MAX_VALUE;
+		/** The highest x coordinate on the path */
+		private int maxX = Integer.MIN_VALUE;
+		/** The highest y coordinate on the path */
+		private int maxY = Integer.MIN_VALUE;
+
+		/**
+		 * Create a new entry
+		 *
+		 * @param path The path to cache or null if no path could be found
+		 * @param sx The x coordinate of the start the path was searched from
+		 * @param sy The y coordinate of the start the path was searched from
+		 */
+		public Entry(Path path, int sx, int sy) {
+			this.path = path;
+			this.sx = sx;
+			this.sy = sy;
+
+			if (path == null) {
+				length = 1;
+				return;
+			}
+
+			length = Math.max(1, path.getLength());
+			for (int i=0;i<path.getLength();i++) {
+				int x = path.getX(i);
+				int y = path.getY(i);
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				maxX = Math.max(maxX, x);
+				maxY = Math.max(maxY, y);
+			}
+		}
+
+		/**
+		 * Get the index of the step at a given start location. A cached failure
+		 * only answers requests from the start it was searched from.
+		 *
+		 * @param x The x coordinate of the start location
+		 * @param y The y coordinate of the start location
+		 * @return The index of the step or -1 if this entry can't answer a
+		 * request from the location
+		 */
+		public int indexOf(int x, int y) {
+			if (path == null) {
+				return ((x == sx) && (y == sy)) ? 0 : -1;
+			}
+			if ((x < minX) || (y < minY) || (x > maxX) || (y > maxY)) {
+				return -1;
+			}
+
+			for (int i=0;i<path.getLength();i++) {
+				if ((path.getX(i) == x) && (path.getY(i) == y)) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		/**
+		 * Check if this entry is effected by a change to the given tile
+		 *
+		 * @param x The x coordinate of the tile changed
+		 * @param y The y coordinate of the tile changed
+		 * @return True if the path crosses the tile or this is a cached failure
+		 */
+		public boolean crosses(int x, int y) {
+			if (path == null) {
+				return true;
+			}
+			if ((x < minX) || (y < minY) || (x > maxX) || (y > maxY)) {
+				return false;
+			}
+
+			for (int i=0;i<path.getLength();i++) {
+				if ((path.getX(i) == x) && (path.getY(i) == y)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
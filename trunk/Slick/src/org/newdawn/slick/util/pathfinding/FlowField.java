@@ -0,0 +1,443 @@
+package org.newdawn.slick.util.pathfinding;
+
+/**
+ * A flow field (or Dijkstra map) leading every tile on a map towards a single
+ * goal. The field is built with one search outwards from the goal, after which
+ * any number of movers can find their next step towards the goal with a simple
+ * lookup. This is far cheaper than searching for a path per mover when lots of
+ * entities are chasing the same target.
+ *
+ * Costs and blocking are taken from the map with the context describing each
+ * move towards the goal, so the field honours costs that depend on the tile
+ * being moved from. The mover given is passed to the map for every check, so a
+ * field is built for one kind of mover.
+ *
+ * When the goal only moves a little way moveGoal() repairs the field around the
+ * new goal rather than rebuilding the whole thing. Tiles outside the repaired
+ * area keep following the old field until they reach the repaired area, so paths
+ * from far away may not be the very shortest until the next full rebuild. The
+ * distance from such a tile is worked out along that route the first time it's
+ * asked for.
+ *
+ * @author agent
+ */
+public class FlowField implements PathFindingContext {
+	/** The value used to indicate no tile */
+	private static final int NONE = TileSearchState.NONE;
+
+	/** The map the field covers */
+	private TileBasedMap map;
+	/** The mover the field is built for */
+	private Mover mover;
+	/** True if we allow diaganol movement */
+	private boolean allowDiagMovement;
+	/** The width of the map in tiles */
+	private int width;
+	/** The height of the map in tiles */
+	private int height;
+
+	/** The cost of reaching the goal from each tile */
+	private float[] distance;
+	/** The index of the next tile towards the goal from each tile */
+	private int[] next;
+	/** The number of steps to the goal from each tile */
+	private int[] steps;
+	/** The generation each tile's distance was last worked out in */
+	private int[] stamp;
+	/** The generation of the field, advanced each time the goal changes */
+	private int generation;
+	/** The tiles followed while bringing a distance up to date */
+	private int[] chain;
+	/** The working state of the search used to build the field */
+	private TileSearchState state;
+	/** The tiles settled by the last repair */
+	private int[] settled;
+
+	/** The x coordinate of the goal */
+	private int goalX = -1;
+	/** The y coordinate of the goal */
+	private int goalY = -1;
+
+	/** The x coordinate of the source tile of the move being checked */
+	private int sourceX;
+	/** The y coordinate of the source tile of the move being checked */
+	private int sourceY;
+	/** The number of steps from the goal of the tile being expanded */
+	private int searchDistance;
+
+	/**
+	 * Create a new flow field. No goal is set to begin with.
+	 *
+	 * @param map The map the field should cover
+	 * @param mover The mover the field is built for, passed to the map
+	 * @param allowDiagMovement True if the field should allow diaganol movement
+	 */
+	public FlowField(TileBasedMap map, Mover mover, boolean allowDiagMovement) {
+		this.map = map;
+		this.mover = mover;
+		this.allowDiagMovement = allowDiagMovement;
+
+		width = map.getWidthInTiles();
+		height = map.getHeightInTiles();
+
+		int size = width * height;
+		distance = new float[size];
+		next = new int[size];
+		steps = new int[size];
+		stamp = new int[size];
+		chain = new int[size];
+		settled = new int[size];
+		state = new TileSearchState(width, height);
+		clear();
+	}
+
+	/**
+	 * Set the goal of the field and rebuild it completely
+	 *
+	 * @param x The x coordinate of the goal
+	 * @param y The y coordinate of the goal
+	 */
+	public void setGoal(int x, int y) {
+		goalX = x;
+		goalY = y;
+		rebuild();
+	}
+
+	/**
+	 * Move the goal of the field, repairing only the area around the new goal
+	 * where possible. If the field can't be repaired (e.g. the new goal can't
+	 * reach the old one) it's rebuilt completely.
+	 *
+	 * @param x The x coordinate of the new goal
+	 * @param y The y coordinate of the new goal
+	 */
+	public void moveGoal(int x, int y) {
+		if ((goalX < 0) || (goalY < 0)) {
+			setGoal(x, y);
+			return;
+		}
+		if ((x == goalX) && (y == goalY)) {
+			return;
+		}
+
+		// search out from the new goal until we've settled the old one. Every
+		// tile outside this area leads to the old goal, so once they've got
+		// this far they'll pick up the route to the new goal
+		int oldGoal = (goalY * width) + goalX;
+		int count = search(x, y, oldGoal);
+		goalX = x;
+		goalY = y;
+
+		if (count < 0) {
+			rebuild();
+			return;
+		}
+
+		// only the repaired tiles are current, the rest are brought up to
+		// date as they're asked for
+		generation++;
+		apply(count);
+	}
+
+	/**
+	 * Rebuild the whole field for the current goal. This should be called
+	 * when the map has changed.
+	 */
+	public void rebuild() {
+		clear();
+		if ((goalX < 0) || (goalY < 0)) {
+			return;
+		}
+
+		generation++;
+		apply(search(goalX, goalY, NONE));
+	}
+
+	/**
+	 * Copy the results of the last search into the field for the tiles it settled
+	 *
+	 * @param count The number of tiles settled
+	 */
+	private void apply(int count) {
+		for (int i=0;i<count;i++) {
+			int index = settled[i];
+			distance[index] = state.cost[index];
+			next[index] = state.parent[index];
+			steps[index] = state.depth[index];
+			stamp[index] = generation;
+		}
+	}
+
+	/**
+	 * Clear the field so no tile leads anywhere
+	 */
+	private void clear() {
+		for (int i=0;i<distance.length;i++) {
+			distance[i] = Float.MAX_VALUE;
+			next[i] = NONE;
+		}
+	}
+
+	/**
+	 * Search outwards from the goal recording the tiles settled in order
+	 *
+	 * @param gx The x coordinate of the goal
+	 * @param gy The y coordinate of the goal
+	 * @param stop The index of the tile to stop after settling or NONE to search the whole map
+	 * @return The number of tiles settled or -1 if the stop tile was never reached
+	 */
+	private int search(int gx, int gy, int stop) {
+		int count = 0;
+
+		state.start();
+		float[] cost = state.cost;
+		int[] depth = state.depth;
+
+		int goal = (gy * width) + gx;
+		state.visit(goal);
+		cost[goal] = 0;
+		state.open(goal, 0);
+
+		while (state.openSize() != 0) {
+			int current = state.pop();
+			state.setClosed(current, true);
+			settled[count++] = current;
+
+			if (current == stop) {
+				return count;
+			}
+
+			int cx = current % width;
+			int cy = current / width;
+			searchDistance = depth[current];
+			map.pathFinderVisited(cx, cy);
+
+			// consider each tile that could step into this one
+			for (int x=-1;x<2;x++) {
+				for (int y=-1;y<2;y++) {
+					if ((x == 0) && (y == 0)) {
+						continue;
+					}
+					if ((!allowDiagMovement) && (x != 0) && (y != 0)) {
+						continue;
+					}
+
+					int xp = cx + x;
+					int yp = cy + y;
+					if ((xp < 0) || (yp < 0) || (xp >= width) || (yp >= height)) {
+						continue;
+					}
+
+					int neighbour = (yp * width) + xp;
+					state.visit(neighbour);
+					if (state.isClosed(neighbour)) {
+						continue;
+					}
+
+					sourceX = xp;
+					sourceY = yp;
+					if (map.blocked(this, cx, cy)) {
+						continue;
+					}
+
+					float stepCost = cost[current] + map.getCost(this, cx, cy);
+					if (stepCost < cost[neighbour]) {
+						cost[neighbour] = stepCost;
+						state.parent[neighbour] = current;
+						depth[neighbour] = depth[current] + 1;
+						state.open(neighbour, stepCost);
+					}
+				}
+			}
+		}
+
+		if (stop != NONE) {
+			return -1;
+		}
+		return count;
+	}
+
+	/**
+	 * Get the x coordinate of the goal
+	 *
+	 * @return The x coordinate of the goal or -1 if no goal has been set
+	 */
+	public int getGoalX() {
+		return goalX;
+	}
+
+	/**
+	 * Get the y coordinate of the goal
+	 *
+	 * @return The y coordinate of the goal or -1 if no goal has been set
+	 */
+	public int getGoalY() {
+		return goalY;
+	}
+
+	/**
+	 * Check if the goal can be reached from a given tile
+	 *
+	 * @param x The x coordinate of the tile to check
+	 * @param y The y coordinate of the tile to check
+	 * @return True if the goal can be reached from the tile
+	 */
+	public boolean isReachable(int x, int y) {
+		if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+			return false;
+		}
+
+		return distance[(y * width) + x] != Float.MAX_VALUE;
+	}
+
+	/**
+	 * Get the cost of reaching the goal from a given tile
+	 *
+	 * @param x The x coordinate of the tile
+	 * @param y The y coordinate of the tile
+	 * @return The cost of reaching the goal or Float.MAX_VALUE if it can't be reached
+	 */
+	public float getDistance(int x, int y) {
+		if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+			return Float.MAX_VALUE;
+		}
+
+		int index = (y * width) + x;
+		if ((stamp[index] != generation) && (distance[index] != Float.MAX_VALUE)) {
+			updateDistance(index);
+		}
+
+		return distance[index];
+	}
+
+	/**
+	 * Bring the distance of a tile left behind by moveGoal() up to date. The
+	 * field is followed from the tile until it reaches a tile that is up to
+	 * date, then the cost of each step is added back up along the way.
+	 *
+	 * @param index The index of the tile to update
+	 */
+	private void updateDistance(int index) {
+		int count = 0;
+		while (stamp[index] != generation) {
+			chain[count++] = index;
+			index = next[index];
+		}
+
+		for (int i=count-1;i>=0;i--) {
+			int from = chain[i];
+			int to = next[from];
+			sourceX = from % width;
+			sourceY = from / width;
+			searchDistance = steps[to];
+
+			distance[from] = distance[to] + map.getCost(this, to % width, to / width);
+			steps[from] = steps[to] + 1;
+			stamp[from] = generation;
+		}
+	}
+
+	/**
+	 * Get the x coordinate of the next step towards the goal
+	 *
+	 * @param x The x coordinate of the tile the mover is on
+	 * @param y The y coordinate of the tile the mover is on
+	 * @return The x coordinate of the next tile or -1 if the mover is at the goal
+	 * or can't reach it
+	 */
+	public int getNextX(int x, int y) {
+		int step = getNext(x, y);
+		if (step == NONE) {
+			return -1;
+		}
+
+		return step % width;
+	}
+
+	/**
+	 * Get the y coordinate of the next step towards the goal
+	 *
+	 * @param x The x coordinate of the tile the mover is on
+	 * @param y The y coordinate of the tile the mover is on
+	 * @return The y coordinate of the next tile or -1 if the mover is at the goal
+	 * or can't reach it
+	 */
+	public int getNextY(int x, int y) {
+		int step = getNext(x, y);
+		if (step == NONE) {
+			return -1;
+		}
+
+		return step / width;
+	}
+
+	/**
+	 * Get the index of the next tile towards the goal
+	 *
+	 * @param x The x coordinate of the tile the mover is on
+	 * @param y The y coordinate of the tile the mover is on
+	 * @return The index of the next tile or NONE
+	 */
+	private int getNext(int x, int y) {
+		if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+			return NONE;
+		}
+
+		return next[(y * width) + x];
+	}
+
+	/**
+	 * Get the complete path to the goal from a given tile by following the field
+	 *
+	 * @param x The x coordinate of the tile to start from
+	 * @param y The y coordinate of the tile to start from
+	 * @return The path to the goal or null if the goal can't be reached
+	 */
+	public Path getPath(int x, int y) {
+		if (!isReachable(x, y)) {
+			return null;
+		}
+
+		Path path = new Path();
+		int step = (y * width) + x;
+		int limit = width * height;
+		while (step != NONE) {
+			path.appendStep(step % width, step / width);
+			step = next[step];
+
+			if (path.getLength() > limit) {
+				return null;
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getMover()
+	 */
+	public Mover getMover() {
+		return mover;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSearchDistance()
+	 */
+	public int getSearchDistance() {
+		return searchDistance;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceX()
+	 */
+	public int getSourceX() {
+		return sourceX;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceY()
+	 */
+	public int getSourceY() {
+		return sourceY;
+	}
+}
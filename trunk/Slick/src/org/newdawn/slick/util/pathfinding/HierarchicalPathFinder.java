@@ -0,0 +1,883 @@
+package org.newdawn.slick.util.pathfinding;
+
+import java.util.ArrayList;
+
+import org.newdawn.slick.util.pathfinding.heuristics.ClosestHeuristic;
+
+/**
+ * A path finder that uses hierarchical A* (HPA*) to find long paths quickly.
+ *
+ * The map is split into square clusters. Where two neighbouring clusters can
+ * be walked between an entrance is placed on each side of the border, and the
+ * cost of moving between every pair of entrances within a cluster is worked
+ * out ahead of time. A query then only searches the small abstract graph of
+ * entrances, before refining each abstract step into tiles with a search that
+ * is limited to a single cluster.
+ *
+ * The abstract graph is built without a mover, so this path finder suits maps
+ * where blocking doesn't depend on the entity moving. When the map changes
+ * call tileChanged(), or register the path finder as a listener on an 
+ * ObservableTileBasedMap - only the clusters around the changed tile are 
+ * rebuilt, and only when the next path is requested. The paths found are close to
+ * optimal but are not guaranteed to be the shortest possible.
+ *
+ * @author agent
+ */
+public class HierarchicalPathFinder implements PathFinder, PathFindingContext, TileChangeListener {
+	/** The default size of each cluster in tiles */
+	public static final int DEFAULT_CLUSTER_SIZE = 16;
+	/** Entrances at least this wide get a transition at both ends rather than one in the middle */
+	private static final int WIDE_ENTRANCE = 6;
+
+	/** The map being searched */
+	private TileBasedMap map;
+	/** The width and height of each cluster in tiles */
+	private int clusterSize;
+	/** The number of clusters across the map */
+	private int clustersAcross;
+	/** The number of clusters down the map */
+	private int clustersDown;
+	/** The clusters the map has been divided into */
+	private Cluster[] clusters;
+	/** True if we allow diaganol movement */
+	private boolean allowDiagMovement;
+	/** The heuristic we're applying to the abstract search */
+	private AStarHeuristic heuristic;
+	/** The path finder used to search within individual clusters */
+	private IndexedAStarPathFinder local;
+	/** True if any cluster needs rebuilding */
+	private boolean dirty;
+	/** The identifier of the current abstract search */
+	private int searchId;
+	/** The open list for the abstract search */
+	private NodeHeap open = new NodeHeap();
+
+	/** The mover going through the path */
+	private Mover mover;
+	/** The x coordinate of the source tile we're moving from */
+	private int sourceX;
+	/** The y coordinate of the source tile we're moving from */
+	private int sourceY;
+
+	/**
+	 * Create a path finder with the default cluster size and heuristic
+	 *
+	 * @param map The map to be searched
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 */
+	public HierarchicalPathFinder(TileBasedMap map, boolean allowDiagMovement) {
+		this(map, DEFAULT_CLUSTER_SIZE, allowDiagMovement, new ClosestHeuristic());
+	}
+
+	/**
+	 * Create a path finder
+	 *
+	 * @param map The map to be searched
+	 * @param clusterSize The width and height of each cluster in tiles
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 * @param heuristic The heuristic used to determine the search order of the map
+	 */
+	public HierarchicalPathFinder(TileBasedMap map, int clusterSize,
+								  boolean allowDiagMovement, AStarHeuristic heuristic) {
+		if (clusterSize < 2) {
+			throw new IllegalArgumentException("Cluster size must be at least 2: "+clusterSize);
+		}
+
+		this.map = map;
+		this.clusterSize = clusterSize;
+		this.allowDiagMovement = allowDiagMovement;
+		this.heuristic = heuristic;
+
+		local = new IndexedAStarPathFinder(map, clusterSize * clusterSize, allowDiagMovement, heuristic);
+
+		clustersAcross = (map.getWidthInTiles() + clusterSize - 1) / clusterSize;
+		clustersDown = (map.getHeightInTiles() + clusterSize - 1) / clusterSize;
+		clusters = new Cluster[clustersAcross * clustersDown];
+		for (int y=0;y<clustersDown;y++) {
+			for (int x=0;x<clustersAcross;x++) {
+				int xp = x * clusterSize;
+				int yp = y * clusterSize;
+				int width = Math.min(clusterSize, map.getWidthInTiles() - xp);
+				int height = Math.min(clusterSize, map.getHeightInTiles() - yp);
+
+				clusters[(y * clustersAcross) + x] = new Cluster(x, y, xp, yp, width, height);
+			}
+		}
+
+		dirty = true;
+		rebuild();
+	}
+
+	/**
+	 * Notification that a tile on the map has changed in a way that might
+	 * effect blocking or cost. The clusters around the tile will be rebuilt
+	 * the next time a path is requested.
+	 *
+	 * @see TileChangeListener#tileChanged(int, int)
+	 */
+	public void tileChanged(int x, int y) {
+		if ((x < 0) || (y < 0) || (x >= map.getWidthInTiles()) || (y >= map.getHeightInTiles())) {
+			return;
+		}
+
+		getCluster(x / clusterSize, y / clusterSize).dirty = true;
+		dirty = true;
+	}
+
+	/**
+	 * Rebuild the abstract graph for any clusters that have been changed since
+	 * the last rebuild. This is called automatically when a path is requested
+	 * but may be called ahead of time to avoid the cost during a query.
+	 */
+	public void rebuild() {
+		if (!dirty) {
+			return;
+		}
+
+		// a changed cluster effects the entrances on all four of its borders
+		// which in turn changes the nodes in the neighbouring clusters
+		for (int i=0;i<clusters.length;i++) {
+			Cluster cluster = clusters[i];
+			if (!cluster.dirty) {
+				continue;
+			}
+
+			cluster.refresh = true;
+			Cluster right = getCluster(cluster.cx + 1, cluster.cy);
+			Cluster below = getCluster(cluster.cx, cluster.cy + 1);
+			Cluster left = getCluster(cluster.cx - 1, cluster.cy);
+			Cluster above = getCluster(cluster.cx, cluster.cy - 1);
+
+			buildEntrances(cluster, right, cluster.east);
+			buildEntrances(cluster, below, cluster.south);
+			if (left != null) {
+				buildEntrances(left, cluster, left.east);
+				left.refresh = true;
+			}
+			if (above != null) {
+				buildEntrances(above, cluster, above.south);
+				above.refresh = true;
+			}
+			if (right != null) {
+				right.refresh = true;
+			}
+			if (below != null) {
+				below.refresh = true;
+			}
+		}
+
+		for (int i=0;i<clusters.length;i++) {
+			Cluster cluster = clusters[i];
+			if (cluster.refresh) {
+				buildIntraEdges(cluster);
+			}
+			cluster.dirty = false;
+			cluster.refresh = false;
+		}
+
+		dirty = false;
+	}
+
+	/**
+	 * Get the cluster at a given location in the cluster grid
+	 *
+	 * @param cx The x coordinate of the cluster
+	 * @param cy The y coordinate of the cluster
+	 * @return The cluster or null if the location is outside the grid
+	 */
+	private Cluster getCluster(int cx, int cy) {
+		if ((cx < 0) || (cy < 0) || (cx >= clustersAcross) || (cy >= clustersDown)) {
+			return null;
+		}
+
+		return clusters[(cy * clustersAcross) + cx];
+	}
+
+	/**
+	 * Get the number of clusters the map has been divided into
+	 *
+	 * @return The number of clusters
+	 */
+	public int getClusterCount() {
+		return clusters.length;
+	}
+
+	/**
+	 * Get the number of nodes in the abstract graph
+	 *
+	 * @return The number of entrance nodes across all clusters
+	 */
+	public int getAbstractNodeCount() {
+		rebuild();
+
+		int count = 0;
+		for (int i=0;i<clusters.length;i++) {
+			count += clusters[i].nodes.size();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Work out the entrances along the border between two clusters, replacing
+	 * any that were there before
+	 *
+	 * @param first The cluster to the left of or above the border
+	 * @param second The cluster to the right of or below the border, or null at the map edge
+	 * @param border The list of nodes recorded for this border
+	 */
+	private void buildEntrances(Cluster first, Cluster second, ArrayList border) {
+		for (int i=0;i<border.size();i++) {
+			AbstractNode node = (AbstractNode) border.get(i);
+			node.cluster.nodes.remove(node);
+		}
+		border.clear();
+
+		if (second == null) {
+			return;
+		}
+
+		boolean vertical = second.cx != first.cx;
+		int length = vertical ? first.height : first.width;
+		int start = -1;
+
+		for (int i=0;i<=length;i++) {
+			boolean passable = (i < length) && isCrossable(first, second, vertical, i, i);
+
+			if (passable) {
+				if (start < 0) {
+					start = i;
+				}
+			} else if (start >= 0) {
+				int end = i - 1;
+				if ((end - start + 1) >= WIDE_ENTRANCE) {
+					addTransition(first, second, vertical, start, start, border);
+					addTransition(first, second, vertical, end, end, border);
+				} else {
+					int mid = (start + end) / 2;
+					addTransition(first, second, vertical, mid, mid, border);
+				}
+				start = -1;
+			}
+		}
+
+		// with diagonal movement the border might only be crossable at an angle
+		// where there's no straight crossing alongside
+		if (allowDiagMovement) {
+			for (int i=0;i<length-1;i++) {
+				if (isCrossable(first, second, vertical, i, i) || isCrossable(first, second, vertical, i+1, i+1)) {
+					continue;
+				}
+				if (isCrossable(first, second, vertical, i, i+1)) {
+					addTransition(first, second, vertical, i, i+1, border);
+				}
+				if (isCrossable(first, second, vertical, i+1, i)) {
+					addTransition(first, second, vertical, i+1, i, border);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check if the border between two clusters can be crossed between the 
+	 * given offsets along it
+	 *
+	 * @param first The cluster to the left of or above the border
+	 * @param second The cluster to the right of or below the border
+	 * @param vertical True if the border runs vertically
+	 * @param firstOffset The offset along the border on the first cluster's side
+	 * @param secondOffset The offset along the border on the second cluster's side
+	 * @return True if the tiles on both sides of the border are passable
+	 */
+	private boolean isCrossable(Cluster first, Cluster second, boolean vertical, int firstOffset, int secondOffset) {
+		int x1 = vertical ? first.x + first.width - 1 : first.x + firstOffset;
+		int y1 = vertical ? first.y + firstOffset : first.y + first.height - 1;
+		int x2 = vertical ? second.x : first.x + secondOffset;
+		int y2 = vertical ? first.y + secondOffset : second.y;
+
+		return !isBlocked(null, x2, y2, x1, y1) && !isBlocked(null, x1, y1, x2, y2);
+	}
+
+	/**
+	 * Add a pair of linked nodes either side of a cluster border
+	 *
+	 * @param first The cluster to the left of or above the border
+	 * @param second The cluster to the right of or below the border
+	 * @param vertical True if the border runs vertically
+	 * @param firstOffset The offset along the border on the first cluster's side
+	 * @param secondOffset The offset along the border on the second cluster's side
+	 * @param border The list of nodes recorded for this border
+	 */
+	private void addTransition(Cluster first, Cluster second, boolean vertical, 
+							   int firstOffset, int secondOffset, ArrayList border) {
+		int x1 = vertical ? first.x + first.width - 1 : first.x + firstOffset;
+		int y1 = vertical ? first.y + firstOffset : first.y + first.height - 1;
+		int x2 = vertical ? second.x : first.x + secondOffset;
+		int y2 = vertical ? first.y + secondOffset : second.y;
+
+		AbstractNode a = new AbstractNode(first, x1, y1);
+		AbstractNode b = new AbstractNode(second, x2, y2);
+		a.edges.add(new Edge(b, getCost(null, x1, y1, x2, y2), false, null));
+		b.edges.add(new Edge(a, getCost(null, x2, y2, x1, y1), false, null));
+
+		first.nodes.add(a);
+		second.nodes.add(b);
+		border.add(a);
+		border.add(b);
+	}
+
+	/**
+	 * Work out the cost of moving between each pair of nodes within a cluster
+	 *
+	 * @param cluster The cluster to rebuild
+	 */
+	private void buildIntraEdges(Cluster cluster) {
+		ArrayList nodes = cluster.nodes;
+		for (int i=0;i<nodes.size();i++) {
+			AbstractNode node = (AbstractNode) nodes.get(i);
+			for (int j=node.edges.size()-1;j>=0;j--) {
+				if (((Edge) node.edges.get(j)).intra) {
+					node.edges.remove(j);
+				}
+			}
+		}
+
+		// one search from each node costs the routes to every other node
+		for (int i=0;i<nodes.size();i++) {
+			AbstractNode a = (AbstractNode) nodes.get(i);
+			exploreLocal(null, cluster, a.x, a.y);
+			
+			for (int j=0;j<nodes.size();j++) {
+				if (i == j) {
+					continue;
+				}
+				
+				AbstractNode b = (AbstractNode) nodes.get(j);
+				float cost = local.getExploredCost(b.x, b.y);
+				if (cost != Float.MAX_VALUE) {
+					a.edges.add(new Edge(b, cost, true, null));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cost every tile reachable from a given location without leaving a cluster
+	 *
+	 * @param mover The entity that will be moving
+	 * @param cluster The cluster to search
+	 * @param sx The x coordinate of the start location
+	 * @param sy The y coordinate of the start location
+	 */
+	private void exploreLocal(Mover mover, Cluster cluster, int sx, int sy) {
+		local.explore(mover, sx, sy, cluster.x, cluster.y,
+					  cluster.x + cluster.width - 1, cluster.y + cluster.height - 1);
+	}
+
+	/**
+	 * Find a path that stays within a single cluster
+	 *
+	 * @param mover The entity that will be moving along the path
+	 * @param cluster The cluster to search
+	 * @param sx The x coordinate of the start location
+	 * @param sy The y coordinate of the start location
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @return The path found or null if there is no path within the cluster
+	 */
+	private Path findLocalPath(Mover mover, Cluster cluster, int sx, int sy, int tx, int ty) {
+		return local.findPath(mover, sx, sy, tx, ty, cluster.x, cluster.y,
+							  cluster.x + cluster.width - 1, cluster.y + cluster.height - 1);
+	}
+
+	/**
+	 * @see PathFinder#findPath(Mover, int, int, int, int)
+	 */
+	public Path findPath(Mover mover, int sx, int sy, int tx, int ty) {
+		rebuild();
+
+		if ((sx == tx) && (sy == ty)) {
+			return null;
+		}
+		if (isBlocked(mover, tx, ty, tx, ty)) {
+			return null;
+		}
+
+		Cluster startCluster = getCluster(sx / clusterSize, sy / clusterSize);
+		Cluster targetCluster = getCluster(tx / clusterSize, ty / clusterSize);
+
+		// if the start and target share a cluster the local search is
+		// nearly always good enough
+		if (startCluster == targetCluster) {
+			Path path = findLocalPath(mover, startCluster, sx, sy, tx, ty);
+			if (path != null) {
+				return path;
+			}
+		}
+
+		AbstractNode start = new AbstractNode(startCluster, sx, sy);
+		AbstractNode target = new AbstractNode(targetCluster, tx, ty);
+
+		// temporarily link the start and target into the abstract graph
+		ArrayList linked = new ArrayList();
+		try {
+			exploreLocal(mover, startCluster, sx, sy);
+			for (int i=0;i<startCluster.nodes.size();i++) {
+				AbstractNode node = (AbstractNode) startCluster.nodes.get(i);
+				Path path = local.getExploredPath(node.x, node.y);
+				if (path != null) {
+					start.edges.add(new Edge(node, local.getExploredCost(node.x, node.y), true, path));
+				}
+			}
+			
+			// the costs into the target are estimated by searching out from
+			// the target, the one route actually used is found properly
+			// when the path is refined
+			exploreLocal(mover, targetCluster, tx, ty);
+			for (int i=0;i<targetCluster.nodes.size();i++) {
+				AbstractNode node = (AbstractNode) targetCluster.nodes.get(i);
+				float cost = local.getExploredCost(node.x, node.y);
+				if (cost != Float.MAX_VALUE) {
+					node.edges.add(new Edge(target, cost, true, null));
+					linked.add(node);
+				}
+			}
+
+			if (!searchAbstract(mover, start, target)) {
+				return null;
+			}
+
+			return refine(mover, start, target);
+		} finally {
+			for (int i=0;i<linked.size();i++) {
+				AbstractNode node = (AbstractNode) linked.get(i);
+				node.edges.remove(node.edges.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * Search the abstract graph for a route between two nodes
+	 *
+	 * @param mover The entity that will be moving along the path
+	 * @param start The node to start from
+	 * @param target The node to reach
+	 * @return True if a route was found
+	 */
+	private boolean searchAbstract(Mover mover, AbstractNode start, AbstractNode target) {
+		searchId++;
+		open.clear();
+
+		start.visit(searchId);
+		start.cost = 0;
+		open.add(start, 0);
+
+		while (open.size() > 0) {
+			AbstractNode current = open.pop();
+			if (current == target) {
+				return true;
+			}
+			current.closed = true;
+
+			for (int i=0;i<current.edges.size();i++) {
+				Edge edge = (Edge) current.edges.get(i);
+				AbstractNode next = edge.target;
+				if (next.searchId != searchId) {
+					next.visit(searchId);
+				} else if (next.closed) {
+					continue;
+				}
+
+				float nextCost = current.cost + edge.cost;
+				if (nextCost < next.cost) {
+					next.cost = nextCost;
+					next.parent = current;
+					next.via = edge;
+
+					float f = nextCost + heuristic.getCost(map, mover, next.x, next.y, target.x, target.y);
+					if (next.heapIndex < 0) {
+						open.add(next, f);
+					} else {
+						open.decrease(next, f);
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Turn a route through the abstract graph into a path across tiles
+	 *
+	 * @param mover The entity that will be moving along the path
+	 * @param start The node the route starts at
+	 * @param target The node the route ends at
+	 * @return The refined path or null if a step could not be refined
+	 */
+	private Path refine(Mover mover, AbstractNode start, AbstractNode target) {
+		ArrayList route = new ArrayList();
+		for (AbstractNode node = target; node != start; node = node.parent) {
+			route.add(node);
+		}
+
+		Path result = new Path();
+		result.appendStep(start.x, start.y);
+
+		AbstractNode from = start;
+		for (int i=route.size()-1;i>=0;i--) {
+			AbstractNode to = (AbstractNode) route.get(i);
+			Edge edge = to.via;
+
+			if ((from.x == to.x) && (from.y == to.y)) {
+				from = to;
+				continue;
+			}
+
+			if (!edge.intra) {
+				result.appendStep(to.x, to.y);
+			} else {
+				Path segment = edge.path;
+				if (segment == null) {
+					segment = findLocalPath(mover, to.cluster, from.x, from.y, to.x, to.y);
+					if (segment == null) {
+						return null;
+					}
+				}
+				for (int j=1;j<segment.getLength();j++) {
+					result.appendStep(segment.getX(j), segment.getY(j));
+				}
+			}
+
+			from = to;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Check if a tile is blocked when moving from a given source
+	 *
+	 * @param mover The entity that is being moved
+	 * @param sx The x coordinate of the tile being moved from
+	 * @param sy The y coordinate of the tile being moved from
+	 * @param x The x coordinate of the tile to check
+	 * @param y The y coordinate of the tile to check
+	 * @return True if the tile is blocked
+	 */
+	private boolean isBlocked(Mover mover, int sx, int sy, int x, int y) {
+		this.mover = mover;
+		this.sourceX = sx;
+		this.sourceY = sy;
+
+		return map.blocked(this, x, y);
+	}
+
+	/**
+	 * Get the cost of moving between two tiles
+	 *
+	 * @param mover The entity that is being moved
+	 * @param sx The x coordinate of the tile being moved from
+	 * @param sy The y coordinate of the tile being moved from
+	 * @param x The x coordinate of the tile being moved to
+	 * @param y The y coordinate of the tile being moved to
+	 * @return The cost of the move
+	 */
+	private float getCost(Mover mover, int sx, int sy, int x, int y) {
+		this.mover = mover;
+		this.sourceX = sx;
+		this.sourceY = sy;
+
+		return map.getCost(this, x, y);
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getMover()
+	 */
+	public Mover getMover() {
+		return mover;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSearchDistance()
+	 */
+	public int getSearchDistance() {
+		return 0;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceX()
+	 */
+	public int getSourceX() {
+		return sourceX;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceY()
+	 */
+	public int getSourceY() {
+		return sourceY;
+	}
+
+	/**
+	 * A square block of the map
+	 *
+	 * @author agent
+	 */
+	private class Cluster {
+		/** The x coordinate of the cluster in the cluster grid */
+		private int cx;
+		/** The y coordinate of the cluster in the cluster grid */
+		private int cy;
+		/** The x coordinate of the top left tile in the cluster */
+		private int x;
+		/** The y coordinate of the top left tile in the cluster */
+		private int y;
+		/** The width of the cluster in tiles */
+		private int width;
+		/** The height of the cluster in tiles */
+		private int height;
+		/** The entrance nodes within this cluster */
+		private ArrayList nodes = new ArrayList();
+		/** The nodes either side of the border with the cluster to the right */
+		private ArrayList east = new ArrayList();
+		/** The nodes either side of the border with the cluster below */
+		private ArrayList south = new ArrayList();
+		/** True if the tiles in this cluster have changed */
+		private boolean dirty;
+		/** True if the edges within this cluster need to be recalculated */
+		private boolean refresh;
+
+		/**
+		 * Create a new cluster
+		 *
+		 * @param cx The x coordinate of the cluster in the cluster grid
+		 * @param cy The y coordinate of the cluster in the cluster grid
+		 * @param x The x coordinate of the top left tile in the cluster
+		 * @param y The y coordinate of the top left tile in the cluster
+		 * @param width The width of the cluster in tiles
+		 * @param height The height of the cluster in tiles
+		 */
+		public Cluster(int cx, int cy, int x, int y, int width, int height) {
+			this.cx = cx;
+			this.cy = cy;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.dirty = true;
+		}
+	}
+
+	/**
+	 * A node in the abstract graph, a tile on the edge of a cluster
+	 *
+	 * @author agent
+	 */
+	private class AbstractNode {
+		/** The cluster this node is within */
+		private Cluster cluster;
+		/** The x coordinate of the tile */
+		private int x;
+		/** The y coordinate of the tile */
+		private int y;
+		/** The edges leading out of this node */
+		private ArrayList edges = new ArrayList();
+
+		/** The identifier of the search that last reached this node */
+		private int searchId;
+		/** The cost of reaching this node in the current search */
+		private float cost;
+		/** The priority of this node in the open list */
+		private float score;
+		/** The node we reached this node from */
+		private AbstractNode parent;
+		/** The edge we reached this node by */
+		private Edge via;
+		/** True if this node has been fully searched */
+		private boolean closed;
+		/** The position of this node in the open heap or -1 if it isn't open */
+		private int heapIndex = -1;
+
+		/**
+		 * Create a new node
+		 *
+		 * @param cluster The cluster this node is within
+		 * @param x The x coordinate of the tile
+		 * @param y The y coordinate of the tile
+		 */
+		public AbstractNode(Cluster cluster, int x, int y) {
+			this.cluster = cluster;
+			this.x = x;
+			this.y = y;
+		}
+
+		/**
+		 * Reset the search state of this node for a new search
+		 *
+		 * @param id The identifier of the new search
+		 */
+		public void visit(int id) {
+			searchId = id;
+			cost = Float.MAX_VALUE;
+			parent = null;
+			via = null;
+			closed = false;
+			heapIndex = -1;
+		}
+	}
+
+	/**
+	 * A connection between two nodes of the abstract graph
+	 *
+	 * @author agent
+	 */
+	private class Edge {
+		/** The node this edge leads to */
+		private AbstractNode target;
+		/** The cost of moving along this edge */
+		private float cost;
+		/** True if this edge stays within a cluster, false if it crosses a border */
+		private boolean intra;
+		/** The path along this edge if it has already been found */
+		private Path path;
+
+		/**
+		 * Create a new edge
+		 *
+		 * @param target The node this edge leads to
+		 * @param cost The cost of moving along this edge
+		 * @param intra True if this edge stays within a cluster
+		 * @param path The path along this edge if it's already known
+		 */
+		public Edge(AbstractNode target, float cost, boolean intra, Path path) {
+			this.target = target;
+			this.cost = cost;
+			this.intra = intra;
+			this.path = path;
+		}
+	}
+
+	/**
+	 * A binary heap of abstract nodes ordered by their score
+	 *
+	 * @author agent
+	 */
+	private class NodeHeap {
+		/** The nodes in the heap */
+		private AbstractNode[] heap = new AbstractNode[64];
+		/** The number of nodes in the heap */
+		private int size;
+
+		/**
+		 * Empty the heap
+		 */
+		public void clear() {
+			for (int i=0;i<size;i++) {
+				heap[i] = null;
+			}
+			size = 0;
+		}
+
+		/**
+		 * Get the number of nodes in the heap
+		 *
+		 * @return The number of nodes in the heap
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Add a node to the heap
+		 *
+		 * @param node The node to add
+		 * @param score The priority of the node
+		 */
+		public void add(AbstractNode node, float score) {
+			if (size == heap.length) {
+				AbstractNode[] grown = new AbstractNode[size * 2];
+				System.arraycopy(heap, 0, grown, 0, size);
+				heap = grown;
+			}
+			node.score = score;
+			heap[size] = node;
+			node.heapIndex = size;
+			size++;
+			up(size - 1);
+		}
+
+		/**
+		 * Lower the score of a node already in the heap
+		 *
+		 * @param node The node to update
+		 * @param score The new priority of the node
+		 */
+		public void decrease(AbstractNode node, float score) {
+			node.score = score;
+			up(node.heapIndex);
+		}
+
+		/**
+		 * Remove the node with the lowest score
+		 *
+		 * @return The node removed
+		 */
+		public AbstractNode pop() {
+			AbstractNode result = heap[0];
+			result.heapIndex = -1;
+			size--;
+			heap[0] = heap[size];
+			heap[size] = null;
+			if (size > 0) {
+				heap[0].heapIndex = 0;
+				down(0);
+			}
+
+			return result;
+		}
+
+		/**
+		 * Move a node up the heap until it's in order
+		 *
+		 * @param pos The position of the node to move
+		 */
+		private void up(int pos) {
+			AbstractNode node = heap[pos];
+			while (pos > 0) {
+				int parent = (pos - 1) >> 1;
+				if (heap[parent].score <= node.score) {
+					break;
+				}
+				heap[pos] = heap[parent];
+				heap[pos].heapIndex = pos;
+				pos = parent;
+			}
+			heap[pos] = node;
+			node.heapIndex = pos;
+		}
+
+		/**
+		 * Move a node down the heap until it's in order
+		 *
+		 * @param pos The position of the node to move
+		 */
+		private void down(int pos) {
+			AbstractNode node = heap[pos];
+			while ((pos << 1) + 1 < size) {
+				int child = (pos << 1) + 1;
+				if ((child + 1 < size) && (heap[child + 1].score < heap[child].score)) {
+					child++;
+				}
+				if (node.score <= heap[child].score) {
+					break;
+				}
+				heap[pos] = heap[child];
+				heap[pos].heapIndex = pos;
+				pos = child;
+			}
+			heap[pos] = node;
+			node.heapIndex = pos;
+		}
+	}
+}
@@ -0,0 +1,426 @@
+package org.newdawn.slick.util.pathfinding;
+
+import org.newdawn.slick.util.pathfinding.heuristics.ClosestHeuristic;
+
+/**
+ * A path finder implementation that uses the AStar heuristic based algorithm
+ * to determine a path. This is a drop in alternative to the AStarPathFinder
+ * intended for large maps.
+ *
+ * The search state is held in flat primitive arrays indexed by tile rather than
+ * in node objects. The open list is a binary heap that supports updating the
+ * priority of a tile in place and the closed list is a bit set. Each tile is
+ * stamped with the generation of the search that last touched it, so a search
+ * only ever initialises the tiles it actually visits - there is no pass over
+ * the whole map at the start of each query.
+ * 
+ * @see TileSearchState
+ *
+ * @author agent
+ */
+public class IndexedAStarPathFinder implements PathFinder, PathFindingContext {
+	/** The value used to indicate no tile */
+	private static final int NONE = TileSearchState.NONE;
+
+	/** The map being searched */
+	private TileBasedMap map;
+	/** The maximum depth of search we're willing to accept before giving up */
+	private int maxSearchDistance;
+	/** True if we allow diaganol movement */
+	private boolean allowDiagMovement;
+	/** The heuristic we're applying to determine which nodes to search first */
+	private AStarHeuristic heuristic;
+	/** The width of the map in tiles */
+	private int width;
+	/** The height of the map in tiles */
+	private int height;
+
+	/** The working state of the search */
+	private TileSearchState state;
+	/** The cost of the last path found */
+	private float pathCost;
+
+	/** The lowest x coordinate the current search may visit */
+	private int minX;
+	/** The lowest y coordinate the current search may visit */
+	private int minY;
+	/** The highest x coordinate the current search may visit */
+	private int maxX;
+	/** The highest y coordinate the current search may visit */
+	private int maxY;
+
+	/** The index of the tile we're currently searching from */
+	private int current = NONE;
+	/** The mover going through the path */
+	private Mover mover;
+	/** The x coordinate of the source tile we're moving from */
+	private int sourceX;
+	/** The y coordinate of the source tile we're moving from */
+	private int sourceY;
+	/** The distance searched so far */
+	private int distance;
+
+	/**
+	 * Create a path finder with the default heuristic - closest to target.
+	 *
+	 * @param map The map to be searched
+	 * @param maxSearchDistance The maximum depth we'll search before giving up
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 */
+	public IndexedAStarPathFinder(TileBasedMap map, int maxSearchDistance, boolean allowDiagMovement) {
+		this(map, maxSearchDistance, allowDiagMovement, new ClosestHeuristic());
+	}
+
+	/**
+	 * Create a path finder
+	 *
+	 * @param heuristic The heuristic used to determine the search order of the map
+	 * @param map The map to be searched
+	 * @param maxSearchDistance The maximum depth we'll search before giving up
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 */
+	public IndexedAStarPathFinder(TileBasedMap map, int maxSearchDistance,
+						   boolean allowDiagMovement, AStarHeuristic heuristic) {
+		this.heuristic = heuristic;
+		this.map = map;
+		this.maxSearchDistance = maxSearchDistance;
+		this.allowDiagMovement = allowDiagMovement;
+
+		width = map.getWidthInTiles();
+		height = map.getHeightInTiles();
+
+		state = new TileSearchState(width, height);
+	}
+
+	/**
+	 * @see PathFinder#findPath(Mover, int, int, int, int)
+	 */
+	public Path findPath(Mover mover, int sx, int sy, int tx, int ty) {
+		return findPath(mover, sx, sy, tx, ty, 0, 0, width - 1, height - 1);
+	}
+
+	/**
+	 * Find a path from the starting location provided (sx,sy) to the target
+	 * location (tx,ty) that stays within the given area of the map. 
+	 * 
+	 * @param mover The entity that will be moving along the path
+	 * @param sx The x coordinate of the start location
+	 * @param sy The y coordinate of the start location
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @param minX The lowest x coordinate the path may pass through
+	 * @param minY The lowest y coordinate the path may pass through
+	 * @param maxX The highest x coordinate the path may pass through
+	 * @param maxY The highest y coordinate the path may pass through
+	 * @return The path found from start to end, or null if no path can be found.
+	 */
+	public Path findPath(Mover mover, int sx, int sy, int tx, int ty, int minX, int minY, int maxX, int maxY) {
+		current = NONE;
+		pathCost = 0;
+		setBounds(minX, minY, maxX, maxY);
+		if ((tx < this.minX) || (ty < this.minY) || (tx > this.maxX) || (ty > this.maxY)) {
+			return null;
+		}
+		// as with AStarPathFinder there's no path to where we already are
+		if ((sx == tx) && (sy == ty)) {
+			return null;
+		}
+
+		// easy first check, if the destination is blocked, we can't get there
+		this.mover = mover;
+		this.sourceX = tx;
+		this.sourceY = ty;
+		this.distance = 0;
+
+		if (map.blocked(this, tx, ty)) {
+			return null;
+		}
+
+		int target = (ty * width) + tx;
+		search(mover, sx, sy, target);
+
+		// since we've got an empty open list or we've run out of search
+		// there was no path. Just return null
+		if (!state.isReached(target)) {
+			return null;
+		}
+
+		pathCost = state.cost[target];
+		return state.buildPath(target);
+	}
+
+	/**
+	 * Search outwards from the given location until every reachable tile within
+	 * the given area has been costed. The results can be read back with 
+	 * getExploredCost() and getExploredPath() until the next search.
+	 * 
+	 * @param mover The entity that will be moving
+	 * @param sx The x coordinate of the start location
+	 * @param sy The y coordinate of the start location
+	 * @param minX The lowest x coordinate the search may pass through
+	 * @param minY The lowest y coordinate the search may pass through
+	 * @param maxX The highest x coordinate the search may pass through
+	 * @param maxY The highest y coordinate the search may pass through
+	 */
+	void explore(Mover mover, int sx, int sy, int minX, int minY, int maxX, int maxY) {
+		current = NONE;
+		pathCost = 0;
+		setBounds(minX, minY, maxX, maxY);
+		
+		search(mover, sx, sy, NONE);
+	}
+	
+	/**
+	 * Get the cost of reaching a tile in the last search
+	 * 
+	 * @param x The x coordinate of the tile
+	 * @param y The y coordinate of the tile
+	 * @return The cost of reaching the tile or Float.MAX_VALUE if it wasn't reached
+	 */
+	float getExploredCost(int x, int y) {
+		int index = (y * width) + x;
+		if (!state.isReached(index)) {
+			return Float.MAX_VALUE;
+		}
+		
+		return state.cost[index];
+	}
+	
+	/**
+	 * Get the path to a tile found in the last search
+	 * 
+	 * @param x The x coordinate of the tile
+	 * @param y The y coordinate of the tile
+	 * @return The path to the tile or null if it wasn't reached
+	 */
+	Path getExploredPath(int x, int y) {
+		int index = (y * width) + x;
+		if (!state.isReached(index)) {
+			return null;
+		}
+		
+		return state.buildPath(index);
+	}
+	
+	/**
+	 * Set the area of the map that the next search may visit
+	 * 
+	 * @param minX The lowest x coordinate the search may pass through
+	 * @param minY The lowest y coordinate the search may pass through
+	 * @param maxX The highest x coordinate the search may pass through
+	 * @param maxY The highest y coordinate the search may pass through
+	 */
+	private void setBounds(int minX, int minY, int maxX, int maxY) {
+		this.minX = Math.max(0, minX);
+		this.minY = Math.max(0, minY);
+		this.maxX = Math.min(width - 1, maxX);
+		this.maxY = Math.min(height - 1, maxY);
+	}
+	
+	/**
+	 * Run the search from a given location
+	 * 
+	 * @param mover The entity that will be moving
+	 * @param sx The x coordinate of the start location
+	 * @param sy The y coordinate of the start location
+	 * @param target The index of the tile to reach or NONE to search every reachable tile
+	 */
+	private void search(Mover mover, int sx, int sy, int target) {
+		int tx = 0;
+		int ty = 0;
+		if (target != NONE) {
+			tx = target % width;
+			ty = target / width;
+		}
+		
+		// start a new generation, any tile stamped with an older generation
+		// is treated as untouched by this search
+		state.start();
+		float[] cost = state.cost;
+		int[] depth = state.depth;
+
+		int start = (sy * width) + sx;
+		state.visit(start);
+		cost[start] = 0;
+		state.open(start, 0);
+
+		int maxDepth = 0;
+		while ((maxDepth < maxSearchDistance) && (state.openSize() != 0)) {
+			current = state.pop();
+			distance = depth[current];
+
+			if (current == target) {
+				break;
+			}
+
+			state.setClosed(current, true);
+
+			int cx = current % width;
+			int cy = current / width;
+
+			// search through all the neighbours of the current node evaluating
+			// them as next steps
+			for (int x=-1;x<2;x++) {
+				for (int y=-1;y<2;y++) {
+					if ((x == 0) && (y == 0)) {
+						continue;
+					}
+					if ((!allowDiagMovement) && (x != 0) && (y != 0)) {
+						continue;
+					}
+
+					int xp = x + cx;
+					int yp = y + cy;
+
+					if (!isValidLocation(mover, cx, cy, xp, yp)) {
+						continue;
+					}
+
+					float nextStepCost = cost[current] + getMovementCost(mover, cx, cy, xp, yp);
+					int neighbour = (yp * width) + xp;
+					map.pathFinderVisited(xp, yp);
+					state.visit(neighbour);
+
+					// only consider the neighbour if we've found a cheaper way
+					// to reach it. If it's already been closed it's reopened
+					// so that it can be re-evaluated
+					if (nextStepCost < cost[neighbour]) {
+						if (state.isClosed(neighbour)) {
+							state.setClosed(neighbour, false);
+						}
+
+						cost[neighbour] = nextStepCost;
+						state.parent[neighbour] = current;
+						depth[neighbour] = depth[current] + 1;
+						maxDepth = Math.max(maxDepth, depth[neighbour]);
+
+						float f = nextStepCost;
+						if (target != NONE) {
+							f += getHeuristicCost(mover, xp, yp, tx, ty);
+						}
+						state.open(neighbour, f);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the total movement cost of the last path found
+	 * 
+	 * @return The cost of the last path found or zero if no path was found
+	 */
+	public float getPathCost() {
+		return pathCost;
+	}
+	
+	/**
+	 * Get the X coordinate of the node currently being evaluated
+	 *
+	 * @return The X coordinate of the node currently being evaluated
+	 */
+	public int getCurrentX() {
+		if (current == NONE) {
+			return -1;
+		}
+
+		return current % width;
+	}
+
+	/**
+	 * Get the Y coordinate of the node currently being evaluated
+	 *
+	 * @return The Y coordinate of the node currently being evaluated
+	 */
+	public int getCurrentY() {
+		if (current == NONE) {
+			return -1;
+		}
+
+		return current / width;
+	}
+
+	/**
+	 * Check if a given location is valid for the supplied mover
+	 *
+	 * @param mover The mover that would hold a given location
+	 * @param sx The starting x coordinate
+	 * @param sy The starting y coordinate
+	 * @param x The x coordinate of the location to check
+	 * @param y The y coordinate of the location to check
+	 * @return True if the location is valid for the given mover
+	 */
+	protected boolean isValidLocation(Mover mover, int sx, int sy, int x, int y) {
+		boolean invalid = (x < minX) || (y < minY) || (x > maxX) || (y > maxY);
+
+		if ((!invalid) && ((sx != x) || (sy != y))) {
+			this.mover = mover;
+			this.sourceX = sx;
+			this.sourceY = sy;
+			invalid = map.blocked(this, x, y);
+		}
+
+		return !invalid;
+	}
+
+	/**
+	 * Get the cost to move through a given location
+	 *
+	 * @param mover The entity that is being moved
+	 * @param sx The x coordinate of the tile whose cost is being determined
+	 * @param sy The y coordiante of the tile whose cost is being determined
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @return The cost of movement through the given tile
+	 */
+	public float getMovementCost(Mover mover, int sx, int sy, int tx, int ty) {
+		this.mover = mover;
+		this.sourceX = sx;
+		this.sourceY = sy;
+
+		return map.getCost(this, tx, ty);
+	}
+
+	/**
+	 * Get the heuristic cost for the given location. This determines in which
+	 * order the locations are processed.
+	 *
+	 * @param mover The entity that is being moved
+	 * @param x The x coordinate of the tile whose cost is being determined
+	 * @param y The y coordiante of the tile whose cost is being determined
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @return The heuristic cost assigned to the tile
+	 */
+	public float getHeuristicCost(Mover mover, int x, int y, int tx, int ty) {
+		return heuristic.getCost(map, mover, x, y, tx, ty);
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getMover()
+	 */
+	public Mover getMover() {
+		return mover;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSearchDistance()
+	 */
+	public int getSearchDistance() {
+		return distance;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceX()
+	 */
+	public int getSourceX() {
+		return sourceX;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceY()
+	 */
+	public int getSourceY() {
+		return sourceY;
+	}
+}
@@ -0,0 +1,545 @@
+package org.newdawn.slick.util.pathfinding;
+
+import org.newdawn.slick.util.pathfinding.heuristics.ClosestHeuristic;
+
+/**
+ * A path finder that uses Jump Point Search to find paths across maps where
+ * every open tile costs the same to move into. Rather than adding each neighbour
+ * of a tile to the open list the search jumps along straight lines, only
+ * stopping at tiles where a wall forces a change of direction. On open maps
+ * this expands a small fraction of the tiles plain A* would.
+ *
+ * The search relies on the cost of a move depending only on its direction, for
+ * instance 1 for straight moves and 1.4 for diagonal ones. On maps where tiles
+ * have differing costs the paths found will be valid but may not be the cheapest.
+ * Blocking is checked through the map with the mover and source tile of each
+ * move as with the AStarPathFinder, and the path returned includes every tile
+ * stepped through.
+ *
+ * @author agent
+ */
+public class JumpPointPathFinder implements PathFinder, PathFindingContext {
+	/** The value used to indicate no tile */
+	private static final int NONE = TileSearchState.NONE;
+
+	/** The map being searched */
+	private TileBasedMap map;
+	/** The maximum depth of search we're willing to accept before giving up */
+	private int maxSearchDistance;
+	/** True if we allow diaganol movement */
+	private boolean allowDiagMovement;
+	/** The heuristic we're applying to determine which nodes to search first */
+	private AStarHeuristic heuristic;
+	/** The width of the map in tiles */
+	private int width;
+	/** The height of the map in tiles */
+	private int height;
+	/** The working state of the search */
+	private TileSearchState state;
+
+	/** The index of the target tile of the current search */
+	private int target;
+	/** The cost of the steps taken by the last jump */
+	private float jumpCost;
+	/** The number of steps taken by the last jump */
+	private int jumpLength;
+
+	/** The index of the tile we're currently searching from */
+	private int current = NONE;
+	/** The mover going through the path */
+	private Mover mover;
+	/** The x coordinate of the source tile we're moving from */
+	private int sourceX;
+	/** The y coordinate of the source tile we're moving from */
+	private int sourceY;
+	/** The distance searched so far */
+	private int distance;
+
+	/**
+	 * Create a path finder with the default heuristic - closest to target.
+	 *
+	 * @param map The map to be searched
+	 * @param maxSearchDistance The maximum depth we'll search before giving up
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 */
+	public JumpPointPathFinder(TileBasedMap map, int maxSearchDistance, boolean allowDiagMovement) {
+		this(map, maxSearchDistance, allowDiagMovement, new ClosestHeuristic());
+	}
+
+	/**
+	 * Create a path finder
+	 *
+	 * @param heuristic The heuristic used to determine the search order of the map
+	 * @param map The map to be searched
+	 * @param maxSearchDistance The maximum depth we'll search before giving up
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 */
+	public JumpPointPathFinder(TileBasedMap map, int maxSearchDistance,
+						   	   boolean allowDiagMovement, AStarHeuristic heuristic) {
+		this.heuristic = heuristic;
+		this.map = map;
+		this.maxSearchDistance = maxSearchDistance;
+		this.allowDiagMovement = allowDiagMovement;
+
+		width = map.getWidthInTiles();
+		height = map.getHeightInTiles();
+		state = new TileSearchState(width, height);
+	}
+
+	/**
+	 * @see PathFinder#findPath(Mover, int, int, int, int)
+	 */
+	public Path findPath(Mover mover, int sx, int sy, int tx, int ty) {
+		current = NONE;
+
+		// as with AStarPathFinder there's no path to where we already are
+		if ((sx == tx) && (sy == ty)) {
+			return null;
+		}
+
+		// easy first check, if the destination is blocked, we can't get there
+		this.mover = mover;
+		this.sourceX = tx;
+		this.sourceY = ty;
+		this.distance = 0;
+
+		if (map.blocked(this, tx, ty)) {
+			return null;
+		}
+
+		state.start();
+		float[] cost = state.cost;
+		int[] depth = state.depth;
+
+		int start = (sy * width) + sx;
+		target = (ty * width) + tx;
+
+		state.visit(start);
+		cost[start] = 0;
+		state.open(start, 0);
+
+		while (state.openSize() != 0) {
+			current = state.pop();
+			distance = depth[current];
+
+			if (current == target) {
+				break;
+			}
+			state.setClosed(current, true);
+
+			int cx = current % width;
+			int cy = current / width;
+			int parent = state.parent[current];
+
+			if (parent == NONE) {
+				// the start can move in any direction
+				for (int x=-1;x<2;x++) {
+					for (int y=-1;y<2;y++) {
+						if ((x != 0) || (y != 0)) {
+							search(cx, cy, x, y, tx, ty);
+						}
+					}
+				}
+			} else {
+				int dx = sign(cx - (parent % width));
+				int dy = sign(cy - (parent / width));
+				searchSuccessors(cx, cy, dx, dy, tx, ty);
+			}
+		}
+
+		if (!state.isReached(target)) {
+			return null;
+		}
+
+		return buildPath(start, target);
+	}
+
+	/**
+	 * Search along the directions that can't be reached more cheaply from the
+	 * tile we arrived from. These are the natural neighbours in the direction
+	 * of travel plus any neighbours forced by walls alongside.
+	 *
+	 * @param x The x coordinate of the tile being expanded
+	 * @param y The y coordinate of the tile being expanded
+	 * @param dx The x direction we arrived in
+	 * @param dy The y direction we arrived in
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 */
+	private void searchSuccessors(int x, int y, int dx, int dy, int tx, int ty) {
+		if (!allowDiagMovement) {
+			if (dx != 0) {
+				search(x, y, dx, 0, tx, ty);
+				search(x, y, 0, 1, tx, ty);
+				search(x, y, 0, -1, tx, ty);
+			} else {
+				search(x, y, 0, dy, tx, ty);
+				search(x, y, 1, 0, tx, ty);
+				search(x, y, -1, 0, tx, ty);
+			}
+			return;
+		}
+
+		if ((dx != 0) && (dy != 0)) {
+			search(x, y, dx, 0, tx, ty);
+			search(x, y, 0, dy, tx, ty);
+			search(x, y, dx, dy, tx, ty);
+			if (!isWalkable(x, y, x - dx, y)) {
+				search(x, y, -dx, dy, tx, ty);
+			}
+			if (!isWalkable(x, y, x, y - dy)) {
+				search(x, y, dx, -dy, tx, ty);
+			}
+		} else if (dx != 0) {
+			search(x, y, dx, 0, tx, ty);
+			if (!isWalkable(x, y, x, y + 1)) {
+				search(x, y, dx, 1, tx, ty);
+			}
+			if (!isWalkable(x, y, x, y - 1)) {
+				search(x, y, dx, -1, tx, ty);
+			}
+		} else {
+			search(x, y, 0, dy, tx, ty);
+			if (!isWalkable(x, y, x + 1, y)) {
+				search(x, y, 1, dy, tx, ty);
+			}
+			if (!isWalkable(x, y, x - 1, y)) {
+				search(x, y, -1, dy, tx, ty);
+			}
+		}
+	}
+
+	/**
+	 * Jump from a tile in the given direction and add the jump point found,
+	 * if any, to the open list
+	 *
+	 * @param x The x coordinate of the tile being expanded
+	 * @param y The y coordinate of the tile being expanded
+	 * @param dx The x direction to jump in
+	 * @param dy The y direction to jump in
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 */
+	private void search(int x, int y, int dx, int dy, int tx, int ty) {
+		if ((!allowDiagMovement) && (dx != 0) && (dy != 0)) {
+			return;
+		}
+
+		int from = (y * width) + x;
+		int next = jump(x, y, dx, dy);
+		if (next == NONE) {
+			return;
+		}
+
+		int nextDepth = state.depth[from] + jumpLength;
+		if (nextDepth > maxSearchDistance) {
+			return;
+		}
+
+		int nx = next % width;
+		int ny = next / width;
+		map.pathFinderVisited(nx, ny);
+
+		float nextCost = state.cost[from] + jumpCost;
+		state.visit(next);
+		if (nextCost < state.cost[next]) {
+			if (state.isClosed(next)) {
+				state.setClosed(next, false);
+			}
+			state.cost[next] = nextCost;
+			state.parent[next] = from;
+			state.depth[next] = nextDepth;
+			state.open(next, nextCost + getHeuristicCost(mover, nx, ny, tx, ty));
+		}
+	}
+
+	/**
+	 * Move from a tile in a given direction until we reach a tile that needs
+	 * to be considered, i.e. the target or a tile with a forced neighbour.
+	 * The cost and length of the jump are recorded.
+	 *
+	 * @param x The x coordinate of the tile to jump from
+	 * @param y The y coordinate of the tile to jump from
+	 * @param dx The x direction to jump in
+	 * @param dy The y direction to jump in
+	 * @return The index of the tile jumped to or NONE if we ran into a wall
+	 */
+	private int jump(int x, int y, int dx, int dy) {
+		jumpCost = 0;
+		jumpLength = 0;
+
+		while (true) {
+			int nx = x + dx;
+			int ny = y + dy;
+			if (!isWalkable(x, y, nx, ny)) {
+				return NONE;
+			}
+
+			jumpCost += getMovementCost(mover, x, y, nx, ny);
+			jumpLength++;
+			x = nx;
+			y = ny;
+
+			int index = (y * width) + x;
+			if ((index == target) || (jumpLength >= maxSearchDistance)) {
+				return index;
+			}
+
+			if (allowDiagMovement) {
+				if ((dx != 0) && (dy != 0)) {
+					if ((!isWalkable(x, y, x - dx, y) && isWalkable(x, y, x - dx, y + dy)) ||
+						(!isWalkable(x, y, x, y - dy) && isWalkable(x, y, x + dx, y - dy))) {
+						return index;
+					}
+					if (scan(x, y, dx, 0) || scan(x, y, 0, dy)) {
+						return index;
+					}
+				} else if (hasForcedNeighbour(x, y, dx, dy)) {
+					return index;
+				}
+			} else {
+				if (dx != 0) {
+					if (hasForcedNeighbour(x, y, dx, dy)) {
+						return index;
+					}
+				} else {
+					// moving vertically we look along each row for anything
+					// that would need us to turn
+					if (hasForcedNeighbour(x, y, dx, dy) || scan(x, y, 1, 0) || scan(x, y, -1, 0)) {
+						return index;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Look along a straight line from a tile for a tile that would stop a jump
+	 *
+	 * @param x The x coordinate of the tile to look from
+	 * @param y The y coordinate of the tile to look from
+	 * @param dx The x direction to look in
+	 * @param dy The y direction to look in
+	 * @return True if a jump in this direction would find a jump point
+	 */
+	private boolean scan(int x, int y, int dx, int dy) {
+		while (true) {
+			int nx = x + dx;
+			int ny = y + dy;
+			if (!isWalkable(x, y, nx, ny)) {
+				return false;
+			}
+			x = nx;
+			y = ny;
+
+			if ((((y * width) + x) == target) || hasForcedNeighbour(x, y, dx, dy)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Check if a tile reached by a straight move has a neighbour that can only
+	 * be reached optimally through it, i.e. a wall alongside has just ended.
+	 *
+	 * @param x The x coordinate of the tile to check
+	 * @param y The y coordinate of the tile to check
+	 * @param dx The x direction of the move
+	 * @param dy The y direction of the move
+	 * @return True if the tile has a forced neighbour
+	 */
+	private boolean hasForcedNeighbour(int x, int y, int dx, int dy) {
+		// the wall check comes first since on open maps it fails quickest
+		if (allowDiagMovement) {
+			if (dx != 0) {
+				return (!isWalkable(x, y, x, y + 1) && isWalkable(x, y, x + dx, y + 1)) ||
+					   (!isWalkable(x, y, x, y - 1) && isWalkable(x, y, x + dx, y - 1));
+			}
+			return (!isWalkable(x, y, x + 1, y) && isWalkable(x, y, x + 1, y + dy)) ||
+				   (!isWalkable(x, y, x - 1, y) && isWalkable(x, y, x - 1, y + dy));
+		}
+
+		if (dx != 0) {
+			return (!isWalkable(x - dx, y, x - dx, y + 1) && isWalkable(x, y, x, y + 1)) ||
+				   (!isWalkable(x - dx, y, x - dx, y - 1) && isWalkable(x, y, x, y - 1));
+		}
+		return (!isWalkable(x, y - dy, x + 1, y - dy) && isWalkable(x, y, x + 1, y)) ||
+			   (!isWalkable(x, y - dy, x - 1, y - dy) && isWalkable(x, y, x - 1, y));
+	}
+
+	/**
+	 * Build the path to the target, filling in the tiles between jump points
+	 *
+	 * @param start The index of the start tile
+	 * @param end The index of the target tile
+	 * @return The path from start to end
+	 */
+	private Path buildPath(int start, int end) {
+		int length = state.depth[end] + 1;
+		int[] steps = new int[length];
+
+		int i = length - 1;
+		int step = end;
+		while (step != start) {
+			int from = state.parent[step];
+			int x = step % width;
+			int y = step / width;
+			int dx = sign((from % width) - x);
+			int dy = sign((from / width) - y);
+
+			while (step != from) {
+				steps[i--] = step;
+				x += dx;
+				y += dy;
+				step = (y * width) + x;
+			}
+		}
+		steps[0] = start;
+
+		Path path = new Path();
+		for (int j=0;j<length;j++) {
+			path.appendStep(steps[j] % width, steps[j] / width);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Get the sign of a value
+	 *
+	 * @param value The value to check
+	 * @return -1, 0 or 1 depending on the sign of the value
+	 */
+	private static int sign(int value) {
+		if (value < 0) {
+			return -1;
+		}
+		if (value > 0) {
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Check if a move from one tile to another is possible
+	 *
+	 * @param sx The x coordinate of the tile being moved from
+	 * @param sy The y coordinate of the tile being moved from
+	 * @param x The x coordinate of the tile being moved to
+	 * @param y The y coordinate of the tile being moved to
+	 * @return True if the tile is on the map and not blocked
+	 */
+	private boolean isWalkable(int sx, int sy, int x, int y) {
+		return isValidLocation(mover, sx, sy, x, y);
+	}
+
+	/**
+	 * Get the X coordinate of the node currently being evaluated
+	 *
+	 * @return The X coordinate of the node currently being evaluated
+	 */
+	public int getCurrentX() {
+		if (current == NONE) {
+			return -1;
+		}
+
+		return current % width;
+	}
+
+	/**
+	 * Get the Y coordinate of the node currently being evaluated
+	 *
+	 * @return The Y coordinate of the node currently being evaluated
+	 */
+	public int getCurrentY() {
+		if (current == NONE) {
+			return -1;
+		}
+
+		return current / width;
+	}
+
+	/**
+	 * Check if a given location is valid for the supplied mover
+	 *
+	 * @param mover The mover that would hold a given location
+	 * @param sx The starting x coordinate
+	 * @param sy The starting y coordinate
+	 * @param x The x coordinate of the location to check
+	 * @param y The y coordinate of the location to check
+	 * @return True if the location is valid for the given mover
+	 */
+	protected boolean isValidLocation(Mover mover, int sx, int sy, int x, int y) {
+		boolean invalid = (x < 0) || (y < 0) || (x >= width) || (y >= height);
+
+		if ((!invalid) && ((sx != x) || (sy != y))) {
+			this.mover = mover;
+			this.sourceX = sx;
+			this.sourceY = sy;
+			invalid = map.blocked(this, x, y);
+		}
+
+		return !invalid;
+	}
+
+	/**
+	 * Get the cost to move through a given location
+	 *
+	 * @param mover The entity that is being moved
+	 * @param sx The x coordinate of the tile whose cost is being determined
+	 * @param sy The y coordiante of the tile whose cost is being determined
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @return The cost of movement through the given tile
+	 */
+	public float getMovementCost(Mover mover, int sx, int sy, int tx, int ty) {
+		this.mover = mover;
+		this.sourceX = sx;
+		this.sourceY = sy;
+
+		return map.getCost(this, tx, ty);
+	}
+
+	/**
+	 * Get the heuristic cost for the given location. This determines in which
+	 * order the locations are processed.
+	 *
+	 * @param mover The entity that is being moved
+	 * @param x The x coordinate of the tile whose cost is being determined
+	 * @param y The y coordiante of the tile whose cost is being determined
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @return The heuristic cost assigned to the tile
+	 */
+	public float getHeuristicCost(Mover mover, int x, int y, int tx, int ty) {
+		return heuristic.getCost(map, mover, x, y, tx, ty);
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getMover()
+	 */
+	public Mover getMover() {
+		return mover;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSearchDistance()
+	 */
+	public int getSearchDistance() {
+		return distance;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceX()
+	 */
+	public int getSourceX() {
+		return sourceX;
+	}
+
+	/**
+	 * @see org.newdawn.slick.util.pathfinding.PathFindingContext#getSourceY()
+	 */
+	public int getSourceY() {
+		return sourceY;
+	}
+}
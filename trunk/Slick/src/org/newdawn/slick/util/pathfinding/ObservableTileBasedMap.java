@@ -0,0 +1,27 @@
+package org.newdawn.slick.util.pathfinding;
+
+/**
+ * A tile based map that will notify listeners when its tiles change. Maps 
+ * implementing this allow path finders that cache data about the map to 
+ * keep themselves up to date. 
+ * 
+ * Implementations should call tileChanged() on each listener whenever a 
+ * change to a tile might effect blocked() or getCost().
+ * 
+ * @author agent
+ */
+public interface ObservableTileBasedMap extends TileBasedMap {
+	/**
+	 * Add a listener to be notified of changes to tiles
+	 * 
+	 * @param listener The listener to be notified
+	 */
+	public void addTileChangeListener(TileChangeListener listener);
+
+	/**
+	 * Remove a listener so it's no longer notified of changes to tiles
+	 * 
+	 * @param listener The listener to remove
+	 */
+	public void removeTileChangeListener(TileChangeListener listener);
+}
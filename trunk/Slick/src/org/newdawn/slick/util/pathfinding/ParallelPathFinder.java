@@ -0,0 +1,243 @@
+package org.newdawn.slick.util.pathfinding;
+
+import java.util.List;
+
+import org.newdawn.slick.util.pathfinding.heuristics.ClosestHeuristic;
+
+/**
+ * A path finder that can be shared between threads and can spread a batch of
+ * requests across a pool of worker threads.
+ *
+ * Each thread searching gets its own IndexedAStarPathFinder, and so its own
+ * search state, over the one shared map. The map must therefore be safe to
+ * read from several threads at once - blocked(), getCost() and pathFinderVisited()
+ * may be called concurrently while a batch is being processed, and the map
+ * shouldn't be changed until the batch completes. Since each request is searched
+ * independently the paths found are the same as processing the batch one
+ * request at a time.
+ *
+ * @author agent
+ */
+public class ParallelPathFinder implements PathFinder {
+	/** The map being searched */
+	private TileBasedMap map;
+	/** The maximum depth of search we're willing to accept before giving up */
+	private int maxSearchDistance;
+	/** True if we allow diaganol movement */
+	private boolean allowDiagMovement;
+	/** The heuristic we're applying to determine which nodes to search first */
+	private AStarHeuristic heuristic;
+
+	/** The path finder, and so search state, for each thread */
+	private ThreadLocal finders = new ThreadLocal() {
+		protected Object initialValue() {
+			return new IndexedAStarPathFinder(map, maxSearchDistance, allowDiagMovement, heuristic);
+		}
+	};
+
+	/** The worker threads sharing batches with the caller */
+	private Worker[] workers;
+	/** The lock guarding the batch state */
+	private Object lock = new Object();
+	/** The lock ensuring only one batch is processed at a time */
+	private Object batchLock = new Object();
+	/** The batch of requests currently being processed */
+	private List batch;
+	/** The index of the next request in the batch to be claimed */
+	private int next;
+	/** The number of requests in the batch not yet completed */
+	private int remaining;
+	/** The first failure while processing the current batch */
+	private RuntimeException failure;
+	/** True if the workers have been asked to stop */
+	private boolean shutdown;
+
+	/**
+	 * Create a path finder with the default heuristic that uses a worker
+	 * for each available processor.
+	 *
+	 * @param map The map to be searched
+	 * @param maxSearchDistance The maximum depth we'll search before giving up
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 */
+	public ParallelPathFinder(TileBasedMap map, int maxSearchDistance, boolean allowDiagMovement) {
+		this(map, maxSearchDistance, allowDiagMovement, new ClosestHeuristic(),
+			 Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a path finder
+	 *
+	 * @param map The map to be searched
+	 * @param maxSearchDistance The maximum depth we'll search before giving up
+	 * @param allowDiagMovement True if the search should try diaganol movement
+	 * @param heuristic The heuristic used to determine the search order of the map. This
+	 * will be shared between threads.
+	 * @param threads The number of threads to search with, including the thread
+	 * requesting the batch
+	 */
+	public ParallelPathFinder(TileBasedMap map, int maxSearchDistance,
+							  boolean allowDiagMovement, AStarHeuristic heuristic, int threads) {
+		this.map = map;
+		this.maxSearchDistance = maxSearchDistance;
+		this.allowDiagMovement = allowDiagMovement;
+		this.heuristic = heuristic;
+
+		workers = new Worker[Math.max(0, threads - 1)];
+		for (int i=0;i<workers.length;i++) {
+			workers[i] = new Worker(i);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Find a path using the search state of the calling thread. This may be
+	 * called from any number of threads at once.
+	 *
+	 * @see PathFinder#findPath(Mover, int, int, int, int)
+	 */
+	public Path findPath(Mover mover, int sx, int sy, int tx, int ty) {
+		return getFinder().findPath(mover, sx, sy, tx, ty);
+	}
+
+	/**
+	 * Find the paths for a batch of requests, sharing the work between the
+	 * worker threads and the calling thread. This method returns once every
+	 * request in the batch has its path recorded.
+	 *
+	 * @param requests The list of PathRequest objects to be processed
+	 */
+	public void findPaths(List requests) {
+		if (requests.size() == 0) {
+			return;
+		}
+
+		synchronized (batchLock) {
+			synchronized (lock) {
+				if (shutdown) {
+					throw new IllegalStateException("Path finder has been shutdown");
+				}
+				batch = requests;
+				next = 0;
+				remaining = requests.size();
+				failure = null;
+				lock.notifyAll();
+			}
+
+			processBatch();
+
+			RuntimeException e;
+			synchronized (lock) {
+				while (remaining > 0) {
+					try {
+						lock.wait();
+					} catch (InterruptedException ex) {
+						// keep waiting, the workers are still using the batch
+					}
+				}
+				batch = null;
+				e = failure;
+				failure = null;
+			}
+
+			if (e != null) {
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Stop the worker threads. Batches can't be processed after this but
+	 * single paths can still be found.
+	 */
+	public void shutdown() {
+		synchronized (lock) {
+			shutdown = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Get the path finder for the calling thread
+	 *
+	 * @return The path finder for the calling thread
+	 */
+	private IndexedAStarPathFinder getFinder() {
+		return (IndexedAStarPathFinder) finders.get();
+	}
+
+	/**
+	 * Claim and process requests from the current batch until there are none left
+	 */
+	private void processBatch() {
+		IndexedAStarPathFinder finder = getFinder();
+
+		while (true) {
+			PathRequest request;
+			synchronized (lock) {
+				if ((batch == null) || (next >= batch.size())) {
+					return;
+				}
+				request = (PathRequest) batch.get(next++);
+			}
+
+			try {
+				request.setPath(finder.findPath(request.getMover(),
+												request.getStartX(), request.getStartY(),
+												request.getTargetX(), request.getTargetY()));
+			} catch (RuntimeException e) {
+				synchronized (lock) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			} finally {
+				synchronized (lock) {
+					remaining--;
+					if (remaining == 0) {
+						lock.notifyAll();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A thread that helps process batches of requests
+	 *
+	 * @author agent
+	 */
+	private class Worker extends Thread {
+		/**
+		 * Create a new worker
+		 *
+		 * @param index The index of the worker, used to name the thread
+		 */
+		public Worker(int index) {
+			super("PathFinder Worker "+index);
+			setDaemon(true);
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		public void run() {
+			while (true) {
+				synchronized (lock) {
+					while ((!shutdown) && ((batch == null) || (next >= batch.size()))) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							// just check for work again
+						}
+					}
+					if (shutdown) {
+						return;
+					}
+				}
+
+				processBatch();
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.newdawn.slick.util.pathfinding;
+
+/**
+ * A single request for a path to be found as part of a batch. Once the batch
+ * has been processed the path found, if any, can be retrieved from the request.
+ *
+ * @see ParallelPathFinder#findPaths(java.util.List)
+ * @author agent
+ */
+public class PathRequest {
+	/** The entity that will be moving along the path */
+	private Mover mover;
+	/** The x coordinate of the start location */
+	private int sx;
+	/** The y coordinate of the start location */
+	private int sy;
+	/** The x coordinate of the target location */
+	private int tx;
+	/** The y coordinate of the target location */
+	private int ty;
+	/** The path found or null if no path could be found */
+	private Path path;
+
+	/**
+	 * Create a new request for a path
+	 *
+	 * @param mover The entity that will be moving along the path
+	 * @param sx The x coordinate of the start location
+	 * @param sy The y coordinate of the start location
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 */
+	public PathRequest(Mover mover, int sx, int sy, int tx, int ty) {
+		this.mover = mover;
+		this.sx = sx;
+		this.sy = sy;
+		this.tx = tx;
+		this.ty = ty;
+	}
+
+	/**
+	 * Get the entity that will be moving along the path
+	 *
+	 * @return The entity that will be moving along the path
+	 */
+	public Mover getMover() {
+		return mover;
+	}
+
+	/**
+	 * Get the x coordinate of the start location
+	 *
+	 * @return The x coordinate of the start location
+	 */
+	public int getStartX() {
+		return sx;
+	}
+
+	/**
+	 * Get the y coordinate of the start location
+	 *
+	 * @return The y coordinate of the start location
+	 */
+	public int getStartY() {
+		return sy;
+	}
+
+	/**
+	 * Get the x coordinate of the target location
+	 *
+	 * @return The x coordinate of the target location
+	 */
+	public int getTargetX() {
+		return tx;
+	}
+
+	/**
+	 * Get the y coordinate of the target location
+	 *
+	 * @return The y coordinate of the target location
+	 */
+	public int getTargetY() {
+		return ty;
+	}
+
+	/**
+	 * Get the path found for this request
+	 *
+	 * @return The path found or null if no path could be found or the
+	 * request hasn't been processed
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Record the path found for this request
+	 *
+	 * @param path The path found or null if no path could be found
+	 */
+	void setPath(Path path) {
+		this.path = path;
+	}
+}
@@ -0,0 +1,20 @@
+package org.newdawn.slick.util.pathfinding;
+
+/**
+ * The description of any class needing to recieve notification of changes
+ * to the tiles of a map being searched, for instance path finders that hold
+ * data derived from the map.
+ *
+ * @see ObservableTileBasedMap
+ * @author agent
+ */
+public interface TileChangeListener {
+	/**
+	 * Notification that a tile has changed in a way that might effect
+	 * blocking or movement cost
+	 * 
+	 * @param x The x coordinate of the tile that changed
+	 * @param y The y coordinate of the tile that changed
+	 */
+	public void tileChanged(int x, int y);
+}
@@ -0,0 +1,282 @@
+package org.newdawn.slick.util.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * The working state of a search across a tile map. The state for each tile
+ * is held in flat arrays indexed by (y * width) + x. The open list is a binary
+ * heap of tile indices that supports updating the priority of a tile in place
+ * and the closed list is a bit set.
+ *
+ * Each tile is stamped with the generation of the search that last touched it
+ * so starting a new search doesn't require a pass over the whole map - tiles
+ * with an old stamp are simply treated as unvisited.
+ *
+ * @author agent
+ */
+class TileSearchState {
+	/** The value used to indicate no tile */
+	static final int NONE = -1;
+
+	/** The width of the map in tiles */
+	final int width;
+	/** The height of the map in tiles */
+	final int height;
+
+	/** The path cost to reach each tile */
+	final float[] cost;
+	/** The index of the tile we reached each tile from */
+	final int[] parent;
+	/** The search depth of each tile */
+	final int[] depth;
+
+	/** The priority of each tile in the open heap */
+	private float[] score;
+	/** The generation of the search that last initialised each tile */
+	private int[] stamp;
+	/** The position of each tile in the open heap or NONE if it isn't open */
+	private int[] heapIndex;
+	/** The bit set of tiles in the closed list */
+	private int[] closed;
+	/** The open list as a binary heap of tile indices */
+	private int[] heap;
+	/** The number of tiles in the open heap */
+	private int heapSize;
+	/** The generation of the current search */
+	private int generation;
+
+	/**
+	 * Create the search state for a map of the given size
+	 *
+	 * @param width The width of the map in tiles
+	 * @param height The height of the map in tiles
+	 */
+	TileSearchState(int width, int height) {
+		this.width = width;
+		this.height = height;
+
+		int size = width * height;
+		cost = new float[size];
+		parent = new int[size];
+		depth = new int[size];
+		score = new float[size];
+		stamp = new int[size];
+		heapIndex = new int[size];
+		closed = new int[(size + 31) >> 5];
+		heap = new int[size];
+	}
+
+	/**
+	 * Start a new search. Any tile touched by an earlier search is treated
+	 * as unvisited from now on.
+	 */
+	void start() {
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+		heapSize = 0;
+	}
+
+	/**
+	 * Check if a tile has been touched by the current search
+	 *
+	 * @param index The index of the tile to check
+	 * @return True if the tile has been touched by the current search
+	 */
+	boolean isVisited(int index) {
+		return stamp[index] == generation;
+	}
+
+	/**
+	 * Initialise the state of a tile if it hasn't been touched by the
+	 * current search yet
+	 *
+	 * @param index The index of the tile to initialise
+	 */
+	void visit(int index) {
+		if (stamp[index] == generation) {
+			return;
+		}
+
+		stamp[index] = generation;
+		cost[index] = Float.MAX_VALUE;
+		parent[index] = NONE;
+		depth[index] = 0;
+		heapIndex[index] = NONE;
+		setClosed(index, false);
+	}
+
+	/**
+	 * Check if the current search reached a given tile
+	 *
+	 * @param index The index of the tile to check
+	 * @return True if the tile was reached
+	 */
+	boolean isReached(int index) {
+		return (stamp[index] == generation) && (cost[index] != Float.MAX_VALUE);
+	}
+
+	/**
+	 * Check if a tile is in the closed list
+	 *
+	 * @param index The index of the tile to check
+	 * @return True if the tile is in the closed list
+	 */
+	boolean isClosed(int index) {
+		return (closed[index >> 5] & (1 << (index & 31))) != 0;
+	}
+
+	/**
+	 * Indicate whether a tile is in the closed list
+	 *
+	 * @param index The index of the tile to update
+	 * @param value True if the tile is in the closed list
+	 */
+	void setClosed(int index, boolean value) {
+		if (value) {
+			closed[index >> 5] |= 1 << (index & 31);
+		} else {
+			closed[index >> 5] &= ~(1 << (index & 31));
+		}
+	}
+
+	/**
+	 * Check if a tile is in the open heap
+	 *
+	 * @param index The index of the tile to check
+	 * @return True if the tile is in the open heap
+	 */
+	boolean isOpen(int index) {
+		return heapIndex[index] != NONE;
+	}
+
+	/**
+	 * Get the number of tiles in the open heap
+	 *
+	 * @return The number of tiles in the open heap
+	 */
+	int openSize() {
+		return heapSize;
+	}
+
+	/**
+	 * Add a tile to the open heap, or lower its priority if it's already there
+	 *
+	 * @param index The index of the tile to add
+	 * @param f The priority of the tile
+	 */
+	void open(int index, float f) {
+		score[index] = f;
+		if (heapIndex[index] == NONE) {
+			heap[heapSize] = index;
+			heapIndex[index] = heapSize;
+			heapSize++;
+			siftUp(heapSize - 1);
+		} else {
+			siftUp(heapIndex[index]);
+		}
+	}
+
+	/**
+	 * Remove the tile with the lowest priority from the open heap
+	 *
+	 * @return The index of the tile removed
+	 */
+	int pop() {
+		int result = heap[0];
+		heapIndex[result] = NONE;
+		heapSize--;
+
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapIndex[heap[0]] = 0;
+			siftDown(0);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Move the entry at the given heap position up until the heap is ordered
+	 *
+	 * @param pos The position in the heap to move up from
+	 */
+	private void siftUp(int pos) {
+		int index = heap[pos];
+		float f = score[index];
+
+		while (pos > 0) {
+			int up = (pos - 1) >> 1;
+			int other = heap[up];
+			if (score[other] <= f) {
+				break;
+			}
+			heap[pos] = other;
+			heapIndex[other] = pos;
+			pos = up;
+		}
+
+		heap[pos] = index;
+		heapIndex[index] = pos;
+	}
+
+	/**
+	 * Move the entry at the given heap position down until the heap is ordered
+	 *
+	 * @param pos The position in the heap to move down from
+	 */
+	private void siftDown(int pos) {
+		int index = heap[pos];
+		float f = score[index];
+		int half = heapSize >> 1;
+
+		while (pos < half) {
+			int child = (pos << 1) + 1;
+			int right = child + 1;
+			if ((right < heapSize) && (score[heap[right]] < score[heap[child]])) {
+				child = right;
+			}
+			int other = heap[child];
+			if (f <= score[other]) {
+				break;
+			}
+			heap[pos] = other;
+			heapIndex[other] = pos;
+			pos = child;
+		}
+
+		heap[pos] = index;
+		heapIndex[index] = pos;
+	}
+
+	/**
+	 * Build the path to a tile by following the parent links back to
+	 * the start of the search
+	 *
+	 * @param target The index of the tile the path should lead to
+	 * @return The path to the given tile
+	 */
+	Path buildPath(int target) {
+		int length = 1;
+		for (int step = target; parent[step] != NONE; step = parent[step]) {
+			length++;
+		}
+
+		// walk back along the parent links recording the steps in reverse
+		int[] steps = new int[length];
+		int step = target;
+		for (int i=length-1;i>=0;i--) {
+			steps[i] = step;
+			step = parent[step];
+		}
+
+		Path path = new Path();
+		for (int i=0;i<length;i++) {
+			path.appendStep(steps[i] % width, steps[i] / width);
+		}
+
+		return path;
+	}
+}
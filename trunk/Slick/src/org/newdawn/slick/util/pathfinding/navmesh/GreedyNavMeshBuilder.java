@@ -0,0 +1,199 @@
+package org.newdawn.slick.util.pathfinding.navmesh;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.newdawn.slick.util.pathfinding.Mover;
+import org.newdawn.slick.util.pathfinding.PathFindingContext;
+import org.newdawn.slick.util.pathfinding.TileBasedMap;
+
+/**
+ * A builder that converts a tile based map into a navigation mesh in time
+ * roughly proportional to the number of tiles, making it suitable for large maps
+ * where NavMeshBuilder's pairwise merging and linking become too slow.
+ *
+ * Spaces are created by scanning the map in rows and growing a rectangle from
+ * each unclaimed open tile, first as far right as possible and then down as far as
+ * the whole row remains open. The tile each space claims is recorded so spaces can
+ * be linked by checking only the tiles around their edges. The spaces produced
+ * differ from NavMeshBuilder's but link up in the same way, including spaces that
+ * only meet at a corner.
+ *
+ * @author agent
+ */
+public class GreedyNavMeshBuilder implements PathFindingContext {
+	/** The value used to mark tiles not claimed by any space */
+	private static final int NONE = -1;
+
+	/** The current x position we're checking */
+	private int sx;
+	/** The current y position we're checking */
+	private int sy;
+
+	/**
+	 * Build a navigation mesh based on a tile map
+	 *
+	 * @param map The map to build the navigation mesh from
+	 * @return The newly created navigation mesh
+	 */
+	public NavMesh build(TileBasedMap map) {
+		int width = map.getWidthInTiles();
+		int height = map.getHeightInTiles();
+
+		// the space claiming each tile, NONE for unclaimed and blocked tiles
+		int[] owner = new int[width * height];
+		boolean[] open = new boolean[width * height];
+		for (int y=0;y<height;y++) {
+			for (int x=0;x<width;x++) {
+				sx = x;
+				sy = y;
+				open[(y*width)+x] = !map.blocked(this, x, y);
+				owner[(y*width)+x] = NONE;
+			}
+		}
+
+		ArrayList spaces = new ArrayList();
+		for (int y=0;y<height;y++) {
+			for (int x=0;x<width;x++) {
+				int tile = (y*width)+x;
+				if ((!open[tile]) || (owner[tile] != NONE)) {
+					continue;
+				}
+
+				int right = x+1;
+				while ((right < width) && (open[tile+right-x]) && (owner[tile+right-x] == NONE)) {
+					right++;
+				}
+				int bottom = y+1;
+				while ((bottom < height) && (isRowFree(open, owner, width, x, right, bottom))) {
+					bottom++;
+				}
+
+				int id = spaces.size();
+				for (int yp=y;yp<bottom;yp++) {
+					for (int xp=x;xp<right;xp++) {
+						owner[(yp*width)+xp] = id;
+					}
+				}
+				spaces.add(new Space(x, y, right-x, bottom-y));
+			}
+		}
+
+		linkSpaces(spaces, owner, width, height);
+
+		return new NavMesh(spaces);
+	}
+
+	/**
+	 * Check if part of a row is open and not yet claimed by a space
+	 *
+	 * @param open The open state of each tile
+	 * @param owner The space claiming each tile
+	 * @param width The width of the map in tiles
+	 * @param x1 The x coordinate of the first tile to check
+	 * @param x2 The x coordinate after the last tile to check
+	 * @param y The y coordinate of the row to check
+	 * @return True if all the tiles are free to be claimed
+	 */
+	private boolean isRowFree(boolean[] open, int[] owner, int width, int x1, int x2, int y) {
+		for (int x=x1;x<x2;x++) {
+			int tile = (y*width)+x;
+			if ((!open[tile]) || (owner[tile] != NONE)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Determine the links between spaces. Each space checks the tiles along its
+	 * right and bottom edges, including the corners, which between them find
+	 * every space it touches on one side or the other.
+	 *
+	 * @param spaces The spaces to link up
+	 * @param owner The space claiming each tile
+	 * @param width The width of the map in tiles
+	 * @param height The height of the map in tiles
+	 */
+	private void linkSpaces(ArrayList spaces, int[] owner, int width, int height) {
+		HashSet linked = new HashSet();
+
+		for (int i=0;i<spaces.size();i++) {
+			Space space = (Space) spaces.get(i);
+			int x = (int) space.getX();
+			int y = (int) space.getY();
+			int right = x + (int) space.getWidth();
+			int bottom = y + (int) space.getHeight();
+
+			if (right < width) {
+				for (int yp=Math.max(0, y-1);yp<=Math.min(height-1, bottom);yp++) {
+					link(spaces, linked, i, owner[(yp*width)+right]);
+				}
+			}
+			if (bottom < height) {
+				for (int xp=Math.max(0, x-1);xp<right;xp++) {
+					link(spaces, linked, i, owner[(bottom*width)+xp]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Link two spaces together if they haven't been already
+	 *
+	 * @param spaces The spaces being linked
+	 * @param linked The pairs of spaces already linked
+	 * @param a The index of the first space
+	 * @param b The index of the second space or NONE
+	 */
+	private void link(ArrayList spaces, HashSet linked, int a, int b) {
+		if ((b == NONE) || (b == a)) {
+			return;
+		}
+
+		long key = (((long) Math.min(a, b)) << 32) | Math.max(a, b);
+		if (linked.add(new Long(key))) {
+			Space first = (Space) spaces.get(a);
+			Space second = (Space) spaces.get(b);
+			first.link(second);
+			second.link(first);
+		}
+	}
+
+	/**
+	 * Path finding context implementation
+	 *
+	 * @return The current mover
+	 */
+	public Mover getMover() {
+		return null;
+	}
+
+	/**
+	 * Path finding context implementation
+	 *
+	 * @return The current search distance
+	 */
+	public int getSearchDistance() {
+		return 0;
+	}
+
+	/**
+	 * Path finding context implementation
+	 *
+	 * @return The current x location
+	 */
+	public int getSourceX() {
+		return sx;
+	}
+
+	/**
+	 * Path finding context implementation
+	 *
+	 * @return The current y location
+	 */
+	public int getSourceY() {
+		return sy;
+	}
+}
@@ -1,12 +1,16 @@
 package org.newdawn.slick.util.pathfinding.navmesh;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * A nav-mesh is a set of shapes that describe the navigation of a map. These
  * shapes are linked together allow path finding but without the high
  * resolution that tile maps require. This leads to fast path finding and 
  * potentially much more accurate map definition.
+ * 
+ * Paths may be found from several threads at once as long as the mesh isn't
+ * changed while they're being found.
  *  
  * @author kevin
  *
@@ -14,6 +18,16 @@ import java.util.ArrayList;
 public class NavMesh {
 	/** The list of spaces that build up this navigation mesh */
 	private ArrayList spaces = new ArrayList();
+	/** The position of each space (Integer) in the list of spaces, keyed on the space */
+	private HashMap positions = new HashMap();
+	/** The index used to locate spaces, null if it needs rebuilding */
+	private SpaceIndex index;
+	/** The search context used by each thread finding paths on this mesh */
+	private ThreadLocal searches = new ThreadLocal() {
+		protected Object initialValue() {
+			return new NavMeshSearch();
+		}
+	};
 	
 	/**
 	 * Create a new empty mesh
@@ -28,7 +42,9 @@ public class NavMesh {
 	 * @param spaces The spaces included in the mesh
 	 */
 	public NavMesh(ArrayList spaces) {
-		this.spaces.addAll(spaces);
+		for (int i=0;i<spaces.size();i++) {
+			addSpace((Space) spaces.get(i));
+		}
 	}
 	
 	/**
@@ -56,29 +72,49 @@ public class NavMesh {
 	 * @param space The space to be added
 	 */
 	public void addSpace(Space space) {
+		positions.put(space, new Integer(spaces.size()));
 		spaces.add(space);
+		index = null;
+	}
+	
+	/**
+	 * Get the position of a space within this mesh
+	 * 
+	 * @param space The space to locate
+	 * @return The index of the space in this mesh or -1 if it isn't part of this mesh
+	 */
+	int indexOf(Space space) {
+		Integer position = (Integer) positions.get(space);
+		if (position == null) {
+			return -1;
+		}
+		
+		return position.intValue();
 	}
 	
 	/**
-	 * Find the space at a given location
+	 * Find the space at a given location. The spaces are indexed on first use
+	 * so this doesn't need to check every space in the mesh.
 	 * 
 	 * @param x The x coordinate at which to find the space 
 	 * @param y The y coordinate at which to find the space 
 	 * @return The space at the given location
 	 */
 	public Space findSpace(float x, float y) {
-		for (int i=0;i<spaces.size();i++) {
-			Space space = getSpace(i);
-			if (space.contains(x,y)) {
-				return space;
-			}
+		// read the field once, threads racing to build the index will
+		// each build an identical one
+		SpaceIndex current = index;
+		if (current == null) {
+			current = new SpaceIndex(spaces);
+			index = current;
 		}
 		
-		return null;
+		return current.findSpace(x, y);
 	}
 	
 	/**
-	 * Find a path from the source to the target coordinates 
+	 * Find a path from the source to the target coordinates. The search
+	 * context of the calling thread is used.
 	 * 
 	 * @param sx The x coordinate of the source location
 	 * @param sy The y coordinate of the source location 
@@ -88,89 +124,24 @@ public class NavMesh {
 	 * @return The path between the two spaces
 	 */
 	public NavPath findPath(float sx, float sy, float tx, float ty, boolean optimize) {
-		Space source = findSpace(sx,sy);
-		Space target = findSpace(tx,ty);
-		
-		if ((source == null) || (target == null)) {
-			return null;
-		}
-		
-		for (int i=0;i<spaces.size();i++) {
-			((Space) spaces.get(i)).clearCost();
-		}
-		target.fill(source,tx, ty, 0);
-		if (target.getCost() == Float.MAX_VALUE) {
-			return null;
-		}
-		if (source.getCost() == Float.MAX_VALUE) {
-			return null;
-		}
-		
-		NavPath path = new NavPath();
-		path.push(new Link(sx, sy, null));
-		if (source.pickLowestCost(target, path)) {
-			path.push(new Link(tx, ty, null));
-			if (optimize) {
-				optimize(path);
-			}
-			return path;
-		}
-		
-		return null;
-	}
-	
-	/**
-	 * Check if a particular path is clear
-	 * 
-	 * @param x1 The x coordinate of the starting point
-	 * @param y1 The y coordinate of the starting point
-	 * @param x2 The x coordinate of the ending point
-	 * @param y2 The y coordinate of the ending point
-	 * @param step The size of the step between points
-	 * @return True if there are no blockages along the path
-	 */
-	private boolean isClear(float x1, float y1, float x2, float y2, float step) {
-		float dx = (x2 - x1);
-		float dy = (y2 - y1);
-		float len = (float) Math.sqrt((dx*dx)+(dy*dy));
-		dx *= step;
-		dx /= len;
-		dy *= step;
-		dy /= len;
-		int steps = (int) (len / step);
-		
-		for (int i=0;i<steps;i++) {
-			float x = x1 + (dx*i);
-			float y = y1 + (dy*i);
-			
-			if (findSpace(x,y) == null) {
-				return false;
-			}
-		}
-		
-		return true;
+		return findPath(sx, sy, tx, ty, optimize, (NavMeshSearch) searches.get());
 	}
 	
 	/**
-	 * Optimize a path by removing segments that arn't required
-	 * to reach the end point
+	 * Find a path from the source to the target coordinates. The spaces are
+	 * searched with A*, heading for the target location, and if optimized the path
+	 * is pulled tight through the edges between the spaces so it only turns at
+	 * corners.
 	 * 
-	 * @param path The path to optimize. Redundant segments will be removed
+	 * @param sx The x coordinate of the source location
+	 * @param sy The y coordinate of the source location 
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @param optimize True if paths should be optimized
+	 * @param search The search context to use, which mustn't be in use by another thread
+	 * @return The path between the two spaces
 	 */
-	private void optimize(NavPath path) {
-		int pt = 0;
-		
-		while (pt < path.length()-2) {
-			float sx = path.getX(pt);
-			float sy = path.getY(pt);
-			float nx = path.getX(pt+2);
-			float ny = path.getY(pt+2);
-			
-			if (isClear(sx,sy,nx,ny,0.1f)) {
-				path.remove(pt+1);
-			} else {
-				pt++;
-			}
-		}
+	public NavPath findPath(float sx, float sy, float tx, float ty, boolean optimize, NavMeshSearch search) {
+		return search.findPath(this, sx, sy, tx, ty, optimize);
 	}
 }
@@ -0,0 +1,422 @@
+package org.newdawn.slick.util.pathfinding.navmesh;
+
+/**
+ * The working state of a search across a navigation mesh. The state is kept
+ * between searches and only grows when a larger mesh is searched, so apart from
+ * the path returned a search doesn't allocate anything.
+ *
+ * A context may only be used by one search at a time, but any number of searches
+ * may run across the same mesh at once as long as each has its own context and the
+ * mesh isn't changed while they run.
+ *
+ * @see NavMesh#findPath(float, float, float, float, boolean, NavMeshSearch)
+ * @author agent
+ */
+public class NavMeshSearch {
+	/** The value used to indicate no space */
+	private static final int NONE = -1;
+
+	/** The generation of the search in progress, used to detect stale state */
+	private int generation;
+	/** The generation in which each space's state was last initialised */
+	private int[] stamp = new int[0];
+	/** True if the space has been closed in the current search */
+	private boolean[] closed = new boolean[0];
+	/** The cost of reaching each space's entry point */
+	private float[] cost = new float[0];
+	/** The estimated total cost of a path through each space, used to order the open list */
+	private float[] score = new float[0];
+	/** The x coordinate of the point at which each space is entered */
+	private float[] entryX = new float[0];
+	/** The y coordinate of the point at which each space is entered */
+	private float[] entryY = new float[0];
+	/** The space each space is reached from */
+	private int[] parent = new int[0];
+	/** The link each space is reached through */
+	private Link[] via = new Link[0];
+
+	/** The open list as a binary heap of space indices ordered by score */
+	private int[] heap = new int[0];
+	/** The position of each space in the heap or NONE if it isn't open */
+	private int[] heapIndex = new int[0];
+	/** The number of spaces in the open list */
+	private int heapSize;
+
+	/** The spaces on the route found, from source to target */
+	private int[] route = new int[0];
+	/** The x coordinate of the left end of each portal along the route */
+	private float[] leftX = new float[0];
+	/** The y coordinate of the left end of each portal along the route */
+	private float[] leftY = new float[0];
+	/** The x coordinate of the right end of each portal along the route */
+	private float[] rightX = new float[0];
+	/** The y coordinate of the right end of each portal along the route */
+	private float[] rightY = new float[0];
+
+	/**
+	 * Create a new search context
+	 */
+	public NavMeshSearch() {
+	}
+
+	/**
+	 * Find a path from the source to the target coordinates
+	 *
+	 * @param mesh The mesh to search
+	 * @param sx The x coordinate of the source location
+	 * @param sy The y coordinate of the source location
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @param optimize True if the path should be pulled tight around corners
+	 * @return The path between the two locations or null if there isn't one
+	 */
+	NavPath findPath(NavMesh mesh, float sx, float sy, float tx, float ty, boolean optimize) {
+		Space source = mesh.findSpace(sx, sy);
+		Space target = mesh.findSpace(tx, ty);
+
+		if ((source == null) || (target == null)) {
+			return null;
+		}
+
+		ensureCapacity(mesh.getSpaceCount());
+		start();
+
+		int goal = mesh.indexOf(target);
+		int first = mesh.indexOf(source);
+		visit(first);
+		cost[first] = 0;
+		entryX[first] = sx;
+		entryY[first] = sy;
+		open(first, distance(sx, sy, tx, ty));
+
+		boolean found = false;
+		while (heapSize != 0) {
+			int current = pop();
+			closed[current] = true;
+			if (current == goal) {
+				found = true;
+				break;
+			}
+
+			Space space = mesh.getSpace(current);
+			for (int i=0;i<space.getLinkCount();i++) {
+				Link link = space.getLink(i);
+				int next = mesh.indexOf(link.getTarget());
+				if (next == NONE) {
+					continue;
+				}
+				visit(next);
+				if (closed[next]) {
+					continue;
+				}
+
+				float nextCost = cost[current] + distance(entryX[current], entryY[current], link.getX(), link.getY());
+				if (nextCost < cost[next]) {
+					cost[next] = nextCost;
+					parent[next] = current;
+					via[next] = link;
+					entryX[next] = link.getX();
+					entryY[next] = link.getY();
+					open(next, nextCost + distance(link.getX(), link.getY(), tx, ty));
+				}
+			}
+		}
+
+		if (!found) {
+			return null;
+		}
+
+		int length = 0;
+		for (int index=goal;index!=NONE;index=parent[index]) {
+			length++;
+		}
+		int step = length;
+		for (int index=goal;index!=NONE;index=parent[index]) {
+			route[--step] = index;
+		}
+
+		NavPath path = new NavPath();
+		path.push(new Link(sx, sy, null));
+		if (optimize) {
+			pullString(mesh, length, sx, sy, tx, ty, path);
+		} else {
+			for (int i=1;i<length;i++) {
+				path.push(via[route[i]]);
+			}
+		}
+		path.push(new Link(tx, ty, null));
+
+		return path;
+	}
+
+	/**
+	 * Pull the path found tight by running a funnel through the portals
+	 * between the spaces on the route. Only the corners the path must turn
+	 * at are added to the path, the start and end points are not added.
+	 *
+	 * @param mesh The mesh being searched
+	 * @param length The number of spaces on the route
+	 * @param sx The x coordinate of the source location
+	 * @param sy The y coordinate of the source location
+	 * @param tx The x coordinate of the target location
+	 * @param ty The y coordinate of the target location
+	 * @param path The path to add the corners to
+	 */
+	private void pullString(NavMesh mesh, int length, float sx, float sy, float tx, float ty, NavPath path) {
+		// portal 0 is the start point and the last portal is the target point
+		setPortal(0, sx, sy, sx, sy);
+		for (int i=1;i<length;i++) {
+			Space from = mesh.getSpace(route[i-1]);
+			Space to = mesh.getSpace(route[i]);
+
+			float left = Math.max(from.getX(), to.getX());
+			float right = Math.min(from.getX()+from.getWidth(), to.getX()+to.getWidth());
+			float top = Math.max(from.getY(), to.getY());
+			float bottom = Math.min(from.getY()+from.getHeight(), to.getY()+to.getHeight());
+
+			// order the ends of the portal by which side of the direction of travel they're on
+			float cx = from.getX() + (from.getWidth() / 2);
+			float cy = from.getY() + (from.getHeight() / 2);
+			if (area(cx, cy, left, top, right, bottom) > 0) {
+				setPortal(i, left, top, right, bottom);
+			} else {
+				setPortal(i, right, bottom, left, top);
+			}
+		}
+		setPortal(length, tx, ty, tx, ty);
+
+		float apexX = sx;
+		float apexY = sy;
+		float portalLeftX = sx;
+		float portalLeftY = sy;
+		float portalRightX = sx;
+		float portalRightY = sy;
+		int apexIndex = 0;
+		int leftIndex = 0;
+		int rightIndex = 0;
+
+		for (int i=1;i<=length;i++) {
+			// try to narrow the funnel from the right
+			if (area(apexX, apexY, portalRightX, portalRightY, rightX[i], rightY[i]) <= 0) {
+				if (((apexX == portalRightX) && (apexY == portalRightY)) ||
+					(area(apexX, apexY, portalLeftX, portalLeftY, rightX[i], rightY[i]) > 0)) {
+					portalRightX = rightX[i];
+					portalRightY = rightY[i];
+					rightIndex = i;
+				} else {
+					// the right side crossed the left, so the left is a corner
+					apexX = portalLeftX;
+					apexY = portalLeftY;
+					apexIndex = leftIndex;
+					if (apexIndex == length) {
+						// the target itself, which is added by the caller
+						break;
+					}
+					path.push(new Link(apexX, apexY, mesh.getSpace(route[apexIndex])));
+
+					portalRightX = apexX;
+					portalRightY = apexY;
+					rightIndex = apexIndex;
+					i = apexIndex;
+					continue;
+				}
+			}
+
+			// try to narrow the funnel from the left
+			if (area(apexX, apexY, portalLeftX, portalLeftY, leftX[i], leftY[i]) >= 0) {
+				if (((apexX == portalLeftX) && (apexY == portalLeftY)) ||
+					(area(apexX, apexY, portalRightX, portalRightY, leftX[i], leftY[i]) < 0)) {
+					portalLeftX = leftX[i];
+					portalLeftY = leftY[i];
+					leftIndex = i;
+				} else {
+					// the left side crossed the right, so the right is a corner
+					apexX = portalRightX;
+					apexY = portalRightY;
+					apexIndex = rightIndex;
+					if (apexIndex == length) {
+						// the target itself, which is added by the caller
+						break;
+					}
+					path.push(new Link(apexX, apexY, mesh.getSpace(route[apexIndex])));
+
+					portalLeftX = apexX;
+					portalLeftY = apexY;
+					leftIndex = apexIndex;
+					i = apexIndex;
+					continue;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record the ends of a portal along the route
+	 *
+	 * @param i The index of the portal
+	 * @param lx The x coordinate of the left end
+	 * @param ly The y coordinate of the left end
+	 * @param rx The x coordinate of the right end
+	 * @param ry The y coordinate of the right end
+	 */
+	private void setPortal(int i, float lx, float ly, float rx, float ry) {
+		leftX[i] = lx;
+		leftY[i] = ly;
+		rightX[i] = rx;
+		rightY[i] = ry;
+	}
+
+	/**
+	 * Get twice the signed area of a triangle, which gives which side of the
+	 * line from the first point through the second the third point is on
+	 *
+	 * @param ax The x coordinate of the first point
+	 * @param ay The y coordinate of the first point
+	 * @param bx The x coordinate of the second point
+	 * @param by The y coordinate of the second point
+	 * @param cx The x coordinate of the third point
+	 * @param cy The y coordinate of the third point
+	 * @return Twice the signed area of the triangle
+	 */
+	private float area(float ax, float ay, float bx, float by, float cx, float cy) {
+		return ((cx - ax) * (by - ay)) - ((bx - ax) * (cy - ay));
+	}
+
+	/**
+	 * Get the distance between two points
+	 *
+	 * @param x1 The x coordinate of the first point
+	 * @param y1 The y coordinate of the first point
+	 * @param x2 The x coordinate of the second point
+	 * @param y2 The y coordinate of the second point
+	 * @return The distance between the points
+	 */
+	private float distance(float x1, float y1, float x2, float y2) {
+		float dx = x2 - x1;
+		float dy = y2 - y1;
+
+		return (float) Math.sqrt((dx*dx) + (dy*dy));
+	}
+
+	/**
+	 * Make sure the state can hold a mesh with the given number of spaces
+	 *
+	 * @param size The number of spaces in the mesh being searched
+	 */
+	private void ensureCapacity(int size) {
+		if (stamp.length >= size) {
+			return;
+		}
+
+		stamp = new int[size];
+		closed = new boolean[size];
+		cost = new float[size];
+		score = new float[size];
+		entryX = new float[size];
+		entryY = new float[size];
+		parent = new int[size];
+		via = new Link[size];
+		heap = new int[size];
+		heapIndex = new int[size];
+		route = new int[size];
+		leftX = new float[size+1];
+		leftY = new float[size+1];
+		rightX = new float[size+1];
+		rightY = new float[size+1];
+		generation = 0;
+	}
+
+	/**
+	 * Start a new search, making the state of every space stale
+	 */
+	private void start() {
+		generation++;
+		if (generation == Integer.MAX_VALUE) {
+			for (int i=0;i<stamp.length;i++) {
+				stamp[i] = 0;
+			}
+			generation = 1;
+		}
+		heapSize = 0;
+	}
+
+	/**
+	 * Initialise the state of a space if it hasn't been seen in this search
+	 *
+	 * @param index The index of the space to visit
+	 */
+	private void visit(int index) {
+		if (stamp[index] != generation) {
+			stamp[index] = generation;
+			closed[index] = false;
+			cost[index] = Float.MAX_VALUE;
+			parent[index] = NONE;
+			via[index] = null;
+			heapIndex[index] = NONE;
+		}
+	}
+
+	/**
+	 * Add a space to the open list or move it up the list if its score has
+	 * improved
+	 *
+	 * @param index The index of the space
+	 * @param f The estimated total cost of a path through the space
+	 */
+	private void open(int index, float f) {
+		score[index] = f;
+		int pos = heapIndex[index];
+		if (pos == NONE) {
+			pos = heapSize++;
+		}
+
+		while (pos > 0) {
+			int up = (pos - 1) >> 1;
+			if (score[heap[up]] <= f) {
+				break;
+			}
+			heap[pos] = heap[up];
+			heapIndex[heap[pos]] = pos;
+			pos = up;
+		}
+		heap[pos] = index;
+		heapIndex[index] = pos;
+	}
+
+	/**
+	 * Remove the space with the lowest score from the open list
+	 *
+	 * @return The index of the space removed
+	 */
+	private int pop() {
+		int top = heap[0];
+		heapIndex[top] = NONE;
+
+		int last = heap[--heapSize];
+		if (heapSize == 0) {
+			return top;
+		}
+
+		float f = score[last];
+		int pos = 0;
+		while (true) {
+			int child = (pos << 1) + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if ((child + 1 < heapSize) && (score[heap[child+1]] < score[heap[child]])) {
+				child++;
+			}
+			if (score[heap[child]] >= f) {
+				break;
+			}
+			heap[pos] = heap[child];
+			heapIndex[heap[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = last;
+		heapIndex[last] = pos;
+
+		return top;
+	}
+}
@@ -22,8 +22,6 @@ public class Space {
 	private HashMap links = new HashMap();
 	/** A list of the links from this space to others */
 	private ArrayList linksList = new ArrayList();
-	/** The cost to get to this node */
-	private float cost;
 	
 	/**
 	 * Create a new space 
@@ -240,74 +238,6 @@ public class Space {
 		return (xp >= x) && (xp < x+width) && (yp >= y) && (yp < y+height);
 	}
 	
-	/**
-	 * Fill the spaces based on the cost from a given starting point
-	 * 
-	 * @param target The target space we're heading for
-	 * @param sx The x coordinate of the starting point
-	 * @param sy The y coordinate of the starting point
-	 * @param cost The cost up to this point
-	 */
-	public void fill(Space target, float sx, float sy, float cost) {
-		if (cost >= this.cost) {
-			return;
-		}
-		this.cost = cost;
-		if (target == this) {
-			return;
-		}
-		
-		for (int i=0;i<getLinkCount();i++) {
-			Link link = getLink(i);
-			float extraCost = link.distance2(sx,sy);
-			float nextCost = cost + extraCost;
-			link.getTarget().fill(target, link.getX(), link.getY(), nextCost);
-		}
-	}
-	
-	/**
-	 * Clear the costing values across the whole map
-	 */
-	public void clearCost() {
-		cost = Float.MAX_VALUE;
-	}
-
-	/**
-	 * Get the cost to get to this node at the moment
-	 * 
-	 * @return The cost to get to this node
-	 */
-	public float getCost() {
-		return cost;
-	}
-
-	/**
-	 * Pick the lowest cost route from this space to another on the path
-	 *  
-	 * @param target The target space we're looking for
-	 * @param path The path to add the steps to
-	 * @return True if the path was found
-	 */
-	public boolean pickLowestCost(Space target, NavPath path) {
-		if (target == this) {
-			return true;
-		}
-		if (links.size() == 0) {
-			return false;
-		}
-
-		Link bestLink = null;	
-		for (int i=0;i<getLinkCount();i++) {
-			Link link = getLink(i);
-			if ((bestLink == null) || (link.getTarget().getCost() < bestLink.getTarget().getCost())) {
-				bestLink = link;
-			}
-		}
-		
-		path.push(bestLink);
-		return bestLink.getTarget().pickLowestCost(target, path);
-	}
-	
 	/**
 	 * Get the string representation of this instance
 	 * 
@@ -0,0 +1,155 @@
+package org.newdawn.slick.util.pathfinding.navmesh;
+
+import java.util.ArrayList;
+
+/**
+ * A uniform grid over the spaces of a nav-mesh used to quickly find the space
+ * at a given location. Each cell of the grid holds the spaces that overlap it, so
+ * locating a point only needs to check the few spaces in one cell rather than
+ * every space in the mesh.
+ *
+ * The index is a snapshot of the spaces given, it must be rebuilt if the spaces
+ * change. Once built it is never modified so may be shared between threads.
+ *
+ * @author agent
+ */
+class SpaceIndex {
+	/** The most cells we'll create for each space indexed */
+	private static final int CELLS_PER_SPACE = 4;
+
+	/** The x coordinate of the left edge of the grid */
+	private final float minX;
+	/** The y coordinate of the top edge of the grid */
+	private final float minY;
+	/** The size of each cell */
+	private final float cellSize;
+	/** The number of cells across the grid */
+	private final int columns;
+	/** The number of cells down the grid */
+	private final int rows;
+	/** The spaces overlapping each cell, null for empty cells */
+	private final Space[][] cells;
+
+	/**
+	 * Create a new index over a set of spaces
+	 *
+	 * @param spaces The list of spaces to be indexed
+	 */
+	public SpaceIndex(ArrayList spaces) {
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+		float area = 0;
+
+		for (int i=0;i<spaces.size();i++) {
+			Space space = (Space) spaces.get(i);
+			minX = Math.min(minX, space.getX());
+			minY = Math.min(minY, space.getY());
+			maxX = Math.max(maxX, space.getX()+space.getWidth());
+			maxY = Math.max(maxY, space.getY()+space.getHeight());
+			area += space.getWidth() * space.getHeight();
+		}
+
+		// size the cells like the average space, but never so small that the
+		// grid has far more cells than there are spaces
+		int count = Math.max(1, spaces.size());
+		float width = Math.max(maxX - minX, 0.0001f);
+		float height = Math.max(maxY - minY, 0.0001f);
+		float size = (float) Math.sqrt(area / count);
+		float smallest = (float) Math.sqrt((width * height) / (count * CELLS_PER_SPACE));
+
+		this.minX = minX;
+		this.minY = minY;
+		cellSize = Math.max(Math.max(size, smallest), 0.0001f);
+		columns = Math.max(1, (int) Math.ceil(width / cellSize));
+		rows = Math.max(1, (int) Math.ceil(height / cellSize));
+
+		// count the spaces in each cell first so each cell's array can be sized exactly
+		int[] counts = new int[columns * rows];
+		for (int i=0;i<spaces.size();i++) {
+			Space space = (Space) spaces.get(i);
+			int x1 = getColumn(space.getX());
+			int y1 = getRow(space.getY());
+			int x2 = getColumn(space.getX()+space.getWidth());
+			int y2 = getRow(space.getY()+space.getHeight());
+
+			for (int y=y1;y<=y2;y++) {
+				for (int x=x1;x<=x2;x++) {
+					counts[(y*columns)+x]++;
+				}
+			}
+		}
+
+		cells = new Space[columns * rows][];
+		for (int i=0;i<cells.length;i++) {
+			if (counts[i] != 0) {
+				cells[i] = new Space[counts[i]];
+				counts[i] = 0;
+			}
+		}
+
+		for (int i=0;i<spaces.size();i++) {
+			Space space = (Space) spaces.get(i);
+			int x1 = getColumn(space.getX());
+			int y1 = getRow(space.getY());
+			int x2 = getColumn(space.getX()+space.getWidth());
+			int y2 = getRow(space.getY()+space.getHeight());
+
+			for (int y=y1;y<=y2;y++) {
+				for (int x=x1;x<=x2;x++) {
+					int cell = (y*columns)+x;
+					cells[cell][counts[cell]++] = space;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the column of the grid containing a given x coordinate
+	 *
+	 * @param x The x coordinate to locate
+	 * @return The column containing the coordinate, clamped to the grid
+	 */
+	private int getColumn(float x) {
+		int column = (int) ((x - minX) / cellSize);
+		return Math.max(0, Math.min(columns-1, column));
+	}
+
+	/**
+	 * Get the row of the grid containing a given y coordinate
+	 *
+	 * @param y The y coordinate to locate
+	 * @return The row containing the coordinate, clamped to the grid
+	 */
+	private int getRow(float y) {
+		int row = (int) ((y - minY) / cellSize);
+		return Math.max(0, Math.min(rows-1, row));
+	}
+
+	/**
+	 * Find the space at a given location
+	 *
+	 * @param x The x coordinate at which to find the space
+	 * @param y The y coordinate at which to find the space
+	 * @return The space at the given location or null if there isn't one
+	 */
+	public Space findSpace(float x, float y) {
+		if ((x < minX) || (y < minY)) {
+			return null;
+		}
+
+		Space[] cell = cells[(getRow(y)*columns)+getColumn(x)];
+		if (cell == null) {
+			return null;
+		}
+
+		for (int i=0;i<cell.length;i++) {
+			if (cell[i].contains(x, y)) {
+				return cell[i];
+			}
+		}
+
+		return null;
+	}
+}
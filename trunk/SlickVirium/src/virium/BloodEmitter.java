@@ -1,6 +1,7 @@
 package virium;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import org.newdawn.slick.particles.Particle;
 import org.newdawn.slick.particles.ParticleEmitter;
@@ -13,6 +14,7 @@ import org.newdawn.slick.particles.ParticleSystem;
  */
 public class BloodEmitter implements ParticleEmitter {
 	private ArrayList newSplats = new ArrayList();
+	private Random random = new Random(1);
 	
 	public void addSplat(float x, float y) {
 		newSplats.add(new Splat(x,y));
@@ -57,26 +59,26 @@ public class BloodEmitter implements ParticleEmitter {
 			for (int i=0;i<3;i++) {
 				Particle p = system.getNewParticle(BloodEmitter.this, 5000);
 				p.setType(1);
-				float dx = (float) (Math.random() * 2) - 1;
-				float dy = (float) (Math.random() * 2) - 1;
-				float dis = (float) (Math.random() * 15);
-				float size = (float) ((Math.random() * 15) + 15);
+				float dx = (random.nextFloat() * 2) - 1;
+				float dy = (random.nextFloat() * 2) - 1;
+				float dis = (random.nextFloat() * 15);
+				float size = ((random.nextFloat() * 15) + 15);
 				
 				p.setPosition(x + (dis * dx), y + (dis * dy));
 				p.setSize(size);
-				p.setColor(((float) Math.random()*0.3f)+0.3f,0,0,0.3f);
+				p.setColor((random.nextFloat()*0.3f)+0.3f,0,0,0.3f);
 			}
 			for (int i=0;i<10;i++) {
 				Particle p = system.getNewParticle(BloodEmitter.this, 500);
-				float dx = (float) (Math.random() * 2) - 1;
-				float dy = (float) (Math.random() * 2) - 1;
-				float dis = (float) (Math.random() * 5);
-				float speed = (float) (Math.random() * 0.06f);
-				float size = (float) ((Math.random() * 10) + 15);
+				float dx = (random.nextFloat() * 2) - 1;
+				float dy = (random.nextFloat() * 2) - 1;
+				float dis = (random.nextFloat() * 5);
+				float speed = (random.nextFloat() * 0.06f);
+				float size = ((random.nextFloat() * 10) + 15);
 				
 				p.setPosition(x + (dis * dx), y + (dis * dy));
 				p.setSize(size);
-				p.setColor(((float) Math.random()*0.6f) + 0.4f,0,0,1);
+				p.setColor((random.nextFloat()*0.6f) + 0.4f,0,0,1);
 				p.setVelocity(dx,dy,speed);
 			}
 		}